@@ -0,0 +1,90 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Connection used by benchmarks. It's only counting received data and never has anything to write.
+ * 
+ * @author agent
+ */
+public class BenchmarkConnection extends AConnection
+{
+	/**
+	 * Number of bytes received.
+	 */
+	public long	received;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param sc
+	 * @param d
+	 * @throws IOException
+	 */
+	public BenchmarkConnection(SocketChannel sc, Dispatcher d) throws IOException
+	{
+		super(sc, d);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean processData(ByteBuffer data)
+	{
+		received += data.remaining();
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean writeData(ByteBuffer data)
+	{
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected long getDisconnectionDelay()
+	{
+		return 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void onDisconnect()
+	{
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void onServerClose()
+	{
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loopback sockets for benchmarks that need real connections. Server side channels are non-blocking and may be used
+ * to construct AConnection. Dispatchers created here are never started, so benchmark thread is the only one touching
+ * connections.
+ * 
+ * @author agent
+ */
+public class BenchmarkSockets
+{
+	/**
+	 * Listening socket.
+	 */
+	private final ServerSocketChannel	server;
+
+	/**
+	 * All opened channels [both sides].
+	 */
+	private final List<SocketChannel>	channels	= new ArrayList<SocketChannel>();
+
+	/**
+	 * Open listening socket on loopback interface.
+	 * 
+	 * @throws IOException
+	 */
+	public BenchmarkSockets() throws IOException
+	{
+		server = ServerSocketChannel.open();
+		server.socket().bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+	}
+
+	/**
+	 * Connect new client and return server side of this connection.
+	 * 
+	 * @return non-blocking server side channel
+	 * @throws IOException
+	 */
+	public SocketChannel connect() throws IOException
+	{
+		SocketChannel client = SocketChannel.open(server.socket().getLocalSocketAddress());
+		SocketChannel sc = server.accept();
+		sc.configureBlocking(false);
+		channels.add(client);
+		channels.add(sc);
+		return sc;
+	}
+
+	/**
+	 * Create Dispatcher that may be used for connections registration.
+	 * 
+	 * @return not started dispatcher
+	 * @throws IOException
+	 */
+	public Dispatcher newDispatcher() throws IOException
+	{
+		return new AcceptReadWriteDispatcherImpl("Benchmark", null);
+	}
+
+	/**
+	 * Frame packets exactly as aion client does: 2 bytes little endian length [including itself] and body.
+	 * 
+	 * @param buf
+	 *            buffer packets will be written to
+	 * @param body
+	 *            packet body
+	 * @param count
+	 *            how many times body should be written
+	 */
+	public static void frame(ByteBuffer buf, byte[] body, int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			buf.putShort((short) (body.length + 2));
+			buf.put(body);
+		}
+	}
+
+	/**
+	 * Close all channels.
+	 */
+	public void close()
+	{
+		for (SocketChannel sc : channels)
+		{
+			try
+			{
+				sc.close();
+			}
+			catch (IOException e)
+			{
+				// we dont care
+			}
+		}
+		channels.clear();
+
+		try
+		{
+			server.close();
+		}
+		catch (IOException e)
+		{
+			// we dont care
+		}
+	}
+}
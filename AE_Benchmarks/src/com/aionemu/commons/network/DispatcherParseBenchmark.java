@@ -0,0 +1,140 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Framing cost of <code>Dispatcher.parse</code>: read buffer filled with many client packets is split into packets
+ * the same way as <code>Dispatcher.read</code> does. Result is per packet.
+ * 
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DispatcherParseBenchmark
+{
+	/**
+	 * Number of packets in read buffer.
+	 */
+	private static final int	PACKETS	= 64;
+
+	/**
+	 * Size of packet body.
+	 */
+	@Param( { "8", "64", "200" })
+	public int					size;
+
+	/**
+	 * Should direct buffer be used [read buffers are leased from direct pool].
+	 */
+	@Param( { "true", "false" })
+	public boolean				direct;
+
+	/**
+	 * Loopback sockets.
+	 */
+	private BenchmarkSockets	sockets;
+
+	/**
+	 * Dispatcher that is parsing.
+	 */
+	private Dispatcher			dispatcher;
+
+	/**
+	 * Connection receiving packets.
+	 */
+	private BenchmarkConnection	con;
+
+	/**
+	 * Read buffer with framed packets.
+	 */
+	private ByteBuffer			rb;
+
+	/**
+	 * Number of framed bytes in read buffer.
+	 */
+	private int					length;
+
+	/**
+	 * Open connection and frame packets.
+	 * 
+	 * @throws IOException
+	 */
+	@Setup
+	public void setup() throws IOException
+	{
+		sockets = new BenchmarkSockets();
+		dispatcher = sockets.newDispatcher();
+		con = new BenchmarkConnection(sockets.connect(), dispatcher);
+
+		byte[] body = new byte[size];
+		new Random(size).nextBytes(body);
+
+		rb = direct ? ByteBuffer.allocateDirect(AConnection.BUFFER_SIZE) : ByteBuffer.allocate(AConnection.BUFFER_SIZE);
+		rb.order(ByteOrder.LITTLE_ENDIAN);
+		BenchmarkSockets.frame(rb, body, PACKETS);
+		length = rb.position();
+	}
+
+	/**
+	 * Close connection.
+	 * 
+	 * @throws IOException
+	 */
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		dispatcher.selector().close();
+		sockets.close();
+	}
+
+	/**
+	 * Parse whole read buffer.
+	 * 
+	 * @return number of bytes given to connection
+	 */
+	@Benchmark
+	@OperationsPerInvocation(PACKETS)
+	public long parse()
+	{
+		rb.clear();
+		rb.limit(length);
+		while (rb.remaining() > 2 && rb.remaining() >= rb.getShort(rb.position()))
+		{
+			if (!dispatcher.parse(con, rb))
+				throw new IllegalStateException("Parse failed");
+		}
+		return con.received;
+	}
+}
@@ -0,0 +1,233 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.aionemu.commons.network.packet.BaseClientPacket;
+
+/**
+ * Enqueue / dequeue contention of packet executors. Several threads [like several dispatchers] are submitting batches
+ * of packets of shared connections and wait until whole batch was executed. Result is per packet.
+ * 
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PacketProcessorBenchmark
+{
+	/**
+	 * Number of packets submitted by one invocation.
+	 */
+	private static final int				BATCH		= 256;
+
+	/**
+	 * Number of connections packets belongs to.
+	 */
+	private static final int				CONNECTIONS	= 64;
+
+	/**
+	 * Executor implementation: fifo - PacketProcessor, affinity - AffinityPacketProcessor.
+	 */
+	@Param( { "fifo", "affinity" })
+	public String							processor;
+
+	/**
+	 * Number of executor working threads.
+	 */
+	@Param( { "4" })
+	public int								workers;
+
+	/**
+	 * Executor under test.
+	 */
+	private PacketExecutor<BenchmarkConnection>	executor;
+
+	/**
+	 * Loopback sockets.
+	 */
+	private BenchmarkSockets				sockets;
+
+	/**
+	 * Dispatcher connections are registered to.
+	 */
+	private Dispatcher						dispatcher;
+
+	/**
+	 * Shared connections.
+	 */
+	private final BenchmarkConnection[]		connections	= new BenchmarkConnection[CONNECTIONS];
+
+	/**
+	 * Used to give every submitting thread different first connection.
+	 */
+	private final AtomicInteger				threadIndex	= new AtomicInteger();
+
+	/**
+	 * Create executor and connections.
+	 * 
+	 * @throws IOException
+	 */
+	@Setup
+	public void setup() throws IOException
+	{
+		if ("fifo".equals(processor))
+			executor = new PacketProcessor<BenchmarkConnection>(workers, workers);
+		else
+			executor = new AffinityPacketProcessor<BenchmarkConnection>(workers);
+
+		sockets = new BenchmarkSockets();
+		dispatcher = sockets.newDispatcher();
+		for (int i = 0; i < CONNECTIONS; i++)
+			connections[i] = new BenchmarkConnection(sockets.connect(), dispatcher);
+	}
+
+	/**
+	 * Stop executor and close connections. PacketProcessor can't be stopped, its threads are left to die with forked
+	 * JVM.
+	 * 
+	 * @throws IOException
+	 */
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		if (executor instanceof AffinityPacketProcessor<?>)
+			((AffinityPacketProcessor<?>) executor).shutdown();
+
+		dispatcher.selector().close();
+		sockets.close();
+	}
+
+	/**
+	 * Packets of one submitting thread.
+	 * 
+	 * @author agent
+	 */
+	@State(Scope.Thread)
+	public static class Submitter
+	{
+		/**
+		 * Packets reused by every invocation.
+		 */
+		final CountingPacket[]	packets	= new CountingPacket[BATCH];
+
+		/**
+		 * Latch of current batch.
+		 */
+		volatile CountDownLatch	latch;
+
+		/**
+		 * Create packets spread over all connections.
+		 * 
+		 * @param bench
+		 */
+		@Setup
+		public void setup(PacketProcessorBenchmark bench)
+		{
+			int first = bench.threadIndex.getAndIncrement() * 7;
+			for (int i = 0; i < BATCH; i++)
+			{
+				packets[i] = new CountingPacket(this);
+				packets[i].setConnection(bench.connections[(first + i) % CONNECTIONS]);
+			}
+		}
+	}
+
+	/**
+	 * Submit one batch and wait till it is executed.
+	 * 
+	 * @param submitter
+	 * @throws InterruptedException
+	 */
+	@Benchmark
+	@Threads(4)
+	@OperationsPerInvocation(BATCH)
+	public void executePackets(Submitter submitter) throws InterruptedException
+	{
+		CountDownLatch latch = new CountDownLatch(BATCH);
+		submitter.latch = latch;
+		for (CountingPacket packet : submitter.packets)
+			executor.executePacket(packet);
+		latch.await();
+	}
+
+	/**
+	 * Packet that is only counting down latch of its batch.
+	 * 
+	 * @author agent
+	 */
+	private static final class CountingPacket extends BaseClientPacket<BenchmarkConnection>
+	{
+		/**
+		 * Owner of this packet.
+		 */
+		private final Submitter	submitter;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param submitter
+		 */
+		CountingPacket(Submitter submitter)
+		{
+			super(0x01);
+			this.submitter = submitter;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void readImpl()
+		{
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void runImpl()
+		{
+			submitter.latch.countDown();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run()
+		{
+			runImpl();
+		}
+	}
+}
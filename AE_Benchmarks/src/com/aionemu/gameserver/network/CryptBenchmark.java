@@ -0,0 +1,110 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.network;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of gameserver packet crypt. Encrypt and decrypt are measured on heap and direct buffers of typical packet
+ * sizes. Key is changing after every call exactly as on real connection.
+ * 
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CryptBenchmark
+{
+	/**
+	 * Packet size [without length header].
+	 */
+	@Param( { "16", "128", "1024" })
+	public int			size;
+
+	/**
+	 * Should direct buffer be used.
+	 */
+	@Param( { "false", "true" })
+	public boolean		direct;
+
+	/**
+	 * Crypt under test.
+	 */
+	private Crypt		crypt;
+
+	/**
+	 * Buffer with packet data.
+	 */
+	private ByteBuffer	buf;
+
+	/**
+	 * Create enabled crypt and fill buffer with random data.
+	 */
+	@Setup
+	public void setup()
+	{
+		crypt = new Crypt();
+		crypt.enableKey();
+
+		buf = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+		buf.order(ByteOrder.LITTLE_ENDIAN);
+		byte[] data = new byte[size];
+		new Random(size).nextBytes(data);
+		buf.put(data);
+		buf.flip();
+
+		/** first server packet is not encrypted, it only enables crypt */
+		crypt.encrypt(buf);
+	}
+
+	/**
+	 * Encrypt one server packet.
+	 * 
+	 * @return buffer [so JIT can't remove the work]
+	 */
+	@Benchmark
+	public ByteBuffer encrypt()
+	{
+		buf.clear();
+		crypt.encrypt(buf);
+		return buf;
+	}
+
+	/**
+	 * Decrypt one client packet. Data is random so validation fails, but whole packet is decrypted anyway.
+	 * 
+	 * @return result of validation
+	 */
+	@Benchmark
+	public boolean decrypt()
+	{
+		buf.clear();
+		return crypt.decrypt(buf);
+	}
+}
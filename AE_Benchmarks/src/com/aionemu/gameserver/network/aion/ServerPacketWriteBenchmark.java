@@ -0,0 +1,175 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.network.aion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.aionemu.commons.network.BenchmarkSockets;
+import com.aionemu.commons.network.Dispatcher;
+import com.aionemu.gameserver.configs.Config;
+import com.aionemu.gameserver.controllers.PlayerController;
+import com.aionemu.gameserver.controllers.movement.MovementType;
+import com.aionemu.gameserver.dataholders.DataManager;
+import com.aionemu.gameserver.model.ChatType;
+import com.aionemu.gameserver.model.Gender;
+import com.aionemu.gameserver.model.PlayerClass;
+import com.aionemu.gameserver.model.Race;
+import com.aionemu.gameserver.model.gameobjects.player.Player;
+import com.aionemu.gameserver.model.gameobjects.player.PlayerAppearance;
+import com.aionemu.gameserver.model.gameobjects.player.PlayerCommonData;
+import com.aionemu.gameserver.network.aion.serverpackets.SM_MESSAGE;
+import com.aionemu.gameserver.network.aion.serverpackets.SM_MOVE;
+import com.aionemu.gameserver.network.aion.serverpackets.SM_PLAYER_INFO;
+import com.aionemu.gameserver.utils.idfactory.IDFactory;
+import com.aionemu.gameserver.world.World;
+
+/**
+ * Cost of writing [render + encrypt] most frequent server packets to write buffer of real connection. Shared packets
+ * are measured after first write, so it's cost of every next recipient of broadcast. SM_MESSAGE is not shareable so
+ * it's always rendered.<br>
+ * Must be run from gameserver directory, static data and config are loaded.
+ * 
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServerPacketWriteBenchmark
+{
+	/**
+	 * Map on witch player is standing.
+	 */
+	private static final int	MAP_ID	= 110010000;
+
+	/**
+	 * Packet to write.
+	 */
+	@Param( { "SM_PLAYER_INFO", "SM_MOVE", "SM_MESSAGE" })
+	public String				packetName;
+
+	/**
+	 * Should packet be marked as broadcast one.
+	 */
+	@Param( { "false", "true" })
+	public boolean				shared;
+
+	/**
+	 * Loopback sockets.
+	 */
+	private BenchmarkSockets	sockets;
+
+	/**
+	 * Dispatcher connection is registered to.
+	 */
+	private Dispatcher			dispatcher;
+
+	/**
+	 * Connection packet is written for.
+	 */
+	private AionConnection		con;
+
+	/**
+	 * Packet under test.
+	 */
+	private AionServerPacket	packet;
+
+	/**
+	 * Write buffer [same size and type as buffers leased from connection pool].
+	 */
+	private ByteBuffer			buf;
+
+	/**
+	 * Load static data, create player and connection with enabled crypt.
+	 * 
+	 * @throws IOException
+	 */
+	@Setup
+	public void setup() throws IOException
+	{
+		Config.load();
+		DataManager dataManager = new DataManager();
+		World world = new World(dataManager.WORLD_MAPS_DATA, new IDFactory());
+
+		PlayerCommonData pcd = new PlayerCommonData(1);
+		pcd.setName("Benchmark");
+		pcd.setRace(Race.ELYOS);
+		pcd.setGender(Gender.MALE);
+		pcd.setPlayerClass(PlayerClass.WARRIOR);
+		pcd.setPosition(world.createPosition(MAP_ID, 1000, 1000, 100, (byte) 0));
+		Player player = new Player(new PlayerController(), pcd, new PlayerAppearance());
+
+		sockets = new BenchmarkSockets();
+		dispatcher = sockets.newDispatcher();
+		con = new AionConnection(sockets.connect(), dispatcher, null, null, null);
+		con.enableCryptKey();
+		con.setActivePlayer(player);
+
+		if ("SM_PLAYER_INFO".equals(packetName))
+			packet = new SM_PLAYER_INFO(player, false);
+		else if ("SM_MOVE".equals(packetName))
+			packet = new SM_MOVE(player, 1000, 1000, 100, 1010, 1010, 100, (byte) 0, MovementType.MOVEMENT_START_MOUSE);
+		else
+			packet = new SM_MESSAGE(player, "Benchmark chat message of usual length.", ChatType.NORMAL);
+
+		if (shared)
+			packet.setShared();
+
+		buf = ByteBuffer.allocateDirect(8192 * 2);
+		buf.order(ByteOrder.LITTLE_ENDIAN);
+
+		/** first packet is not encrypted - it only enables crypt [and renders shared body] */
+		packet.write(con, buf);
+	}
+
+	/**
+	 * Close connection.
+	 * 
+	 * @throws IOException
+	 */
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		dispatcher.selector().close();
+		sockets.close();
+	}
+
+	/**
+	 * Write packet for connection.
+	 * 
+	 * @return written buffer
+	 */
+	@Benchmark
+	public ByteBuffer write()
+	{
+		buf.clear();
+		packet.write(con, buf);
+		return buf;
+	}
+}
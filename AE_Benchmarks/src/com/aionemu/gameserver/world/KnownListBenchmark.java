@@ -0,0 +1,172 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.world;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.aionemu.gameserver.configs.Config;
+import com.aionemu.gameserver.controllers.VisibleObjectController;
+import com.aionemu.gameserver.dataholders.DataManager;
+import com.aionemu.gameserver.model.gameobjects.VisibleObject;
+import com.aionemu.gameserver.utils.idfactory.IDFactory;
+
+/**
+ * Cost of KnownList update of moving object in synthetic crowd. All objects are standing on small area, so most of
+ * them see each other. Every invocation moves next object [round robin] far enough to force knownlist update.<br>
+ * Must be run from gameserver directory, static data is loaded.
+ * 
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KnownListBenchmark
+{
+	/**
+	 * Map on witch crowd is standing.
+	 */
+	private static final int	MAP_ID	= 110010000;
+
+	/**
+	 * Length of side of area on witch crowd is standing.
+	 */
+	private static final int	AREA	= 400;
+
+	/**
+	 * Length of one move.
+	 */
+	private static final float	STEP	= 10;
+
+	/**
+	 * Number of objects in crowd.
+	 */
+	@Param( { "50", "500", "5000" })
+	public int					crowd;
+
+	/**
+	 * The world.
+	 */
+	private World				world;
+
+	/**
+	 * Objects of crowd.
+	 */
+	private BenchObject[]		objects;
+
+	/**
+	 * Index of object that will be moved next.
+	 */
+	private int					next;
+
+	/**
+	 * Create world and spawn crowd.
+	 */
+	@Setup
+	public void setup()
+	{
+		/** knownlist should be updated inline, not by world tick */
+		Config.WORLD_TICK_INTERVAL = 0;
+		Config.KNOWNLIST_UPDATE_DISTANCE = 5;
+
+		DataManager dataManager = new DataManager();
+		world = new World(dataManager.WORLD_MAPS_DATA, new IDFactory());
+
+		Random rnd = new Random(crowd);
+		objects = new BenchObject[crowd];
+		for (int i = 0; i < crowd; i++)
+		{
+			float x = 1000 + rnd.nextFloat() * AREA;
+			float y = 1000 + rnd.nextFloat() * AREA;
+			BenchObject object = new BenchObject(i + 1, world.createPosition(MAP_ID, x, y, 100, (byte) 0));
+			object.setKnownlist(new KnownList(object));
+			world.spawn(object);
+			objects[i] = object;
+		}
+	}
+
+	/**
+	 * Move next object forth or back.
+	 * 
+	 * @return moved object
+	 */
+	@Benchmark
+	public VisibleObject move()
+	{
+		BenchObject object = objects[next];
+		if (++next == objects.length)
+			next = 0;
+
+		float dx = object.movedForth ? -STEP : STEP;
+		object.movedForth = !object.movedForth;
+
+		world.updatePosition(object, object.getX() + dx, object.getY(), object.getZ(), object.getHeading());
+		return object;
+	}
+
+	/**
+	 * Object of crowd.
+	 * 
+	 * @author agent
+	 */
+	private static final class BenchObject extends VisibleObject
+	{
+		/**
+		 * Direction of next move.
+		 */
+		boolean	movedForth;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param objId
+		 * @param position
+		 */
+		BenchObject(int objId, WorldPosition position)
+		{
+			super(objId, new BenchController(), position);
+			((BenchController) getController()).setOwner(this);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getName()
+		{
+			return "BenchObject";
+		}
+	}
+
+	/**
+	 * Controller of crowd object, it's doing nothing.
+	 * 
+	 * @author agent
+	 */
+	private static final class BenchController extends VisibleObjectController<BenchObject>
+	{
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.loginserver.network.ncrypt;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of loginserver blowfish cipher on login packet sizes, compared with original implementation
+ * [LegacyBlowfishCipher]. Buffer benchmarks are measuring what AionConnection does now - ciphering directly in io
+ * buffer.
+ * 
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BlowfishCipherBenchmark
+{
+	/**
+	 * Packet size, must be multiple of 8.
+	 */
+	@Param( { "16", "128", "1024" })
+	public int						size;
+
+	/**
+	 * Key of cipher.
+	 */
+	private byte[]					key;
+
+	/**
+	 * Cipher under test.
+	 */
+	private BlowfishCipher			cipher;
+
+	/**
+	 * Original cipher.
+	 */
+	private LegacyBlowfishCipher	legacy;
+
+	/**
+	 * Packet data.
+	 */
+	private byte[]					data;
+
+	/**
+	 * Packet data in direct buffer.
+	 */
+	private ByteBuffer				direct;
+
+	/**
+	 * Create ciphers with random key and random packet data.
+	 */
+	@Setup
+	public void setup()
+	{
+		Random rnd = new Random(size);
+
+		key = new byte[16];
+		rnd.nextBytes(key);
+		cipher = new BlowfishCipher(key);
+		legacy = new LegacyBlowfishCipher(key);
+
+		data = new byte[size];
+		rnd.nextBytes(data);
+
+		direct = ByteBuffer.allocateDirect(size);
+		direct.put(data);
+		direct.clear();
+	}
+
+	/**
+	 * Cipher whole packet in place.
+	 * 
+	 * @return packet data
+	 */
+	@Benchmark
+	public byte[] cipher()
+	{
+		cipher.cipher(data);
+		return data;
+	}
+
+	/**
+	 * Decipher whole packet in place.
+	 * 
+	 * @return packet data
+	 */
+	@Benchmark
+	public byte[] decipher()
+	{
+		cipher.decipher(data);
+		return data;
+	}
+
+	/**
+	 * Cipher whole packet in direct buffer.
+	 * 
+	 * @return packet buffer
+	 */
+	@Benchmark
+	public ByteBuffer cipherDirect()
+	{
+		cipher.cipher(direct, 0, size);
+		return direct;
+	}
+
+	/**
+	 * Decipher whole packet in direct buffer.
+	 * 
+	 * @return packet buffer
+	 */
+	@Benchmark
+	public ByteBuffer decipherDirect()
+	{
+		cipher.decipher(direct, 0, size);
+		return direct;
+	}
+
+	/**
+	 * Cipher whole packet by original implementation.
+	 * 
+	 * @return packet data
+	 */
+	@Benchmark
+	public byte[] cipherLegacy()
+	{
+		legacy.cipher(data);
+		return data;
+	}
+
+	/**
+	 * Decipher whole packet by original implementation.
+	 * 
+	 * @return packet data
+	 */
+	@Benchmark
+	public byte[] decipherLegacy()
+	{
+		legacy.decipher(data);
+		return data;
+	}
+
+	/**
+	 * Key schedule - done once per connection.
+	 * 
+	 * @return new cipher
+	 */
+	@Benchmark
+	public BlowfishCipher keySchedule()
+	{
+		return new BlowfishCipher(key);
+	}
+
+	/**
+	 * Key schedule of original implementation.
+	 * 
+	 * @return new cipher
+	 */
+	@Benchmark
+	public LegacyBlowfishCipher keyScheduleLegacy()
+	{
+		return new LegacyBlowfishCipher(key);
+	}
+}
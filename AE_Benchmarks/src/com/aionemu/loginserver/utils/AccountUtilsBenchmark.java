@@ -0,0 +1,79 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.loginserver.utils;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.aionemu.commons.utils.Base64;
+
+/**
+ * Cost of password hashing done by every login: {@link AccountUtils#encodePassword(String)} [SHA-1 digest of current
+ * thread] compared with original implementation that created new MessageDigest for every password. Run with several
+ * threads, as logins are checked by many threads at once.
+ * 
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class AccountUtilsBenchmark
+{
+	/**
+	 * Password to hash.
+	 */
+	@Param( { "secret", "much-longer-password-of-careful-user" })
+	public String	password;
+
+	/**
+	 * Hash password by AccountUtils.
+	 * 
+	 * @return encoded password
+	 */
+	@Benchmark
+	public String encodePassword()
+	{
+		return AccountUtils.encodePassword(password);
+	}
+
+	/**
+	 * Hash password by original implementation.
+	 * 
+	 * @return encoded password
+	 * @throws NoSuchAlgorithmException
+	 * @throws UnsupportedEncodingException
+	 */
+	@Benchmark
+	public String encodePasswordLegacy() throws NoSuchAlgorithmException, UnsupportedEncodingException
+	{
+		MessageDigest messageDiegest = MessageDigest.getInstance("SHA-1");
+		messageDiegest.update(password.getBytes("UTF-8"));
+		return Base64.encodeToString(messageDiegest.digest(), false);
+	}
+}
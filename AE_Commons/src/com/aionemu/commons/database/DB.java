@@ -201,10 +201,99 @@ public final class DB
 		{
 			try
 			{
+				/* statement first - pooled statement is given back to the cache of its connection */
+				if (stmt != null)
+					stmt.close();
 				if (con != null)
 					con.close();
+			}
+			catch (Exception e)
+			{
+				log.warn("Failed to close DB connection " + e, e);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Executes batch of Select Queries using one connection. If {@link DatabaseConfig#DATABASE_MULTI_QUERIES} is
+	 * enabled queries are sent as one multi-statement query, so all results are fetched in one round trip, otherwise
+	 * they are executed one by one. Reader at given index handles results of query at the same index, params of each
+	 * query are set in order they are given. Recycles connection after completion.
+	 * 
+	 * @param queries
+	 * @param params
+	 * @param readers
+	 * @param errMsg
+	 * @return boolean Success
+	 */
+	public static boolean selectBatch(String[] queries, Object[][] params, ReadStH[] readers, String errMsg)
+	{
+		Connection con = null;
+		PreparedStatement stmt = null;
+
+		try
+		{
+			con = DatabaseFactory.getConnection();
+			if (DatabaseConfig.DATABASE_MULTI_QUERIES && queries.length > 1)
+			{
+				StringBuilder query = new StringBuilder();
+				for (String q : queries)
+				{
+					if (query.length() > 0)
+						query.append(';');
+					query.append(q);
+				}
+
+				stmt = con.prepareStatement(query.toString());
+				int index = 1;
+				for (Object[] p : params)
+				{
+					for (Object o : p)
+						stmt.setObject(index++, o);
+				}
+
+				stmt.execute();
+				for (int i = 0; i < readers.length; i++)
+				{
+					if (i > 0)
+						stmt.getMoreResults();
+					ResultSet rset = stmt.getResultSet();
+					if (rset == null)
+						throw new SQLException("Query " + queries[i] + " did not return any result set");
+					readers[i].handleRead(rset);
+				}
+			}
+			else
+			{
+				for (int i = 0; i < queries.length; i++)
+				{
+					stmt = con.prepareStatement(queries[i]);
+					for (int j = 0; j < params[i].length; j++)
+						stmt.setObject(j + 1, params[i][j]);
+					readers[i].handleRead(stmt.executeQuery());
+					stmt.close();
+					stmt = null;
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			if (errMsg == null)
+				log.warn("Error executing select batch " + e, e);
+			else
+				log.warn(errMsg + " " + e, e);
+			return false;
+		}
+		finally
+		{
+			try
+			{
+				/* statement first - pooled statement is given back to the cache of its connection */
 				if (stmt != null)
 					stmt.close();
+				if (con != null)
+					con.close();
 			}
 			catch (Exception e)
 			{
@@ -290,10 +379,11 @@ public final class DB
 		{
 			try
 			{
-				if (con != null)
-					con.close();
+				/* statement first - pooled statement is given back to the cache of its connection */
 				if (stmt != null)
 					stmt.close();
+				if (con != null)
+					con.close();
 			}
 			catch (Exception e)
 			{
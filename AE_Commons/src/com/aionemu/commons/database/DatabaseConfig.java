@@ -81,6 +81,31 @@ public class DatabaseConfig
 	@Property(key = "database.connections.max", defaultValue = "10")
 	public static int			DATABASE_CONNECTIONS_MAX;
 
+	/**
+	 * Connections that were idle longer than this [seconds] are validated when borrowed [0 - validate always]
+	 */
+	@Property(key = "database.connections.validation.idle", defaultValue = "30")
+	public static int			DATABASE_VALIDATION_IDLE;
+
+	/**
+	 * Maximum amount of prepared statements cached by one connection [0 - statement caching disabled]
+	 */
+	@Property(key = "database.statements.cache.size", defaultValue = "100")
+	public static int			DATABASE_STATEMENTS_CACHE_SIZE;
+
+	/**
+	 * Maximum amount of cached prepared statements with the same sql in one connection
+	 */
+	@Property(key = "database.statements.cache.perquery", defaultValue = "4")
+	public static int			DATABASE_STATEMENTS_PER_QUERY;
+
+	/**
+	 * Send batch of select queries as one multi-statement query. Database url must allow that (MySQL:
+	 * allowMultiQueries=true)
+	 */
+	@Property(key = "database.multiqueries", defaultValue = "false")
+	public static boolean		DATABASE_MULTI_QUERIES;
+
 	/**
 	 * Location of database script context descriptor
 	 */
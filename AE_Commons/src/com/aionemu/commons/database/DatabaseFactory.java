@@ -62,6 +62,11 @@ public class DatabaseFactory
 	 */
 	private static GenericObjectPool	connectionPool;
 
+	/**
+	 * Factory of prepared statement pools of connections, null if statements are not cached.
+	 */
+	private static StatementPoolFactory	statementPoolFactory;
+
 	/**
 	 * Returns name of the database that is used
 	 * 
@@ -112,9 +117,15 @@ public class DatabaseFactory
 		connectionPool.setMaxIdle(DatabaseConfig.DATABASE_CONNECTIONS_MIN);
 		connectionPool.setMaxActive(DatabaseConfig.DATABASE_CONNECTIONS_MAX);
 
-		/* test if connection is still valid before returning */
+		/* test if connection is still valid before returning [only connections that were idle for some time] */
 		connectionPool.setTestOnBorrow(true);
 
+		if (DatabaseConfig.DATABASE_STATEMENTS_CACHE_SIZE > 0)
+			statementPoolFactory = new StatementPoolFactory(DatabaseConfig.DATABASE_STATEMENTS_CACHE_SIZE, Math.max(1,
+				DatabaseConfig.DATABASE_STATEMENTS_PER_QUERY));
+		else
+			statementPoolFactory = null;
+
 		try
 		{
 			dataSource = setupDataSource();
@@ -149,8 +160,9 @@ public class DatabaseFactory
 
 		// Makes Connection Factory Pool-able (Wrapper for two objects)
 		// We are using our own implementation of PoolableConnectionFactory that use 1.6 Connection.isValid(timeout) for
-		// validation check instead dbcp manual query.
-		new PoolableConnectionFactoryAE(conFactory, connectionPool, null, 1, false, true);
+		// validation check instead dbcp manual query. Connections that were used recently are not validated at all.
+		new PoolableConnectionFactoryAE(conFactory, connectionPool, statementPoolFactory, 1,
+			DatabaseConfig.DATABASE_VALIDATION_IDLE * 1000L, false, true);
 
 		// Create data source to utilize Factory and Pool
 		return new PoolingDataSource(connectionPool);
@@ -168,7 +180,10 @@ public class DatabaseFactory
 	 */
 	static Connection getConnection() throws SQLException
 	{
-		return dataSource.getConnection();
+		long start = System.nanoTime();
+		Connection con = dataSource.getConnection();
+		DatabaseMetrics.recordBorrow(System.nanoTime() - start);
+		return con;
 	}
 
 	/**
@@ -176,7 +191,7 @@ public class DatabaseFactory
 	 * 
 	 * @return int Active DB Connections
 	 */
-	public int getActiveConnections()
+	public static int getActiveConnections()
 	{
 		return connectionPool.getNumActive();
 	}
@@ -188,11 +203,21 @@ public class DatabaseFactory
 	 * 
 	 * @return int Idle DB Connections
 	 */
-	public int getIdleConnections()
+	public static int getIdleConnections()
 	{
 		return connectionPool.getNumIdle();
 	}
 
+	/**
+	 * Returns factory of prepared statement pools that is counting statement requests and prepares.
+	 * 
+	 * @return statement pool factory or null if prepared statements are not cached.
+	 */
+	static StatementPoolFactory getStatementPoolFactory()
+	{
+		return statementPoolFactory;
+	}
+
 	/**
 	 * Shuts down pool and closes connections
 	 */
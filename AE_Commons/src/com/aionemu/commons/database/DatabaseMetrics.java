@@ -0,0 +1,187 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.database;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+import com.aionemu.commons.network.metrics.LatencyHistogram;
+
+/**
+ * Connection pool metrics: active and idle connections, time of taking connection from the pool and prepared statement
+ * cache hit ratio. Metrics are collected all the time, {@link #register(String)} exposes them over JMX.
+ * 
+ * @author agent
+ */
+public final class DatabaseMetrics implements DatabaseMetricsMBean
+{
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger				log			= Logger.getLogger(DatabaseMetrics.class);
+
+	/**
+	 * Time of taking connection from the pool.
+	 */
+	private static final LatencyHistogram	borrowWait	= new LatencyHistogram();
+
+	/**
+	 * Only registered instance.
+	 */
+	private DatabaseMetrics()
+	{
+	}
+
+	/**
+	 * Registers DatabaseMetrics MBean in platform MBeanServer.
+	 * 
+	 * @param domain
+	 *            JMX domain [ie application name]
+	 */
+	public static void register(String domain)
+	{
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new DatabaseMetrics(),
+				new ObjectName(domain + ":type=DatabaseMetrics"));
+		}
+		catch (Exception e)
+		{
+			log.warn("Can't register DatabaseMetrics MBean", e);
+		}
+	}
+
+	/**
+	 * Records time of taking connection from the pool.
+	 * 
+	 * @param nanos
+	 */
+	static void recordBorrow(long nanos)
+	{
+		borrowWait.record(nanos);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getActiveConnections()
+	{
+		return DatabaseFactory.getActiveConnections();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getIdleConnections()
+	{
+		return DatabaseFactory.getIdleConnections();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getMaxConnections()
+	{
+		return DatabaseConfig.DATABASE_CONNECTIONS_MAX;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getBorrowCount()
+	{
+		return borrowWait.getCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getBorrowWaitMeanMicros()
+	{
+		return borrowWait.getMean() / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getBorrowWaitP99Micros()
+	{
+		return borrowWait.getPercentile(99) / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getBorrowWaitMaxMicros()
+	{
+		return borrowWait.getMax() / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getStatementRequests()
+	{
+		StatementPoolFactory statements = DatabaseFactory.getStatementPoolFactory();
+		return statements != null ? statements.getRequests() : 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getStatementPrepares()
+	{
+		StatementPoolFactory statements = DatabaseFactory.getStatementPoolFactory();
+		return statements != null ? statements.getPrepares() : 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getStatementCacheHitRatio()
+	{
+		long requests = getStatementRequests();
+		if (requests == 0)
+			return 0;
+		return Math.max(0, requests - getStatementPrepares()) / (double) requests;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset()
+	{
+		borrowWait.reset();
+		StatementPoolFactory statements = DatabaseFactory.getStatementPoolFactory();
+		if (statements != null)
+			statements.reset();
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.database;
+
+/**
+ * JMX view of {@link DatabaseMetrics}. Times are in microseconds.
+ * 
+ * @author agent
+ */
+public interface DatabaseMetricsMBean
+{
+	/**
+	 * @return number of connections that are used now.
+	 */
+	public int getActiveConnections();
+
+	/**
+	 * @return number of connections that are waiting in the pool.
+	 */
+	public int getIdleConnections();
+
+	/**
+	 * @return maximum number of connections.
+	 */
+	public int getMaxConnections();
+
+	/**
+	 * @return number of connections taken from the pool.
+	 */
+	public long getBorrowCount();
+
+	/**
+	 * @return mean time of taking connection from the pool.
+	 */
+	public long getBorrowWaitMeanMicros();
+
+	/**
+	 * @return 99th percentile of time of taking connection from the pool.
+	 */
+	public long getBorrowWaitP99Micros();
+
+	/**
+	 * @return the longest time of taking connection from the pool.
+	 */
+	public long getBorrowWaitMaxMicros();
+
+	/**
+	 * @return number of prepared statements requested.
+	 */
+	public long getStatementRequests();
+
+	/**
+	 * @return number of prepared statements that were not cached and had to be prepared.
+	 */
+	public long getStatementPrepares();
+
+	/**
+	 * @return part of statement requests served from the cache [0 - 1].
+	 */
+	public double getStatementCacheHitRatio();
+
+	/**
+	 * Reset all counters.
+	 */
+	public void reset();
+}
@@ -18,6 +18,9 @@ package com.aionemu.commons.database;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import org.apache.commons.dbcp.ConnectionFactory;
 import org.apache.commons.dbcp.PoolableConnectionFactory;
@@ -29,6 +32,8 @@ import org.apache.commons.pool.ObjectPool;
  * Implementation of PoolableConnectionFactory that Override validateConnection(Connection conn)
  * for testing if connection is still valid, but instead doing manual query [like it is in default implementation]
  * we will use Connection.isValid(timeout) from 1.6 [MySql implementation is just doing ping to Sql server]
+ * <br>
+ * Connections that were returned to the pool not long ago are not validated at all.
  * 
  * @author -Nemesiss-
  *
@@ -43,6 +48,16 @@ public class PoolableConnectionFactoryAE extends PoolableConnectionFactory
 	 */
 	private final int validationTimeout;
 
+	/**
+	 * Connections that were idle less than this time [ms] are not validated.
+	 */
+	private final long validationIdleTime;
+
+	/**
+	 * Time when connection was returned to the pool, by connection.
+	 */
+	private final Map<Object, Long> lastUse = Collections.synchronizedMap(new IdentityHashMap<Object, Long>());
+
     /**
      * Create a new <tt>PoolableConnectionFactoryAE</tt>.
      * @param connFactory the {@link ConnectionFactory} from which to obtain base {@link Connection}s
@@ -53,9 +68,60 @@ public class PoolableConnectionFactoryAE extends PoolableConnectionFactory
      * @param defaultAutoCommit the default "auto commit" setting for returned {@link Connection}s
      */
 	public PoolableConnectionFactoryAE(ConnectionFactory connFactory, ObjectPool pool, KeyedObjectPoolFactory stmtPoolFactory, int validationTimeout, boolean defaultReadOnly, boolean defaultAutoCommit)
+	{
+		this(connFactory, pool, stmtPoolFactory, validationTimeout, 0, defaultReadOnly, defaultAutoCommit);
+	}
+
+    /**
+     * Create a new <tt>PoolableConnectionFactoryAE</tt>.
+     * @param connFactory the {@link ConnectionFactory} from which to obtain base {@link Connection}s
+     * @param pool the {@link ObjectPool} in which to pool those {@link Connection}s
+     * @param stmtPoolFactory the {@link KeyedObjectPoolFactory} to use to create {@link KeyedObjectPool}s for pooling {@link java.sql.PreparedStatement}s, or <tt>null</tt> to disable {@link java.sql.PreparedStatement} pooling
+     * @param validationTimeout a timeout value in seconds used to {@link #validateObject validate} {@link Connection}s. Value of <tt>0</tt> means no timeout. Using <tt>-1</tt> turns off validation.
+     * @param validationIdleTime connections that were idle less than this time in ms are not validated. Value of <tt>0</tt> means that connections are always validated.
+     * @param defaultReadOnly the default "read only" setting for borrowed {@link Connection}s
+     * @param defaultAutoCommit the default "auto commit" setting for returned {@link Connection}s
+     */
+	public PoolableConnectionFactoryAE(ConnectionFactory connFactory, ObjectPool pool, KeyedObjectPoolFactory stmtPoolFactory, int validationTimeout, long validationIdleTime, boolean defaultReadOnly, boolean defaultAutoCommit)
 	{
 		super(connFactory, pool, stmtPoolFactory, null, defaultReadOnly, defaultAutoCommit);
 		this.validationTimeout = validationTimeout;
+		this.validationIdleTime = validationIdleTime;
+	}
+
+	/**
+	 * Validate connection only if it was idle long enough.
+	 */
+	@Override
+	public boolean validateObject(Object obj)
+	{
+		if(validationIdleTime > 0)
+		{
+			Long returned = lastUse.get(obj);
+			if(returned != null && System.currentTimeMillis() - returned < validationIdleTime)
+				return true;
+		}
+		return super.validateObject(obj);
+	}
+
+	/**
+	 * Remember when connection was returned to the pool.
+	 */
+	@Override
+	public void passivateObject(Object obj) throws Exception
+	{
+		super.passivateObject(obj);
+		lastUse.put(obj, System.currentTimeMillis());
+	}
+
+	/**
+	 * Forget destroyed connection.
+	 */
+	@Override
+	public void destroyObject(Object obj) throws Exception
+	{
+		lastUse.remove(obj);
+		super.destroyObject(obj);
 	}
 
 	/**
@@ -0,0 +1,203 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.database;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.pool.KeyedObjectPool;
+import org.apache.commons.pool.KeyedObjectPoolFactory;
+import org.apache.commons.pool.KeyedPoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+
+/**
+ * Factory of prepared statement pools - one pool is created for each pooled connection. Created pools are counting
+ * statement requests and statements that really had to be prepared, so cache hit ratio can be computed.
+ * 
+ * @author agent
+ */
+public class StatementPoolFactory implements KeyedObjectPoolFactory
+{
+	/**
+	 * Maximum amount of statements cached by one connection.
+	 */
+	private final int			cacheSize;
+
+	/**
+	 * Maximum amount of cached statements with the same sql in one connection.
+	 */
+	private final int			perQuery;
+
+	/**
+	 * Number of statements requested from all pools.
+	 */
+	private final AtomicLong	requests	= new AtomicLong();
+
+	/**
+	 * Number of statements that were not found in pools and had to be prepared.
+	 */
+	private final AtomicLong	prepares	= new AtomicLong();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param cacheSize
+	 *            maximum amount of statements cached by one connection
+	 * @param perQuery
+	 *            maximum amount of cached statements with the same sql in one connection
+	 */
+	public StatementPoolFactory(int cacheSize, int perQuery)
+	{
+		this.cacheSize = cacheSize;
+		this.perQuery = perQuery;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public KeyedObjectPool createPool()
+	{
+		GenericKeyedObjectPool pool = new StatementPool();
+		/* statements are never refused, oldest idle ones are closed when cache is full */
+		pool.setWhenExhaustedAction(GenericKeyedObjectPool.WHEN_EXHAUSTED_GROW);
+		pool.setMaxActive(-1);
+		pool.setMaxIdle(perQuery);
+		pool.setMaxTotal(cacheSize);
+		return pool;
+	}
+
+	/**
+	 * @return number of statements requested from all pools.
+	 */
+	public long getRequests()
+	{
+		return requests.get();
+	}
+
+	/**
+	 * @return number of statements that had to be prepared.
+	 */
+	public long getPrepares()
+	{
+		return prepares.get();
+	}
+
+	/**
+	 * Reset counters.
+	 */
+	public void reset()
+	{
+		requests.set(0);
+		prepares.set(0);
+	}
+
+	/**
+	 * Statement pool of one connection that is counting requests and prepares.
+	 * 
+	 * @author agent
+	 */
+	private final class StatementPool extends GenericKeyedObjectPool
+	{
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object borrowObject(Object key) throws Exception
+		{
+			requests.incrementAndGet();
+			return super.borrowObject(key);
+		}
+
+		/**
+		 * Wrap factory [PoolingConnection] so statements created by it are counted.
+		 */
+		@Override
+		public void setFactory(KeyedPoolableObjectFactory factory)
+		{
+			super.setFactory(new CountingFactory(factory));
+		}
+	}
+
+	/**
+	 * Statement factory that is counting created statements.
+	 * 
+	 * @author agent
+	 */
+	private final class CountingFactory implements KeyedPoolableObjectFactory
+	{
+		/**
+		 * Real statement factory.
+		 */
+		private final KeyedPoolableObjectFactory	factory;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param factory
+		 */
+		private CountingFactory(KeyedPoolableObjectFactory factory)
+		{
+			this.factory = factory;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object makeObject(Object key) throws Exception
+		{
+			prepares.incrementAndGet();
+			return factory.makeObject(key);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void destroyObject(Object key, Object obj) throws Exception
+		{
+			factory.destroyObject(key, obj);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean validateObject(Object key, Object obj)
+		{
+			return factory.validateObject(key, obj);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void activateObject(Object key, Object obj) throws Exception
+		{
+			factory.activateObject(key, obj);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void passivateObject(Object key, Object obj) throws Exception
+		{
+			factory.passivateObject(key, obj);
+		}
+	}
+}
@@ -174,4 +174,25 @@ public class Transaction
 		connection.setAutoCommit(true);
 		connection.close();
 	}
+
+	/**
+	 * Rollbacks whole transaction
+	 * 
+	 * @throws SQLException
+	 *             if something went wrong
+	 */
+	public void rollback() throws SQLException
+	{
+		try
+		{
+			connection.rollback();
+		}
+		catch (SQLException e)
+		{
+			log.error("Can't rollback transaction", e);
+		}
+
+		connection.setAutoCommit(true);
+		connection.close();
+	}
 }
@@ -18,10 +18,13 @@ package com.aionemu.commons.network;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.aionemu.commons.network.packet.BaseClientPacket;
 import com.aionemu.commons.options.Assertion;
 
 /**
@@ -45,6 +48,23 @@ public abstract class AConnection
 	 * SelectionKey representing this connection.
 	 */
 	private SelectionKey		key;
+	/**
+	 * True if enabling of write interest was posted to Dispatcher and not executed yet.
+	 */
+	private final AtomicBoolean	writeInterestPending	= new AtomicBoolean();
+	/**
+	 * Task executed by Dispatcher Thread that enables write interest of this connection key.
+	 */
+	private final Runnable		writeInterestTask		= new Runnable(){
+															@Override
+															public void run()
+															{
+																writeInterestPending.set(false);
+																if (key != null && key.isValid())
+																	key.interestOps(key.interestOps()
+																		| SelectionKey.OP_WRITE);
+															}
+														};
 	/**
 	 * True if this connection should be closed after sending last server packet.
 	 */
@@ -62,13 +82,35 @@ public abstract class AConnection
 	 */
 	protected final Object		guard	= new Object();
 	/**
-	 * ByteBuffer for io write.
+	 * Capacity of Dispatcher scratch buffers used for io read, also maximum size of one server packet.
+	 */
+	static final int			BUFFER_SIZE				= 8192 * 2;
+	/**
+	 * Capacity of buffers leased for io write. Server packets are written to one buffer while there is space for the
+	 * biggest packet.
+	 */
+	static final int			WRITE_BUFFER_SIZE		= BUFFER_SIZE * 2;
+	/**
+	 * Maximum number of write buffers that may be written to socket by one gathering write.
 	 */
-	public final ByteBuffer		writeBuffer;
+	static final int			MAX_GATHERED_WRITES		= 16;
 	/**
-	 * ByteBuffer for io read.
+	 * Pool from witch io buffers are leased.
 	 */
-	public final ByteBuffer		readBuffer;
+	private final ByteBufferPool	bufferPool;
+	/**
+	 * ByteBuffers with server packets waiting for io write, each one holds as many packets as fit in. Leased only when
+	 * there is something to write.
+	 */
+	final ByteBuffer[]			writeBuffers			= new ByteBuffer[MAX_GATHERED_WRITES];
+	/**
+	 * Number of buffers in writeBuffers.
+	 */
+	int							writeBuffersCount;
+	/**
+	 * ByteBuffer for io read sized to the packet. Leased only when there is not fully read packet, null otherwise.
+	 */
+	ByteBuffer					readBuffer;
 
 	/**
 	 * Caching ip address to make sure that {@link #getIP()} method works even after disconnection
@@ -81,21 +123,41 @@ public abstract class AConnection
 	private boolean				locked	= false;
 
 	/**
-	 * Constructor
+	 * Client packets of this connection waiting for execution. Used only by AffinityPacketProcessor.
+	 */
+	private final Queue<BaseClientPacket<?>>	pendingPackets	= new ConcurrentLinkedQueue<BaseClientPacket<?>>();
+
+	/**
+	 * True if this connection is on AffinityPacketProcessor ready queue or its packets are being executed.
+	 */
+	private final AtomicBoolean	scheduled	= new AtomicBoolean();
+
+	/**
+	 * Constructor. Connection will use direct io buffers.
 	 * 
 	 * @param sc
 	 * @param d
 	 * @throws IOException
 	 */
 	public AConnection(SocketChannel sc, Dispatcher d) throws IOException
+	{
+		this(sc, d, ByteBufferPool.DIRECT);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param sc
+	 * @param d
+	 * @param bufferPool
+	 *            pool from witch io buffers will be leased.
+	 * @throws IOException
+	 */
+	public AConnection(SocketChannel sc, Dispatcher d, ByteBufferPool bufferPool) throws IOException
 	{
 		socketChannel = sc;
 		dispatcher = d;
-		writeBuffer = ByteBuffer.allocate(8192 * 2);
-		writeBuffer.flip();
-		writeBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		readBuffer = ByteBuffer.allocate(8192 * 2);
-		readBuffer.order(ByteOrder.LITTLE_ENDIAN);
+		this.bufferPool = bufferPool;
 
 		dispatcher.register(socketChannel, SelectionKey.OP_READ, this);
 
@@ -113,15 +175,13 @@ public abstract class AConnection
 		this.key = key;
 	}
 	/**
-	 * Notify Dispatcher Selector that we want write some data here.
+	 * Notify Dispatcher Selector that we want write some data here. Only one interest ops change per connection may be
+	 * waiting for Dispatcher, so sending many packets at once will not flood Dispatcher with tasks and wakeups.
 	 */
 	protected final void enableWriteInterest()
 	{
-		if (key.isValid())
-		{
-			key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
-			key.selector().wakeup();
-		}
+		if (writeInterestPending.compareAndSet(false, true))
+			dispatcher.execute(writeInterestTask);
 	}
 
 	/**
@@ -132,6 +192,32 @@ public abstract class AConnection
 		return dispatcher;
 	}
 
+	/**
+	 * @return Pool from witch io buffers are leased.
+	 */
+	final ByteBufferPool getBufferPool()
+	{
+		return bufferPool;
+	}
+
+	/**
+	 * Give back all io buffers to the pool. May be called only by Dispatcher Thread.
+	 */
+	final void releaseBuffers()
+	{
+		if (readBuffer != null)
+		{
+			bufferPool.release(readBuffer);
+			readBuffer = null;
+		}
+		for (int i = 0; i < writeBuffersCount; i++)
+		{
+			bufferPool.release(writeBuffers[i]);
+			writeBuffers[i] = null;
+		}
+		writeBuffersCount = 0;
+	}
+
 	/**
 	 * @return SocketChannel representing this connection.
 	 */
@@ -183,14 +269,18 @@ public abstract class AConnection
 				if (socketChannel.isOpen())
 				{
 					socketChannel.close();
-					key.attach(null);
-					key.cancel();
+					if (key != null)
+					{
+						key.attach(null);
+						key.cancel();
+					}
 				}
 				closed = true;
 			}
 			catch (IOException ignored)
 			{
 			}
+			releaseBuffers();
 		}
 		return true;
 	}
@@ -240,6 +330,35 @@ public abstract class AConnection
 		locked = false;
 	}
 
+	/**
+	 * Used only for AffinityPacketProcessor purpose.
+	 * 
+	 * @return queue of client packets waiting for execution.
+	 */
+	final Queue<BaseClientPacket<?>> getPendingPackets()
+	{
+		return pendingPackets;
+	}
+
+	/**
+	 * Used only for AffinityPacketProcessor synchronization purpose. Return true if this connection wasn't scheduled
+	 * before and caller is responsible for putting it on ready queue.
+	 * 
+	 * @return scheduled
+	 */
+	final boolean trySchedule()
+	{
+		return scheduled.compareAndSet(false, true);
+	}
+
+	/**
+	 * Used only for AffinityPacketProcessor synchronization purpose. Mark this connection as not scheduled.
+	 */
+	final void unschedule()
+	{
+		scheduled.set(false);
+	}
+
 	/**
 	 * @param data
 	 * @return True if data was processed correctly, False if some error occurred and connection should be closed NOW.
@@ -18,9 +18,9 @@ package com.aionemu.commons.network;
 
 import java.io.IOException;
 import java.nio.channels.SelectionKey;
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
+
+import com.aionemu.commons.network.metrics.NetworkMetrics;
 
 /**
  * This is implementation of <code>Dispatcher</code> that may accept connections, read and write data.
@@ -31,11 +31,6 @@ import java.util.List;
  */
 public class AcceptReadWriteDispatcherImpl extends Dispatcher
 {
-	/**
-	 * List of connections that should be closed by this <code>Dispatcher</code> as soon as possible.
-	 */
-	private final List<AConnection>	pendingClose	= new ArrayList<AConnection>();
-
 	/**
 	 * Constructor that accept <code>String</code> name and <code>DisconnectionThreadPool</code> dcPool as
 	 * parameter.
@@ -51,7 +46,7 @@ public class AcceptReadWriteDispatcherImpl extends Dispatcher
 	}
 
 	/**
-	 * Process Pending Close connections and then dispatch <code>Selector</code> selected-key set.
+	 * Dispatch <code>Selector</code> selected-key set.
 	 * 
 	 * @see com.aionemu.commons.network.Dispatcher#dispatch()
 	 */
@@ -59,8 +54,7 @@ public class AcceptReadWriteDispatcherImpl extends Dispatcher
 	void dispatch() throws IOException
 	{
 		int selected = selector.select();
-
-		processPendingClose();
+		long start = System.nanoTime();
 
 		if (selected != 0)
 		{
@@ -93,33 +87,24 @@ public class AcceptReadWriteDispatcherImpl extends Dispatcher
 				}
 			}
 		}
+		NetworkMetrics.recordSelectorLoop(System.nanoTime() - start);
 	}
 
 	/**
-	 * Add connection to pendingClose list, so this connection will be closed by this <code>Dispatcher</code> as soon
-	 * as possible.
+	 * Post closing of connection to pending tasks, so this connection will be closed by this <code>Dispatcher</code>
+	 * as soon as possible.
 	 * 
 	 * @see com.aionemu.commons.network.Dispatcher#closeConnection(com.aionemu.commons.network.AConnection)
 	 */
 	@Override
-	void closeConnection(AConnection con)
-	{
-		synchronized (pendingClose)
-		{
-			pendingClose.add(con);
-		}
-	}
-
-	/**
-	 * Process Pending Close connections.
-	 */
-	private void processPendingClose()
+	void closeConnection(final AConnection con)
 	{
-		synchronized (pendingClose)
-		{
-			for (AConnection connection : pendingClose)
-				closeConnectionImpl(connection);
-			pendingClose.clear();
-		}
+		execute(new Runnable(){
+			@Override
+			public void run()
+			{
+				closeConnectionImpl(con);
+			}
+		});
 	}
 }
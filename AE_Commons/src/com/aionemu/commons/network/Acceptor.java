@@ -99,6 +99,9 @@ public class Acceptor
 		ServerSocketChannel serverSocketChannel = (ServerSocketChannel) key.channel();
 		/** Accept the connection and make it non-blocking */
 		SocketChannel socketChannel = serverSocketChannel.accept();
+		/** Connection was already accepted by another Accept Dispatcher */
+		if (socketChannel == null)
+			return;
 		socketChannel.configureBlocking(false);
 
 		Dispatcher dispatcher = nioServer.getReadWriteDispatcher();
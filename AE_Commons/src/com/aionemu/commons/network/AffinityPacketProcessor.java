@@ -0,0 +1,234 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+import com.aionemu.commons.network.metrics.NetworkMetrics;
+import com.aionemu.commons.network.packet.BaseClientPacket;
+
+/**
+ * Packet Processor that keeps client packets in per connection queues instead of one global list. Connections that
+ * have packets waiting are put on lock-free ready queue, working thread takes connection from this queue, executes
+ * some of its packets and puts connection back on the tail of ready queue if there is still something to do. Rules: -
+ * 1 packet / client at one time. - execute packets in received order - are respected because connection is on ready
+ * queue [or processed] at most once. Idle working threads are parked and woken up by executePacket.
+ * 
+ * @author agent
+ * @param <T>
+ *            AConnection - owner of client packets.
+ */
+public class AffinityPacketProcessor<T extends AConnection> implements PacketExecutor<T>
+{
+	/**
+	 * Logger for AffinityPacketProcessor
+	 */
+	private static final Logger			log				= Logger.getLogger(AffinityPacketProcessor.class.getName());
+
+	/**
+	 * How many packets of one connection may be executed before connection is moved back to the tail of ready queue.
+	 */
+	private final static int			burstLimit		= 4;
+
+	/**
+	 * Connections that have packets waiting for execution.
+	 */
+	private final Queue<AConnection>	readyConnections	= new ConcurrentLinkedQueue<AConnection>();
+
+	/**
+	 * Parked working threads.
+	 */
+	private final Queue<Thread>			idleThreads		= new ConcurrentLinkedQueue<Thread>();
+
+	/**
+	 * Working threads.
+	 */
+	private final Thread[]				threads;
+
+	/**
+	 * Create and start AffinityPacketProcessor responsible for executing packets.
+	 * 
+	 * @param threadCount
+	 *            - number of working Threads.
+	 */
+	public AffinityPacketProcessor(int threadCount)
+	{
+		if (threadCount <= 0)
+			threadCount = 1;
+
+		threads = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++)
+		{
+			String name = "PacketProcessor:" + i;
+			log.debug("Creating new PacketProcessor Thread: " + name);
+
+			threads[i] = new Thread(new PacketProcessorTask(), name);
+			threads[i].start();
+		}
+	}
+
+	/**
+	 * Add packet to queue of its connection and schedule this connection if it's not scheduled yet.
+	 * 
+	 * @param packet
+	 *            that will be executed.
+	 */
+	@Override
+	public final void executePacket(BaseClientPacket<T> packet)
+	{
+		AConnection con = packet.getConnection();
+		NetworkMetrics.packetQueued(packet);
+		con.getPendingPackets().offer(packet);
+
+		if (con.trySchedule())
+			schedule(con);
+	}
+
+	/**
+	 * Put connection on ready queue and wake up one of idle threads.
+	 * 
+	 * @param con
+	 */
+	private void schedule(AConnection con)
+	{
+		readyConnections.offer(con);
+
+		Thread idle = idleThreads.poll();
+		if (idle != null)
+			LockSupport.unpark(idle);
+	}
+
+	/**
+	 * Take next connection from ready queue, parking current thread if there is nothing to do.
+	 * 
+	 * @return connection that have packets waiting for execution or null if thread was interrupted.
+	 */
+	private AConnection takeReadyConnection()
+	{
+		Thread current = Thread.currentThread();
+		for (;;)
+		{
+			AConnection con = readyConnections.poll();
+			if (con != null)
+				return con;
+
+			if (current.isInterrupted())
+				return null;
+
+			/**
+			 * Register as idle before checking queue once more, so packet added in the meantime will either be seen
+			 * here or its producer will see us and unpark.
+			 */
+			idleThreads.offer(current);
+
+			con = readyConnections.poll();
+			if (con != null)
+			{
+				idleThreads.remove(current);
+				return con;
+			}
+
+			LockSupport.park(this);
+			idleThreads.remove(current);
+		}
+	}
+
+	/**
+	 * Execute up to burstLimit packets of given connection, then unschedule it or put it back on ready queue.
+	 * 
+	 * @param con
+	 */
+	@SuppressWarnings("unchecked")
+	private void process(AConnection con)
+	{
+		Queue<BaseClientPacket<?>> packets = con.getPendingPackets();
+		for (int i = 0; i < burstLimit; i++)
+		{
+			BaseClientPacket<T> packet = (BaseClientPacket<T>) packets.poll();
+			if (packet == null)
+				break;
+
+			try
+			{
+				NetworkMetrics.runPacket(packet);
+			}
+			catch (RuntimeException e)
+			{
+				log.error("Error while executing client packet " + packet + ": " + e, e);
+			}
+		}
+
+		if (!packets.isEmpty())
+		{
+			schedule(con);
+			return;
+		}
+
+		con.unschedule();
+
+		/** Packet could be added after isEmpty check but before unschedule */
+		if (!packets.isEmpty() && con.trySchedule())
+			schedule(con);
+	}
+
+	/**
+	 * @return number of connections waiting for execution.
+	 */
+	public final int getReadyConnectionsCount()
+	{
+		return readyConnections.size();
+	}
+
+	/**
+	 * Shutdown all working threads.
+	 */
+	public final void shutdown()
+	{
+		for (Thread t : threads)
+			t.interrupt();
+	}
+
+	/**
+	 * Packet Processor Task that will take ready connections and execute their packets.
+	 * 
+	 * @author agent
+	 * 
+	 */
+	private final class PacketProcessorTask implements Runnable
+	{
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run()
+		{
+			for (;;)
+			{
+				AConnection con = takeReadyConnection();
+				/* thread killed */
+				if (con == null)
+					return;
+
+				process(con);
+			}
+		}
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of ByteBuffers used by Dispatchers for io read and write. Buffers are grouped in size classes [powers of two
+ * from <code>MIN_CAPACITY</code> to <code>MAX_CAPACITY</code>], requested capacity is rounded up to the nearest class.
+ * Buffers bigger than <code>MAX_CAPACITY</code> are allocated but never pooled.<br>
+ * Direct pool allocates off-heap buffers, so SocketChannel read/write don't have to copy data to temporary direct
+ * buffer of jdk.
+ * 
+ * @author agent
+ */
+public class ByteBufferPool
+{
+	/**
+	 * Capacity of the smallest size class.
+	 */
+	public static final int				MIN_CAPACITY	= 512;
+	/**
+	 * Capacity of the biggest size class.
+	 */
+	public static final int				MAX_CAPACITY	= 64 * 1024;
+
+	/**
+	 * Default pool of direct buffers.
+	 */
+	public static final ByteBufferPool	DIRECT			= new ByteBufferPool(true, 4096);
+	/**
+	 * Default pool of heap buffers, used by connections that need <code>ByteBuffer.array()</code>.
+	 */
+	public static final ByteBufferPool	HEAP			= new ByteBufferPool(false, 4096);
+
+	/**
+	 * Free buffers of each size class.
+	 */
+	private final SizeClass[]			sizeClasses;
+	/**
+	 * Number of buffers allocated by this pool.
+	 */
+	private final AtomicInteger			allocated		= new AtomicInteger();
+	/**
+	 * Number of buffers currently leased from this pool.
+	 */
+	private final AtomicInteger			leased			= new AtomicInteger();
+	/**
+	 * True if this pool allocates direct buffers.
+	 */
+	private final boolean				direct;
+	/**
+	 * Maximum number of free buffers kept in each size class.
+	 */
+	private final int					maxFreePerClass;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param direct
+	 *            - true if pool should allocate direct buffers.
+	 * @param maxFreePerClass
+	 *            - maximum number of free buffers kept in each size class.
+	 */
+	public ByteBufferPool(boolean direct, int maxFreePerClass)
+	{
+		this.direct = direct;
+		this.maxFreePerClass = maxFreePerClass;
+
+		sizeClasses = new SizeClass[sizeClass(MAX_CAPACITY) + 1];
+		for (int i = 0; i < sizeClasses.length; i++)
+			sizeClasses[i] = new SizeClass();
+	}
+
+	/**
+	 * Returns index of size class for given capacity.
+	 * 
+	 * @param capacity
+	 * @return size class index
+	 */
+	private static int sizeClass(int capacity)
+	{
+		if (capacity <= MIN_CAPACITY)
+			return 0;
+		return Integer.numberOfLeadingZeros(MIN_CAPACITY - 1) - Integer.numberOfLeadingZeros(capacity - 1);
+	}
+
+	/**
+	 * Lease cleared buffer with at least given capacity. Buffer should be given back by {@link #release(ByteBuffer)}
+	 * when it's no longer used.
+	 * 
+	 * @param capacity
+	 * @return ByteBuffer
+	 */
+	public final ByteBuffer lease(int capacity)
+	{
+		leased.incrementAndGet();
+
+		if (capacity > MAX_CAPACITY)
+			return allocate(capacity);
+
+		int idx = sizeClass(capacity);
+		ByteBuffer buf = sizeClasses[idx].free.poll();
+		if (buf == null)
+			return allocate(MIN_CAPACITY << idx);
+
+		sizeClasses[idx].count.decrementAndGet();
+		buf.clear();
+		return buf;
+	}
+
+	/**
+	 * Give back buffer leased from this pool. Buffer must not be used after this call.
+	 * 
+	 * @param buf
+	 */
+	public final void release(ByteBuffer buf)
+	{
+		leased.decrementAndGet();
+
+		int capacity = buf.capacity();
+		if (capacity > MAX_CAPACITY || buf.isDirect() != direct)
+			return;
+
+		int idx = sizeClass(capacity);
+		if (capacity != (MIN_CAPACITY << idx))
+			return;
+
+		SizeClass sc = sizeClasses[idx];
+		if (sc.count.incrementAndGet() > maxFreePerClass)
+		{
+			sc.count.decrementAndGet();
+			return;
+		}
+		sc.free.offer(buf);
+	}
+
+	/**
+	 * Allocate new buffer.
+	 * 
+	 * @param capacity
+	 * @return ByteBuffer
+	 */
+	private ByteBuffer allocate(int capacity)
+	{
+		allocated.incrementAndGet();
+		return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+	}
+
+	/**
+	 * @return True if this pool allocates direct buffers.
+	 */
+	public final boolean isDirect()
+	{
+		return direct;
+	}
+
+	/**
+	 * @return Number of buffers allocated by this pool.
+	 */
+	public final int getAllocatedCount()
+	{
+		return allocated.get();
+	}
+
+	/**
+	 * @return Number of buffers currently leased from this pool.
+	 */
+	public final int getLeasedCount()
+	{
+		return leased.get();
+	}
+
+	/**
+	 * @return Number of free buffers kept by this pool.
+	 */
+	public final int getFreeCount()
+	{
+		int count = 0;
+		for (SizeClass sc : sizeClasses)
+			count += sc.count.get();
+		return count;
+	}
+
+	/**
+	 * Free buffers of one size class.
+	 */
+	private static final class SizeClass
+	{
+		/**
+		 * Free buffers.
+		 */
+		private final Queue<ByteBuffer>	free	= new ConcurrentLinkedQueue<ByteBuffer>();
+		/**
+		 * Number of free buffers.
+		 */
+		private final AtomicInteger		count	= new AtomicInteger();
+	}
+}
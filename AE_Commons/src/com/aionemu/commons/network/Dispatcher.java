@@ -24,6 +24,14 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.spi.SelectorProvider;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
@@ -52,9 +60,23 @@ public abstract class Dispatcher extends Thread
 	 */
 	private final DisconnectionThreadPool	dcPool;
 	/**
-	 * Object on witch register vs selector.select are synchronized
+	 * Tasks [registrations, interest ops changes, closing] posted by other threads that will be executed by this
+	 * Dispatcher Thread before next select.
 	 */
-	private final Object					gate	= new Object();
+	private final Queue<Runnable>			pendingTasks	= new ConcurrentLinkedQueue<Runnable>();
+	/**
+	 * True if selector was already woken up and pending tasks were not processed yet, so next wakeup is not needed.
+	 */
+	private final AtomicBoolean				wakeupPending	= new AtomicBoolean();
+	/**
+	 * Number of connections registered to this Dispatcher and not closed yet.
+	 */
+	private final AtomicInteger				connections		= new AtomicInteger();
+	/**
+	 * Buffers owned by this Dispatcher Thread [heap and direct one]. Data are read to them, only then buffer sized to
+	 * partial packet is leased from connection pool if needed.
+	 */
+	private final ByteBuffer[]				scratchBuffers	= new ByteBuffer[2];
 
 	/**
 	 * Constructor.
@@ -71,8 +93,8 @@ public abstract class Dispatcher extends Thread
 	}
 
 	/**
-	 * Add connection to pendingClose list, so this connection will be closed by this <code>Dispatcher</code> as soon
-	 * as possible.
+	 * Post closing of connection to this <code>Dispatcher</code>, so this connection will be closed by this
+	 * <code>Dispatcher</code> as soon as possible.
 	 * 
 	 * @param con
 	 * 
@@ -81,12 +103,20 @@ public abstract class Dispatcher extends Thread
 	abstract void closeConnection(AConnection con);
 
 	/**
-	 * Dispatch Selected keys and process pending close.
+	 * Select and dispatch Selected keys.
 	 * 
 	 * @throws IOException
 	 */
 	abstract void dispatch() throws IOException;
 
+	/**
+	 * @return number of connections registered to this Dispatcher and not closed yet.
+	 */
+	public final int getConnectionCount()
+	{
+		return connections.get();
+	}
+
 	/**
 	 * @return Selector of this Dispatcher
 	 */
@@ -96,7 +126,53 @@ public abstract class Dispatcher extends Thread
 	}
 
 	/**
-	 * Dispatching Selected keys and processing pending close.
+	 * Execute given task on this Dispatcher Thread. If called by this Dispatcher Thread [or Dispatcher is not started
+	 * yet] task is executed immediately, otherwise it is posted to pending tasks queue and selector is woken up.
+	 * 
+	 * @param task
+	 */
+	final void execute(Runnable task)
+	{
+		if (Thread.currentThread() == this || !isAlive())
+		{
+			task.run();
+			return;
+		}
+		pendingTasks.add(task);
+		wakeup();
+	}
+
+	/**
+	 * Wake up selector, but only if it was not woken up already since last processing of pending tasks.
+	 */
+	final void wakeup()
+	{
+		if (wakeupPending.compareAndSet(false, true))
+			selector.wakeup();
+	}
+
+	/**
+	 * Execute all pending tasks. This method may only be called by current Dispatcher Thread.
+	 */
+	private void processPendingTasks()
+	{
+		Runnable task;
+		while ((task = pendingTasks.poll()) != null)
+		{
+			try
+			{
+				task.run();
+			}
+			catch (Exception e)
+			{
+				log.error("Error while executing dispatcher task: " + e, e);
+			}
+		}
+	}
+
+	/**
+	 * Processing pending tasks and dispatching Selected keys. Wakeup flag is cleared before pending tasks are
+	 * processed, so task posted after that will wake up next select.
 	 * 
 	 * @see java.lang.Thread#run()
 	 */
@@ -107,11 +183,9 @@ public abstract class Dispatcher extends Thread
 		{
 			try
 			{
+				wakeupPending.set(false);
+				processPendingTasks();
 				dispatch();
-
-				synchronized (gate)
-				{
-				}
 			}
 			catch (Exception e)
 			{
@@ -122,20 +196,32 @@ public abstract class Dispatcher extends Thread
 
 	/**
 	 * Register new client connected to this Dispatcher and set SelectionKey
-	 * (result of registration) as this key of given AConnection.
+	 * (result of registration) as this key of given AConnection. Registration is done by this Dispatcher Thread, so
+	 * key may be set after this method returns.
 	 * 
 	 * @param ch
 	 * @param ops
 	 * @param att
 	 * @throws IOException
 	 */
-	public final void register(SelectableChannel ch, int ops, AConnection att) throws IOException
+	public final void register(final SelectableChannel ch, final int ops, final AConnection att) throws IOException
 	{
-		synchronized (gate)
-		{
-			selector.wakeup();
-			att.setKey(ch.register(selector, ops, att));
-		}
+		connections.incrementAndGet();
+		execute(new Runnable(){
+			@Override
+			public void run()
+			{
+				try
+				{
+					att.setKey(ch.register(selector, ops, att));
+				}
+				catch (IOException e)
+				{
+					log.warn("Error while registering connection: " + att + " " + e);
+					closeConnectionImpl(att);
+				}
+			}
+		});
 	}
 
 	/**
@@ -148,12 +234,30 @@ public abstract class Dispatcher extends Thread
 	 * @return SelectionKey representing this registration.
 	 * @throws IOException
 	 */
-	public final SelectionKey register(SelectableChannel ch, int ops, Acceptor att) throws IOException
+	public final SelectionKey register(final SelectableChannel ch, final int ops, final Acceptor att)
+		throws IOException
 	{
-		synchronized (gate)
+		FutureTask<SelectionKey> task = new FutureTask<SelectionKey>(new Callable<SelectionKey>(){
+			@Override
+			public SelectionKey call() throws IOException
+			{
+				return ch.register(selector, ops, att);
+			}
+		});
+		execute(task);
+		try
 		{
-			selector.wakeup();
-			return ch.register(selector, ops, att);
+			return task.get();
+		}
+		catch (InterruptedException e)
+		{
+			throw new IOException("Interrupted while registering acceptor", e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("Error while registering acceptor", e.getCause());
 		}
 	}
 
@@ -174,9 +278,34 @@ public abstract class Dispatcher extends Thread
 		}
 	}
 
+	/**
+	 * Returns cleared scratch buffer of this Dispatcher that is direct if connection pool is direct. May be called only
+	 * by this Dispatcher Thread.
+	 * 
+	 * @param con
+	 * @return ByteBuffer
+	 */
+	private ByteBuffer scratchBuffer(AConnection con)
+	{
+		boolean direct = con.getBufferPool().isDirect();
+		int idx = direct ? 1 : 0;
+		ByteBuffer buf = scratchBuffers[idx];
+		if (buf == null)
+		{
+			buf = direct ? ByteBuffer.allocateDirect(AConnection.BUFFER_SIZE) : ByteBuffer
+				.allocate(AConnection.BUFFER_SIZE);
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+			scratchBuffers[idx] = buf;
+		}
+		buf.clear();
+		return buf;
+	}
+
 	/**
 	 * Read data from socketChannel represented by SelectionKey key. Parse and Process data. Prepare buffer for next
-	 * read.
+	 * read. Data are read to scratch buffer of this Dispatcher, only partial packet left after parsing is copied to
+	 * buffer leased from connection pool and sized to that packet. Next data are read to that buffer until the packet is
+	 * complete.
 	 * 
 	 * @param key
 	 */
@@ -186,13 +315,15 @@ public abstract class Dispatcher extends Thread
 		AConnection con = (AConnection) key.attachment();
 
 		ByteBuffer rb = con.readBuffer;
+		if (rb == null)
+			rb = scratchBuffer(con);
 
 		/**
 		 * Test if this build should use assertion. If NetworkAssertion == false javac will remove this code block
 		 */
 		if (Assertion.NetworkAssertion)
 		{
-			assert con.readBuffer.hasRemaining();
+			assert rb.hasRemaining();
 		}
 
 		/** Attempt to read off the channel */
@@ -233,7 +364,7 @@ public abstract class Dispatcher extends Thread
 		}
 		if (rb.hasRemaining())
 		{
-			con.readBuffer.compact();
+			keepPartialPacket(con, rb);
 
 			/**
 			 * Test if this build should use assertion. If NetworkAssertion == false javac will remove this code block
@@ -243,8 +374,47 @@ public abstract class Dispatcher extends Thread
 				assert con.readBuffer.hasRemaining();
 			}
 		}
-		else
-			rb.clear();
+		else if (con.readBuffer != null)
+			releaseReadBuffer(con);
+	}
+
+	/**
+	 * Keep not fully read packet in read buffer of given connection. Read buffer is kept if it's big enough for the
+	 * whole packet, otherwise packet is copied to new buffer leased with capacity of the packet.
+	 * 
+	 * @param con
+	 * @param rb
+	 *            buffer with partial packet between position and limit.
+	 */
+	private void keepPartialPacket(AConnection con, ByteBuffer rb)
+	{
+		int size = rb.remaining();
+		if (size >= 2)
+			size = Math.max(size, rb.getShort(rb.position()));
+
+		if (rb == con.readBuffer && rb.capacity() >= size)
+		{
+			rb.compact();
+			return;
+		}
+
+		ByteBuffer pb = con.getBufferPool().lease(size);
+		pb.order(ByteOrder.LITTLE_ENDIAN);
+		pb.put(rb);
+		if (con.readBuffer != null)
+			releaseReadBuffer(con);
+		con.readBuffer = pb;
+	}
+
+	/**
+	 * Give back read buffer of given connection to the pool.
+	 * 
+	 * @param con
+	 */
+	private void releaseReadBuffer(AConnection con)
+	{
+		con.getBufferPool().release(con.readBuffer);
+		con.readBuffer = null;
 	}
 
 	/**
@@ -256,7 +426,7 @@ public abstract class Dispatcher extends Thread
 	 *            Buffer with packet data
 	 * @return True if packet was parsed.
 	 */
-	private boolean parse(AConnection con, ByteBuffer buf)
+	final boolean parse(AConnection con, ByteBuffer buf)
 	{
 		short sz = 0;
 		try
@@ -280,8 +450,10 @@ public abstract class Dispatcher extends Thread
 	}
 
 	/**
-	 * Write as much as possible data to socketChannel represented by SelectionKey key. If all data were written key
-	 * write interest will be disabled.
+	 * Write as much as possible data to socketChannel represented by SelectionKey key. Server packets waiting in
+	 * connection queue are written directly to buffers leased from connection pool, one after another while there is
+	 * space for the biggest packet, then buffers are sent by one gathering write. If all data were written key write
+	 * interest will be disabled and buffers given back to the pool.
 	 * 
 	 * @param key
 	 */
@@ -289,48 +461,36 @@ public abstract class Dispatcher extends Thread
 	{
 		SocketChannel socketChannel = (SocketChannel) key.channel();
 		AConnection con = (AConnection) key.attachment();
+		ByteBufferPool pool = con.getBufferPool();
+		ByteBuffer[] wbs = con.writeBuffers;
 
-		int numWrite;
-		ByteBuffer wb = con.writeBuffer;
-		/** We have not writted data */
-		if (wb.hasRemaining())
+		while (true)
 		{
-			try
+			/** Fill free buffers with server packets */
+			while (con.writeBuffersCount < wbs.length)
 			{
-				numWrite = socketChannel.write(wb);
-			}
-			catch (IOException e)
-			{
-				closeConnectionImpl(con);
-				return;
-			}
+				ByteBuffer wb = pool.lease(AConnection.WRITE_BUFFER_SIZE);
+				boolean more = fillWriteBuffer(con, wb);
+				if (wb.position() == 0)
+				{
+					pool.release(wb);
+					break;
+				}
 
-			if (numWrite == 0)
-			{
-				log.info("Write " + numWrite + " ip: " + con.getIP());
-				return;
+				wb.flip();
+				wbs[con.writeBuffersCount++] = wb;
+				if (!more)
+					break;
 			}
 
-			/** Again not all data was send */
-			if (wb.hasRemaining())
-				return;
-		}
-
-		while (true)
-		{
-			wb.clear();
-			boolean writeFailed = !con.writeData(wb);
-
-			if (writeFailed)
-			{
-				wb.limit(0);
+			if (con.writeBuffersCount == 0)
 				break;
-			}
 
 			/** Attempt to write to the channel */
+			long numWrite;
 			try
 			{
-				numWrite = socketChannel.write(wb);
+				numWrite = socketChannel.write(wbs, 0, con.writeBuffersCount);
 			}
 			catch (IOException e)
 			{
@@ -338,23 +498,26 @@ public abstract class Dispatcher extends Thread
 				return;
 			}
 
-			if (numWrite == 0)
+			/** Give back buffers that were fully written */
+			int written = 0;
+			while (written < con.writeBuffersCount && !wbs[written].hasRemaining())
+				pool.release(wbs[written++]);
+
+			if (written > 0)
 			{
-				log.info("Write " + numWrite + " ip: " + con.getIP());
-				return;
+				int left = con.writeBuffersCount - written;
+				System.arraycopy(wbs, written, wbs, 0, left);
+				Arrays.fill(wbs, left, con.writeBuffersCount, null);
+				con.writeBuffersCount = left;
 			}
 
 			/** not all data was send */
-			if (wb.hasRemaining())
+			if (con.writeBuffersCount > 0)
+			{
+				if (numWrite == 0)
+					log.info("Write " + numWrite + " ip: " + con.getIP());
 				return;
-		}
-
-		/**
-		 * Test if this build should use assertion. If NetworkAssertion == false javac will remove this code block
-		 */
-		if (Assertion.NetworkAssertion)
-		{
-			assert !wb.hasRemaining();
+			}
 		}
 
 		/**
@@ -367,6 +530,29 @@ public abstract class Dispatcher extends Thread
 			closeConnectionImpl(con);
 	}
 
+	/**
+	 * Writes server packets of given connection to given buffer one after another, while there is space for the
+	 * biggest packet. Every packet is written to slice of the buffer starting at its position, as packets write
+	 * themselves from position 0.
+	 * 
+	 * @param con
+	 * @param wb
+	 *            buffer that is filled from its position
+	 * @return false if there are no more packets to write
+	 */
+	private boolean fillWriteBuffer(AConnection con, ByteBuffer wb)
+	{
+		while (wb.remaining() >= AConnection.BUFFER_SIZE)
+		{
+			ByteBuffer pb = wb.slice();
+			pb.order(ByteOrder.LITTLE_ENDIAN);
+			if (!con.writeData(pb))
+				return false;
+			wb.position(wb.position() + pb.limit());
+		}
+		return true;
+	}
+
 	/**
 	 * Connection will be closed [onlyClose()] and onDisconnect() method will be executed on another thread
 	 * [DisconnectionThreadPool] after getDisconnectionDelay() time in ms. This method may only be called by current
@@ -383,6 +569,9 @@ public abstract class Dispatcher extends Thread
 			assert Thread.currentThread() == this;
 
 		if (con.onlyClose())
+		{
+			connections.decrementAndGet();
 			dcPool.scheduleDisconnection(new DisconnectionTask(con), con.getDisconnectionDelay());
+		}
 	}
 }
@@ -22,6 +22,7 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
@@ -44,14 +45,19 @@ public class NioServer
 	 */
 	private final List<SelectionKey>	serverChannelKeys	= new ArrayList<SelectionKey>();
 
+	/**
+	 * Dispatchers that will accept connections [every server channel is registered to all of them]
+	 */
+	private Dispatcher[]					acceptDispatchers;
 	/**
 	 * Dispatcher that will accept connections
 	 */
 	private Dispatcher						acceptDispatcher;
 	/**
-	 * Useful int to load balance connections between Dispatchers
+	 * Dispatcher from which search for the least loaded Dispatcher starts, so equally loaded Dispatchers get
+	 * connections in turns
 	 */
-	private int								currentReadWriteDispatcher;
+	private final AtomicInteger				currentReadWriteDispatcher	= new AtomicInteger();
 	/**
 	 * Read Write Dispatchers
 	 */
@@ -63,6 +69,7 @@ public class NioServer
 	private final DisconnectionThreadPool	dcPool;
 
 	private int readWriteThreads;
+	private int acceptThreads;
 	private ServerCfg[] cfgs;
 	
 	/**
@@ -76,6 +83,23 @@ public class NioServer
 	 *            Server Configurations
 	 */
 	public NioServer(int readWriteThreads, DisconnectionThreadPool dcPool, ServerCfg... cfgs)
+	{
+		this(readWriteThreads, 1, dcPool, cfgs);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param readWriteThreads -
+	 *            number of threads that will be used for handling read and write.
+	 * @param acceptThreads -
+	 *            number of threads that will accept connections [used only if readWriteThreads > 0].
+	 * @param dcPool -
+	 *            ThreadPool on witch Disconnection tasks will be executed.
+	 * @param cfgs -
+	 *            Server Configurations
+	 */
+	public NioServer(int readWriteThreads, int acceptThreads, DisconnectionThreadPool dcPool, ServerCfg... cfgs)
 	{
 		/**
 		 * Test if this build should use assertion and enforce it. If NetworkAssertion == false javac will remove this
@@ -91,6 +115,7 @@ public class NioServer
 		}
 		this.dcPool = dcPool;
 		this.readWriteThreads = readWriteThreads;
+		this.acceptThreads = acceptThreads;
 		this.cfgs = cfgs;
 	}
 
@@ -98,7 +123,7 @@ public class NioServer
 	{
 		try
 		{
-			this.initDispatchers(readWriteThreads, dcPool);
+			this.initDispatchers(readWriteThreads, acceptThreads, dcPool);
 
 			/** Create a new non-blocking server socket channel for clients */
 			for (ServerCfg cfg : cfgs)
@@ -126,8 +151,9 @@ public class NioServer
 				/**
 				 * Register the server socket channel, indicating an interest in accepting new connections
 				 */
-				SelectionKey acceptKey = getAcceptDispatcher().register(serverChannel, SelectionKey.OP_ACCEPT, new Acceptor(cfg.factory, this));
-				serverChannelKeys.add(acceptKey);
+				Acceptor acceptor = new Acceptor(cfg.factory, this);
+				for (Dispatcher d : acceptDispatchers)
+					serverChannelKeys.add(d.register(serverChannel, SelectionKey.OP_ACCEPT, acceptor));
 			}
 		}
 		catch (Exception e)
@@ -145,39 +171,60 @@ public class NioServer
 	}
 
 	/**
-	 * @return one of ReadWrite Dispatcher or Accept Dispatcher if readWriteThreads was set to 0.
+	 * @return ReadWrite Dispatcher with the least connections or Accept Dispatcher if readWriteThreads was set to 0.
 	 */
 	public final Dispatcher getReadWriteDispatcher()
 	{
 		if (readWriteDispatchers == null)
 			return acceptDispatcher;
 
-		if (readWriteDispatchers.length == 1)
+		int n = readWriteDispatchers.length;
+		if (n == 1)
 			return readWriteDispatchers[0];
 
-		if (currentReadWriteDispatcher >= readWriteDispatchers.length)
-			currentReadWriteDispatcher = 0;
-		return readWriteDispatchers[currentReadWriteDispatcher++];
+		int start = (currentReadWriteDispatcher.getAndIncrement() & Integer.MAX_VALUE) % n;
+		Dispatcher best = readWriteDispatchers[start];
+		int bestCount = best.getConnectionCount();
+		for (int i = 1; i < n && bestCount > 0; i++)
+		{
+			Dispatcher d = readWriteDispatchers[(start + i) % n];
+			int count = d.getConnectionCount();
+			if (count < bestCount)
+			{
+				best = d;
+				bestCount = count;
+			}
+		}
+		return best;
 	}
 
 	/**
 	 * Initialize Dispatchers.
 	 * 
 	 * @param readWriteThreads
+	 * @param acceptThreads
 	 * @param dcPool
 	 * @throws IOException
 	 */
-	private void initDispatchers(int readWriteThreads, DisconnectionThreadPool dcPool) throws IOException
+	private void initDispatchers(int readWriteThreads, int acceptThreads, DisconnectionThreadPool dcPool)
+		throws IOException
 	{
 		if (readWriteThreads <= 0)
 		{
 			acceptDispatcher = new AcceptReadWriteDispatcherImpl("AcceptReadWrite Dispatcher", dcPool);
 			acceptDispatcher.start();
+			acceptDispatchers = new Dispatcher[] { acceptDispatcher };
 		}
 		else
 		{
-			acceptDispatcher = new AcceptDispatcherImpl("Accept Dispatcher");
-			acceptDispatcher.start();
+			acceptDispatchers = new Dispatcher[Math.max(1, acceptThreads)];
+			for (int i = 0; i < acceptDispatchers.length; i++)
+			{
+				acceptDispatchers[i] = new AcceptDispatcherImpl(acceptDispatchers.length == 1 ? "Accept Dispatcher"
+					: "Accept-" + i + " Dispatcher");
+				acceptDispatchers[i].start();
+			}
+			acceptDispatcher = acceptDispatchers[0];
 
 			readWriteDispatchers = new Dispatcher[readWriteThreads];
 			for (int i = 0; i < readWriteDispatchers.length; i++)
@@ -193,16 +240,12 @@ public class NioServer
 	 */
 	public final int getActiveConnections()
 	{
+		if (readWriteDispatchers == null)
+			return acceptDispatcher.getConnectionCount();
+
 		int count = 0;
-		if (readWriteDispatchers != null)
-		{
-			for (Dispatcher d : readWriteDispatchers)
-				count += d.selector().keys().size();
-		}
-		else
-		{
-			count = acceptDispatcher.selector().keys().size() - serverChannelKeys.size();
-		}
+		for (Dispatcher d : readWriteDispatchers)
+			count += d.getConnectionCount();
 		return count;
 	}
 
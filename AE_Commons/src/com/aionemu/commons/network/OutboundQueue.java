@@ -0,0 +1,432 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.aionemu.commons.network.packet.BaseServerPacket;
+import com.aionemu.commons.network.packet.PacketPriority;
+
+/**
+ * Bounded queue of server packets waiting to be written to connection. Packets are handled according to theirs
+ * {@link PacketPriority}:
+ * <ul>
+ * <li>COALESCIBLE packet replaces queued packet with the same opcode and coalescing key and takes its position,
+ * if there is no such packet it is queued - newest state must never be lost</li>
+ * <li>DROPPABLE packets are dropped when queue has more than dropThreshold packets</li>
+ * <li>no packet is accepted when queue is full - connection is lagging hopelessly</li>
+ * </ul>
+ * This class is not thread safe - it should be guarded the same way as connection send queue was.
+ * 
+ * @author agent
+ * @param <P>
+ *            server packet type
+ */
+public class OutboundQueue<P extends BaseServerPacket>
+{
+	/**
+	 * Number of packets in all queues.
+	 */
+	private static final AtomicInteger	totalDepth			= new AtomicInteger();
+	/**
+	 * Number of packets dropped by all queues.
+	 */
+	private static final AtomicLong		totalDropped		= new AtomicLong();
+	/**
+	 * Number of packets superseded by newer ones in all queues.
+	 */
+	private static final AtomicLong		totalCoalesced		= new AtomicLong();
+	/**
+	 * Number of rejected packets [queue was full].
+	 */
+	private static final AtomicLong		totalOverflows		= new AtomicLong();
+
+	/**
+	 * Queued packets - ring buffer indexed by sequence number of packet, its length is power of two.
+	 */
+	private Object[]					packets				= new Object[16];
+	/**
+	 * Sequence number of first queued packet.
+	 */
+	private long						head;
+	/**
+	 * Sequence number that will be given to next queued packet.
+	 */
+	private long						tail;
+	/**
+	 * Sequence numbers of queued COALESCIBLE packets by opcode and coalescing key.
+	 */
+	private final SequenceMap			coalescible			= new SequenceMap();
+	/**
+	 * Maximum number of queued packets.
+	 */
+	private final int					capacity;
+	/**
+	 * Number of queued packets above witch droppable packets are dropped.
+	 */
+	private final int					dropThreshold;
+	/**
+	 * The biggest number of queued packets so far.
+	 */
+	private int							maxDepth;
+	/**
+	 * Number of packets dropped by this queue.
+	 */
+	private long						dropped;
+	/**
+	 * Number of packets superseded in this queue.
+	 */
+	private long						coalesced;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param capacity
+	 *            maximum number of queued packets
+	 * @param dropThreshold
+	 *            number of queued packets above witch droppable packets are dropped
+	 */
+	public OutboundQueue(int capacity, int dropThreshold)
+	{
+		this.capacity = capacity;
+		this.dropThreshold = dropThreshold;
+	}
+
+	/**
+	 * Adds packet to this queue. Dropped or coalesced packet is counted as accepted.
+	 * 
+	 * @param packet
+	 * @return false if queue is full and packet was rejected.
+	 */
+	public boolean offer(P packet)
+	{
+		PacketPriority priority = packet.getPriority();
+		long key = 0;
+		if(priority == PacketPriority.COALESCIBLE)
+		{
+			key = coalescingKey(packet);
+			long seq = coalescible.get(key);
+			if(seq >= 0)
+			{
+				/**
+				 * New state replaces old one in place, so it's not sent after packets queued later [like SM_DELETE].
+				 */
+				packets[index(seq)] = packet;
+				coalesced++;
+				totalCoalesced.incrementAndGet();
+				return true;
+			}
+		}
+
+		int size = size();
+		if(priority == PacketPriority.DROPPABLE && size >= dropThreshold)
+		{
+			dropped++;
+			totalDropped.incrementAndGet();
+			return true;
+		}
+
+		if(size >= capacity)
+		{
+			totalOverflows.incrementAndGet();
+			return false;
+		}
+
+		if(size == packets.length)
+			grow();
+		if(priority == PacketPriority.COALESCIBLE)
+			coalescible.put(key, tail);
+		packets[index(tail++)] = packet;
+
+		totalDepth.incrementAndGet();
+		if(size + 1 > maxDepth)
+			maxDepth = size + 1;
+		return true;
+	}
+
+	/**
+	 * Removes and returns first packet from this queue.
+	 * 
+	 * @return packet or null if queue is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public P poll()
+	{
+		if(head == tail)
+			return null;
+
+		int idx = index(head++);
+		P packet = (P) packets[idx];
+		packets[idx] = null;
+
+		totalDepth.decrementAndGet();
+		if(packet.getPriority() == PacketPriority.COALESCIBLE)
+			coalescible.remove(coalescingKey(packet));
+		return packet;
+	}
+
+	/**
+	 * Removes all packets from this queue.
+	 */
+	public void clear()
+	{
+		totalDepth.addAndGet(-size());
+		Arrays.fill(packets, null);
+		head = tail = 0;
+		coalescible.clear();
+	}
+
+	/**
+	 * @return number of queued packets.
+	 */
+	public int size()
+	{
+		return (int) (tail - head);
+	}
+
+	/**
+	 * Returns index in ring buffer of packet with given sequence number.
+	 * 
+	 * @param seq
+	 * @return index
+	 */
+	private int index(long seq)
+	{
+		return (int) seq & (packets.length - 1);
+	}
+
+	/**
+	 * Doubles ring buffer. Packets keep their sequence numbers.
+	 */
+	private void grow()
+	{
+		Object[] old = packets;
+		packets = new Object[old.length << 1];
+		for(long seq = head; seq < tail; seq++)
+			packets[index(seq)] = old[(int) seq & (old.length - 1)];
+	}
+
+	/**
+	 * @return the biggest number of queued packets so far.
+	 */
+	public int getMaxDepth()
+	{
+		return maxDepth;
+	}
+
+	/**
+	 * @return number of packets dropped by this queue.
+	 */
+	public long getDroppedCount()
+	{
+		return dropped;
+	}
+
+	/**
+	 * @return number of packets superseded in this queue.
+	 */
+	public long getCoalescedCount()
+	{
+		return coalesced;
+	}
+
+	/**
+	 * @return number of packets in all queues.
+	 */
+	public static int getTotalDepth()
+	{
+		return totalDepth.get();
+	}
+
+	/**
+	 * @return number of packets dropped by all queues.
+	 */
+	public static long getTotalDroppedCount()
+	{
+		return totalDropped.get();
+	}
+
+	/**
+	 * @return number of packets superseded in all queues.
+	 */
+	public static long getTotalCoalescedCount()
+	{
+		return totalCoalesced.get();
+	}
+
+	/**
+	 * @return number of packets rejected because queue was full.
+	 */
+	public static long getTotalOverflowCount()
+	{
+		return totalOverflows.get();
+	}
+
+	/**
+	 * Key of COALESCIBLE packet - its opcode and coalescing key.
+	 * 
+	 * @param packet
+	 * @return key
+	 */
+	private static long coalescingKey(BaseServerPacket packet)
+	{
+		return ((long) packet.getOpcode() << 32) | (packet.getCoalescingKey() & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Open addressing map of sequence numbers by coalescing key, so hot send path doesn't box keys. Linear probing,
+	 * removed entries are filled by backward shift.
+	 * 
+	 * @author agent
+	 */
+	private static final class SequenceMap
+	{
+		/**
+		 * Keys of entries, length is power of two.
+		 */
+		private long[]	keys	= new long[16];
+		/**
+		 * Sequence numbers of entries, -1 marks empty slot.
+		 */
+		private long[]	seqs	= newSeqs(16);
+		/**
+		 * Number of entries.
+		 */
+		private int		size;
+
+		/**
+		 * @param key
+		 * @return sequence number mapped to given key or -1 if there is none
+		 */
+		private long get(long key)
+		{
+			int mask = keys.length - 1;
+			for(int i = slot(key, mask);; i = (i + 1) & mask)
+			{
+				if(seqs[i] < 0)
+					return -1;
+				if(keys[i] == key)
+					return seqs[i];
+			}
+		}
+
+		/**
+		 * Maps given sequence number to given key.
+		 * 
+		 * @param key
+		 * @param seq
+		 *            not negative sequence number
+		 */
+		private void put(long key, long seq)
+		{
+			if((size + 1) << 1 > keys.length)
+				resize(keys.length << 1);
+
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			while(seqs[i] >= 0 && keys[i] != key)
+				i = (i + 1) & mask;
+			if(seqs[i] < 0)
+				size++;
+			keys[i] = key;
+			seqs[i] = seq;
+		}
+
+		/**
+		 * Removes entry with given key, if there is one.
+		 * 
+		 * @param key
+		 */
+		private void remove(long key)
+		{
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			while(keys[i] != key || seqs[i] < 0)
+			{
+				if(seqs[i] < 0)
+					return;
+				i = (i + 1) & mask;
+			}
+			size--;
+
+			/* move following entries of the same probe chain to the free slot */
+			for(int j = (i + 1) & mask; seqs[j] >= 0; j = (j + 1) & mask)
+			{
+				int k = slot(keys[j], mask);
+				if(j > i ? (k <= i || k > j) : (k <= i && k > j))
+				{
+					keys[i] = keys[j];
+					seqs[i] = seqs[j];
+					i = j;
+				}
+			}
+			seqs[i] = -1;
+		}
+
+		/**
+		 * Removes all entries.
+		 */
+		private void clear()
+		{
+			Arrays.fill(seqs, -1);
+			size = 0;
+		}
+
+		/**
+		 * Rehashes entries to tables of given length.
+		 * 
+		 * @param length
+		 */
+		private void resize(int length)
+		{
+			long[] oldKeys = keys;
+			long[] oldSeqs = seqs;
+			keys = new long[length];
+			seqs = newSeqs(length);
+			size = 0;
+			for(int i = 0; i < oldKeys.length; i++)
+			{
+				if(oldSeqs[i] >= 0)
+					put(oldKeys[i], oldSeqs[i]);
+			}
+		}
+
+		/**
+		 * @param length
+		 * @return array of empty slots
+		 */
+		private static long[] newSeqs(int length)
+		{
+			long[] seqs = new long[length];
+			Arrays.fill(seqs, -1);
+			return seqs;
+		}
+
+		/**
+		 * @param key
+		 * @param mask
+		 * @return home slot of given key
+		 */
+		private static int slot(long key, int mask)
+		{
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+	}
+}
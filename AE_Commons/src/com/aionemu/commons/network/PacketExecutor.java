@@ -0,0 +1,38 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network;
+
+import com.aionemu.commons.network.packet.BaseClientPacket;
+
+/**
+ * Executor of client packets. Implementations must respect rules: - 1 packet / client at one time. - execute packets
+ * in received order.
+ * 
+ * @author agent
+ * @param <T>
+ *            AConnection - owner of client packets.
+ */
+public interface PacketExecutor<T extends AConnection>
+{
+	/**
+	 * Add packet to execution queue and execute it as soon as possible on another Thread.
+	 * 
+	 * @param packet
+	 *            that will be executed.
+	 */
+	public void executePacket(BaseClientPacket<T> packet);
+}
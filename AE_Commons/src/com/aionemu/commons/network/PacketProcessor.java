@@ -26,6 +26,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.log4j.Logger;
 
+import com.aionemu.commons.network.metrics.NetworkMetrics;
 import com.aionemu.commons.network.packet.BaseClientPacket;
 
 /**
@@ -36,7 +37,7 @@ import com.aionemu.commons.network.packet.BaseClientPacket;
  * @param <T> AConnection - owner of client packets.
  * 
  */
-public class PacketProcessor<T extends AConnection>
+public class PacketProcessor<T extends AConnection> implements PacketExecutor<T>
 {
 	/**
 	 * Logger for PacketProcessor
@@ -154,11 +155,13 @@ public class PacketProcessor<T extends AConnection>
 	 * @param packet
 	 *            that will be executed.
 	 */
+	@Override
 	public final void executePacket(BaseClientPacket<T> packet)
 	{
 		lock.lock();
 		try
 		{
+			NetworkMetrics.packetQueued(packet);
 			packets.add(packet);
 			notEmpty.signal();
 		}
@@ -211,25 +214,28 @@ public class PacketProcessor<T extends AConnection>
 		public void run()
 		{
 			BaseClientPacket<T> packet = null;
+			/* packet may be recycled after run() so its connection is remembered here */
+			T con = null;
 			for (;;)
 			{
 				lock.lock();
 				try
 				{
-					if (packet != null)
-						packet.getConnection().unlockConnection();
+					if (con != null)
+						con.unlockConnection();
 
 					/* thread killed */
 					if (Thread.interrupted())
 						return;
 
 					packet = getFirstAviable();
+					con = packet.getConnection();
 				}
 				finally
 				{
 					lock.unlock();
 				}
-				packet.run();
+				NetworkMetrics.runPacket(packet);
 			}
 		}
 	}
@@ -0,0 +1,180 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe, allocation free histogram of latencies [in nanoseconds]. Values are counted in log-linear buckets
+ * [like in HdrHistogram] - every power of two range is divided into 16 sub buckets, so relative error of percentiles is
+ * lower than 6.25%.
+ * 
+ * @author agent
+ */
+public class LatencyHistogram
+{
+	/**
+	 * log2 of sub buckets count.
+	 */
+	private static final int		SUB_BUCKET_BITS	= 4;
+	/**
+	 * Number of sub buckets in every power of two range.
+	 */
+	private static final int		SUB_BUCKETS		= 1 << SUB_BUCKET_BITS;
+	/**
+	 * Number of buckets - enough for every positive long.
+	 */
+	private static final int		BUCKETS			= (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	/**
+	 * Number of values in buckets.
+	 */
+	private final AtomicLongArray	counts			= new AtomicLongArray(BUCKETS);
+	/**
+	 * Number of recorded values.
+	 */
+	private final AtomicLong		count			= new AtomicLong();
+	/**
+	 * Sum of recorded values.
+	 */
+	private final AtomicLong		total			= new AtomicLong();
+	/**
+	 * The biggest recorded value.
+	 */
+	private final AtomicLong		max				= new AtomicLong();
+
+	/**
+	 * Records value.
+	 * 
+	 * @param nanos
+	 */
+	public void record(long nanos)
+	{
+		if(nanos < 0)
+			nanos = 0;
+
+		counts.incrementAndGet(bucketOf(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+
+		long m = max.get();
+		while(nanos > m && !max.compareAndSet(m, nanos))
+			m = max.get();
+	}
+
+	/**
+	 * @return number of recorded values.
+	 */
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	/**
+	 * @return sum of recorded values.
+	 */
+	public long getTotal()
+	{
+		return total.get();
+	}
+
+	/**
+	 * @return mean of recorded values or 0 if nothing was recorded.
+	 */
+	public long getMean()
+	{
+		long c = count.get();
+		return c == 0 ? 0 : total.get() / c;
+	}
+
+	/**
+	 * @return the biggest recorded value.
+	 */
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	/**
+	 * Returns value below witch given percent of recorded values are [upper bound of bucket].
+	 * 
+	 * @param percentile
+	 *            0 - 100
+	 * @return percentile value or 0 if nothing was recorded.
+	 */
+	public long getPercentile(double percentile)
+	{
+		long c = count.get();
+		if(c == 0)
+			return 0;
+
+		long needed = (long) Math.ceil(c * percentile / 100);
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++)
+		{
+			seen += counts.get(i);
+			if(seen >= needed)
+				return Math.min(upperBoundOf(i), max.get());
+		}
+		return max.get();
+	}
+
+	/**
+	 * Clears this histogram. Values recorded concurrently with reset may be partially lost.
+	 */
+	public void reset()
+	{
+		for(int i = 0; i < BUCKETS; i++)
+			counts.set(i, 0);
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Returns bucket index for given value.
+	 * 
+	 * @param value
+	 * @return bucket index
+	 */
+	private static int bucketOf(long value)
+	{
+		if(value < SUB_BUCKETS)
+			return (int) value;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Returns the biggest value counted in given bucket.
+	 * 
+	 * @param bucket
+	 * @return upper bound of bucket
+	 */
+	private static long upperBoundOf(int bucket)
+	{
+		if(bucket < SUB_BUCKETS)
+			return bucket;
+
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+		return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
@@ -0,0 +1,445 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+import com.aionemu.commons.network.OutboundQueue;
+import com.aionemu.commons.network.packet.BaseClientPacket;
+
+/**
+ * Network and packet metrics: per opcode counters and latencies of client packets decoding and execution and server
+ * packets writing, Dispatcher loop time and PacketProcessor queue depth and wait time. Metrics are collected all the
+ * time [recording is allocation free], {@link #register(String)} exposes them over JMX.
+ * 
+ * @author agent
+ */
+public final class NetworkMetrics implements NetworkMetricsMBean
+{
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger				log					= Logger.getLogger(NetworkMetrics.class);
+
+	/**
+	 * Order of opcodes in top-N dumps.
+	 */
+	public static enum TopBy
+	{
+		/**
+		 * Number of received packets.
+		 */
+		IN_COUNT,
+		/**
+		 * Number of received bytes.
+		 */
+		IN_BYTES,
+		/**
+		 * Total time of client packets decoding.
+		 */
+		DECODE_TIME,
+		/**
+		 * Total time of client packets execution.
+		 */
+		RUN_TIME,
+		/**
+		 * Number of sent packets.
+		 */
+		OUT_COUNT,
+		/**
+		 * Number of sent bytes.
+		 */
+		OUT_BYTES,
+		/**
+		 * Total time of server packets writing.
+		 */
+		WRITE_TIME;
+	}
+
+	/**
+	 * Received client packets and theirs decoding times.
+	 */
+	private static final OpcodeStats		in					= new OpcodeStats();
+	/**
+	 * Execution times of client packets.
+	 */
+	private static final OpcodeStats		run					= new OpcodeStats();
+	/**
+	 * Sent server packets and theirs writing times.
+	 */
+	private static final OpcodeStats		out					= new OpcodeStats();
+	/**
+	 * Dispatcher loop times.
+	 */
+	private static final LatencyHistogram	selectorLoop		= new LatencyHistogram();
+	/**
+	 * Time that client packets wait for execution.
+	 */
+	private static final LatencyHistogram	processorWait		= new LatencyHistogram();
+	/**
+	 * Number of client packets waiting for execution.
+	 */
+	private static final AtomicInteger		processorQueueDepth	= new AtomicInteger();
+
+	/**
+	 * Only registered instance.
+	 */
+	private NetworkMetrics()
+	{
+	}
+
+	/**
+	 * Registers NetworkMetrics MBean in platform MBeanServer.
+	 * 
+	 * @param domain
+	 *            JMX domain [ie application name]
+	 */
+	public static void register(String domain)
+	{
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new NetworkMetrics(),
+				new ObjectName(domain + ":type=NetworkMetrics"));
+		}
+		catch(Exception e)
+		{
+			log.warn("Can't register NetworkMetrics MBean", e);
+		}
+	}
+
+	/**
+	 * Records received and decoded client packet.
+	 * 
+	 * @param opcode
+	 * @param size
+	 * @param nanos
+	 *            decoding time
+	 */
+	public static void recordDecode(int opcode, int size, long nanos)
+	{
+		in.recordPacket(opcode, size);
+		in.recordTime(opcode, nanos);
+	}
+
+	/**
+	 * Records written server packet.
+	 * 
+	 * @param opcode
+	 * @param size
+	 * @param nanos
+	 *            writing time
+	 */
+	public static void recordWrite(int opcode, int size, long nanos)
+	{
+		out.recordPacket(opcode, size);
+		out.recordTime(opcode, nanos);
+	}
+
+	/**
+	 * Records time of one Dispatcher loop.
+	 * 
+	 * @param nanos
+	 */
+	public static void recordSelectorLoop(long nanos)
+	{
+		selectorLoop.record(nanos);
+	}
+
+	/**
+	 * Called when client packet is added to PacketProcessor queue.
+	 * 
+	 * @param packet
+	 */
+	public static void packetQueued(BaseClientPacket<?> packet)
+	{
+		packet.setQueuedTime(System.nanoTime());
+		processorQueueDepth.incrementAndGet();
+	}
+
+	/**
+	 * Executes client packet taken from PacketProcessor queue, recording its wait and execution time.
+	 * 
+	 * @param packet
+	 */
+	public static void runPacket(BaseClientPacket<?> packet)
+	{
+		long start = System.nanoTime();
+		processorQueueDepth.decrementAndGet();
+		processorWait.record(start - packet.getQueuedTime());
+
+		/** packet may be recycled after run() */
+		int opcode = packet.getOpcode();
+		try
+		{
+			packet.run();
+		}
+		finally
+		{
+			run.recordTime(opcode, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Returns statistics of top opcodes.
+	 * 
+	 * @param by
+	 * @param n
+	 *            number of opcodes
+	 * @return one line per opcode
+	 */
+	public static List<String> getTop(final TopBy by, int n)
+	{
+		Integer[] opcodes = new Integer[OpcodeStats.OPCODES];
+		for(int i = 0; i < opcodes.length; i++)
+			opcodes[i] = i;
+
+		Arrays.sort(opcodes, new Comparator<Integer>(){
+			@Override
+			public int compare(Integer o1, Integer o2)
+			{
+				long v1 = valueOf(by, o1);
+				long v2 = valueOf(by, o2);
+				return v1 > v2 ? -1 : v1 < v2 ? 1 : 0;
+			}
+		});
+
+		List<String> result = new ArrayList<String>(n);
+		for(int i = 0; i < opcodes.length && result.size() < n; i++)
+		{
+			int opcode = opcodes[i];
+			if(valueOf(by, opcode) == 0)
+				break;
+			result.add(describe(by, opcode));
+		}
+		return result;
+	}
+
+	/**
+	 * Value of opcode used for sorting.
+	 * 
+	 * @param by
+	 * @param opcode
+	 * @return value
+	 */
+	private static long valueOf(TopBy by, int opcode)
+	{
+		switch(by)
+		{
+			case IN_COUNT:
+				return in.getCount(opcode);
+			case IN_BYTES:
+				return in.getBytes(opcode);
+			case DECODE_TIME:
+				return totalOf(in.getHistogram(opcode));
+			case RUN_TIME:
+				return totalOf(run.getHistogram(opcode));
+			case OUT_COUNT:
+				return out.getCount(opcode);
+			case OUT_BYTES:
+				return out.getBytes(opcode);
+			case WRITE_TIME:
+				return totalOf(out.getHistogram(opcode));
+		}
+		return 0;
+	}
+
+	/**
+	 * Describes statistics of opcode.
+	 * 
+	 * @param by
+	 * @param opcode
+	 * @return description
+	 */
+	private static String describe(TopBy by, int opcode)
+	{
+		OpcodeStats stats;
+		switch(by)
+		{
+			case OUT_COUNT:
+			case OUT_BYTES:
+			case WRITE_TIME:
+				stats = out;
+				break;
+			default:
+				stats = in;
+		}
+
+		LatencyHistogram time = by == TopBy.RUN_TIME ? run.getHistogram(opcode) : stats.getHistogram(opcode);
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("0x%02X", opcode));
+		sb.append(" count=").append(stats.getCount(opcode));
+		sb.append(" bytes=").append(stats.getBytes(opcode));
+		if(time != null)
+		{
+			sb.append(by == TopBy.RUN_TIME ? " run" : stats == in ? " decode" : " write");
+			sb.append(" total=").append(time.getTotal() / 1000000).append("ms");
+			sb.append(" mean=").append(time.getMean() / 1000).append("us");
+			sb.append(" p99=").append(time.getPercentile(99) / 1000).append("us");
+			sb.append(" max=").append(time.getMax() / 1000).append("us");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param histogram
+	 * @return total time recorded by histogram or 0 if histogram is null
+	 */
+	private static long totalOf(LatencyHistogram histogram)
+	{
+		return histogram == null ? 0 : histogram.getTotal();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getSelectorLoopCount()
+	{
+		return selectorLoop.getCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getSelectorLoopMeanMicros()
+	{
+		return selectorLoop.getMean() / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getSelectorLoopP99Micros()
+	{
+		return selectorLoop.getPercentile(99) / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getSelectorLoopMaxMicros()
+	{
+		return selectorLoop.getMax() / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getProcessorQueueDepth()
+	{
+		return processorQueueDepth.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getProcessorWaitMeanMicros()
+	{
+		return processorWait.getMean() / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getProcessorWaitP99Micros()
+	{
+		return processorWait.getPercentile(99) / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getProcessorWaitMaxMicros()
+	{
+		return processorWait.getMax() / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getOutboundQueueDepth()
+	{
+		return OutboundQueue.getTotalDepth();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getOutboundDroppedPackets()
+	{
+		return OutboundQueue.getTotalDroppedCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getOutboundCoalescedPackets()
+	{
+		return OutboundQueue.getTotalCoalescedCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getOutboundQueueOverflows()
+	{
+		return OutboundQueue.getTotalOverflowCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String[] top(String by, int n)
+	{
+		List<String> top = getTop(TopBy.valueOf(by), n);
+		return top.toArray(new String[top.size()]);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset()
+	{
+		in.reset();
+		run.reset();
+		out.reset();
+		selectorLoop.reset();
+		processorWait.reset();
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network.metrics;
+
+/**
+ * JMX view of {@link NetworkMetrics}. Times are in microseconds.
+ * 
+ * @author agent
+ */
+public interface NetworkMetricsMBean
+{
+	/**
+	 * @return number of Dispatcher loops [selects that returned].
+	 */
+	public long getSelectorLoopCount();
+
+	/**
+	 * @return mean time of Dispatcher loop [without select].
+	 */
+	public long getSelectorLoopMeanMicros();
+
+	/**
+	 * @return 99th percentile of Dispatcher loop time [without select].
+	 */
+	public long getSelectorLoopP99Micros();
+
+	/**
+	 * @return the longest Dispatcher loop [without select].
+	 */
+	public long getSelectorLoopMaxMicros();
+
+	/**
+	 * @return number of client packets waiting for execution.
+	 */
+	public int getProcessorQueueDepth();
+
+	/**
+	 * @return mean time that client packets wait for execution.
+	 */
+	public long getProcessorWaitMeanMicros();
+
+	/**
+	 * @return 99th percentile of time that client packets wait for execution.
+	 */
+	public long getProcessorWaitP99Micros();
+
+	/**
+	 * @return the longest time that client packet waited for execution.
+	 */
+	public long getProcessorWaitMaxMicros();
+
+	/**
+	 * @return number of server packets waiting to be sent.
+	 */
+	public int getOutboundQueueDepth();
+
+	/**
+	 * @return number of server packets dropped by send queues.
+	 */
+	public long getOutboundDroppedPackets();
+
+	/**
+	 * @return number of server packets superseded by newer ones in send queues.
+	 */
+	public long getOutboundCoalescedPackets();
+
+	/**
+	 * @return number of server packets rejected by full send queues.
+	 */
+	public long getOutboundQueueOverflows();
+
+	/**
+	 * Returns statistics of top opcodes.
+	 * 
+	 * @param by
+	 *            name of {@link NetworkMetrics.TopBy} constant
+	 * @param n
+	 *            number of opcodes
+	 * @return one line per opcode
+	 */
+	public String[] top(String by, int n);
+
+	/**
+	 * Clears all metrics.
+	 */
+	public void reset();
+}
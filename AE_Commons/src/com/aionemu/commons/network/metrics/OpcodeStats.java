@@ -0,0 +1,126 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per opcode packet counters: number of packets, bytes and latency histogram [created on first recorded time]. Only
+ * opcodes lower than {@link #OPCODES} are counted.
+ * 
+ * @author agent
+ */
+public class OpcodeStats
+{
+	/**
+	 * Number of supported opcodes.
+	 */
+	public static final int								OPCODES		= 0x100;
+
+	/**
+	 * Number of packets by opcode.
+	 */
+	private final AtomicLongArray						counts		= new AtomicLongArray(OPCODES);
+	/**
+	 * Number of bytes by opcode.
+	 */
+	private final AtomicLongArray						bytes		= new AtomicLongArray(OPCODES);
+	/**
+	 * Latency histograms by opcode.
+	 */
+	private final AtomicReferenceArray<LatencyHistogram>	histograms	= new AtomicReferenceArray<LatencyHistogram>(
+																		OPCODES);
+
+	/**
+	 * Counts packet.
+	 * 
+	 * @param opcode
+	 * @param size
+	 *            packet size in bytes
+	 */
+	public void recordPacket(int opcode, int size)
+	{
+		if(opcode < 0 || opcode >= OPCODES)
+			return;
+
+		counts.incrementAndGet(opcode);
+		bytes.addAndGet(opcode, size);
+	}
+
+	/**
+	 * Records latency of packet with given opcode.
+	 * 
+	 * @param opcode
+	 * @param nanos
+	 */
+	public void recordTime(int opcode, long nanos)
+	{
+		if(opcode < 0 || opcode >= OPCODES)
+			return;
+
+		LatencyHistogram histogram = histograms.get(opcode);
+		if(histogram == null)
+		{
+			histograms.compareAndSet(opcode, null, new LatencyHistogram());
+			histogram = histograms.get(opcode);
+		}
+		histogram.record(nanos);
+	}
+
+	/**
+	 * @param opcode
+	 * @return number of packets with given opcode.
+	 */
+	public long getCount(int opcode)
+	{
+		return counts.get(opcode);
+	}
+
+	/**
+	 * @param opcode
+	 * @return number of bytes of packets with given opcode.
+	 */
+	public long getBytes(int opcode)
+	{
+		return bytes.get(opcode);
+	}
+
+	/**
+	 * @param opcode
+	 * @return latency histogram of packets with given opcode or null if no time was recorded.
+	 */
+	public LatencyHistogram getHistogram(int opcode)
+	{
+		return histograms.get(opcode);
+	}
+
+	/**
+	 * Clears all counters.
+	 */
+	public void reset()
+	{
+		for(int i = 0; i < OPCODES; i++)
+		{
+			counts.set(i, 0);
+			bytes.set(i, 0);
+			LatencyHistogram histogram = histograms.get(i);
+			if(histogram != null)
+				histogram.reset();
+		}
+	}
+}
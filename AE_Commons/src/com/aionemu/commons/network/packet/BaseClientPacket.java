@@ -43,6 +43,14 @@ public abstract class BaseClientPacket<T extends AConnection> extends BasePacket
 	 * ByteBuffer that contains this packet data
 	 */
 	private ByteBuffer			buf;
+	/**
+	 * Factory to witch this packet is given back after execution, null if this packet is not reused.
+	 */
+	private RecyclingPacketFactory<T, ?>	recycler;
+	/**
+	 * System.nanoTime() when this packet was queued for execution.
+	 */
+	private long				queuedTime;
 
 	/**
 	 * Constructs a new client packet with specified id and data buffer.
@@ -77,6 +85,49 @@ public abstract class BaseClientPacket<T extends AConnection> extends BasePacket
 		this.buf = buf;
 	}
 
+	/**
+	 * Set factory to witch this packet will be given back by recycle().
+	 * 
+	 * @param recycler
+	 */
+	final void setRecycler(RecyclingPacketFactory<T, ?> recycler)
+	{
+		this.recycler = recycler;
+	}
+
+	/**
+	 * Give back this packet to its factory, so it can be reused. Does nothing if this packet is not reused. Packet must
+	 * not be used after this call.
+	 */
+	public final void recycle()
+	{
+		/** packet without owner is already recycled */
+		if (recycler == null || client == null)
+			return;
+
+		buf = null;
+		client = null;
+		recycler.recycle(this);
+	}
+
+	/**
+	 * @return System.nanoTime() when this packet was queued for execution.
+	 */
+	public final long getQueuedTime()
+	{
+		return queuedTime;
+	}
+
+	/**
+	 * Sets System.nanoTime() when this packet was queued for execution.
+	 * 
+	 * @param queuedTime
+	 */
+	public final void setQueuedTime(long queuedTime)
+	{
+		this.queuedTime = queuedTime;
+	}
+
 	/**
 	 * Attach client connection to this packet.
 	 * 
@@ -43,6 +43,27 @@ public abstract class BaseServerPacket extends BasePacket
 	{
 		super(PacketType.SERVER);
 	}
+
+	/**
+	 * Returns priority class of this packet. Packets are critical by default.
+	 * 
+	 * @return priority of this packet
+	 */
+	public PacketPriority getPriority()
+	{
+		return PacketPriority.CRITICAL;
+	}
+
+	/**
+	 * Returns key that identifies what is updated by COALESCIBLE packet [ie object id]. Queued packet is superseded by
+	 * newer packet with the same opcode and coalescing key.
+	 * 
+	 * @return coalescing key
+	 */
+	public int getCoalescingKey()
+	{
+		return 0;
+	}
 	
 	/**
 	 * Write int to buffer.
@@ -0,0 +1,44 @@
+/**
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network.packet;
+
+import java.nio.ByteBuffer;
+
+import com.aionemu.commons.network.AConnection;
+
+/**
+ * Factory of client packets registered in {@link ClientPacketTable}.
+ * 
+ * @author agent
+ * @param <T>
+ *            AConnection - owner of client packets.
+ * @param <P>
+ *            type of created client packets.
+ */
+public interface ClientPacketFactory<T extends AConnection, P extends BaseClientPacket<T>>
+{
+	/**
+	 * Create [or take from pool] client packet with given data buffer and connection.
+	 * 
+	 * @param buf
+	 *            packet data.
+	 * @param con
+	 *            packet owner.
+	 * @return client packet
+	 */
+	public P newPacket(ByteBuffer buf, T con);
+}
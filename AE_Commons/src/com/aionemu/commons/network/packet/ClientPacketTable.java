@@ -0,0 +1,122 @@
+/**
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network.packet;
+
+import java.nio.ByteBuffer;
+
+import com.aionemu.commons.network.AConnection;
+
+/**
+ * Client packet dispatch table. Factories are kept in array indexed by <code>[state.ordinal()][opcode & 0xFF]</code>,
+ * so finding packet for received opcode doesn't box opcode or walk any map.
+ * 
+ * @author agent
+ * @param <S>
+ *            connection state enum.
+ * @param <T>
+ *            AConnection - owner of client packets.
+ * @param <P>
+ *            type of client packets.
+ */
+public class ClientPacketTable<S extends Enum<S>, T extends AConnection, P extends BaseClientPacket<T>>
+{
+	/**
+	 * Number of possible opcodes.
+	 */
+	private static final int						OPCODES	= 0x100;
+
+	/**
+	 * Packet factories indexed by state ordinal and opcode.
+	 */
+	private final ClientPacketFactory<T, P>[][]	factories;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param stateClass
+	 *            class of connection state enum.
+	 */
+	@SuppressWarnings("unchecked")
+	public ClientPacketTable(Class<S> stateClass)
+	{
+		int states = stateClass.getEnumConstants().length;
+		factories = (ClientPacketFactory<T, P>[][]) new ClientPacketFactory<?, ?>[states][OPCODES];
+	}
+
+	/**
+	 * Register factory of packet with given opcode for given state. Negative opcode means that packet is not
+	 * supported [by this client version] and factory is ignored.
+	 * 
+	 * @param opcode
+	 * @param factory
+	 * @param state
+	 */
+	public void addFactory(int opcode, ClientPacketFactory<T, P> factory, S state)
+	{
+		if (checkOpcode(opcode))
+			factories[state.ordinal()][opcode] = factory;
+	}
+
+	/**
+	 * Register factory of packet with given opcode for given states. Negative opcode means that packet is not
+	 * supported [by this client version] and factory is ignored.
+	 * 
+	 * @param opcode
+	 * @param factory
+	 * @param states
+	 */
+	public void addFactory(int opcode, ClientPacketFactory<T, P> factory, S[] states)
+	{
+		if (!checkOpcode(opcode))
+			return;
+
+		for (S state : states)
+			factories[state.ordinal()][opcode] = factory;
+	}
+
+	/**
+	 * @param opcode
+	 * @return false if opcode is negative - packet is not supported
+	 * @throws IllegalArgumentException
+	 *             if opcode is out of range
+	 */
+	private static boolean checkOpcode(int opcode)
+	{
+		if (opcode >= OPCODES)
+			throw new IllegalArgumentException("Opcode out of range: 0x" + Integer.toHexString(opcode));
+		return opcode >= 0;
+	}
+
+	/**
+	 * Returns client packet for given state and opcode or null if there is no such packet.
+	 * 
+	 * @param state
+	 * @param opcode
+	 * @param buf
+	 *            packet data.
+	 * @param con
+	 *            packet owner.
+	 * @return client packet or null
+	 */
+	public P getPacket(S state, int opcode, ByteBuffer buf, T con)
+	{
+		ClientPacketFactory<T, P> factory = factories[state.ordinal()][opcode & 0xFF];
+		if (factory == null)
+			return null;
+		return factory.newPacket(buf, con);
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network.packet;
+
+/**
+ * Priority class of server packet. Decides what happens with packet when connection is not able to send packets as
+ * fast as they are produced.
+ * 
+ * @author agent
+ */
+public enum PacketPriority
+{
+	/**
+	 * Packet is never dropped [auth, deletes, chat etc].
+	 */
+	CRITICAL,
+	/**
+	 * Packet may be dropped when connection is congested.
+	 */
+	DROPPABLE,
+	/**
+	 * Packet is superseded by newer packet with the same opcode and coalescing key [position updates etc]. Newest
+	 * packet of each key is never dropped.
+	 */
+	COALESCIBLE;
+}
@@ -0,0 +1,114 @@
+/**
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network.packet;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.aionemu.commons.network.AConnection;
+
+/**
+ * Client packet factory that reuses packet instances. Packet is given back to this factory by
+ * {@link BaseClientPacket#recycle()} after it was executed, so its implementation may not keep any reference to
+ * itself after runImpl() and must overwrite all its fields in readImpl().
+ * 
+ * @author agent
+ * @param <T>
+ *            AConnection - owner of client packets.
+ * @param <P>
+ *            type of created client packets.
+ */
+public abstract class RecyclingPacketFactory<T extends AConnection, P extends BaseClientPacket<T>> implements
+	ClientPacketFactory<T, P>
+{
+	/**
+	 * Packets ready for reuse.
+	 */
+	private final Queue<P>		pool		= new ConcurrentLinkedQueue<P>();
+	/**
+	 * Number of packets in pool.
+	 */
+	private final AtomicInteger	poolSize	= new AtomicInteger();
+	/**
+	 * Maximum number of packets kept in pool.
+	 */
+	private final int			maxPoolSize;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param maxPoolSize
+	 *            maximum number of packets kept in pool.
+	 */
+	public RecyclingPacketFactory(int maxPoolSize)
+	{
+		this.maxPoolSize = maxPoolSize;
+	}
+
+	/**
+	 * Create new packet instance, it will be reused later.
+	 * 
+	 * @return new client packet
+	 */
+	protected abstract P createPacket();
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final P newPacket(ByteBuffer buf, T con)
+	{
+		P packet = pool.poll();
+		if (packet == null)
+		{
+			packet = createPacket();
+			packet.setRecycler(this);
+		}
+		else
+			poolSize.decrementAndGet();
+
+		packet.setBuffer(buf);
+		packet.setConnection(con);
+		return packet;
+	}
+
+	/**
+	 * Give back packet to pool.
+	 * 
+	 * @param packet
+	 */
+	@SuppressWarnings("unchecked")
+	final void recycle(BaseClientPacket<T> packet)
+	{
+		if (poolSize.incrementAndGet() > maxPoolSize)
+		{
+			poolSize.decrementAndGet();
+			return;
+		}
+		pool.offer((P) packet);
+	}
+
+	/**
+	 * @return number of packets ready for reuse.
+	 */
+	public final int getPoolSize()
+	{
+		return poolSize.get();
+	}
+}
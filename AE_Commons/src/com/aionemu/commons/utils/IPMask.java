@@ -0,0 +1,161 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.utils;
+
+/**
+ * IP mask in format used by {@link NetworkUtils#checkIPMatching(String, String)} [*.*.*.* , 192.168.1.0-255 , *]
+ * compiled to octet ranges, so matching doesn't parse strings. Mask that is continuous range of addresses [exact
+ * octets, then at most one octet range, then only wildcards] is also available as one range of addresses.
+ * 
+ * @author agent
+ */
+public final class IPMask
+{
+	/**
+	 * Minimal value of every octet.
+	 */
+	private final int[]		min	= new int[4];
+
+	/**
+	 * Maximal value of every octet.
+	 */
+	private final int[]		max	= new int[4];
+
+	/**
+	 * True if matched addresses are one continuous range.
+	 */
+	private final boolean	continuous;
+
+	/**
+	 * Original mask.
+	 */
+	private final String	mask;
+
+	/**
+	 * Compiles mask.
+	 * 
+	 * @param mask
+	 * @throws IllegalArgumentException
+	 *             if mask is not valid
+	 */
+	public IPMask(String mask)
+	{
+		this.mask = mask;
+
+		String[] octets = mask.equals("*") ? new String[0] : mask.split("\\.");
+		if(octets.length > 4)
+			throw new IllegalArgumentException("Invalid ip mask: " + mask);
+
+		for(int i = 0; i < 4; i++)
+		{
+			String octet = i < octets.length ? octets[i] : "*";
+			if(octet.equals("*"))
+			{
+				min[i] = 0;
+				max[i] = 255;
+			}
+			else
+			{
+				int dash = octet.indexOf('-');
+				try
+				{
+					min[i] = Integer.parseInt(dash < 0 ? octet : octet.substring(0, dash));
+					max[i] = dash < 0 ? min[i] : Integer.parseInt(octet.substring(dash + 1));
+				}
+				catch(NumberFormatException e)
+				{
+					throw new IllegalArgumentException("Invalid ip mask: " + mask, e);
+				}
+				if(min[i] < 0 || max[i] > 255 || min[i] > max[i])
+					throw new IllegalArgumentException("Invalid ip mask: " + mask);
+			}
+		}
+
+		int i = 0;
+		while(i < 4 && min[i] == max[i])
+			i++;
+		i++;
+		while(i < 4 && min[i] == 0 && max[i] == 255)
+			i++;
+		continuous = i >= 4;
+	}
+
+	/**
+	 * Checks if address matches this mask.
+	 * 
+	 * @param address
+	 *            address as returned by {@link NetworkUtils#parseIp(String)}
+	 * @return true if address matches
+	 */
+	public boolean matches(long address)
+	{
+		for(int i = 0; i < 4; i++)
+		{
+			int octet = (int) (address >>> (24 - 8 * i)) & 0xff;
+			if(octet < min[i] || octet > max[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if address matches this mask.
+	 * 
+	 * @param address
+	 *            192.168.1.1
+	 * @return true if address matches, false if it doesn't or it is not valid address
+	 */
+	public boolean matches(String address)
+	{
+		long ip = NetworkUtils.parseIp(address);
+		return ip >= 0 && matches(ip);
+	}
+
+	/**
+	 * @return true if addresses matched by this mask are one continuous range [from {@link #getLow()} to
+	 *         {@link #getHigh()}].
+	 */
+	public boolean isContinuous()
+	{
+		return continuous;
+	}
+
+	/**
+	 * @return the lowest address matched by this mask.
+	 */
+	public long getLow()
+	{
+		return (long) min[0] << 24 | min[1] << 16 | min[2] << 8 | min[3];
+	}
+
+	/**
+	 * @return the highest address matched by this mask.
+	 */
+	public long getHigh()
+	{
+		return (long) max[0] << 24 | max[1] << 16 | max[2] << 8 | max[3];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return mask;
+	}
+}
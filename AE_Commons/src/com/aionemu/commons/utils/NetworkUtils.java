@@ -58,4 +58,40 @@ public class NetworkUtils
 		}
 		return true;
 	}
+
+	/**
+	 * Parses IPv4 address without creating any objects.
+	 * 
+	 * @param address
+	 *            192.168.1.1
+	 * @return address as unsigned 32 bit number or -1 if address is not valid
+	 */
+	public static long parseIp(String address)
+	{
+		long ip = 0;
+		int octets = 0;
+		int octet = -1;
+		for(int i = 0, n = address.length(); i < n; i++)
+		{
+			char c = address.charAt(i);
+			if(c == '.')
+			{
+				if(octet < 0 || ++octets == 4)
+					return -1;
+				ip = ip << 8 | octet;
+				octet = -1;
+			}
+			else if(c >= '0' && c <= '9')
+			{
+				octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+				if(octet > 255)
+					return -1;
+			}
+			else
+				return -1;
+		}
+		if(octet < 0 || octets != 3)
+			return -1;
+		return ip << 8 | octet;
+	}
 }
@@ -0,0 +1,143 @@
+/**
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.commons.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.aionemu.commons.network.packet.BaseServerPacket;
+import com.aionemu.commons.network.packet.PacketPriority;
+
+/**
+ * @author agent
+ */
+public class OutboundQueueTest
+{
+	@Test
+	public void testCoalescibleNotDroppedAboveThreshold()
+	{
+		OutboundQueue<TestPacket> queue = new OutboundQueue<TestPacket>(4, 1);
+		assertTrue(queue.offer(new TestPacket(1, PacketPriority.CRITICAL, 0)));
+
+		/* above drop threshold - droppable packet is dropped */
+		assertTrue(queue.offer(new TestPacket(2, PacketPriority.DROPPABLE, 0)));
+		assertEquals(1, queue.size());
+		assertEquals(1, queue.getDroppedCount());
+
+		/* coalescible packet without queued predecessor is queued */
+		TestPacket move = new TestPacket(3, PacketPriority.COALESCIBLE, 7);
+		assertTrue(queue.offer(move));
+		assertEquals(2, queue.size());
+
+		TestPacket otherMove = new TestPacket(3, PacketPriority.COALESCIBLE, 8);
+		assertTrue(queue.offer(otherMove));
+		assertTrue(queue.offer(new TestPacket(1, PacketPriority.CRITICAL, 0)));
+		assertEquals(4, queue.size());
+		assertEquals(1, queue.getDroppedCount());
+
+		/* full - new coalescible packet is rejected, but it still replaces queued one */
+		assertFalse(queue.offer(new TestPacket(3, PacketPriority.COALESCIBLE, 9)));
+		TestPacket newMove = new TestPacket(3, PacketPriority.COALESCIBLE, 7);
+		assertTrue(queue.offer(newMove));
+		assertEquals(4, queue.size());
+		assertEquals(1, queue.getCoalescedCount());
+
+		assertEquals(1, queue.poll().getOpcode());
+		assertSame(newMove, queue.poll());
+		assertSame(otherMove, queue.poll());
+		assertEquals(1, queue.poll().getOpcode());
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void testReplaceInPlaceAcrossGrowth()
+	{
+		OutboundQueue<TestPacket> queue = new OutboundQueue<TestPacket>(1000, 1000);
+
+		/* move head, so queued packets wrap around ring buffer before it grows */
+		for(int i = 0; i < 10; i++)
+			queue.offer(new TestPacket(1, PacketPriority.CRITICAL, 0));
+		for(int i = 0; i < 10; i++)
+			queue.poll();
+
+		queue.offer(new TestPacket(2, PacketPriority.COALESCIBLE, 5));
+		for(int i = 0; i < 40; i++)
+		{
+			queue.offer(new TestPacket(1, PacketPriority.CRITICAL, i));
+			queue.offer(new TestPacket(3, PacketPriority.COALESCIBLE, i));
+		}
+		assertEquals(81, queue.size());
+
+		TestPacket newest = new TestPacket(2, PacketPriority.COALESCIBLE, 5);
+		assertTrue(queue.offer(newest));
+		for(int i = 0; i < 40; i++)
+			queue.offer(new TestPacket(3, PacketPriority.COALESCIBLE, i));
+		assertEquals(81, queue.size());
+		assertEquals(41, queue.getCoalescedCount());
+
+		assertSame(newest, queue.poll());
+		for(int i = 0; i < 40; i++)
+		{
+			TestPacket critical = queue.poll();
+			assertEquals(1, critical.getOpcode());
+			assertEquals(i, critical.getCoalescingKey());
+			TestPacket move = queue.poll();
+			assertEquals(3, move.getOpcode());
+			assertEquals(i, move.getCoalescingKey());
+		}
+		assertNull(queue.poll());
+
+		/* nothing is queued, so packets with the same keys are queued again */
+		queue.offer(new TestPacket(2, PacketPriority.COALESCIBLE, 5));
+		queue.offer(new TestPacket(2, PacketPriority.COALESCIBLE, 6));
+		assertEquals(2, queue.size());
+		queue.clear();
+	}
+
+	/**
+	 * Packet with given opcode, priority and coalescing key.
+	 */
+	private static class TestPacket extends BaseServerPacket
+	{
+		private final PacketPriority	priority;
+		private final int				key;
+
+		private TestPacket(int opcode, PacketPriority priority, int key)
+		{
+			super(opcode);
+			this.priority = priority;
+			this.key = key;
+		}
+
+		@Override
+		public PacketPriority getPriority()
+		{
+			return priority;
+		}
+
+		@Override
+		public int getCoalescingKey()
+		{
+			return key;
+		}
+	}
+}
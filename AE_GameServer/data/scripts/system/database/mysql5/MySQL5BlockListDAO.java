@@ -25,7 +25,6 @@ import java.util.Map;
 import org.apache.log4j.Logger;
 
 import com.aionemu.commons.database.DB;
-import com.aionemu.commons.database.IUStH;
 import com.aionemu.commons.database.ParamReadStH;
 import com.aionemu.commons.database.dao.DAOManager;
 import com.aionemu.gameserver.dao.BlockListDAO;
@@ -34,6 +33,8 @@ import com.aionemu.gameserver.model.gameobjects.player.BlockList;
 import com.aionemu.gameserver.model.gameobjects.player.BlockedPlayer;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.gameobjects.player.PlayerCommonData;
+import com.aionemu.gameserver.services.DeferredWrite;
+import com.aionemu.gameserver.services.WriteBehindService;
 import com.aionemu.gameserver.world.World;
 /**
  * MySQL5 DAO for editing the block list
@@ -44,9 +45,9 @@ public class MySQL5BlockListDAO extends BlockListDAO
 {
 	
 	public static final String 	LOAD_QUERY 			= "SELECT blocked_player, reason FROM blocks WHERE player=?";
-	public static final String	ADD_QUERY 			= "INSERT INTO blocks (player, blocked_player, reason) VALUES (?, ?, ?)";
+	public static final String 	LOAD_PLAYERS_QUERY	= "SELECT b.reason, p.* FROM blocks b JOIN players p ON p.id = b.blocked_player WHERE b.player=?";
+	public static final String	ADD_QUERY 			= "INSERT INTO blocks (player, blocked_player, reason) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE reason=VALUES(reason)";
 	public static final String 	DEL_QUERY			= "DELETE FROM blocks WHERE player=? AND blocked_player=?";
-	public static final String 	SET_REASON_QUERY	= "UPDATE blocks SET reason=? WHERE player=? AND blocked_player=?";
 	
 	private static Logger		log			= Logger.getLogger(MySQL5BlockListDAO.class);
 	
@@ -54,17 +55,16 @@ public class MySQL5BlockListDAO extends BlockListDAO
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean addBlockedUser(final int playerObjId,final int objIdToBlock,final String reason)
+	public void addBlockedUser(final int playerObjId,final int objIdToBlock,final String reason)
 	{
-		return DB.insertUpdate(ADD_QUERY, new IUStH(){
+		WriteBehindService.getInstance().write(new DeferredWrite(playerObjId, blockKey(playerObjId, objIdToBlock), ADD_QUERY){
 			
 			@Override
-			public void handleInsertUpdate(PreparedStatement stmt) throws SQLException
+			public void setParams(PreparedStatement stmt) throws SQLException
 			{
 				stmt.setInt(1, playerObjId);
 				stmt.setInt(2,objIdToBlock);
 				stmt.setString(3, reason);
-				stmt.execute();
 			}
 		});
 	}
@@ -73,16 +73,15 @@ public class MySQL5BlockListDAO extends BlockListDAO
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean delBlockedUser(final int playerObjId,final int objIdToDelete)
+	public void delBlockedUser(final int playerObjId,final int objIdToDelete)
 	{
-		return DB.insertUpdate(DEL_QUERY, new IUStH(){
+		WriteBehindService.getInstance().write(new DeferredWrite(playerObjId, blockKey(playerObjId, objIdToDelete), DEL_QUERY){
 			
 			@Override
-			public void handleInsertUpdate(PreparedStatement stmt) throws SQLException
+			public void setParams(PreparedStatement stmt) throws SQLException
 			{
 				stmt.setInt(1, playerObjId);
 				stmt.setInt(2,objIdToDelete);
-				stmt.execute();
 			}
 		});
 	}
@@ -131,20 +130,21 @@ public class MySQL5BlockListDAO extends BlockListDAO
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean setReason(final int playerObjId, final int blockedPlayerObjId, final String reason)
+	public void setReason(final int playerObjId, final int blockedPlayerObjId, final String reason)
 	{
-		return DB.insertUpdate(SET_REASON_QUERY, new IUStH(){
-			
-			@Override
-			public void handleInsertUpdate(PreparedStatement stmt) throws SQLException
-			{
-				stmt.setString(1, reason);
-				stmt.setInt(2, playerObjId);
-				stmt.setInt(3, blockedPlayerObjId);
-				stmt.execute();
-				
-			}
-		});
+		/* whole row is written, so it may replace pending add of the same row */
+		addBlockedUser(playerObjId, blockedPlayerObjId, reason);
+	}
+
+	/**
+	 * Returns key of blocks row, used to coalesce pending writes of that row
+	 * @param playerObjId
+	 * @param blockedObjId
+	 * @return row key
+	 */
+	private static String blockKey(int playerObjId, int blockedObjId)
+	{
+		return "blocks:" + playerObjId + ":" + blockedObjId;
 	}
 	
 	/**
@@ -43,4 +43,23 @@ public class MySQL5DAOUtils
 	{
 		return MYSQL_DB_NAME.equals(db) && majorVersion == 5;
 	}
+
+	/**
+	 * Returns list of parameter placeholders for IN (...) clause
+	 * 
+	 * @param count
+	 *            number of parameters, greater than 0
+	 * @return placeholders separated by comma
+	 */
+	public static String inParams(int count)
+	{
+		StringBuilder sb = new StringBuilder(count * 3);
+		for(int i = 0; i < count; i++)
+		{
+			if(i > 0)
+				sb.append(", ");
+			sb.append('?');
+		}
+		return sb.toString();
+	}
 }
@@ -22,7 +22,6 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import com.aionemu.commons.database.DB;
-import com.aionemu.commons.database.IUStH;
 import com.aionemu.commons.database.ParamReadStH;
 import com.aionemu.commons.database.dao.DAOManager;
 import com.aionemu.gameserver.dao.FriendListDAO;
@@ -31,6 +30,8 @@ import com.aionemu.gameserver.model.gameobjects.player.Friend;
 import com.aionemu.gameserver.model.gameobjects.player.FriendList;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.gameobjects.player.PlayerCommonData;
+import com.aionemu.gameserver.services.DeferredWrite;
+import com.aionemu.gameserver.services.WriteBehindService;
 import com.aionemu.gameserver.world.World;
 
 /**
@@ -41,8 +42,10 @@ public class MySQL5FriendListDAO extends FriendListDAO
 {
 	
 	public static final String LOAD_QUERY = "SELECT * FROM `friends` WHERE `player`=?";
+
+	public static final String LOAD_PLAYERS_QUERY = "SELECT p.* FROM `friends` f JOIN `players` p ON p.`id` = f.`friend` WHERE f.`player`=?";
 	
-	public static final String ADD_QUERY = "INSERT INTO `friends` (`player`,`friend`) VALUES (?, ?)";
+	public static final String ADD_QUERY = "INSERT IGNORE INTO `friends` (`player`,`friend`) VALUES (?, ?)";
 	
 	public static final String DEL_QUERY = "DELETE FROM friends WHERE player = ? AND friend = ?";
 
@@ -87,47 +90,37 @@ public class MySQL5FriendListDAO extends FriendListDAO
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean addFriends(final Player player, final Player friend)
+	public void addFriends(final Player player, final Player friend)
 	{
-		
-		return DB.insertUpdate(ADD_QUERY, new IUStH()
-		{
-			
-			@Override
-			public void handleInsertUpdate(PreparedStatement ps) throws SQLException
-			{
-				ps.setInt(1, player.getObjectId());
-				ps.setInt(2, friend.getObjectId());
-				ps.addBatch();
-				
-				ps.setInt(1, friend.getObjectId());
-				ps.setInt(2, player.getObjectId());
-				ps.addBatch();
-				
-				ps.executeBatch();
-			}
-		});
-		
+		write(ADD_QUERY, player.getObjectId(), friend.getObjectId());
+		write(ADD_QUERY, friend.getObjectId(), player.getObjectId());
 	}
 	
-	public boolean delFriends(final int playerOid, final int friendOid) 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void delFriends(final int playerOid, final int friendOid) 
 	{
-		
-		return DB.insertUpdate(DEL_QUERY, new IUStH() 
+		write(DEL_QUERY, playerOid, friendOid);
+		write(DEL_QUERY, friendOid, playerOid);
+	}
+
+	/**
+	 * Queues write of one friends row
+	 * @param query ADD_QUERY or DEL_QUERY
+	 * @param playerOid Player whos friend list is edited
+	 * @param friendOid Friend in the list
+	 */
+	private void write(String query, final int playerOid, final int friendOid)
+	{
+		WriteBehindService.getInstance().write(new DeferredWrite(playerOid, "friends:" + playerOid + ":" + friendOid, query)
 		{
-				
 			@Override
-			public void handleInsertUpdate(PreparedStatement ps) throws SQLException
+			public void setParams(PreparedStatement ps) throws SQLException
 			{
 				ps.setInt(1, playerOid);
 				ps.setInt(2, friendOid);
-				ps.addBatch();
-				
-				ps.setInt(1, friendOid);
-				ps.setInt(2, playerOid);
-				ps.addBatch();
-				
-				ps.executeBatch();
 			}
 		});
 	}
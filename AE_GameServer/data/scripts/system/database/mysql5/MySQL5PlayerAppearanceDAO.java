@@ -20,6 +20,11 @@ package mysql5;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.log4j.Logger;
@@ -65,53 +70,7 @@ public class MySQL5PlayerAppearanceDAO extends PlayerAppearanceDAO
 			{
 				log.debug("[DAO: MySQL5PlayerAppearanceDAO] loaded appereance for player: "+playerId);
 				resultSet.next();
-				pa.setFace(resultSet.getInt("face"));
-				pa.setHair(resultSet.getInt("hair"));
-				pa.setDeco(resultSet.getInt("deco"));
-				pa.setTattoo(resultSet.getInt("tattoo"));
-				pa.setSkinRGB(resultSet.getInt("skin_rgb"));
-				pa.setHairRGB(resultSet.getInt("hair_rgb"));
-				pa.setLipRGB(resultSet.getInt("lip_rgb"));
-				pa.setEyeRGB(resultSet.getInt("eye_rgb"));
-				pa.setFaceShape(resultSet.getInt("face_shape"));
-				pa.setForehead(resultSet.getInt("forehead"));
-				pa.setEyeHeight(resultSet.getInt("eye_height"));
-				pa.setEyeSpace(resultSet.getInt("eye_space"));
-				pa.setEyeWidth(resultSet.getInt("eye_width"));
-				pa.setEyeSize(resultSet.getInt("eye_size"));
-				pa.setEyeShape(resultSet.getInt("eye_shape"));
-				pa.setEyeAngle(resultSet.getInt("eye_angle"));
-				pa.setBrowHeight(resultSet.getInt("brow_height"));
-				pa.setBrowAngle(resultSet.getInt("brow_angle"));
-				pa.setBrowShape(resultSet.getInt("brow_shape"));
-				pa.setNose(resultSet.getInt("nose"));
-				pa.setNoseBridge(resultSet.getInt("nose_bridge"));
-				pa.setNoseWidth(resultSet.getInt("nose_width"));
-				pa.setNoseTip(resultSet.getInt("nose_tip"));
-				pa.setCheek(resultSet.getInt("cheek"));
-				pa.setLipHeight(resultSet.getInt("lip_height"));
-				pa.setMouthSize(resultSet.getInt("mouth_size"));
-				pa.setLipSize(resultSet.getInt("lip_size"));
-				pa.setSmile(resultSet.getInt("smile"));
-				pa.setLipShape(resultSet.getInt("lip_shape"));
-				pa.setJawHeigh(resultSet.getInt("jaw_height"));
-				pa.setChinJut(resultSet.getInt("chin_jut"));
-				pa.setEarShape(resultSet.getInt("ear_shape"));
-				pa.setHeadSize(resultSet.getInt("head_size"));
-				pa.setNeck(resultSet.getInt("neck"));
-				pa.setNeckLength(resultSet.getInt("neck_length"));
-				pa.setShoulders(resultSet.getInt("shoulders"));
-				pa.setTorso(resultSet.getInt("torso"));
-				pa.setChest(resultSet.getInt("chest"));
-				pa.setWaist(resultSet.getInt("waist"));
-				pa.setHips(resultSet.getInt("hips"));
-				pa.setArmThickness(resultSet.getInt("arm_thickness"));
-				pa.setHandSize(resultSet.getInt("hand_size"));
-				pa.setLegThicnkess(resultSet.getInt("leg_thickness"));
-				pa.setFootSize(resultSet.getInt("foot_size"));
-				pa.setFacialRate(resultSet.getInt("facial_rate"));
-				pa.setVoice(resultSet.getInt("voice"));
-				pa.setHeight(resultSet.getFloat("height"));
+				readAppearance(resultSet, pa);
 			}
 
 			@Override
@@ -122,22 +81,133 @@ public class MySQL5PlayerAppearanceDAO extends PlayerAppearanceDAO
 		});
 
 		if(success)
+			return cacheAppearance(playerId, pa);
+		else
+			return null;
+	}
+
+	@Override
+	public Map<Integer, PlayerAppearance> loadAppearances(Collection<Integer> playerIds)
+	{
+		final Map<Integer, PlayerAppearance> result = new HashMap<Integer, PlayerAppearance>();
+		final List<Integer> toLoad = new ArrayList<Integer>();
+		for(int playerId : playerIds)
 		{
-			try{
-				lock.lock();
-				PlayerAppearance cached = cache.get(playerId);
-				if (cached != null)
-					return cached;
-				cache.put(playerId, pa);
-				return pa;
+			PlayerAppearance app = cache.get(playerId);
+			if(app != null)
+				result.put(playerId, app);
+			else
+				toLoad.add(playerId);
+		}
+		if(toLoad.isEmpty())
+			return result;
+
+		boolean success = DB.select("SELECT * FROM player_appearance WHERE player_id IN ("
+			+ MySQL5DAOUtils.inParams(toLoad.size()) + ")", new ParamReadStH() {
+
+			@Override
+			public void handleRead(ResultSet resultSet) throws SQLException
+			{
+				while(resultSet.next())
+				{
+					int playerId = resultSet.getInt("player_id");
+					PlayerAppearance pa = new PlayerAppearance();
+					readAppearance(resultSet, pa);
+					result.put(playerId, cacheAppearance(playerId, pa));
+				}
 			}
-			finally
+
+			@Override
+			public void setParams(PreparedStatement preparedStatement) throws SQLException
 			{
-				lock.unlock();
+				for(int i = 0; i < toLoad.size(); i++)
+					preparedStatement.setInt(i + 1, toLoad.get(i));
 			}
+		});
+
+		return success ? result : null;
+	}
+
+	/**
+	 * Puts loaded appearance to the cache, unless other thread did that first.
+	 * 
+	 * @param playerId
+	 * @param pa
+	 * @return cached appearance
+	 */
+	PlayerAppearance cacheAppearance(int playerId, PlayerAppearance pa)
+	{
+		try{
+			lock.lock();
+			PlayerAppearance cached = cache.get(playerId);
+			if (cached != null)
+				return cached;
+			cache.put(playerId, pa);
+			return pa;
 		}
-		else
-			return null;
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Reads current row of player_appearance table.
+	 * 
+	 * @param rs
+	 * @param pa
+	 *            appearance that will be filled
+	 * @throws SQLException
+	 */
+	static void readAppearance(ResultSet rs, PlayerAppearance pa) throws SQLException
+	{
+		pa.setFace(rs.getInt("face"));
+		pa.setHair(rs.getInt("hair"));
+		pa.setDeco(rs.getInt("deco"));
+		pa.setTattoo(rs.getInt("tattoo"));
+		pa.setSkinRGB(rs.getInt("skin_rgb"));
+		pa.setHairRGB(rs.getInt("hair_rgb"));
+		pa.setLipRGB(rs.getInt("lip_rgb"));
+		pa.setEyeRGB(rs.getInt("eye_rgb"));
+		pa.setFaceShape(rs.getInt("face_shape"));
+		pa.setForehead(rs.getInt("forehead"));
+		pa.setEyeHeight(rs.getInt("eye_height"));
+		pa.setEyeSpace(rs.getInt("eye_space"));
+		pa.setEyeWidth(rs.getInt("eye_width"));
+		pa.setEyeSize(rs.getInt("eye_size"));
+		pa.setEyeShape(rs.getInt("eye_shape"));
+		pa.setEyeAngle(rs.getInt("eye_angle"));
+		pa.setBrowHeight(rs.getInt("brow_height"));
+		pa.setBrowAngle(rs.getInt("brow_angle"));
+		pa.setBrowShape(rs.getInt("brow_shape"));
+		pa.setNose(rs.getInt("nose"));
+		pa.setNoseBridge(rs.getInt("nose_bridge"));
+		pa.setNoseWidth(rs.getInt("nose_width"));
+		pa.setNoseTip(rs.getInt("nose_tip"));
+		pa.setCheek(rs.getInt("cheek"));
+		pa.setLipHeight(rs.getInt("lip_height"));
+		pa.setMouthSize(rs.getInt("mouth_size"));
+		pa.setLipSize(rs.getInt("lip_size"));
+		pa.setSmile(rs.getInt("smile"));
+		pa.setLipShape(rs.getInt("lip_shape"));
+		pa.setJawHeigh(rs.getInt("jaw_height"));
+		pa.setChinJut(rs.getInt("chin_jut"));
+		pa.setEarShape(rs.getInt("ear_shape"));
+		pa.setHeadSize(rs.getInt("head_size"));
+		pa.setNeck(rs.getInt("neck"));
+		pa.setNeckLength(rs.getInt("neck_length"));
+		pa.setShoulders(rs.getInt("shoulders"));
+		pa.setTorso(rs.getInt("torso"));
+		pa.setChest(rs.getInt("chest"));
+		pa.setWaist(rs.getInt("waist"));
+		pa.setHips(rs.getInt("hips"));
+		pa.setArmThickness(rs.getInt("arm_thickness"));
+		pa.setHandSize(rs.getInt("hand_size"));
+		pa.setLegThicnkess(rs.getInt("leg_thickness"));
+		pa.setFootSize(rs.getInt("foot_size"));
+		pa.setFacialRate(rs.getInt("facial_rate"));
+		pa.setVoice(rs.getInt("voice"));
+		pa.setHeight(rs.getFloat("height"));
 	}
 
 	/**
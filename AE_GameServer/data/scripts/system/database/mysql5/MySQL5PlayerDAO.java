@@ -22,20 +22,46 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 
 import com.aionemu.commons.database.DB;
 import com.aionemu.commons.database.IUStH;
 import com.aionemu.commons.database.ParamReadStH;
+import com.aionemu.commons.database.ReadStH;
+import com.aionemu.commons.database.Transaction;
+import com.aionemu.commons.database.dao.DAOManager;
+import com.aionemu.gameserver.controllers.PlayerController;
+import com.aionemu.gameserver.dao.BlockListDAO;
+import com.aionemu.gameserver.dao.FriendListDAO;
+import com.aionemu.gameserver.dao.PlayerAppearanceDAO;
 import com.aionemu.gameserver.dao.PlayerDAO;
+import com.aionemu.gameserver.dao.PlayerLoadMode;
+import com.aionemu.gameserver.dao.PlayerMacrossesDAO;
+import com.aionemu.gameserver.dao.PlayerSkillListDAO;
 import com.aionemu.gameserver.model.Gender;
 import com.aionemu.gameserver.model.PlayerClass;
 import com.aionemu.gameserver.model.Race;
 import com.aionemu.gameserver.model.account.PlayerAccountData;
+import com.aionemu.gameserver.model.gameobjects.player.BlockList;
+import com.aionemu.gameserver.model.gameobjects.player.BlockedPlayer;
+import com.aionemu.gameserver.model.gameobjects.player.Friend;
+import com.aionemu.gameserver.model.gameobjects.player.FriendList;
+import com.aionemu.gameserver.model.gameobjects.player.MacroList;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
+import com.aionemu.gameserver.model.gameobjects.player.PlayerAppearance;
 import com.aionemu.gameserver.model.gameobjects.player.PlayerCommonData;
+import com.aionemu.gameserver.model.gameobjects.player.SkillList;
+import com.aionemu.gameserver.services.DeferredWrite;
+import com.aionemu.gameserver.services.WriteBehindService;
+import com.aionemu.gameserver.utils.ThreadPoolManager;
 import com.aionemu.gameserver.utils.collections.cachemap.CacheMap;
 import com.aionemu.gameserver.utils.collections.cachemap.CacheMapFactory;
 import com.aionemu.gameserver.world.World;
@@ -56,6 +82,15 @@ public class MySQL5PlayerDAO extends PlayerDAO
 	/** Cache for {@link PlayerCommonData} objects */
 	private CacheMap<Integer, PlayerCommonData>	playerCommonData	= CacheMapFactory.createCacheMap("PlayerCommon","player common");
 
+	/** Queries executed as one batch by {@link #loadFullPlayer}, each of them takes player id as only parameter */
+	private static final String[]				FULL_PLAYER_QUERIES	= {
+			"SELECT * FROM players WHERE id = ?",
+			"SELECT * FROM player_appearance WHERE player_id = ?",
+			MySQL5PlayerMacrossesDAO.SELECT_QUERY,
+			MySQL5PlayerSkillListDAO.SELECT_QUERY,
+			MySQL5FriendListDAO.LOAD_PLAYERS_QUERY,
+			MySQL5BlockListDAO.LOAD_PLAYERS_QUERY				};
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -87,29 +122,45 @@ public class MySQL5PlayerDAO extends PlayerDAO
 	@Override
 	public void storePlayer(final Player player)
 	{
-		DB.insertUpdate("UPDATE players SET name=?, exp=?, x=?, y=?, z=?, heading=?, world_id=?, player_class=?, last_online=?, admin=?, note=?, online=?, hp=?, mp=?, dp=? WHERE id=?", new IUStH(){
+		log.debug("[DAO: MySQL5PlayerDAO] storing player "+player.getObjectId()+" "+player.getName());
+
+		final int id = player.getObjectId();
+		final String name = player.getName().replace("*MJ* ","");
+		final long exp = player.getCommonData().getExp();
+		final float x = player.getX();
+		final float y = player.getY();
+		final float z = player.getZ();
+		final int heading = player.getHeading();
+		final int worldId = player.getWorldId();
+		final String playerClass = player.getCommonData().getPlayerClass().toString();
+		final Timestamp lastOnline = player.getCommonData().getLastOnline();
+		final int admin = player.getCommonData().getAdmin();
+		final String note = player.getCommonData().getNote();
+		final boolean online = player.isOnline();
+		final int hp = player.getLifeStats().getHp();
+		final int mp = player.getLifeStats().getMp();
+		final int dp = player.getLifeStats().getDp();
+
+		WriteBehindService.getInstance().write(new DeferredWrite(id, "players:" + id, "UPDATE players SET name=?, exp=?, x=?, y=?, z=?, heading=?, world_id=?, player_class=?, last_online=?, admin=?, note=?, online=?, hp=?, mp=?, dp=? WHERE id=?"){
 			@Override
-			public void handleInsertUpdate(PreparedStatement stmt) throws SQLException
+			public void setParams(PreparedStatement stmt) throws SQLException
 			{
-				log.debug("[DAO: MySQL5PlayerDAO] storing player "+player.getObjectId()+" "+player.getName());
-				
-				stmt.setString(1, player.getName().replace("*MJ* ",""));
-				stmt.setLong(2, player.getCommonData().getExp());
-				stmt.setFloat(3, player.getX());
-				stmt.setFloat(4, player.getY());
-				stmt.setFloat(5, player.getZ());
-				stmt.setInt(6, player.getHeading());
-				stmt.setInt(7, player.getWorldId());
-				stmt.setString(8, player.getCommonData().getPlayerClass().toString());
-				stmt.setTimestamp(9, player.getCommonData().getLastOnline());
-				stmt.setInt(10, player.getCommonData().getAdmin());
-				stmt.setString(11,player.getCommonData().getNote());
-				stmt.setInt(12, player.getObjectId());
-				stmt.setBoolean(13, player.isOnline());
-				stmt.setInt(14, player.getLifeStats().getHp());
-				stmt.setInt(15, player.getLifeStats().getMp());
-				stmt.setInt(16, player.getLifeStats().getDp());
-				stmt.execute();
+				stmt.setString(1, name);
+				stmt.setLong(2, exp);
+				stmt.setFloat(3, x);
+				stmt.setFloat(4, y);
+				stmt.setFloat(5, z);
+				stmt.setInt(6, heading);
+				stmt.setInt(7, worldId);
+				stmt.setString(8, playerClass);
+				stmt.setTimestamp(9, lastOnline);
+				stmt.setInt(10, admin);
+				stmt.setString(11, note);
+				stmt.setBoolean(12, online);
+				stmt.setInt(13, hp);
+				stmt.setInt(14, mp);
+				stmt.setInt(15, dp);
+				stmt.setInt(16, id);
 			}
 		});
 	}
@@ -187,49 +238,294 @@ public class MySQL5PlayerDAO extends PlayerDAO
 				
 				resultSet.next();
 				
-				cd.setName(resultSet.getString("name").replace("*MJ* ", ""));
-				cd.setExp(resultSet.getLong("exp"));
-				cd.setRace(Race.valueOf(resultSet.getString("race")));
-				cd.setGender(Gender.valueOf(resultSet.getString("gender")));
-				cd.setPlayerClass(PlayerClass.valueOf(resultSet.getString("player_class")));
-				cd.setAdmin(resultSet.getInt("admin"));
-				cd.setLastOnline(resultSet.getTimestamp("last_online"));
-				cd.setOnline(resultSet.getBoolean("online"));
-				cd.setNote(resultSet.getString("note"));
-				
-				float x = resultSet.getFloat("x");
-				float y = resultSet.getFloat("y");
-				float z = resultSet.getFloat("z");
-				byte heading = resultSet.getByte("heading");
-				int worldId = resultSet.getInt("world_id");
-
-				WorldPosition position = world.createPosition(worldId, x, y, z, heading);
-				cd.setPosition(position);
-				
-				if (cd.getPlayer()!=null) {
-					cd.getPlayer().getLifeStats().setDp(resultSet.getInt("dp"));
-					cd.getPlayer().getLifeStats().setHp(resultSet.getInt("hp"));
-					cd.getPlayer().getLifeStats().setMp(resultSet.getInt("mp"));
-				}
+				readPlayerCommonData(resultSet, cd, world);
 			}
 		});
 
 		if(success)
-		{
-			synchronized(pcdLock)
+			return cachePlayerCommonData(cd);
+		else
+			return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<PlayerAccountData> loadPlayerAccountDataByAccount(final int accountId, final World world)
+	{
+		final List<PlayerAccountData> result = new ArrayList<PlayerAccountData>();
+		boolean success = DB.select("SELECT * FROM players WHERE account_id = ?", new ParamReadStH(){
+			@Override
+			public void setParams(PreparedStatement stmt) throws SQLException
 			{
-				cached = playerCommonData.get(playerObjId);
-				if(cached != null)
-					return cached;
-				else
+				stmt.setInt(1, accountId);
+			}
+
+			@Override
+			public void handleRead(ResultSet resultSet) throws SQLException
+			{
+				while(resultSet.next())
 				{
-					playerCommonData.put(playerObjId, cd);
-					return cd;
+					PlayerAccountData acData = new PlayerAccountData(getPlayerCommonData(resultSet, world), null);
+					acData.setDeletionDate(resultSet.getTimestamp("deletion_date"));
+					acData.setCreationDate(resultSet.getTimestamp("creation_date"));
+					result.add(acData);
 				}
 			}
+		});
+
+		return success ? result : null;
+	}
+
+	/**
+	 * Puts loaded common data to the cache, unless other thread did that first.
+	 * 
+	 * @param cd
+	 * @return cached common data
+	 */
+	private PlayerCommonData cachePlayerCommonData(PlayerCommonData cd)
+	{
+		synchronized(pcdLock)
+		{
+			PlayerCommonData cached = playerCommonData.get(cd.getPlayerObjId());
+			if(cached != null)
+				return cached;
+			else
+			{
+				playerCommonData.put(cd.getPlayerObjId(), cd);
+				return cd;
+			}
+		}
+	}
+
+	/**
+	 * Returns common data of player in current row of result set with all columns of players table. Cached common
+	 * data are preferred to the row.
+	 * 
+	 * @param resultSet
+	 * @param world
+	 * @return common data
+	 * @throws SQLException
+	 */
+	private PlayerCommonData getPlayerCommonData(ResultSet resultSet, World world) throws SQLException
+	{
+		int playerObjId = resultSet.getInt("id");
+		PlayerCommonData cd = playerCommonData.get(playerObjId);
+		if(cd != null)
+			return cd;
+
+		cd = new PlayerCommonData(playerObjId);
+		readPlayerCommonData(resultSet, cd, world);
+		return cachePlayerCommonData(cd);
+	}
+
+	/**
+	 * Reads current row of players table.
+	 * 
+	 * @param resultSet
+	 * @param cd
+	 *            common data that will be filled
+	 * @param world
+	 * @throws SQLException
+	 */
+	private static void readPlayerCommonData(ResultSet resultSet, PlayerCommonData cd, World world) throws SQLException
+	{
+		cd.setName(resultSet.getString("name").replace("*MJ* ", ""));
+		cd.setExp(resultSet.getLong("exp"));
+		cd.setRace(Race.valueOf(resultSet.getString("race")));
+		cd.setGender(Gender.valueOf(resultSet.getString("gender")));
+		cd.setPlayerClass(PlayerClass.valueOf(resultSet.getString("player_class")));
+		cd.setAdmin(resultSet.getInt("admin"));
+		cd.setLastOnline(resultSet.getTimestamp("last_online"));
+		cd.setOnline(resultSet.getBoolean("online"));
+		cd.setNote(resultSet.getString("note"));
+		
+		float x = resultSet.getFloat("x");
+		float y = resultSet.getFloat("y");
+		float z = resultSet.getFloat("z");
+		byte heading = resultSet.getByte("heading");
+		int worldId = resultSet.getInt("world_id");
+
+		WorldPosition position = world.createPosition(worldId, x, y, z, heading);
+		cd.setPosition(position);
+		
+		if (cd.getPlayer()!=null) {
+			cd.getPlayer().getLifeStats().setDp(resultSet.getInt("dp"));
+			cd.getPlayer().getLifeStats().setHp(resultSet.getInt("hp"));
+			cd.getPlayer().getLifeStats().setMp(resultSet.getInt("mp"));
 		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Player loadFullPlayer(int playerObjId, PlayerController controller, World world, PlayerLoadMode mode)
+	{
+		if(mode == PlayerLoadMode.PARALLEL)
+			return loadFullPlayerParallel(playerObjId, controller, world);
 		else
+			return loadFullPlayerBatch(playerObjId, controller, world);
+	}
+
+	/**
+	 * Loads player data with one batch of queries over one connection. Friends and blocked players are joined with
+	 * players table, so their common data don't need additional queries.
+	 */
+	private Player loadFullPlayerBatch(final int playerObjId, PlayerController controller, final World world)
+	{
+		final MySQL5PlayerAppearanceDAO appearanceDAO = (MySQL5PlayerAppearanceDAO) DAOManager
+			.getDAO(PlayerAppearanceDAO.class);
+
+		final PlayerCommonData[] cd = new PlayerCommonData[1];
+		final PlayerAppearance[] appearance = new PlayerAppearance[1];
+		final Map<Integer, String> macrosses = new HashMap<Integer, String>();
+		final Map<Integer, Integer> skills = new HashMap<Integer, Integer>();
+		final List<Friend> friends = new ArrayList<Friend>();
+		final Map<Integer, BlockedPlayer> blocked = new HashMap<Integer, BlockedPlayer>();
+
+		ReadStH[] readers = new ReadStH[] { new ReadStH(){
+			@Override
+			public void handleRead(ResultSet rset) throws SQLException
+			{
+				if(rset.next())
+					cd[0] = getPlayerCommonData(rset, world);
+			}
+		}, new ReadStH(){
+			@Override
+			public void handleRead(ResultSet rset) throws SQLException
+			{
+				if(rset.next())
+				{
+					PlayerAppearance pa = new PlayerAppearance();
+					MySQL5PlayerAppearanceDAO.readAppearance(rset, pa);
+					appearance[0] = appearanceDAO.cacheAppearance(playerObjId, pa);
+				}
+			}
+		}, new ReadStH(){
+			@Override
+			public void handleRead(ResultSet rset) throws SQLException
+			{
+				MySQL5PlayerMacrossesDAO.readMacrosses(rset, macrosses);
+			}
+		}, new ReadStH(){
+			@Override
+			public void handleRead(ResultSet rset) throws SQLException
+			{
+				MySQL5PlayerSkillListDAO.readSkills(rset, skills);
+			}
+		}, new ReadStH(){
+			@Override
+			public void handleRead(ResultSet rset) throws SQLException
+			{
+				while(rset.next())
+					friends.add(new Friend(getPlayerCommonData(rset, world)));
+			}
+		}, new ReadStH(){
+			@Override
+			public void handleRead(ResultSet rset) throws SQLException
+			{
+				while(rset.next())
+				{
+					PlayerCommonData pcd = getPlayerCommonData(rset, world);
+					blocked.put(pcd.getPlayerObjId(), new BlockedPlayer(pcd, rset.getString("reason")));
+				}
+			}
+		} };
+
+		Object[][] params = new Object[FULL_PLAYER_QUERIES.length][];
+		for(int i = 0; i < params.length; i++)
+			params[i] = new Object[] { playerObjId };
+
+		if(!DB.selectBatch(FULL_PLAYER_QUERIES, params, readers, "Can't load player " + playerObjId))
+			return null;
+		if(cd[0] == null || appearance[0] == null)
+		{
+			log.error("Can't load player " + playerObjId + ", common data or appearance is missing");
+			return null;
+		}
+
+		Player player = new Player(controller, cd[0], appearance[0]);
+		player.setMacroList(new MacroList(macrosses));
+		player.setSkillList(new SkillList(skills));
+		player.setFriendList(new FriendList(player, friends));
+		player.setBlockList(new BlockList(blocked));
+		return player;
+	}
+
+	/**
+	 * Loads player data with concurrent calls of particular DAOs. Appearance, macros and skills are loaded together
+	 * with common data, friends and blocked players as soon as player object exists.
+	 */
+	private Player loadFullPlayerParallel(final int playerObjId, PlayerController controller, final World world)
+	{
+		ThreadPoolManager pool = ThreadPoolManager.getInstance();
+
+		Future<PlayerAppearance> appearance = pool.executeDatabaseLoad(new Callable<PlayerAppearance>(){
+			@Override
+			public PlayerAppearance call()
+			{
+				return DAOManager.getDAO(PlayerAppearanceDAO.class).load(playerObjId);
+			}
+		});
+		Future<MacroList> macrosses = pool.executeDatabaseLoad(new Callable<MacroList>(){
+			@Override
+			public MacroList call()
+			{
+				return DAOManager.getDAO(PlayerMacrossesDAO.class).restoreMacrosses(playerObjId);
+			}
+		});
+		Future<SkillList> skills = pool.executeDatabaseLoad(new Callable<SkillList>(){
+			@Override
+			public SkillList call()
+			{
+				return DAOManager.getDAO(PlayerSkillListDAO.class).restoreSkillList(playerObjId);
+			}
+		});
+		PlayerCommonData cd = loadPlayerCommonData(playerObjId, world);
+
+		try
+		{
+			if(cd == null || appearance.get() == null)
+			{
+				log.error("Can't load player " + playerObjId + ", common data or appearance is missing");
+				return null;
+			}
+
+			final Player player = new Player(controller, cd, appearance.get());
+			Future<FriendList> friends = pool.executeDatabaseLoad(new Callable<FriendList>(){
+				@Override
+				public FriendList call()
+				{
+					return DAOManager.getDAO(FriendListDAO.class).load(player, world);
+				}
+			});
+			Future<BlockList> blocked = pool.executeDatabaseLoad(new Callable<BlockList>(){
+				@Override
+				public BlockList call()
+				{
+					return DAOManager.getDAO(BlockListDAO.class).load(player, world);
+				}
+			});
+
+			player.setMacroList(macrosses.get());
+			player.setSkillList(skills.get());
+			player.setFriendList(friends.get());
+			player.setBlockList(blocked.get());
+			return player;
+		}
+		catch(InterruptedException e)
+		{
+			log.error("Interrupted while loading player " + playerObjId, e);
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch(ExecutionException e)
+		{
+			log.error("Can't load player " + playerObjId, e.getCause());
 			return null;
+		}
 	}
 
 	/**
@@ -250,6 +546,71 @@ public class MySQL5PlayerDAO extends PlayerDAO
 		DB.executeUpdateAndClose(statement);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deletePlayers(Collection<Integer> playerIds)
+	{
+		if(playerIds.isEmpty())
+			return true;
+
+		final Integer[] ids = playerIds.toArray(new Integer[playerIds.size()]);
+		String in = MySQL5DAOUtils.inParams(ids.length);
+		IUStH deleteIds = new IUStH(){
+			@Override
+			public void handleInsertUpdate(PreparedStatement stmt) throws SQLException
+			{
+				try
+				{
+					for(int i = 0; i < ids.length; i++)
+						stmt.setInt(i + 1, ids[i]);
+					stmt.executeUpdate();
+				}
+				finally
+				{
+					stmt.close();
+				}
+			}
+		};
+
+		Transaction transaction;
+		try
+		{
+			transaction = DB.beginTransaction();
+		}
+		catch(SQLException e)
+		{
+			log.error("Can't delete players " + playerIds, e);
+			return false;
+		}
+
+		try
+		{
+			/* skills are not removed by cascade deletion */
+			transaction.insertUpdate("DELETE FROM player_skills WHERE player_id IN (" + in + ")", deleteIds);
+			transaction.insertUpdate("DELETE FROM players WHERE id IN (" + in + ")", deleteIds);
+			transaction.commit();
+		}
+		catch(SQLException e)
+		{
+			log.error("Can't delete players " + playerIds, e);
+			try
+			{
+				transaction.rollback();
+			}
+			catch(SQLException e1)
+			{
+				log.error("Can't close connection after rollback", e1);
+			}
+			return false;
+		}
+
+		for(Integer id : ids)
+			playerCommonData.remove(id);
+		return true;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -1,10 +1,11 @@
 package mysql5;
 
 import com.aionemu.commons.database.DB;
-import com.aionemu.commons.database.IUStH;
 import com.aionemu.commons.database.ParamReadStH;
 import com.aionemu.gameserver.dao.PlayerMacrossesDAO;
 import com.aionemu.gameserver.model.gameobjects.player.MacroList;
+import com.aionemu.gameserver.services.DeferredWrite;
+import com.aionemu.gameserver.services.WriteBehindService;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -23,7 +24,7 @@ public class MySQL5PlayerMacrossesDAO extends PlayerMacrossesDAO
 {
 	private static Logger log = Logger.getLogger(MySQL5PlayerMacrossesDAO.class);
 	
-	public static final String INSERT_QUERY = "INSERT INTO `player_macrosses` (`player_id`, `order`, `macro`) VALUES (?,?,?)";
+	public static final String INSERT_QUERY = "REPLACE INTO `player_macrosses` (`player_id`, `order`, `macro`) VALUES (?,?,?)";
 	public static final String DELETE_QUERY = "DELETE FROM `player_macrosses` WHERE `player_id`=? AND `order`=?";
 	public static final String SELECT_QUERY = "SELECT `order`, `macro` FROM `player_macrosses` WHERE `player_id`=?";
 
@@ -36,15 +37,14 @@ public class MySQL5PlayerMacrossesDAO extends PlayerMacrossesDAO
 	@Override
 	public void addMacro(final int playerId, final int macroPosition, final String macro)
 	{
-		DB.insertUpdate(INSERT_QUERY, new IUStH() {
+		log.debug("[DAO: MySQL5PlayerMacrossesDAO] storing macro "+playerId+" "+macroPosition);
+		WriteBehindService.getInstance().write(new DeferredWrite(playerId, macroKey(playerId, macroPosition), INSERT_QUERY) {
 			@Override
-			public void handleInsertUpdate(PreparedStatement stmt) throws SQLException
+			public void setParams(PreparedStatement stmt) throws SQLException
 			{
-				log.debug("[DAO: MySQL5PlayerMacrossesDAO] storing macro "+playerId+" "+macroPosition);
 				stmt.setInt(1, playerId);
 				stmt.setInt(2, macroPosition);
 				stmt.setString(3, macro);
-				stmt.execute();
 			}
 		});
 	}
@@ -53,15 +53,14 @@ public class MySQL5PlayerMacrossesDAO extends PlayerMacrossesDAO
 	@Override
 	public void deleteMacro(final int playerId, final int macroPosition)
 	{
-		DB.insertUpdate(DELETE_QUERY, new IUStH()
+		log.debug("[DAO: MySQL5PlayerMacrossesDAO] removing macro "+playerId+" "+macroPosition);
+		WriteBehindService.getInstance().write(new DeferredWrite(playerId, macroKey(playerId, macroPosition), DELETE_QUERY)
 		{
 			@Override
-			public void handleInsertUpdate(PreparedStatement stmt) throws SQLException
+			public void setParams(PreparedStatement stmt) throws SQLException
 			{
-				log.debug("[DAO: MySQL5PlayerMacrossesDAO] removing macro "+playerId+" "+macroPosition);
 				stmt.setInt(1, playerId);
 				stmt.setInt(2, macroPosition);
-				stmt.execute();
 			}
 		});
 	}
@@ -83,18 +82,43 @@ public class MySQL5PlayerMacrossesDAO extends PlayerMacrossesDAO
 			public void handleRead(ResultSet rset) throws SQLException
 			{
 				log.debug("[DAO: MySQL5PlayerMacrossesDAO] loading macroses for playerId: "+playerId);
-				while(rset.next())
-				{
-					int order = rset.getInt("order");
-					String text = rset.getString("macro");
-
-					macrosses.put(order, text);
-				}
+				readMacrosses(rset, macrosses);
 			}
 		});
 		return new MacroList(macrosses);
 	}
 
+	/**
+	 * Reads all rows of player_macrosses result set.
+	 * 
+	 * @param rset
+	 * @param macrosses
+	 *            map that will be filled
+	 * @throws SQLException
+	 */
+	static void readMacrosses(ResultSet rset, Map<Integer, String> macrosses) throws SQLException
+	{
+		while(rset.next())
+		{
+			int order = rset.getInt("order");
+			String text = rset.getString("macro");
+
+			macrosses.put(order, text);
+		}
+	}
+
+	/**
+	 * Returns key of macro row, used to coalesce pending writes of that row.
+	 *
+	 * @param playerId      player object id
+	 * @param macroPosition order of macro in macro list
+	 * @return row key
+	 */
+	private static String macroKey(int playerId, int macroPosition)
+	{
+		return "player_macrosses:" + playerId + ":" + macroPosition;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public boolean supports(String databaseName, int majorVersion, int minorVersion)
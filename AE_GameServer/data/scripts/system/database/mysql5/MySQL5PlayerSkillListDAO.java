@@ -140,18 +140,31 @@ public class MySQL5PlayerSkillListDAO extends PlayerSkillListDAO
 			@Override
 			public void handleRead(ResultSet rset) throws SQLException
 			{
-				while(rset.next())
-				{
-					int id = rset.getInt("skillId");
-					int lv = rset.getInt("skillLevel");
-
-					skills.put(id, lv);
-				}
+				readSkills(rset, skills);
 			}
 		});
 		return new SkillList(skills);
 	}
 
+	/**
+	 * Reads all rows of player_skills result set.
+	 * 
+	 * @param rset
+	 * @param skills
+	 *            map of skill levels by skill id that will be filled
+	 * @throws SQLException
+	 */
+	static void readSkills(ResultSet rset, Map<Integer, Integer> skills) throws SQLException
+	{
+		while(rset.next())
+		{
+			int id = rset.getInt("skillId");
+			int lv = rset.getInt("skillLevel");
+
+			skills.put(id, lv);
+		}
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public boolean supports(String databaseName, int majorVersion, int minorVersion)
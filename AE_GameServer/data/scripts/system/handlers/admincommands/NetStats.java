@@ -0,0 +1,72 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package admincommands;
+
+import com.aionemu.commons.network.metrics.NetworkMetrics;
+import com.aionemu.commons.network.metrics.NetworkMetrics.TopBy;
+import com.aionemu.gameserver.model.gameobjects.player.Player;
+import com.aionemu.gameserver.utils.PacketSendUtility;
+import com.aionemu.gameserver.utils.chathandlers.GMCommand;
+
+/**
+ * Dumps top opcodes from network metrics.
+ * 
+ * @author agent
+ */
+public class NetStats extends GMCommand
+{
+	/**
+	 * Number of opcodes dumped by default.
+	 */
+	private static final int	DEFAULT_TOP	= 10;
+
+	public NetStats()
+	{
+		super("netstats");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void executeCommand(Player admin, String[] params)
+	{
+		if(params == null || params.length < 1)
+		{
+			PacketSendUtility.sendMessage(admin, "syntax //netstats <in_count|in_bytes|decode_time|run_time|out_count|out_bytes|write_time> [n]");
+			return;
+		}
+
+		TopBy by;
+		int n = DEFAULT_TOP;
+		try
+		{
+			by = TopBy.valueOf(params[0].toUpperCase());
+			if(params.length > 1)
+				n = Integer.parseInt(params[1]);
+		}
+		catch(IllegalArgumentException e)
+		{
+			PacketSendUtility.sendMessage(admin, "unknown order or invalid number: " + e.getMessage());
+			return;
+		}
+
+		PacketSendUtility.sendMessage(admin, "Top " + n + " opcodes by " + by + ":");
+		for(String line : NetworkMetrics.getTop(by, n))
+			PacketSendUtility.sendMessage(admin, line);
+	}
+}
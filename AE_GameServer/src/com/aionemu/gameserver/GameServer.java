@@ -19,13 +19,16 @@ package com.aionemu.gameserver;
 import org.apache.log4j.Logger;
 
 import com.aionemu.commons.database.DatabaseFactory;
+import com.aionemu.commons.database.DatabaseMetrics;
 import com.aionemu.commons.database.dao.DAOManager;
 import com.aionemu.commons.log4j.exceptions.Log4jInitializationError;
 import com.aionemu.commons.network.NioServer;
+import com.aionemu.commons.network.metrics.NetworkMetrics;
 import com.aionemu.commons.services.LoggingService;
 import com.aionemu.gameserver.configs.Config;
 import com.aionemu.gameserver.dataholders.SpawnData;
 import com.aionemu.gameserver.network.loginserver.LoginServer;
+import com.aionemu.gameserver.services.WriteBehindService;
 import com.aionemu.gameserver.spawnengine.SpawnEngine;
 import com.aionemu.gameserver.utils.ThreadPoolManager;
 import com.aionemu.gameserver.utils.ThreadUncaughtExceptionHandler;
@@ -88,6 +91,7 @@ public class GameServer
 		
 		gs.startServers();
 		GameTimeManager.startClock();
+		gs.injector.getInstance(World.class).startUpdater();
 		
 		Runtime.getRuntime().addShutdownHook(new Thread(new ShutdownHook(gs.injector.getInstance(World.class))));
 
@@ -113,6 +117,8 @@ public class GameServer
 		NioServer nioServer = injector.getInstance(NioServer.class);
 		LoginServer loginServer = injector.getInstance(LoginServer.class);
 
+		NetworkMetrics.register("GameServer");
+		DatabaseMetrics.register("GameServer");
 		// Nio must go first
 		nioServer.connect();
 		loginServer.connect();
@@ -144,6 +150,7 @@ public class GameServer
 		DAOManager.init();
 		// Initialize thread pools
 		ThreadPoolManager.getInstance();
-		
+		// Start writing of queued player data
+		WriteBehindService.getInstance();
 	}
 }
@@ -83,7 +83,8 @@ public class NetworkInjectionModule extends AbstractModule
 		ServerCfg aion = new ServerCfg(Config.GAME_BIND_ADDRESS, Config.GAME_PORT, "Aion Connections",
 			connectionFactory);
 
-		return new NioServer(1, ThreadPoolManager.getInstance(), aion);
+		return new NioServer(Math.max(1, Config.NIO_READ_THREADS), Config.NIO_ACCEPT_THREADS, ThreadPoolManager
+			.getInstance(), aion);
 	}
 
 }
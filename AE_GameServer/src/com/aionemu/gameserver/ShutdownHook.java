@@ -22,6 +22,7 @@ import org.apache.log4j.Logger;
 
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.services.PlayerService;
+import com.aionemu.gameserver.services.WriteBehindService;
 import com.aionemu.gameserver.utils.PacketSendUtility;
 import com.aionemu.gameserver.utils.gametime.GameTimeManager;
 import com.aionemu.gameserver.world.World;
@@ -91,5 +92,6 @@ public class ShutdownHook implements Runnable
 			}		
 		}
 		GameTimeManager.saveTime();
+		WriteBehindService.getInstance().shutdown();
 	}
 }
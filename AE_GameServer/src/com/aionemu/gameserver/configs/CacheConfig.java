@@ -33,6 +33,14 @@ public class CacheConfig
 	 */
 	@Property(key = "gameserver.cache.softcache", defaultValue = "false")
 	public static boolean			SOFT_CACHE_MAP	= false;
+
+	/**
+	 * Caches that hold at most given number of entries, evicting the least frequently used ones, instead of
+	 * {@link WeakCacheMap} or {@link SoftCacheMap}. Format is name:maxSize[:expireSeconds] separated by commas. Player
+	 * cache can't be bounded - online player must never be evicted from it
+	 */
+	@Property(key = "gameserver.cache.bounded", defaultValue = "Account:1000")
+	public static String			BOUNDED_CACHES	= "Account:1000";
 	
 	/**
 	 * If true then whole {@link Player} objects are cached as long as there is memory for them
@@ -26,6 +26,7 @@ import org.apache.log4j.Logger;
 import com.aionemu.commons.configuration.ConfigurableProcessor;
 import com.aionemu.commons.configuration.Property;
 import com.aionemu.commons.utils.PropertiesUtils;
+import com.aionemu.gameserver.dao.PlayerLoadMode;
 
 /**
  * @author -Nemesiss-
@@ -80,12 +81,103 @@ public class Config
 	@Property(key = "gameserver.network.nio.threads.read", defaultValue = "0")
 	public static int				NIO_READ_THREADS;
 
+	/**
+	 * Number of Threads that will accept connections (>= 1)
+	 */
+	@Property(key = "gameserver.network.nio.threads.accept", defaultValue = "1")
+	public static int				NIO_ACCEPT_THREADS;
+
 	/**
 	 * Number of Threads that will handle io write (>= 0)
 	 */
 	@Property(key = "gameserver.network.nio.threads.write", defaultValue = "0")
 	public static int				NIO_WRITE_THREADS;
 
+	/**
+	 * Should client packets be executed by AffinityPacketProcessor [per connection queues] instead of PacketProcessor
+	 */
+	@Property(key = "gameserver.network.packetprocessor.affinity", defaultValue = "false")
+	public static boolean			PACKET_PROCESSOR_AFFINITY;
+
+	/**
+	 * Maximum number of Threads that will execute client packets
+	 */
+	@Property(key = "gameserver.network.packetprocessor.threads", defaultValue = "8")
+	public static int				PACKET_PROCESSOR_THREADS;
+
+	/**
+	 * Maximum number of server packets waiting to be sent to one client
+	 */
+	@Property(key = "gameserver.network.client.sendqueue.capacity", defaultValue = "1024")
+	public static int				SEND_QUEUE_CAPACITY;
+
+	/**
+	 * Number of server packets waiting to be sent to one client above witch droppable packets are dropped
+	 */
+	@Property(key = "gameserver.network.client.sendqueue.droppable", defaultValue = "256")
+	public static int				SEND_QUEUE_DROP_THRESHOLD;
+
+	/**
+	 * Should client be disconnected when its send queue is full
+	 */
+	@Property(key = "gameserver.network.client.sendqueue.disconnect", defaultValue = "true")
+	public static boolean			SEND_QUEUE_DISCONNECT;
+
+	/**
+	 * Minimal distance that object must move to update its KnownList
+	 */
+	@Property(key = "gameserver.knownlist.update.distance", defaultValue = "5")
+	public static float				KNOWNLIST_UPDATE_DISTANCE;
+
+	/**
+	 * Interval of world tick in milliseconds [0 - KnownLists are updated immediately after every move]
+	 */
+	@Property(key = "gameserver.world.tick.interval", defaultValue = "150")
+	public static int				WORLD_TICK_INTERVAL;
+
+	/**
+	 * Number of Threads that will process world tick
+	 */
+	@Property(key = "gameserver.world.tick.threads", defaultValue = "4")
+	public static int				WORLD_TICK_THREADS;
+
+	/**
+	 * Interval in milliseconds in which queued player data are written to database [0 - write as soon as possible]
+	 */
+	@Property(key = "gameserver.database.write.interval", defaultValue = "1000")
+	public static int				DB_WRITE_INTERVAL;
+
+	/**
+	 * Number of queued writes that are written immediately, also maximum size of one batch
+	 */
+	@Property(key = "gameserver.database.write.batch", defaultValue = "500")
+	public static int				DB_WRITE_BATCH;
+
+	/**
+	 * Number of Threads that will write queued player data to database
+	 */
+	@Property(key = "gameserver.database.write.threads", defaultValue = "2")
+	public static int				DB_WRITE_THREADS;
+
+	/**
+	 * Number of failed attempts after which queued write is dropped
+	 */
+	@Property(key = "gameserver.database.write.attempts", defaultValue = "3")
+	public static int				DB_WRITE_ATTEMPTS;
+
+	/**
+	 * How data of player entering the world are loaded [BATCH - one batch over one connection, PARALLEL - concurrent
+	 * queries]
+	 */
+	@Property(key = "gameserver.database.load.mode", defaultValue = "BATCH")
+	public static PlayerLoadMode	DB_LOAD_MODE;
+
+	/**
+	 * Number of Threads that run concurrent player data queries in PARALLEL load mode
+	 */
+	@Property(key = "gameserver.database.load.threads", defaultValue = "4")
+	public static int				DB_LOAD_THREADS;
+
 	/**
 	 * Server name
 	 */
@@ -36,33 +36,33 @@ public abstract class BlockListDAO implements DAO
 	public abstract BlockList load(Player player, World world);
 	
 	/**
-	 * Adds the given object id to the list of blocked players for the given player
+	 * Adds the given object id to the list of blocked players for the given player. Change is queued and written later by
+	 * {@link com.aionemu.gameserver.services.WriteBehindService}, failed writes are logged there.
 	 * @param playerObjId ID of player to edit the blocklist of
 	 * @param objIdToBlock ID of player to add to the blocklist
-	 * @return Success
 	 */
-	public abstract boolean addBlockedUser(int playerObjId, int objIdToBlock, String reason);
+	public abstract void addBlockedUser(int playerObjId, int objIdToBlock, String reason);
 
 	
 	/**
-	 * Deletes the given object id from the list of blocked players for the given player
+	 * Deletes the given object id from the list of blocked players for the given player. Change is queued and written later by
+	 * {@link com.aionemu.gameserver.services.WriteBehindService}, failed writes are logged there.
 	 * @param playerObjId ID of player to edit the blocklist of
 	 * @param objIdToDelete ID of player to remove from the blocklist
-	 * @return Success
 	 */
-	public abstract boolean delBlockedUser(int playerObjId, int objIdToDelete);
+	public abstract void delBlockedUser(int playerObjId, int objIdToDelete);
 	
 	/**
-	 * Sets the reason for blocking a player
+	 * Sets the reason for blocking a player. Change is queued and written later by
+	 * {@link com.aionemu.gameserver.services.WriteBehindService}, failed writes are logged there.
 	 * @param playerObjId
 	 * 			Object ID of the player whos list is being edited
 	 * @param blockedObjId
 	 * 			Object ID of the player whos reason is being edited
 	 * @param reason
 	 * 			The reason to be set
-	 * @return
 	 */
-	public abstract boolean setReason(int playerObjId, int blockedObjId, String reason);
+	public abstract void setReason(int playerObjId, int blockedObjId, String reason);
 	
 	/**
 	 * {@inheritDoc}
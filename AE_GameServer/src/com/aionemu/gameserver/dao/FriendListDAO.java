@@ -44,20 +44,20 @@ public abstract class FriendListDAO implements DAO
 	public abstract FriendList load(final Player player, final World world);
 	
 	/**
-	 * Makes the given players friends
+	 * Makes the given players friends. Change is queued and written later by
+	 * {@link com.aionemu.gameserver.services.WriteBehindService}, failed writes are logged there.
 	 * <ul><li>Note: Adds for both players</li></ul>
 	 * @param player Player who is adding
 	 * @param friend Friend to add to the friend list
-	 * @return Success
 	 */
-	public abstract boolean addFriends(final Player player, final Player friend);
+	public abstract void addFriends(final Player player, final Player friend);
 
 	/**
-	 * Deletes the friends from eachothers lists
+	 * Deletes the friends from eachothers lists. Change is queued and written later by
+	 * {@link com.aionemu.gameserver.services.WriteBehindService}, failed writes are logged there.
 	 * @param player Player whos is deleting
 	 * @param friendName Name of friend to delete
-	 * @return Success
 	 */
-	public abstract boolean delFriends(final int playerOid, final int friendOid);
+	public abstract void delFriends(final int playerOid, final int friendOid);
 	
 }
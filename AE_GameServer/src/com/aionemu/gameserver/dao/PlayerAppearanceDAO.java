@@ -16,6 +16,11 @@
  */
 package com.aionemu.gameserver.dao;
 
+//~--- JDK imports ------------------------------------------------------------
+
+import java.util.Collection;
+import java.util.Map;
+
 //~--- non-JDK imports --------------------------------------------------------
 
 import com.aionemu.commons.database.dao.DAO;
@@ -50,6 +55,16 @@ public abstract class PlayerAppearanceDAO implements DAO
 	 */
 	public abstract PlayerAppearance load(int playerId);
 
+	/**
+	 * Loads appearances of all given players with one query.<br>
+	 * Players that were not found in database are not in result map
+	 * 
+	 * @param playerIds
+	 *            player ids
+	 * @return player appearances by player id or null if query failed
+	 */
+	public abstract Map<Integer, PlayerAppearance> loadAppearances(Collection<Integer> playerIds);
+
 	/**
 	 * Saves player appearance in database.<br>
 	 * Actually calls {@link #store(int, com.aionemu.gameserver.model.gameobjects.player.PlayerAppearance)}
@@ -18,8 +18,10 @@
 package com.aionemu.gameserver.dao;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 
+import com.aionemu.gameserver.controllers.PlayerController;
 import com.aionemu.gameserver.model.account.PlayerAccountData;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.gameobjects.player.PlayerCommonData;
@@ -43,7 +45,7 @@ public abstract class PlayerDAO implements IDFactoryAwareDAO
 	public abstract boolean isNameUsed(String name);
 
 	/**
-	 * Stores player to db
+	 * Stores player to db. Write may be deferred, player state is taken when this method is called.
 	 * @param player
 	 */
 	public abstract void storePlayer(Player player);
@@ -59,6 +61,29 @@ public abstract class PlayerDAO implements IDFactoryAwareDAO
 
 	public abstract PlayerCommonData loadPlayerCommonData(int playerObjId, World world);
 
+	/**
+	 * Loads common data, creation and deletion time of all players on the account with one query. Appearance of
+	 * returned account data is not set.
+	 * 
+	 * @param accountId
+	 * @param world
+	 * @return account data of players or null if query failed
+	 */
+	public abstract List<PlayerAccountData> loadPlayerAccountDataByAccount(int accountId, World world);
+
+	/**
+	 * Loads player with all data needed to enter the world - common data, appearance, macros, skills, friends and
+	 * blocked players. Data are read as one batch or concurrently, depending on {@link PlayerLoadMode}.
+	 * 
+	 * @param playerObjId
+	 * @param controller
+	 *            controller of loaded player
+	 * @param world
+	 * @param mode
+	 * @return loaded player or null if it wasn't possible to load him
+	 */
+	public abstract Player loadFullPlayer(int playerObjId, PlayerController controller, World world, PlayerLoadMode mode);
+
 	/**
 	 * Removes player and all related data (Done by CASCADE DELETION)
 	 * 
@@ -67,6 +92,15 @@ public abstract class PlayerDAO implements IDFactoryAwareDAO
 	 */
 	public abstract void deletePlayer(int playerId);
 
+	/**
+	 * Removes players, their skills and all related data in one transaction
+	 * 
+	 * @param playerIds
+	 *            players to delete
+	 * @return true if players were deleted
+	 */
+	public abstract boolean deletePlayers(Collection<Integer> playerIds);
+
 	public abstract void updateDeletionTime(int objectId, Timestamp deletionDate);
 
 	public abstract void storeCreationTime(int objectId, Timestamp creationDate);
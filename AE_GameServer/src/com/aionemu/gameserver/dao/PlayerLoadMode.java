@@ -0,0 +1,36 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.dao;
+
+/**
+ * Defines how {@link PlayerDAO#loadFullPlayer} reads data of player that enters the world.
+ * 
+ * @author agent
+ */
+public enum PlayerLoadMode
+{
+	/**
+	 * All queries are executed over one connection as one batch, with multi-statement queries enabled it's one round
+	 * trip to database.
+	 */
+	BATCH,
+
+	/**
+	 * Independent queries are executed concurrently, each on its own connection.
+	 */
+	PARALLEL;
+}
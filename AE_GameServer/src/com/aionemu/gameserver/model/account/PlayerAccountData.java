@@ -89,6 +89,16 @@ public class PlayerAccountData
 		return appereance;
 	}
 
+	/**
+	 * Sets appearance, used when appearances are loaded after common data.
+	 * 
+	 * @param appereance
+	 */
+	public void setAppereance(PlayerAppearance appereance)
+	{
+		this.appereance = appereance;
+	}
+
 	/**
 	 * @param timestamp
 	 */
@@ -29,6 +29,8 @@ import java.sql.SQLException;
 import com.aionemu.commons.database.DB;
 import com.aionemu.commons.database.IUStH;
 import com.aionemu.commons.database.ParamReadStH;
+import com.aionemu.gameserver.services.DeferredWrite;
+import com.aionemu.gameserver.services.WriteBehindService;
 
 /**
  *
@@ -36,6 +38,8 @@ import com.aionemu.commons.database.ParamReadStH;
  */
 public class Inventory
 {
+	private static final String INSERT_QUERY = "INSERT INTO `inventory` (`itemId`,`itemNameId`,`itemCount`,`itemOwner`) VALUES(?,?,?,?)";
+
 	public int kinah;
 	public int totalItemsCount;
 	public int itemUniqueIdArray[];
@@ -45,6 +49,8 @@ public class Inventory
 	public int totalDbItemsCount;
 	
 	public void getInventoryFromDb(int activePlayer) {
+		/* items of this player may still wait for writing */
+		WriteBehindService.getInstance().flush(activePlayer);
 		PreparedStatement ps = DB.prepareStatement("SELECT `itemUniqueId`, `itemId`, `itemNameId`,`itemCount`FROM `inventory` WHERE `itemOwner`=" + activePlayer);
 		try
 		{
@@ -98,12 +104,14 @@ public class Inventory
 	}
 
 	public void getDbItemsCountFromDb() {
+		/* items that are not written yet are counted too, pending count is taken first so no item is missed */
+		int pendingCount = WriteBehindService.getInstance().getPendingCount(INSERT_QUERY);
 		PreparedStatement ps5 = DB.prepareStatement("SELECT * FROM `inventory`");
 		try
 		{
 			ResultSet rs = ps5.executeQuery();
 			rs.last();
-			totalDbItemsCount = rs.getRow();
+			totalDbItemsCount = rs.getRow() + pendingCount;
 		}
 		catch(SQLException e)
 		{
@@ -133,24 +141,18 @@ public class Inventory
 		}
 	}
 
-	public void putItemToDb(int activePlayer, int itemId, int itemNameId, int itemCount) {
-		PreparedStatement ps4 = DB.prepareStatement("INSERT INTO `inventory` (`itemId`,`itemNameId`,`itemCount`,`itemOwner`) VALUES(?,?,?,?)");
-		try
-		{
-			ps4.setInt(1, itemId);
-			ps4.setInt(2, itemNameId);
-			ps4.setInt(3, itemCount);
-			ps4.setInt(4, activePlayer);
-			ps4.executeUpdate();
-		}
-		catch(SQLException e)
+	public void putItemToDb(final int activePlayer, final int itemId, final int itemNameId, final int itemCount) {
+		WriteBehindService.getInstance().write(new DeferredWrite(activePlayer, null, INSERT_QUERY)
 		{
-			Logger.getLogger(Inventory.class).error("Error storing item", e);
-		}
-		finally
-		{
-			DB.close(ps4);
-		}
+			@Override
+			public void setParams(PreparedStatement ps4) throws SQLException
+			{
+				ps4.setInt(1, itemId);
+				ps4.setInt(2, itemNameId);
+				ps4.setInt(3, itemCount);
+				ps4.setInt(4, activePlayer);
+			}
+		});
 	}
 
 	public int getKinahCount() {
@@ -59,6 +59,18 @@ public class WorldMapTemplate
 	@XmlAttribute(name = "prison")
 	private boolean	prison	= false;
 
+	/**
+	 * Size of map [length of map side]. Default is the bound used before the map was split into grid cells.
+	 */
+	@XmlAttribute(name = "world_size")
+	private int		worldSize	= 10000;
+
+	/**
+	 * Size of spatial grid cell, should be close to visibility distance.
+	 */
+	@XmlAttribute(name = "cell_size")
+	private int		cellSize	= 150;
+
 	public String getName()
 	{
 		return name;
@@ -83,4 +95,14 @@ public class WorldMapTemplate
 	{
 		return prison;
 	}
+
+	public int getWorldSize()
+	{
+		return worldSize;
+	}
+
+	public int getCellSize()
+	{
+		return cellSize;
+	}
 }
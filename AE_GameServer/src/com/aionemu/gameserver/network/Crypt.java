@@ -17,12 +17,15 @@
 package com.aionemu.gameserver.network;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import com.aionemu.commons.utils.Rnd;
 import com.aionemu.gameserver.network.aion.Version;
 
 /**
- * Crypt will encrypt server packet and decrypt client packet.
+ * Crypt will encrypt server packet and decrypt client packet.<br>
+ * Packets are processed 8 bytes at once: key is kept as long, static key is precomputed as 8 longs and xor chain of
+ * encryption is computed as prefix xor inside of long.
  * 
  * @author hack99
  * @author -Nemesiss-
@@ -37,19 +40,43 @@ public class Crypt
 	 * Second byte of server packet must be equal to this
 	 */
 	public final static byte	staticServerPacketCode	= Version.Chiness ? 0x5D : 0x44;// 1.5.x (0x54 works too)
+
 	/**
 	 * Static xor key
 	 */
 	private static byte[]		staticKey				= "nKO/WctQ0AVLbpzfBkS6NevDYT8ourG5CRlmdjyJ72aswx4EPq1UgZhFMXH?3iI9"
 															.getBytes();
 	/**
-	 * Current xor key for client packet decoding.
+	 * Static xor key as little endian longs - 8 bytes of key per long.
+	 */
+	private static final long[]	staticKeyLongs			= new long[8];
+	/**
+	 * First byte of packet is not xored with static key, this value cancels it.
+	 */
+	private static final long	firstByteFix			= staticKey[0] & 0xff;
+	/**
+	 * Multiplying byte by this value copies it to every byte of long.
+	 */
+	private static final long	allBytes				= 0x0101010101010101L;
+
+	static
+	{
+		for(int i = 0; i < staticKey.length; i++)
+			staticKeyLongs[i >> 3] |= (staticKey[i] & 0xffL) << ((i & 7) << 3);
+	}
+
+	/**
+	 * Current xor key for client packet decoding [little endian].
 	 */
-	private byte[]				clientPacketKey;
+	private long				clientPacketKey;
 	/**
-	 * Current xor key for server packet encoding.
+	 * Current xor key for server packet encoding [little endian].
 	 */
-	private byte[]				serverPacketKey;
+	private long				serverPacketKey;
+	/**
+	 * Key was already generated.
+	 */
+	private boolean				isKeySet;
 	/**
 	 * Crypt is enabled after first server packet was send.
 	 */
@@ -64,17 +91,25 @@ public class Crypt
 	 */
 	public final int enableKey()
 	{
-		if(clientPacketKey != null)
-			throw new KeyAlreadySetException();
-
 		/** rnd key - this will be used to encrypt/decrypt packet */
-		int key = Rnd.nextInt();
+		return enableKey(Rnd.nextInt());
+	}
 
-		clientPacketKey = new byte[] { (byte) (key & 0xff), (byte) ((key >> 8) & 0xff), (byte) ((key >> 16) & 0xff),
-			(byte) ((key >> 24) & 0xff), (byte) 0xa1, (byte) 0x6c, (byte) 0x54, (byte) 0x87 };
+	/**
+	 * Enable given crypt key.
+	 * 
+	 * @param key
+	 * @return "false key" that should by used by aion client to encrypt/decrypt packets.
+	 */
+	final int enableKey(int key)
+	{
+		if(isKeySet)
+			throw new KeyAlreadySetException();
+		isKeySet = true;
 
-		serverPacketKey = new byte[clientPacketKey.length];
-		System.arraycopy(clientPacketKey, 0, serverPacketKey, 0, clientPacketKey.length);
+		/** key bytes followed by 0xa1, 0x6c, 0x54, 0x87 */
+		clientPacketKey = (key & 0xffffffffL) | 0x87546ca1L << 32;
+		serverPacketKey = clientPacketKey;
 
 		/** false key that will be sent to aion client in SM_KEY packet */
 		return (key ^ 0xCD92E451) + 0x3FF2CC87;
@@ -91,44 +126,41 @@ public class Crypt
 		if(!isEnabled)
 			return false;
 
-		final byte[] data = buf.array();
 		final int size = buf.remaining();
+		final long key = clientPacketKey;
+		final ByteOrder order = buf.order();
+		buf.order(ByteOrder.LITTLE_ENDIAN);
 
-		/** index to byte that should be decrypted now */
-		int arrayIndex = buf.arrayOffset() + buf.position();
+		/** index to byte that should be decrypted now [absolute access works for heap and direct buffers] */
+		int index = buf.position();
 
 		/** prev encrypted byte */
-		int prev = data[arrayIndex];
+		long prev = 0;
+		long fix = firstByteFix;
+		int i = 0;
 
-		/** decrypt first byte */
-		data[arrayIndex++] ^= (clientPacketKey[0] & 0xff);
+		/** decrypt 8 bytes at once - every byte is xored with previous encrypted one */
+		for(; i + 8 <= size; i += 8, index += 8)
+		{
+			long curr = buf.getLong(index);
+			buf.putLong(index, curr ^ (curr << 8 | prev) ^ key ^ staticKeyLongs[(i >> 3) & 7] ^ fix);
+			prev = curr >>> 56;
+			fix = 0;
+		}
 
-		/** decrypt loop */
-		for(int i = 1; i < size; i++, arrayIndex++)
+		/** decrypt rest */
+		for(; i < size; i++, index++)
 		{
-			int curr = data[arrayIndex] & 0xff;
-			data[arrayIndex] ^= (staticKey[i & 63] & 0xff) ^ (clientPacketKey[i & 7] & 0xff) ^ prev;
+			long curr = buf.get(index) & 0xff;
+			buf.put(index, (byte) (curr ^ prev ^ (key >>> ((i & 7) << 3)) ^ staticKey[i & 63] ^ fix));
 			prev = curr;
+			fix = 0;
 		}
 
-		/** oldKey value as long */
-		long oldKey = (((long) clientPacketKey[0] & 0xff) << 0) | (((long) clientPacketKey[1] & 0xff) << 8)
-			| (((long) clientPacketKey[2] & 0xff) << 16) | (((long) clientPacketKey[3] & 0xff) << 24)
-			| (((long) clientPacketKey[4] & 0xff) << 32) | (((long) clientPacketKey[5] & 0xff) << 40)
-			| (((long) clientPacketKey[6] & 0xff) << 48) | (((long) clientPacketKey[7] & 0xff) << 56);
+		buf.order(order);
 
 		/** change key */
-		oldKey += size;
-
-		/** set key new value */
-		clientPacketKey[0] = (byte) (oldKey >> 0 & 0xff);
-		clientPacketKey[1] = (byte) (oldKey >> 8 & 0xff);
-		clientPacketKey[2] = (byte) (oldKey >> 16 & 0xff);
-		clientPacketKey[3] = (byte) (oldKey >> 24 & 0xff);
-		clientPacketKey[4] = (byte) (oldKey >> 32 & 0xff);
-		clientPacketKey[5] = (byte) (oldKey >> 40 & 0xff);
-		clientPacketKey[6] = (byte) (oldKey >> 48 & 0xff);
-		clientPacketKey[7] = (byte) (oldKey >> 56 & 0xff);
+		clientPacketKey = key + size;
 
 		return validateClientPacket(buf);
 	}
@@ -158,43 +190,44 @@ public class Crypt
 			return;
 		}
 
-		final byte[] data = buf.array();
 		final int size = buf.remaining();
+		final long key = serverPacketKey;
+		final ByteOrder order = buf.order();
+		buf.order(ByteOrder.LITTLE_ENDIAN);
 
-		/** index to byte that should be encrypted now */
-		int arrayIndex = buf.arrayOffset() + buf.position();
-
-		/** encrypt first byte */
-		data[arrayIndex] ^= (serverPacketKey[0] & 0xff);
+		/** index to byte that should be encrypted now [absolute access works for heap and direct buffers] */
+		int index = buf.position();
 
 		/** prev encrypted byte */
-		int prev = data[arrayIndex++];
+		long prev = 0;
+		long fix = firstByteFix;
+		int i = 0;
+
+		/** encrypt 8 bytes at once - xor chain is prefix xor of bytes, continued by prev encrypted byte */
+		for(; i + 8 <= size; i += 8, index += 8)
+		{
+			long curr = buf.getLong(index) ^ key ^ staticKeyLongs[(i >> 3) & 7] ^ fix;
+			curr ^= curr << 8;
+			curr ^= curr << 16;
+			curr ^= curr << 32;
+			curr ^= prev * allBytes;
+			buf.putLong(index, curr);
+			prev = curr >>> 56;
+			fix = 0;
+		}
 
-		/** encrypt loop */
-		for(int i = 1; i < size; i++, arrayIndex++)
+		/** encrypt rest */
+		for(; i < size; i++, index++)
 		{
-			data[arrayIndex] ^= (staticKey[i & 63] & 0xff) ^ (serverPacketKey[i & 7] & 0xff) ^ prev;
-			prev = data[arrayIndex];
+			prev = (buf.get(index) ^ prev ^ (key >>> ((i & 7) << 3)) ^ staticKey[i & 63] ^ fix) & 0xff;
+			buf.put(index, (byte) prev);
+			fix = 0;
 		}
 
-		/** oldKey value as long */
-		long oldKey = (((long) serverPacketKey[0] & 0xff) << 0) | (((long) serverPacketKey[1] & 0xff) << 8)
-			| (((long) serverPacketKey[2] & 0xff) << 16) | (((long) serverPacketKey[3] & 0xff) << 24)
-			| (((long) serverPacketKey[4] & 0xff) << 32) | (((long) serverPacketKey[5] & 0xff) << 40)
-			| (((long) serverPacketKey[6] & 0xff) << 48) | (((long) serverPacketKey[7] & 0xff) << 56);
+		buf.order(order);
 
 		/** change key */
-		oldKey += size;
-
-		/** set key new value */
-		serverPacketKey[0] = (byte) (oldKey >> 0 & 0xff);
-		serverPacketKey[1] = (byte) (oldKey >> 8 & 0xff);
-		serverPacketKey[2] = (byte) (oldKey >> 16 & 0xff);
-		serverPacketKey[3] = (byte) (oldKey >> 24 & 0xff);
-		serverPacketKey[4] = (byte) (oldKey >> 32 & 0xff);
-		serverPacketKey[5] = (byte) (oldKey >> 40 & 0xff);
-		serverPacketKey[6] = (byte) (oldKey >> 48 & 0xff);
-		serverPacketKey[7] = (byte) (oldKey >> 56 & 0xff);
+		serverPacketKey = key + size;
 	}
 
 	/**
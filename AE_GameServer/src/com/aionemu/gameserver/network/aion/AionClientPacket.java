@@ -64,7 +64,7 @@ public abstract class AionClientPacket extends BaseClientPacket<AionConnection>
 	}
 
 	/**
-	 * run runImpl catching and logging Throwable.
+	 * run runImpl catching and logging Throwable. Packet is recycled after that.
 	 */
 	public final void run()
 	{
@@ -80,6 +80,10 @@ public abstract class AionClientPacket extends BaseClientPacket<AionConnection>
 
 			log.error("error handling client (" + name + ") message " + this, e);
 		}
+		finally
+		{
+			recycle();
+		}
 	}
 
 	/**
@@ -19,14 +19,17 @@ package com.aionemu.gameserver.network.aion;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.util.ArrayDeque;
-import java.util.Deque;
 
 import org.apache.log4j.Logger;
 
 import com.aionemu.commons.network.AConnection;
+import com.aionemu.commons.network.AffinityPacketProcessor;
 import com.aionemu.commons.network.Dispatcher;
+import com.aionemu.commons.network.OutboundQueue;
+import com.aionemu.commons.network.PacketExecutor;
 import com.aionemu.commons.network.PacketProcessor;
+import com.aionemu.commons.network.metrics.NetworkMetrics;
+import com.aionemu.gameserver.configs.Config;
 import com.aionemu.gameserver.model.account.Account;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.network.Crypt;
@@ -50,7 +53,11 @@ public class AionConnection extends AConnection
 	/**
 	 * PacketProcessor for executing packets.
 	 */
-	private final static PacketProcessor<AionConnection>	processor	= new PacketProcessor<AionConnection>(1, 8);
+	private final static PacketExecutor<AionConnection>	processor	= Config.PACKET_PROCESSOR_AFFINITY
+																			? new AffinityPacketProcessor<AionConnection>(
+																				Config.PACKET_PROCESSOR_THREADS)
+																			: new PacketProcessor<AionConnection>(1,
+																				Config.PACKET_PROCESSOR_THREADS);
 
 	/**
 	 * Possible states of AionConnection
@@ -74,7 +81,9 @@ public class AionConnection extends AConnection
 	/**
 	 * Server Packet "to send" Queue
 	 */
-	private final Deque<AionServerPacket>	sendMsgQueue	= new ArrayDeque<AionServerPacket>();
+	private final OutboundQueue<AionServerPacket>	sendMsgQueue	= new OutboundQueue<AionServerPacket>(
+																Config.SEND_QUEUE_CAPACITY,
+																Config.SEND_QUEUE_DROP_THRESHOLD);
 	/**
 	 * Current state of this connection
 	 */
@@ -158,14 +167,24 @@ public class AionConnection extends AConnection
 			return false;
 		}
 
+		int size = data.remaining();
 		AionClientPacket pck = aionPacketHandler.handle(data, this);
 		log.debug("recived packet: " + pck);
 
 		/**
 		 * Execute packet only if packet exist (!= null) and read was ok.
 		 */
-		if(pck != null && pck.read())
-			processor.executePacket(pck);
+		if(pck != null)
+		{
+			long start = System.nanoTime();
+			if(pck.read())
+			{
+				NetworkMetrics.recordDecode(pck.getOpcode(), size, System.nanoTime() - start);
+				processor.executePacket(pck);
+			}
+			else
+				pck.recycle();
+		}
 
 		return true;
 	}
@@ -181,7 +200,7 @@ public class AionConnection extends AConnection
 	{
 		synchronized(guard)
 		{
-			AionServerPacket packet = sendMsgQueue.pollFirst();
+			AionServerPacket packet = sendMsgQueue.poll();
 			if(packet == null)
 				return false;
 
@@ -256,7 +275,18 @@ public class AionConnection extends AConnection
 
 			log.debug("sending packet: " + bp);
 
-			sendMsgQueue.addLast(bp);
+			if(!sendMsgQueue.offer(bp))
+			{
+				/**
+				 * Client is not able to receive packets as fast as they are produced.
+				 */
+				if(Config.SEND_QUEUE_DISCONNECT)
+				{
+					log.warn("Send queue of " + this + " is full, closing connection.");
+					close(true);
+				}
+				return;
+			}
 			enableWriteInterest();
 		}
 	}
@@ -283,11 +313,24 @@ public class AionConnection extends AConnection
 			pendingClose = true;
 			isForcedClosing = forced;
 			sendMsgQueue.clear();
-			sendMsgQueue.addLast(closePacket);
+			sendMsgQueue.offer(closePacket);
 			enableWriteInterest();
 		}
 	}
 
+	/**
+	 * Returns number of server packets waiting to be sent.
+	 * 
+	 * @return send queue size
+	 */
+	public final int getSendQueueSize()
+	{
+		synchronized(guard)
+		{
+			return sendMsgQueue.size();
+		}
+	}
+
 	/**
 	 * Current state of this connection
 	 * 
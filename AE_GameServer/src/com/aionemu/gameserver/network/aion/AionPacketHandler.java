@@ -17,11 +17,12 @@
 package com.aionemu.gameserver.network.aion;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.apache.log4j.Logger;
 
+import com.aionemu.commons.network.packet.ClientPacketFactory;
+import com.aionemu.commons.network.packet.ClientPacketTable;
+import com.aionemu.commons.network.packet.RecyclingPacketFactory;
 import com.aionemu.gameserver.network.aion.AionConnection.State;
 import com.aionemu.gameserver.utils.Util;
 
@@ -36,7 +37,13 @@ public class AionPacketHandler
 	 */
 	private static final Logger							log					= Logger.getLogger(AionPacketHandler.class);
 
-	private Map<State, Map<Integer, AionClientPacket>>	packetsPrototypes	= new HashMap<State, Map<Integer, AionClientPacket>>();
+	/**
+	 * Maximum number of instances of one recycled packet kept for reuse.
+	 */
+	private static final int										RECYCLED_PACKETS	= 256;
+
+	private final ClientPacketTable<State, AionConnection, AionClientPacket>	packets				= new ClientPacketTable<State, AionConnection, AionClientPacket>(
+																							State.class);
 
 	/**
 	 * Reads one packet from given ByteBuffer
@@ -56,39 +63,36 @@ public class AionPacketHandler
 		return getPacket(state, id, data, client);
 	}
 
+	/**
+	 * Register packet prototype, every received packet will be clone of this prototype.
+	 * 
+	 * @param packetPrototype
+	 * @param states
+	 */
 	public void addPacketPrototype(AionClientPacket packetPrototype, State... states)
 	{
-		for(State state : states)
-		{
-			Map<Integer, AionClientPacket> pm = packetsPrototypes.get(state);
-			if(pm == null)
-			{
-				pm = new HashMap<Integer, AionClientPacket>();
-				packetsPrototypes.put(state, pm);
-			}
-			pm.put(packetPrototype.getOpcode(), packetPrototype);
-		}
+		packets.addFactory(packetPrototype.getOpcode(), new PrototypeFactory(packetPrototype), states);
 	}
 
-	private AionClientPacket getPacket(State state, int id, ByteBuffer buf, AionConnection con)
+	/**
+	 * Register packet prototype of packet that will be reused after execution, so receiving it doesn't allocate
+	 * anything. Packet must overwrite all its fields in readImpl() and can't keep any reference to itself after
+	 * runImpl().
+	 * 
+	 * @param packetPrototype
+	 * @param states
+	 */
+	public void addRecycledPacketPrototype(AionClientPacket packetPrototype, State... states)
 	{
-		AionClientPacket prototype = null;
+		packets.addFactory(packetPrototype.getOpcode(), new RecyclingPrototypeFactory(packetPrototype), states);
+	}
 
-		Map<Integer, AionClientPacket> pm = packetsPrototypes.get(state);
-		if(pm != null)
-		{
-			prototype = pm.get(id);
-		}
+	private AionClientPacket getPacket(State state, int id, ByteBuffer buf, AionConnection con)
+	{
+		AionClientPacket res = packets.getPacket(state, id, buf, con);
 
-		if(prototype == null)
-		{
+		if(res == null)
 			unknownPacket(state, id, buf);
-			return null;
-		}
-
-		AionClientPacket res = prototype.clonePacket();
-		res.setBuffer(buf);
-		res.setConnection(con);
 
 		return res;
 	}
@@ -105,4 +109,46 @@ public class AionPacketHandler
 		log.warn(String.format("Unknown packet recived from Aion client: 0x%02X, state=%s %n%s", id, state.toString(),
 			Util.toHex(data)));
 	}
+
+	/**
+	 * Factory that clones packet prototype.
+	 */
+	private static class PrototypeFactory implements ClientPacketFactory<AionConnection, AionClientPacket>
+	{
+		private final AionClientPacket	prototype;
+
+		private PrototypeFactory(AionClientPacket prototype)
+		{
+			this.prototype = prototype;
+		}
+
+		@Override
+		public AionClientPacket newPacket(ByteBuffer buf, AionConnection con)
+		{
+			AionClientPacket res = prototype.clonePacket();
+			res.setBuffer(buf);
+			res.setConnection(con);
+			return res;
+		}
+	}
+
+	/**
+	 * Factory that reuses executed packets and clones packet prototype only when there is no packet to reuse.
+	 */
+	private static class RecyclingPrototypeFactory extends RecyclingPacketFactory<AionConnection, AionClientPacket>
+	{
+		private final AionClientPacket	prototype;
+
+		private RecyclingPrototypeFactory(AionClientPacket prototype)
+		{
+			super(RECYCLED_PACKETS);
+			this.prototype = prototype;
+		}
+
+		@Override
+		protected AionClientPacket createPacket()
+		{
+			return prototype.clonePacket();
+		}
+	}
 }
@@ -20,6 +20,7 @@ import java.nio.ByteBuffer;
 
 import org.apache.log4j.Logger;
 
+import com.aionemu.commons.network.metrics.NetworkMetrics;
 import com.aionemu.commons.network.packet.BaseServerPacket;
 import com.aionemu.gameserver.network.Crypt;
 
@@ -30,7 +31,16 @@ import com.aionemu.gameserver.network.Crypt;
  */
 public abstract class AionServerPacket extends BaseServerPacket
 {
-	protected static Logger log	= Logger.getLogger(AionServerPacket.class);
+	protected static Logger		log	= Logger.getLogger(AionServerPacket.class);
+	/**
+	 * True if this packet is sent to many connections and its body should be rendered only once.
+	 */
+	private boolean				shared;
+	/**
+	 * Unencrypted packet [with length and opcode] rendered for first connection, copied for every next one.
+	 */
+	private volatile ByteBuffer	sharedBody;
+
 	/**
 	 * Constructs new server packet
 	 */
@@ -67,14 +77,69 @@ public abstract class AionServerPacket extends BaseServerPacket
 	 */
 	public final void write(AionConnection con, ByteBuffer buf)
 	{
-		buf.putShort((short) 0);
-		writeOP(buf, getOpcode());
-		writeImpl(con, buf);
-		buf.flip();
-		buf.putShort((short) buf.limit());
+		long start = System.nanoTime();
+		ByteBuffer body = sharedBody;
+		if(body == null)
+		{
+			buf.putShort((short) 0);
+			writeOP(buf, getOpcode());
+			writeImpl(con, buf);
+			buf.flip();
+			buf.putShort((short) buf.limit());
+
+			if(shared)
+				shareBody(buf);
+		}
+		else
+		{
+			buf.put(body.duplicate());
+			buf.flip();
+			buf.position(2);
+		}
 		ByteBuffer b = buf.slice();
 		buf.position(0);
 		con.encrypt(b);
+
+		NetworkMetrics.recordWrite(getOpcode(), buf.limit(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Marks this packet as sent to many connections [broadcast]. Body of shareable packet will be rendered only once,
+	 * every connection will just copy it and encrypt with its own key.
+	 */
+	public final void setShared()
+	{
+		if(isShareable())
+			shared = true;
+	}
+
+	/**
+	 * Returns true if content of this packet doesn't depend on connection to which it is written. Sharing is opt-in:
+	 * only packets whose writeImpl doesn't use connection or state of receiving player override this method.
+	 * 
+	 * @return true if body of this packet may be shared between connections
+	 */
+	protected boolean isShareable()
+	{
+		return false;
+	}
+
+	/**
+	 * Stores read only copy of unencrypted packet. If many threads render body at the same time, any of copies is
+	 * used - they are equal.
+	 * 
+	 * @param buf
+	 *            buffer with rendered packet, from 0 to limit
+	 */
+	private void shareBody(ByteBuffer buf)
+	{
+		ByteBuffer src = buf.duplicate();
+		src.position(0);
+
+		ByteBuffer copy = ByteBuffer.allocate(src.remaining());
+		copy.put(src);
+		copy.flip();
+		sharedBody = copy.asReadOnlyBuffer();
 	}
 
 	/**
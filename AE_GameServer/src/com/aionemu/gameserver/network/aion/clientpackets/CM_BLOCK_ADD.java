@@ -96,10 +96,10 @@ public class CM_BLOCK_ADD extends AionClientPacket
 			sendPacket(SM_SYSTEM_MESSAGE.BLOCKLIST_ALREADY_BLOCKED);
 		}
 		
-		//Try and block player
-		else if (!socialService.addBlockedUser(activePlayer, targetPlayer, reason))
+		//Block player
+		else
 		{
-			log.error("Failed to add " + targetPlayer.getName() + " to the block list for " + activePlayer.getName() + " - check database setup.");
+			socialService.addBlockedUser(activePlayer, targetPlayer, reason);
 		}
 		
 		
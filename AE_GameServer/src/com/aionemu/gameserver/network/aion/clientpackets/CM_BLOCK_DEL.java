@@ -70,10 +70,7 @@ public class CM_BLOCK_DEL extends AionClientPacket
 		}
 		else 
 		{
-			if (!socialService.deleteBlockedUser(activePlayer, target.getObjId()))
-			{
-				log.debug("Could not unblock " + targetName + " from " + activePlayer.getName() + " blocklist. Check database setup.");
-			}
+			socialService.deleteBlockedUser(activePlayer, target.getObjId());
 		}
 	}
 }
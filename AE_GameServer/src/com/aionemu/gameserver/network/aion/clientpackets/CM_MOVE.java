@@ -22,7 +22,6 @@ import com.aionemu.gameserver.controllers.movement.MovementType;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.network.aion.AionClientPacket;
 import com.aionemu.gameserver.network.aion.serverpackets.SM_MOVE;
-import com.aionemu.gameserver.utils.PacketSendUtility;
 import com.aionemu.gameserver.world.World;
 import com.google.inject.Inject;
 
@@ -75,14 +74,14 @@ public class CM_MOVE extends AionClientPacket
 				x2 = readF();
 				y2 = readF();
 				z2 = readF();
-				PacketSendUtility.broadcastPacket(player, new SM_MOVE(player, x, y, z, x2, y2, z2, heading, type), false);
+				world.broadcastState(player, new SM_MOVE(player, x, y, z, x2, y2, z2, heading, type));
 				break;
 			case VALIDATE_MOUSE:
 			case VALIDATE_KEYBOARD:
 				world.updatePosition(player, x, y, z, heading);
 				break;
 			case MOVEMENT_STOP:
-				PacketSendUtility.broadcastPacket(player, new SM_MOVE(player, x, y, z, x2, y2, z2, heading, type), false);
+				world.broadcastState(player, new SM_MOVE(player, x, y, z, x2, y2, z2, heading, type));
 				world.updatePosition(player, x, y, z, heading);
 				break;
 			default:
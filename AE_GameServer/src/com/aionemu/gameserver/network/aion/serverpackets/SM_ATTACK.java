@@ -18,6 +18,7 @@ package com.aionemu.gameserver.network.aion.serverpackets;
 
 import java.nio.ByteBuffer;
 
+import com.aionemu.commons.network.packet.PacketPriority;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
 
@@ -77,4 +78,22 @@ public class SM_ATTACK extends AionServerPacket
 		
 		writeC(buf, 0);
 	}	
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PacketPriority getPriority()
+	{
+		return PacketPriority.DROPPABLE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isShareable()
+	{
+		return true;
+	}
 }
@@ -18,6 +18,7 @@ package com.aionemu.gameserver.network.aion.serverpackets;
 
 import java.nio.ByteBuffer;
 
+import com.aionemu.commons.network.packet.PacketPriority;
 import com.aionemu.gameserver.model.gameobjects.Creature;
 import com.aionemu.gameserver.network.aion.AionConnection;
 import com.aionemu.gameserver.network.aion.AionServerPacket;
@@ -62,4 +63,31 @@ public class SM_ATTACK_STATUS extends AionServerPacket
 		
         
 	}	
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PacketPriority getPriority()
+	{
+		return PacketPriority.COALESCIBLE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getCoalescingKey()
+	{
+		return targetObjId;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isShareable()
+	{
+		return true;
+	}
 }
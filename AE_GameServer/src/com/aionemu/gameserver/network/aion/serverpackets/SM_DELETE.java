@@ -55,4 +55,13 @@ public class SM_DELETE extends AionServerPacket
 		writeD(buf, objectId);
 		writeC(buf, 15); // removal animation speed
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isShareable()
+	{
+		return true;
+	}
 }
@@ -105,4 +105,13 @@ public class SM_EMOTION extends AionServerPacket
 			writeD(buf, 12); // unknown
 		}
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isShareable()
+	{
+		return true;
+	}
 }
@@ -54,4 +54,13 @@ public class SM_LOOT_STATUS extends AionServerPacket
 	
         
 	}	
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isShareable()
+	{
+		return true;
+	}
 }
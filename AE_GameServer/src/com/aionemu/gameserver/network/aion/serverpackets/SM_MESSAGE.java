@@ -104,6 +104,16 @@ public class SM_MESSAGE extends AionServerPacket
 		this.chatType = chatType;
 	}
 
+	/**
+	 * Message content depends on race and rights of receiver, so body can be shared only if message is readable by
+	 * everyone.
+	 */
+	@Override
+	protected boolean isShareable()
+	{
+		return race == null;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -18,6 +18,7 @@ package com.aionemu.gameserver.network.aion.serverpackets;
 
 import java.nio.ByteBuffer;
 
+import com.aionemu.commons.network.packet.PacketPriority;
 import com.aionemu.gameserver.controllers.movement.MovementType;
 import com.aionemu.gameserver.model.gameobjects.Creature;
 import com.aionemu.gameserver.network.aion.AionConnection;
@@ -89,4 +90,31 @@ public class SM_MOVE extends AionServerPacket
 			writeF(buf, z2);
 		}
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PacketPriority getPriority()
+	{
+		return PacketPriority.COALESCIBLE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getCoalescingKey()
+	{
+		return movingCreature.getObjectId();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isShareable()
+	{
+		return true;
+	}
 }
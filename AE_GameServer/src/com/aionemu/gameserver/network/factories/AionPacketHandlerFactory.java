@@ -61,8 +61,8 @@ public class AionPacketHandlerFactory
 		addPacket(new CM_QUIT(Version.Chiness ? 0x4F : 0xED), State.AUTHED, State.IN_GAME);
 		addPacket(new CM_QUESTION_RESPONSE(Version.Chiness ? -1 : 0x22), State.IN_GAME);
 		addPacket(new CM_PLAYER_SEARCH(Version.Chiness ? -1 : 0xB1), State.IN_GAME);
-		addPacket(new CM_PING(Version.Chiness ? 0x20 : 0x96), State.AUTHED, State.IN_GAME);
-		addPacket(new CM_MOVE(Version.Chiness ? 0x1C : 0x9A), State.IN_GAME);
+		addRecycledPacket(new CM_PING(Version.Chiness ? 0x20 : 0x96), State.AUTHED, State.IN_GAME);
+		addRecycledPacket(new CM_MOVE(Version.Chiness ? 0x1C : 0x9A), State.IN_GAME);
 		addPacket(new CM_MAY_LOGIN_INTO_GAME(Version.Chiness ? 0x96 : 0x24), State.AUTHED);
 		addPacket(new CM_MACRO_DELETE(Version.Chiness ? 0x9C : 0xA0), State.IN_GAME);// 1.5.x unknown
 		addPacket(new CM_MACRO_CREATE(Version.Chiness ? 0xA3 : 0xA1), State.IN_GAME);// 1.5.x unknown
@@ -114,4 +114,10 @@ public class AionPacketHandlerFactory
 		handler.addPacketPrototype(prototype, states);
 	}
 
+	private void addRecycledPacket(AionClientPacket prototype, State... states)
+	{
+		injector.injectMembers(prototype);
+		handler.addRecycledPacketPrototype(prototype, states);
+	}
+
 }
\ No newline at end of file
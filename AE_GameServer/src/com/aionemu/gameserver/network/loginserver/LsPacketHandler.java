@@ -17,11 +17,11 @@
 package com.aionemu.gameserver.network.loginserver;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.apache.log4j.Logger;
 
+import com.aionemu.commons.network.packet.ClientPacketFactory;
+import com.aionemu.commons.network.packet.ClientPacketTable;
 import com.aionemu.gameserver.network.loginserver.LoginServerConnection.State;
 
 /**
@@ -35,7 +35,8 @@ public class LsPacketHandler
 	 */
 	private static final Logger							log					= Logger.getLogger(LsPacketHandler.class);
 
-	private Map<State, Map<Integer, LsClientPacket>>	packetPrototypes	= new HashMap<State, Map<Integer, LsClientPacket>>();
+	private final ClientPacketTable<State, LoginServerConnection, LsClientPacket>	packets	= new ClientPacketTable<State, LoginServerConnection, LsClientPacket>(
+																					State.class);
 
 	/**
 	 * Reads one packet from given ByteBuffer
@@ -52,39 +53,23 @@ public class LsPacketHandler
 		return getPacket(state, id, data, client);
 	}
 
+	/**
+	 * Register packet prototype, every received packet will be clone of this prototype.
+	 * 
+	 * @param packetPrototype
+	 * @param states
+	 */
 	public void addPacketPrototype(LsClientPacket packetPrototype, State... states)
 	{
-		for(State state : states)
-		{
-			Map<Integer, LsClientPacket> pm = packetPrototypes.get(state);
-			if(pm == null)
-			{
-				pm = new HashMap<Integer, LsClientPacket>();
-				packetPrototypes.put(state, pm);
-			}
-			pm.put(packetPrototype.getOpcode(), packetPrototype);
-		}
+		packets.addFactory(packetPrototype.getOpcode(), new PrototypeFactory(packetPrototype), states);
 	}
 
 	private LsClientPacket getPacket(State state, int id, ByteBuffer buf, LoginServerConnection con)
 	{
-		LsClientPacket prototype = null;
+		LsClientPacket res = packets.getPacket(state, id, buf, con);
 
-		Map<Integer, LsClientPacket> pm = packetPrototypes.get(state);
-		if(pm != null)
-		{
-			prototype = pm.get(id);
-		}
-
-		if(prototype == null)
-		{
+		if(res == null)
 			unknownPacket(state, id);
-			return null;
-		}
-
-		LsClientPacket res = prototype.clonePacket();
-		res.setBuffer(buf);
-		res.setConnection(con);
 
 		return res;
 	}
@@ -99,4 +84,26 @@ public class LsPacketHandler
 	{
 		log.warn(String.format("Unknown packet recived from Login Server: 0x%02X state=%s", id, state.toString()));
 	}
+
+	/**
+	 * Factory that clones packet prototype.
+	 */
+	private static class PrototypeFactory implements ClientPacketFactory<LoginServerConnection, LsClientPacket>
+	{
+		private final LsClientPacket	prototype;
+
+		private PrototypeFactory(LsClientPacket prototype)
+		{
+			this.prototype = prototype;
+		}
+
+		@Override
+		public LsClientPacket newPacket(ByteBuffer buf, LoginServerConnection con)
+		{
+			LsClientPacket res = prototype.clonePacket();
+			res.setBuffer(buf);
+			res.setConnection(con);
+			return res;
+		}
+	}
 }
@@ -16,8 +16,10 @@
  */
 package com.aionemu.gameserver.services;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 
@@ -29,7 +31,6 @@ import com.aionemu.gameserver.model.account.Account;
 import com.aionemu.gameserver.model.account.AccountTime;
 import com.aionemu.gameserver.model.account.PlayerAccountData;
 import com.aionemu.gameserver.model.gameobjects.player.PlayerAppearance;
-import com.aionemu.gameserver.model.gameobjects.player.PlayerCommonData;
 import com.aionemu.gameserver.utils.collections.cachemap.CacheMap;
 import com.aionemu.gameserver.utils.collections.cachemap.CacheMapFactory;
 import com.aionemu.gameserver.world.World;
@@ -45,7 +46,7 @@ public class AccountService
 {
 	private static final Logger			log			= Logger.getLogger(AccountService.class);
 
-	private CacheMap<Integer, Account>	accountsMap	= CacheMapFactory.createSoftCacheMap("Account", "account");
+	private CacheMap<Integer, Account>	accountsMap	= CacheMapFactory.createCacheMap("Account", "account", true);
 
 	@Inject
 	private World						world;
@@ -89,16 +90,29 @@ public class AccountService
 	private void removeDeletedCharacters(Account account)
 	{
 		/* Removes chars that should be removed */
+		List<PlayerAccountData> toDelete = new ArrayList<PlayerAccountData>();
+		for(PlayerAccountData pad : account)
+		{
+			long deletionTime = pad.getDeletionTimeInSeconds() * 1000L;
+			if(deletionTime != 0 && deletionTime <= System.currentTimeMillis())
+				toDelete.add(pad);
+		}
+		if(toDelete.isEmpty())
+			return;
+
+		List<Integer> playerIds = new ArrayList<Integer>(toDelete.size());
+		for(PlayerAccountData pad : toDelete)
+			playerIds.add(pad.getPlayerCommonData().getPlayerObjId());
+
+		/* characters stay on the account if deletion failed, it will be tried again on next login */
+		if(!playerService.deletePlayersFromDB(playerIds))
+			return;
+
 		Iterator<PlayerAccountData> it = account.iterator();
 		while(it.hasNext())
 		{
-			PlayerAccountData pad = it.next();
-			int deletionTime = pad.getDeletionTimeInSeconds() * 1000;
-			if(deletionTime != 0 && deletionTime <= System.currentTimeMillis())
-			{
+			if(toDelete.contains(it.next()))
 				it.remove();
-				playerService.deletePlayerFromDB(pad.getPlayerCommonData().getPlayerObjId());
-			}
 		}
 	}
 
@@ -116,16 +130,28 @@ public class AccountService
 		PlayerDAO playerDAO = DAOManager.getDAO(PlayerDAO.class);
 		PlayerAppearanceDAO appereanceDAO = DAOManager.getDAO(PlayerAppearanceDAO.class);
 
-		List<Integer> playerOids = playerDAO.getPlayerOidsOnAccount(accountId);
+		List<PlayerAccountData> accountData = playerDAO.loadPlayerAccountDataByAccount(accountId, world);
+		if(accountData == null || accountData.isEmpty())
+			return account;
 
-		for(int playerOid : playerOids)
+		/* characters of this account may have pending writes [ex. just logged out] - read them again if so */
+		boolean written = false;
+		List<Integer> playerOids = new ArrayList<Integer>(accountData.size());
+		for(PlayerAccountData acData : accountData)
 		{
-			PlayerCommonData playerCommonData = playerDAO.loadPlayerCommonData(playerOid, world);
-			PlayerAppearance appereance = appereanceDAO.load(playerOid);
+			int playerObjId = acData.getPlayerCommonData().getPlayerObjId();
+			playerOids.add(playerObjId);
+			written |= WriteBehindService.getInstance().flush(playerObjId);
+		}
+		if(written)
+			accountData = playerDAO.loadPlayerAccountDataByAccount(accountId, world);
 
-			PlayerAccountData acData = new PlayerAccountData(playerCommonData, appereance);
-			playerDAO.setCreationDeletionTime(acData);
+		Map<Integer, PlayerAppearance> appereances = appereanceDAO.loadAppearances(playerOids);
 
+		for(PlayerAccountData acData : accountData)
+		{
+			if(appereances != null)
+				acData.setAppereance(appereances.get(acData.getPlayerCommonData().getPlayerObjId()));
 			account.addPlayerAccountData(acData);
 		}
 
@@ -0,0 +1,121 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.services;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * One row mutation that is written to database later by {@link WriteBehindService}. Parameters should be taken from
+ * game objects when DeferredWrite is created, so later changes of that objects are not visible here.<br>
+ * DeferredWrites with equal key are coalesced - only last one is written, so each DeferredWrite with not null key
+ * should store whole state of its row [update, replace or delete].<br>
+ * Every write has an owner [ex. object id of player whose data is written], pending writes of one owner can be
+ * written on demand by {@link WriteBehindService#flush(Object)} before its data is loaded.
+ * 
+ * @author agent
+ */
+public abstract class DeferredWrite
+{
+	/**
+	 * Owner of written data, null if this write is never flushed on demand.
+	 */
+	private final Object	owner;
+
+	/**
+	 * Row identity, null if this write should never be coalesced.
+	 */
+	private final Object	key;
+
+	/**
+	 * Sql query that will be executed in batch with other writes using the same query.
+	 */
+	private final String	query;
+
+	/**
+	 * Number of failed attempts to write this write.
+	 */
+	private int				failures;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param owner
+	 *            owner of written data or null
+	 * @param key
+	 *            row identity or null
+	 * @param query
+	 *            sql query
+	 */
+	public DeferredWrite(Object owner, Object key, String query)
+	{
+		this.owner = owner;
+		this.key = key;
+		this.query = query;
+	}
+
+	/**
+	 * @return owner of written data or null if this write is never flushed on demand.
+	 */
+	public final Object getOwner()
+	{
+		return owner;
+	}
+
+	/**
+	 * @return row identity or null if this write should never be coalesced.
+	 */
+	public final Object getKey()
+	{
+		return key;
+	}
+
+	/**
+	 * @return sql query of this write.
+	 */
+	public final String getQuery()
+	{
+		return query;
+	}
+
+	/**
+	 * Set parameters of query before it is added to the batch.
+	 * 
+	 * @param stmt
+	 * @throws SQLException
+	 */
+	public abstract void setParams(PreparedStatement stmt) throws SQLException;
+
+	/**
+	 * Counts failed attempt to write this write.
+	 * 
+	 * @return number of failed attempts, including this one
+	 */
+	final int fail()
+	{
+		return ++failures;
+	}
+
+	/**
+	 * @return String info about this write.
+	 */
+	@Override
+	public String toString()
+	{
+		return (key != null ? key : "") + " " + query;
+	}
+}
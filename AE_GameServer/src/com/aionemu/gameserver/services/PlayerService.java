@@ -18,13 +18,12 @@
 package com.aionemu.gameserver.services;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 
 import com.aionemu.commons.database.dao.DAOManager;
 import com.aionemu.gameserver.configs.CacheConfig;
 import com.aionemu.gameserver.configs.Config;
 import com.aionemu.gameserver.controllers.PlayerController;
-import com.aionemu.gameserver.dao.BlockListDAO;
-import com.aionemu.gameserver.dao.FriendListDAO;
 import com.aionemu.gameserver.dao.PlayerAppearanceDAO;
 import com.aionemu.gameserver.dao.PlayerDAO;
 import com.aionemu.gameserver.dao.PlayerMacrossesDAO;
@@ -32,7 +31,6 @@ import com.aionemu.gameserver.dao.PlayerSkillListDAO;
 import com.aionemu.gameserver.dataholders.PlayerInitialData;
 import com.aionemu.gameserver.dataholders.PlayerInitialData.LocationData;
 import com.aionemu.gameserver.model.account.PlayerAccountData;
-import com.aionemu.gameserver.model.gameobjects.player.MacroList;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.gameobjects.player.PlayerAppearance;
 import com.aionemu.gameserver.model.gameobjects.player.PlayerCommonData;
@@ -59,6 +57,7 @@ import com.google.inject.Inject;
  */
 public class PlayerService
 {
+	/* soft references only - bounded cache could evict online player and second instance of him would be loaded */
 	private CacheMap<Integer, Player>	playerCache		= CacheMapFactory.createSoftCacheMap("Player", "player");
 
 	private IDFactory					aionObjectsIDFactory;
@@ -112,7 +111,7 @@ public class PlayerService
 	}
 
 	/**
-	 * Stores player data into db
+	 * Stores player data into db. Player is written later by {@link WriteBehindService}.
 	 * 
 	 * @param player
 	 */
@@ -133,23 +132,21 @@ public class PlayerService
 		if(player != null)
 			return player;
 
-		PlayerCommonData pcd = DAOManager.getDAO(PlayerDAO.class).loadPlayerCommonData(playerObjId, world);
-		PlayerAppearance appereance = DAOManager.getDAO(PlayerAppearanceDAO.class).load(playerObjId);
-		MacroList macroses = DAOManager.getDAO(PlayerMacrossesDAO.class).restoreMacrosses(playerObjId);
+		/* data of this player may still wait for writing */
+		WriteBehindService.getInstance().flush(playerObjId);
 
-		player = new Player(new PlayerController(), pcd, appereance);
-		player.setMacroList(macroses);
-		SkillList sl = DAOManager.getDAO(PlayerSkillListDAO.class).restoreSkillList(playerObjId);
-		if(sl!=null && sl.getSize()>0)
-			player.setSkillList(sl);
-		else
+		player = DAOManager.getDAO(PlayerDAO.class).loadFullPlayer(playerObjId, new PlayerController(), world,
+			Config.DB_LOAD_MODE);
+		if(player == null)
+			return null;
+
+		SkillList sl = player.getSkillList();
+		if(sl == null || sl.getSize() == 0)
 		{
 			DAOManager.getDAO(PlayerSkillListDAO.class).addSkillsTree(player);
 			player.setSkillList(DAOManager.getDAO(PlayerSkillListDAO.class).restoreSkillList(playerObjId));
 		}
 		player.setKnownlist(new KnownList(player));
-		player.setFriendList(DAOManager.getDAO(FriendListDAO.class).load(player, world));
-		player.setBlockList(DAOManager.getDAO(BlockListDAO.class).load(player,world));
 		
 		if(CacheConfig.CACHE_PLAYERS)
 			playerCache.put(playerObjId, player);	
@@ -255,15 +252,17 @@ public class PlayerService
 	}
 
 	/**
-	 * Completely removes player from database
+	 * Completely removes players from database, in one transaction
 	 * 
-	 * @param playerId
-	 *            id of player to delete from db
+	 * @param playerIds
+	 *            ids of players to delete from db
+	 * @return true if players were deleted
 	 */
-	void deletePlayerFromDB(int playerId)
+	boolean deletePlayersFromDB(Collection<Integer> playerIds)
 	{
-		DAOManager.getDAO(PlayerSkillListDAO.class).deleteSkills(playerId);
-		DAOManager.getDAO(PlayerDAO.class).deletePlayer(playerId);
+		for(Integer playerId : playerIds)
+			WriteBehindService.getInstance().flush(playerId);
+		return DAOManager.getDAO(PlayerDAO.class).deletePlayers(playerIds);
 	}
 
 	/**
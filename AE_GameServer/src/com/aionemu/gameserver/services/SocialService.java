@@ -55,22 +55,17 @@ public class SocialService
 	 * @param player
 	 * @param blockedPlayer
 	 * @param reason
-	 * @return Success
 	 */
-	public boolean addBlockedUser(Player player, Player blockedPlayer, String reason)
+	public void addBlockedUser(Player player, Player blockedPlayer, String reason)
 	{
-		if (DAOManager.getDAO(BlockListDAO.class).addBlockedUser(player.getObjectId(),	blockedPlayer.getObjectId(), reason))
-		{
-			player.getBlockList().add(new BlockedPlayer(blockedPlayer.getCommonData(),reason));
-			
-			player.getClientConnection()
-				.sendPacket(new SM_BLOCK_RESPONSE(SM_BLOCK_RESPONSE.BLOCK_SUCCESSFUL, blockedPlayer.getName()));
-			player.getClientConnection()
-				.sendPacket(new SM_BLOCK_LIST());
-			
-			return true;
-		}
-		return false;
+		DAOManager.getDAO(BlockListDAO.class).addBlockedUser(player.getObjectId(),	blockedPlayer.getObjectId(), reason);
+
+		player.getBlockList().add(new BlockedPlayer(blockedPlayer.getCommonData(),reason));
+		
+		player.getClientConnection()
+			.sendPacket(new SM_BLOCK_RESPONSE(SM_BLOCK_RESPONSE.BLOCK_SUCCESSFUL, blockedPlayer.getName()));
+		player.getClientConnection()
+			.sendPacket(new SM_BLOCK_LIST());
 	}
 	
 	/**
@@ -80,24 +75,20 @@ public class SocialService
 	 * @param player
 	 * @param blockedUserId
 	 * 			ID of player to unblock
-	 * @return Success
 	 */
-	public boolean deleteBlockedUser(Player player, int blockedUserId)
+	public void deleteBlockedUser(Player player, int blockedUserId)
 	{
-		if (DAOManager.getDAO(BlockListDAO.class).delBlockedUser(player.getObjectId(), blockedUserId))
-		{
-			player.getBlockList().remove(blockedUserId);
-			player.getClientConnection()
-				.sendPacket(new SM_BLOCK_RESPONSE(
-								SM_BLOCK_RESPONSE.UNBLOCK_SUCCESSFUL,
-								DAOManager.getDAO(PlayerDAO.class).loadPlayerCommonData(blockedUserId, world).getName()
-							));
-			
-			player.getClientConnection()
-				.sendPacket(new SM_BLOCK_LIST());
-			return true;
-		}
-		return false;
+		DAOManager.getDAO(BlockListDAO.class).delBlockedUser(player.getObjectId(), blockedUserId);
+
+		player.getBlockList().remove(blockedUserId);
+		player.getClientConnection()
+			.sendPacket(new SM_BLOCK_RESPONSE(
+							SM_BLOCK_RESPONSE.UNBLOCK_SUCCESSFUL,
+							DAOManager.getDAO(PlayerDAO.class).loadPlayerCommonData(blockedUserId, world).getName()
+						));
+		
+		player.getClientConnection()
+			.sendPacket(new SM_BLOCK_LIST());
 	}
 	
 	/**
@@ -115,13 +106,12 @@ public class SocialService
 		
 		if (!target.getReason().equals(reason))
 		{
-			if (DAOManager.getDAO(BlockListDAO.class).setReason(player.getObjectId(), target.getObjId(), reason))
-			{
-				target.setReason(reason);
-				player.getClientConnection()
-				.sendPacket(new SM_BLOCK_LIST());
-				return true;
-			}
+			DAOManager.getDAO(BlockListDAO.class).setReason(player.getObjectId(), target.getObjId(), reason);
+
+			target.setReason(reason);
+			player.getClientConnection()
+			.sendPacket(new SM_BLOCK_LIST());
+			return true;
 		}
 		return false;
 	}
@@ -159,39 +149,37 @@ public class SocialService
 	public void deleteFriend(Player deleter, int exFriend2Id)
 	{
 		
-		//If the DAO is successful
-		if (DAOManager.getDAO(FriendListDAO.class).delFriends(deleter.getObjectId(), exFriend2Id))
-		{
-			//Try to get the target player from the cache
-			Player friend2Player = playerService.getCachedPlayer(exFriend2Id);
-			//If the cache doesn't have this player, try to get him from the world
-			if (friend2Player == null)
-				friend2Player = world.findPlayer(exFriend2Id);
-			
-			String friend2Name = friend2Player != null ? friend2Player.getName() : 
-				DAOManager.getDAO(PlayerDAO.class).loadPlayerCommonData(exFriend2Id, world).getName();
-			
-			//Delete from deleter's friend list and send packets
-			deleter.getFriendList().delFriend(exFriend2Id);
+		DAOManager.getDAO(FriendListDAO.class).delFriends(deleter.getObjectId(), exFriend2Id);
+
+		//Try to get the target player from the cache
+		Player friend2Player = playerService.getCachedPlayer(exFriend2Id);
+		//If the cache doesn't have this player, try to get him from the world
+		if (friend2Player == null)
+			friend2Player = world.findPlayer(exFriend2Id);
+		
+		String friend2Name = friend2Player != null ? friend2Player.getName() : 
+			DAOManager.getDAO(PlayerDAO.class).loadPlayerCommonData(exFriend2Id, world).getName();
+		
+		//Delete from deleter's friend list and send packets
+		deleter.getFriendList().delFriend(exFriend2Id);
+		
+		deleter.getClientConnection()
+			.sendPacket(new SM_FRIEND_LIST());
+		deleter.getClientConnection()
+			.sendPacket(new SM_FRIEND_RESPONSE(
+							friend2Name,
+							SM_FRIEND_RESPONSE.TARGET_REMOVED));
 			
-			deleter.getClientConnection()
-				.sendPacket(new SM_FRIEND_LIST());
-			deleter.getClientConnection()
-				.sendPacket(new SM_FRIEND_RESPONSE(
-								friend2Name,
-								SM_FRIEND_RESPONSE.TARGET_REMOVED));
-				
+		
+		if (friend2Player != null)
+		{
+			friend2Player.getFriendList().delFriend(deleter.getObjectId());
 			
-			if (friend2Player != null)
+			if (friend2Player.isOnline())
 			{
-				friend2Player.getFriendList().delFriend(deleter.getObjectId());
-				
-				if (friend2Player.isOnline())
-				{
-					friend2Player.getClientConnection()
-						.sendPacket(new SM_FRIEND_NOTIFY(SM_FRIEND_NOTIFY.DELETED, deleter.getName()));	
-					friend2Player.getClientConnection().sendPacket(new SM_FRIEND_LIST());
-				}
+				friend2Player.getClientConnection()
+					.sendPacket(new SM_FRIEND_NOTIFY(SM_FRIEND_NOTIFY.DELETED, deleter.getName()));	
+				friend2Player.getClientConnection().sendPacket(new SM_FRIEND_LIST());
 			}
 		}
 		
@@ -0,0 +1,583 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.services;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+
+import com.aionemu.commons.database.DB;
+import com.aionemu.commons.database.IUStH;
+import com.aionemu.commons.database.Transaction;
+import com.aionemu.gameserver.configs.Config;
+import com.aionemu.gameserver.utils.ThreadPoolManager;
+import com.aionemu.gameserver.utils.ThreadUncaughtExceptionHandler;
+
+/**
+ * Write-behind service for player state. {@link DeferredWrite}s are queued and written to database later by dedicated
+ * threads, every <code>gameserver.database.write.interval</code> ms or as soon as
+ * <code>gameserver.database.write.batch</code> writes are waiting. Writes with the same query are executed as one jdbc
+ * batch, repeated writes of the same row are coalesced, other writes are executed in order in which they were
+ * queued.<br>
+ * Writes are spread over shards by their owner, each shard is written by its own thread so writes of one owner are
+ * always executed in order. If writing fails, transaction is rolled back and writes are queued again, write that
+ * failed <code>gameserver.database.write.attempts</code> times is dropped.<br>
+ * Code that is reading rows that may have pending writes [ex. player loading] should call {@link #flush(Object)} for
+ * owner of that rows first.
+ * 
+ * @author agent
+ */
+public class WriteBehindService
+{
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger				log			= Logger.getLogger(WriteBehindService.class);
+
+	/**
+	 * Instance of WriteBehindService.
+	 */
+	private static final WriteBehindService	instance	= new WriteBehindService();
+
+	/**
+	 * Shards of pending writes.
+	 */
+	private final Shard[]					shards;
+
+	/**
+	 * True if service was shut down - writes are executed immediately by calling thread.
+	 */
+	private volatile boolean				shutdown;
+
+	/**
+	 * @return WriteBehindService instance.
+	 */
+	public static WriteBehindService getInstance()
+	{
+		return instance;
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private WriteBehindService()
+	{
+		ThreadGroup group = new ThreadGroup("WriteBehind");
+		shards = new Shard[Math.max(1, Config.DB_WRITE_THREADS)];
+		for(int i = 0; i < shards.length; i++)
+			shards[i] = new Shard(group, "WriteBehind-" + (i + 1));
+
+		if(Config.DB_WRITE_INTERVAL > 0)
+		{
+			ThreadPoolManager.getInstance().scheduleAtFixedRate(new Runnable(){
+				@Override
+				public void run()
+				{
+					for(Shard shard : shards)
+						shard.requestFlush();
+				}
+			}, Config.DB_WRITE_INTERVAL, Config.DB_WRITE_INTERVAL);
+		}
+	}
+
+	/**
+	 * Queue given write. If write with equal key is already waiting, it is replaced by given one.
+	 * 
+	 * @param write
+	 */
+	public void write(DeferredWrite write)
+	{
+		Object key = write.getKey() != null ? write.getKey() : write;
+		Shard shard = getShard(write.getOwner() != null ? write.getOwner() : key);
+		shard.add(key, write);
+
+		/* service was shut down - no one else will write it */
+		if(shutdown)
+			shard.flush();
+	}
+
+	/**
+	 * Write pending writes of given owner now. Blocks calling thread until they are written, pending writes of other
+	 * owners are not touched.
+	 * 
+	 * @param owner
+	 * @return true if anything was written
+	 */
+	public boolean flush(Object owner)
+	{
+		return getShard(owner).flush(owner);
+	}
+
+	/**
+	 * Write all pending writes now. Blocks calling thread until they are written.
+	 */
+	public void flush()
+	{
+		for(Shard shard : shards)
+			shard.flush();
+	}
+
+	/**
+	 * @return number of writes waiting to be written.
+	 */
+	public int getPendingCount()
+	{
+		int count = 0;
+		for(Shard shard : shards)
+			count += shard.size();
+		return count;
+	}
+
+	/**
+	 * Returns number of writes with given query that are waiting or are being written. Writes that are committed while
+	 * this method is running may be counted, so result read before reading rows from database is never lower than
+	 * number of missing rows.
+	 * 
+	 * @param query
+	 * @return number of not committed writes with given query
+	 */
+	public int getPendingCount(String query)
+	{
+		int count = 0;
+		for(Shard shard : shards)
+			count += shard.count(query);
+		return count;
+	}
+
+	/**
+	 * Write all pending writes and stop writing threads. Writes queued after that are executed immediately by calling
+	 * thread.
+	 */
+	public void shutdown()
+	{
+		shutdown = true;
+		log.info("Writing " + getPendingCount() + " pending database writes");
+		for(Shard shard : shards)
+		{
+			shard.flush();
+			shard.executor.shutdown();
+		}
+		if(getPendingCount() > 0)
+			log.error("Failed to write " + getPendingCount() + " pending database writes");
+	}
+
+	/**
+	 * @param owner
+	 *            owner of writes, not null
+	 * @return shard of writes of given owner
+	 */
+	private Shard getShard(Object owner)
+	{
+		return shards[(owner.hashCode() & 0x7fffffff) % shards.length];
+	}
+
+	/**
+	 * Execute given writes in one transaction, writes with the same query as one batch. If any batch fails, whole
+	 * transaction is rolled back.
+	 * 
+	 * @param writes
+	 * @return true if writes were committed
+	 */
+	private static boolean execute(List<DeferredWrite> writes)
+	{
+		Map<String, List<DeferredWrite>> batches = new LinkedHashMap<String, List<DeferredWrite>>();
+		for(DeferredWrite write : writes)
+		{
+			List<DeferredWrite> batch = batches.get(write.getQuery());
+			if(batch == null)
+			{
+				batch = new ArrayList<DeferredWrite>();
+				batches.put(write.getQuery(), batch);
+			}
+			batch.add(write);
+		}
+
+		Transaction transaction;
+		try
+		{
+			transaction = DB.beginTransaction();
+		}
+		catch(Exception e)
+		{
+			log.error("Failed to execute " + writes.size() + " database writes " + e, e);
+			return false;
+		}
+
+		String query = null;
+		try
+		{
+			for(Map.Entry<String, List<DeferredWrite>> e : batches.entrySet())
+			{
+				final List<DeferredWrite> batch = e.getValue();
+				query = e.getKey();
+				transaction.insertUpdate(query, new IUStH(){
+					@Override
+					public void handleInsertUpdate(PreparedStatement stmt) throws SQLException
+					{
+						try
+						{
+							for(DeferredWrite write : batch)
+							{
+								write.setParams(stmt);
+								stmt.addBatch();
+							}
+							stmt.executeBatch();
+						}
+						finally
+						{
+							stmt.close();
+						}
+					}
+				});
+			}
+			query = null;
+			transaction.commit();
+			return true;
+		}
+		catch(SQLException e)
+		{
+			log.warn("Failed to execute " + writes.size() + " database writes" + (query != null ? ": " + query : "")
+				+ " " + e, e);
+			try
+			{
+				transaction.rollback();
+			}
+			catch(SQLException ex)
+			{
+				log.warn("Failed to close DB connection " + ex, ex);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Part of pending writes written by one thread.
+	 * 
+	 * @author agent
+	 */
+	private static final class Shard implements Runnable
+	{
+		/**
+		 * Pending writes by their key, in order in which they were queued. Coalesced write takes place of the one it
+		 * replaced.
+		 */
+		private final Map<Object, DeferredWrite>	pending			= new LinkedHashMap<Object, DeferredWrite>();
+
+		/**
+		 * Number of pending or executed writes of every owner.
+		 */
+		private final Map<Object, Integer>			owners			= new HashMap<Object, Integer>();
+
+		/**
+		 * Writes that are being executed, empty if none.
+		 */
+		private List<DeferredWrite>					executed		= Collections.emptyList();
+
+		/**
+		 * True if flush of this shard was already requested and not started yet.
+		 */
+		private final AtomicBoolean					flushRequested	= new AtomicBoolean();
+
+		/**
+		 * Lock held while writes of this shard are executed, so they are always executed in order.
+		 */
+		private final Lock							flushLock		= new ReentrantLock();
+
+		/**
+		 * Thread executing writes of this shard.
+		 */
+		private final ExecutorService				executor;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param group
+		 * @param name
+		 */
+		private Shard(final ThreadGroup group, final String name)
+		{
+			executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory(){
+					@Override
+					public Thread newThread(Runnable r)
+					{
+						Thread t = new Thread(group, r, name);
+						t.setUncaughtExceptionHandler(new ThreadUncaughtExceptionHandler());
+						return t;
+					}
+				});
+		}
+
+		/**
+		 * Queue given write replacing pending write with the same key.
+		 * 
+		 * @param key
+		 * @param write
+		 */
+		private void add(Object key, DeferredWrite write)
+		{
+			int size;
+			synchronized(pending)
+			{
+				DeferredWrite old = pending.put(key, write);
+				if(old != null)
+					removeOwner(old);
+				addOwner(write);
+				size = pending.size();
+			}
+			if(size >= Config.DB_WRITE_BATCH || Config.DB_WRITE_INTERVAL <= 0)
+				requestFlush();
+		}
+
+		/**
+		 * @return number of pending writes.
+		 */
+		private int size()
+		{
+			synchronized(pending)
+			{
+				return pending.size();
+			}
+		}
+
+		/**
+		 * @param query
+		 * @return number of pending or executed writes with given query.
+		 */
+		private int count(String query)
+		{
+			int count = 0;
+			synchronized(pending)
+			{
+				for(DeferredWrite write : pending.values())
+				{
+					if(write.getQuery().equals(query))
+						count++;
+				}
+				for(DeferredWrite write : executed)
+				{
+					if(write.getQuery().equals(query))
+						count++;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Ask writing thread to flush this shard if there is anything to write.
+		 */
+		private void requestFlush()
+		{
+			if(size() > 0 && flushRequested.compareAndSet(false, true))
+			{
+				try
+				{
+					executor.execute(this);
+				}
+				catch(Exception e)
+				{
+					/* shut down - writes will be done by shutdown() */
+					flushRequested.set(false);
+				}
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run()
+		{
+			flushRequested.set(false);
+			flush();
+		}
+
+		/**
+		 * Execute all pending writes of this shard, in batches of at most
+		 * <code>gameserver.database.write.batch</code> writes. Stops on first failed batch, it is written again with
+		 * next flush.
+		 */
+		private void flush()
+		{
+			flushLock.lock();
+			try
+			{
+				while(true)
+				{
+					List<DeferredWrite> writes = drain(null, Math.max(1, Config.DB_WRITE_BATCH));
+					if(writes.isEmpty() || !finish(writes, execute(writes)))
+						break;
+				}
+			}
+			finally
+			{
+				flushLock.unlock();
+			}
+		}
+
+		/**
+		 * Execute pending writes of given owner. Waits only for writes of this shard that are being executed right
+		 * now.
+		 * 
+		 * @param owner
+		 * @return true if anything was written
+		 */
+		private boolean flush(Object owner)
+		{
+			synchronized(pending)
+			{
+				if(!owners.containsKey(owner))
+					return false;
+			}
+
+			flushLock.lock();
+			try
+			{
+				List<DeferredWrite> writes = drain(owner, Integer.MAX_VALUE);
+				if(writes.isEmpty())
+					return false;
+				return finish(writes, execute(writes));
+			}
+			finally
+			{
+				flushLock.unlock();
+			}
+		}
+
+		/**
+		 * Remove at most max pending writes and mark them as executed.
+		 * 
+		 * @param owner
+		 *            owner of removed writes or null for any
+		 * @param max
+		 * @return removed writes
+		 */
+		private List<DeferredWrite> drain(Object owner, int max)
+		{
+			synchronized(pending)
+			{
+				if(pending.isEmpty() || (owner != null && !owners.containsKey(owner)))
+					return Collections.emptyList();
+
+				List<DeferredWrite> writes = new ArrayList<DeferredWrite>(Math.min(max, pending.size()));
+				Iterator<DeferredWrite> it = pending.values().iterator();
+				while(it.hasNext() && writes.size() < max)
+				{
+					DeferredWrite write = it.next();
+					if(owner != null && !owner.equals(write.getOwner()))
+						continue;
+					it.remove();
+					writes.add(write);
+				}
+				executed = writes;
+				return writes;
+			}
+		}
+
+		/**
+		 * Called after given drained writes were executed. Failed writes are queued again before all pending writes,
+		 * unless they were coalesced with newer write meanwhile or failed too many times.
+		 * 
+		 * @param writes
+		 * @param success
+		 *            true if writes were committed
+		 * @return success
+		 */
+		private boolean finish(List<DeferredWrite> writes, boolean success)
+		{
+			synchronized(pending)
+			{
+				executed = Collections.emptyList();
+				if(success)
+				{
+					for(DeferredWrite write : writes)
+						removeOwner(write);
+					return true;
+				}
+
+				Map<Object, DeferredWrite> retry = new LinkedHashMap<Object, DeferredWrite>();
+				for(DeferredWrite write : writes)
+				{
+					Object key = write.getKey() != null ? write.getKey() : write;
+					if(pending.containsKey(key))
+					{
+						removeOwner(write);
+					}
+					else if(write.fail() >= Config.DB_WRITE_ATTEMPTS)
+					{
+						log.error("Dropped database write after " + Config.DB_WRITE_ATTEMPTS + " failed attempts: "
+							+ write);
+						removeOwner(write);
+					}
+					else
+						retry.put(key, write);
+				}
+				retry.putAll(pending);
+				pending.clear();
+				pending.putAll(retry);
+				return false;
+			}
+		}
+
+		/**
+		 * Counts pending write of its owner. Must be called with lock of pending held.
+		 * 
+		 * @param write
+		 */
+		private void addOwner(DeferredWrite write)
+		{
+			Object owner = write.getOwner();
+			if(owner == null)
+				return;
+			Integer count = owners.get(owner);
+			owners.put(owner, count == null ? 1 : count + 1);
+		}
+
+		/**
+		 * Removes write from count of its owner. Must be called with lock of pending held.
+		 * 
+		 * @param write
+		 */
+		private void removeOwner(DeferredWrite write)
+		{
+			Object owner = write.getOwner();
+			if(owner == null)
+				return;
+			Integer count = owners.get(owner);
+			if(count == null || count <= 1)
+				owners.remove(owner);
+			else
+				owners.put(owner, count - 1);
+		}
+	}
+}
@@ -72,6 +72,7 @@ public class PacketSendUtility
 	 */
 	public static void broadcastPacket(Player player, AionServerPacket packet, boolean toSelf)
 	{
+		packet.setShared();
 		if(toSelf)
 			sendPacket(player, packet);
 	
@@ -85,6 +86,7 @@ public class PacketSendUtility
 	 */
 	public static void broadcastPacket(VisibleObject visibleObject, AionServerPacket packet)
 	{
+		packet.setShared();
 		for(VisibleObject obj: visibleObject.getKnownList())
 		{
 			if(obj instanceof Player)
@@ -105,6 +107,7 @@ public class PacketSendUtility
 	 */
 	public static void broadcastPacket(Player player, AionServerPacket packet,boolean toSelf, ObjectFilter<Player> filter)
 	{
+		packet.setShared();
 		if (toSelf)
 		{
 			sendPacket(player, packet);
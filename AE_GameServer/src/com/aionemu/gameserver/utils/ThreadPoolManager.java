@@ -16,6 +16,8 @@
  */
 package com.aionemu.gameserver.utils;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
@@ -29,6 +31,7 @@ import org.apache.log4j.Logger;
 import com.aionemu.commons.network.DisconnectionTask;
 import com.aionemu.commons.network.DisconnectionThreadPool;
 import com.aionemu.commons.utils.ScheduledThreadPoolExecutorAE;
+import com.aionemu.gameserver.configs.Config;
 
 /**
  * @author -Nemesiss-
@@ -47,6 +50,10 @@ public class ThreadPoolManager implements DisconnectionThreadPool
 
 	private ThreadPoolExecutor				loginServerPacketsThreadPool;
 
+	private ThreadPoolExecutor				worldUpdateThreadPool;
+
+	private ThreadPoolExecutor				databaseLoadThreadPool;
+
 	/**
 	 * @return ThreadPoolManager instance.
 	 */
@@ -72,6 +79,13 @@ public class ThreadPoolManager implements DisconnectionThreadPool
 			new LinkedBlockingQueue<Runnable>(), new PriorityThreadFactory("Login Server Packet Pool",
 				Thread.NORM_PRIORITY + 3));
 
+		worldUpdateThreadPool = new ThreadPoolExecutor(Config.WORLD_TICK_THREADS, Config.WORLD_TICK_THREADS, 0L,
+			TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new PriorityThreadFactory("World Update Pool",
+				Thread.NORM_PRIORITY));
+
+		databaseLoadThreadPool = new ThreadPoolExecutor(Config.DB_LOAD_THREADS, Config.DB_LOAD_THREADS, 0L,
+			TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new PriorityThreadFactory("Database Load Pool",
+				Thread.NORM_PRIORITY));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -112,6 +126,27 @@ public class ThreadPoolManager implements DisconnectionThreadPool
 		loginServerPacketsThreadPool.execute(pkt);
 	}
 
+	/**
+	 * Executes part of world tick.
+	 * 
+	 * @param task
+	 */
+	public void executeWorldUpdate(Runnable task)
+	{
+		worldUpdateThreadPool.execute(task);
+	}
+
+	/**
+	 * Executes query that is part of concurrent database load.
+	 * 
+	 * @param task
+	 * @return future of task result
+	 */
+	public <T> Future<T> executeDatabaseLoad(Callable<T> task)
+	{
+		return databaseLoadThreadPool.submit(task);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -176,8 +211,11 @@ public class ThreadPoolManager implements DisconnectionThreadPool
 		{
 			scheduledThreadPool.shutdown();
 			loginServerPacketsThreadPool.shutdown();
+			worldUpdateThreadPool.shutdown();
+			databaseLoadThreadPool.shutdown();
 			scheduledThreadPool.awaitTermination(2, TimeUnit.SECONDS);
 			loginServerPacketsThreadPool.awaitTermination(2, TimeUnit.SECONDS);
+			worldUpdateThreadPool.awaitTermination(2, TimeUnit.SECONDS);
 			log.info("All ThreadPools are now stopped");
 		}
 		catch(InterruptedException e)
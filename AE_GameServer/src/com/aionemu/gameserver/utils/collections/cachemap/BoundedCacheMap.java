@@ -0,0 +1,549 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.utils.collections.cachemap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Thread-safe cache map holding strong references, bounded by number of entries or by their weight.<br>
+ * <br>
+ * Eviction follows W-TinyLFU policy. New entries come to a small LRU window, entry leaving the window is admitted to the
+ * main segmented LRU only if it was used more often than the entry it would replace. Use frequencies are estimated by
+ * a count-min sketch that is halved periodically, so old popularity fades away.<br>
+ * <br>
+ * Entries may also expire after given time since they were put. Expired entries are removed when they are looked up
+ * or evicted.
+ * 
+ * @author agent
+ * 
+ * @param <K>
+ * @param <V>
+ */
+class BoundedCacheMap<K, V> implements CacheMap<K, V>, BoundedCacheMapMBean
+{
+	private static final Logger		log			= Logger.getLogger(BoundedCacheMap.class);
+
+	/** Entry is not in any queue */
+	private static final byte		NONE		= 0;
+	/** Entry is in LRU window */
+	private static final byte		WINDOW		= 1;
+	/** Entry is in main space, it was not used since it came there */
+	private static final byte		PROBATION	= 2;
+	/** Entry is in main space, it was used since it came there */
+	private static final byte		PROTECTED	= 3;
+
+	private final String			name;
+	private final String			cacheName;
+	private final String			valueName;
+
+	private final CacheWeigher<K, V>	weigher;
+	private final long				maximumWeight;
+	private final long				windowMaximum;
+	private final long				mainMaximum;
+	private final long				protectedMaximum;
+	private final long				expireNanos;
+
+	private final Map<K, Node<K, V>>	data		= new HashMap<K, Node<K, V>>();
+	private final NodeQueue<K, V>	window		= new NodeQueue<K, V>();
+	private final NodeQueue<K, V>	probation	= new NodeQueue<K, V>();
+	private final NodeQueue<K, V>	protect		= new NodeQueue<K, V>();
+	private final FrequencySketch	sketch;
+
+	private long					windowWeight;
+	private long					mainWeight;
+	private long					protectedWeight;
+
+	private long					hits;
+	private long					misses;
+	private long					evictions;
+	private long					expirations;
+
+	/**
+	 * @param cacheName
+	 * @param valueName
+	 * @param maximumWeight
+	 *            maximum sum of weights of all entries
+	 * @param weigher
+	 *            weigher of entries, if null every entry weights 1
+	 * @param expireMillis
+	 *            time after put when entry expires, 0 - entries don't expire
+	 */
+	BoundedCacheMap(String cacheName, String valueName, long maximumWeight, CacheWeigher<K, V> weigher,
+		long expireMillis)
+	{
+		if(maximumWeight <= 0)
+			throw new IllegalArgumentException("Maximum weight must be positive: " + maximumWeight);
+
+		this.name = cacheName;
+		this.cacheName = "#CACHE  [" + cacheName + "]#  ";
+		this.valueName = valueName;
+		this.weigher = weigher;
+		this.maximumWeight = maximumWeight;
+		this.windowMaximum = Math.max(1, maximumWeight / 100);
+		this.mainMaximum = Math.max(0, maximumWeight - windowMaximum);
+		this.protectedMaximum = mainMaximum * 8 / 10;
+		this.expireNanos = expireMillis * 1000000L;
+		this.sketch = new FrequencySketch(maximumWeight);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void put(K key, V value)
+	{
+		Node<K, V> node = data.get(key);
+		if(node != null)
+		{
+			if(!isExpired(node, System.nanoTime()))
+				throw new IllegalArgumentException("Key: " + key + " already exists in map");
+			expire(node);
+		}
+
+		int weight = weigher == null ? 1 : weigher.weigh(key, value);
+		if(weight < 0)
+			throw new IllegalArgumentException("Negative weight of key: " + key);
+
+		node = new Node<K, V>(key, value, weight, System.nanoTime());
+		data.put(key, node);
+		sketch.increment(key);
+
+		node.queue = WINDOW;
+		window.addLast(node);
+		windowWeight += weight;
+		evict();
+
+		if(log.isDebugEnabled())
+			log.debug(cacheName + " : added " + valueName + " for key: " + key);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized V get(K key)
+	{
+		Node<K, V> node = data.get(key);
+		if(node != null && isExpired(node, System.nanoTime()))
+		{
+			expire(node);
+			node = null;
+		}
+
+		sketch.increment(key);
+		if(node == null)
+		{
+			misses++;
+			return null;
+		}
+
+		hits++;
+		onAccess(node);
+
+		if(log.isDebugEnabled())
+			log.debug(cacheName + " : obtained " + valueName + " for key: " + key);
+
+		return node.value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized boolean contains(K key)
+	{
+		Node<K, V> node = data.get(key);
+		if(node != null && isExpired(node, System.nanoTime()))
+		{
+			expire(node);
+			return false;
+		}
+		return node != null;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void remove(K key)
+	{
+		Node<K, V> node = data.remove(key);
+		if(node != null)
+			unlink(node);
+	}
+
+	/**
+	 * Moves used entry to the most recently used position of its queue, entry used in probation is promoted to the
+	 * protected queue.
+	 */
+	private void onAccess(Node<K, V> node)
+	{
+		switch(node.queue)
+		{
+			case WINDOW:
+				window.moveToLast(node);
+				break;
+			case PROBATION:
+				probation.remove(node);
+				node.queue = PROTECTED;
+				protect.addLast(node);
+				protectedWeight += node.weight;
+
+				/* protected queue overflow goes back to probation */
+				while(protectedWeight > protectedMaximum)
+				{
+					Node<K, V> demoted = protect.first();
+					protect.remove(demoted);
+					protectedWeight -= demoted.weight;
+					demoted.queue = PROBATION;
+					probation.addLast(demoted);
+				}
+				break;
+			case PROTECTED:
+				protect.moveToLast(node);
+				break;
+		}
+	}
+
+	/**
+	 * Moves entries overflowing the window to the main space and evicts entries while cache is over its maximum weight.
+	 */
+	private void evict()
+	{
+		while(windowWeight > windowMaximum)
+		{
+			Node<K, V> candidate = window.first();
+			window.remove(candidate);
+			windowWeight -= candidate.weight;
+			candidate.queue = NONE;
+			admit(candidate);
+		}
+
+		while(windowWeight + mainWeight > maximumWeight)
+		{
+			Node<K, V> victim = mainVictim();
+			if(victim == null)
+				victim = window.first();
+			evict(victim);
+		}
+	}
+
+	/**
+	 * Admits candidate from the window to the probation queue if it was used more often than entries that have to be
+	 * evicted to make room for it, otherwise candidate is evicted.
+	 */
+	private void admit(Node<K, V> candidate)
+	{
+		while(mainWeight + candidate.weight > mainMaximum)
+		{
+			Node<K, V> victim = mainVictim();
+			if(victim == null)
+				break;
+
+			if(sketch.frequency(candidate.key) > sketch.frequency(victim.key))
+				evict(victim);
+			else
+			{
+				evict(candidate);
+				return;
+			}
+		}
+
+		candidate.queue = PROBATION;
+		probation.addLast(candidate);
+		mainWeight += candidate.weight;
+	}
+
+	/**
+	 * @return least recently used entry of main space, probation queue goes first
+	 */
+	private Node<K, V> mainVictim()
+	{
+		Node<K, V> victim = probation.first();
+		return victim != null ? victim : protect.first();
+	}
+
+	private void evict(Node<K, V> node)
+	{
+		data.remove(node.key);
+		unlink(node);
+		evictions++;
+
+		if(log.isDebugEnabled())
+			log.debug(cacheName + " : evicted " + valueName + " for key: " + node.key);
+	}
+
+	private void expire(Node<K, V> node)
+	{
+		data.remove(node.key);
+		unlink(node);
+		expirations++;
+
+		if(log.isDebugEnabled())
+			log.debug(cacheName + " : expired " + valueName + " for key: " + node.key);
+	}
+
+	/**
+	 * Removes entry from its queue.
+	 */
+	private void unlink(Node<K, V> node)
+	{
+		switch(node.queue)
+		{
+			case WINDOW:
+				window.remove(node);
+				windowWeight -= node.weight;
+				break;
+			case PROBATION:
+				probation.remove(node);
+				mainWeight -= node.weight;
+				break;
+			case PROTECTED:
+				protect.remove(node);
+				mainWeight -= node.weight;
+				protectedWeight -= node.weight;
+				break;
+		}
+		node.queue = NONE;
+	}
+
+	private boolean isExpired(Node<K, V> node, long now)
+	{
+		return expireNanos > 0 && now - node.writeTime >= expireNanos;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String getCacheName()
+	{
+		return name;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized int getSize()
+	{
+		return data.size();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized long getWeight()
+	{
+		return windowWeight + mainWeight;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getMaximumWeight()
+	{
+		return maximumWeight;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized double getHitRatio()
+	{
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized long getEvictionCount()
+	{
+		return evictions;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized long getExpirationCount()
+	{
+		return expirations;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void resetStatistics()
+	{
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+		expirations = 0;
+	}
+
+	/**
+	 * Cache entry, it's also a node of doubly linked queue.
+	 */
+	private static final class Node<K, V>
+	{
+		private final K		key;
+		private final V		value;
+		private final int	weight;
+		private final long	writeTime;
+
+		private byte		queue;
+		private Node<K, V>	prev;
+		private Node<K, V>	next;
+
+		Node(K key, V value, int weight, long writeTime)
+		{
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.writeTime = writeTime;
+		}
+	}
+
+	/**
+	 * Access ordered queue of entries, first entry is the least recently used one.
+	 */
+	private static final class NodeQueue<K, V>
+	{
+		private Node<K, V>	first;
+		private Node<K, V>	last;
+
+		Node<K, V> first()
+		{
+			return first;
+		}
+
+		void addLast(Node<K, V> node)
+		{
+			node.prev = last;
+			node.next = null;
+			if(last == null)
+				first = node;
+			else
+				last.next = node;
+			last = node;
+		}
+
+		void remove(Node<K, V> node)
+		{
+			if(node.prev == null)
+				first = node.next;
+			else
+				node.prev.next = node.next;
+			if(node.next == null)
+				last = node.prev;
+			else
+				node.next.prev = node.prev;
+			node.prev = null;
+			node.next = null;
+		}
+
+		void moveToLast(Node<K, V> node)
+		{
+			if(node != last)
+			{
+				remove(node);
+				addLast(node);
+			}
+		}
+	}
+
+	/**
+	 * Count-min sketch with four 4-bit counters per key. When number of increments reaches ten times size of the
+	 * table, all counters are halved.
+	 */
+	private static final class FrequencySketch
+	{
+		private static final long[]	SEEDS		= { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+			0xcbf29ce484222325L				};
+		private static final long	RESET_MASK	= 0x7777777777777777L;
+
+		private final long[]		table;
+		private final int			sampleSize;
+		private int					size;
+
+		FrequencySketch(long maximumSize)
+		{
+			int length = Integer.highestOneBit((int) Math.max(16, Math.min(maximumSize, 1 << 20)) - 1) << 1;
+			table = new long[length];
+			sampleSize = length * 10;
+		}
+
+		int frequency(Object key)
+		{
+			int hash = spread(key.hashCode());
+			int start = (hash & 3) << 2;
+			int frequency = Integer.MAX_VALUE;
+			for(int i = 0; i < 4; i++)
+			{
+				int index = indexOf(hash, i);
+				int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+				frequency = Math.min(frequency, count);
+			}
+			return frequency;
+		}
+
+		void increment(Object key)
+		{
+			int hash = spread(key.hashCode());
+			int start = (hash & 3) << 2;
+			boolean added = false;
+			for(int i = 0; i < 4; i++)
+				added |= incrementAt(indexOf(hash, i), start + i);
+
+			if(added && ++size == sampleSize)
+				reset();
+		}
+
+		private boolean incrementAt(int index, int counter)
+		{
+			int offset = counter << 2;
+			long mask = 0xfL << offset;
+			if((table[index] & mask) != mask)
+			{
+				table[index] += 1L << offset;
+				return true;
+			}
+			return false;
+		}
+
+		private void reset()
+		{
+			for(int i = 0; i < table.length; i++)
+				table[i] = (table[i] >>> 1) & RESET_MASK;
+			size /= 2;
+		}
+
+		private int indexOf(int hash, int i)
+		{
+			long h = (hash + SEEDS[i]) * SEEDS[i];
+			h += h >>> 32;
+			return (int) h & (table.length - 1);
+		}
+
+		private static int spread(int h)
+		{
+			h = ((h >>> 16) ^ h) * 0x45d9f3b;
+			h = ((h >>> 16) ^ h) * 0x45d9f3b;
+			return (h >>> 16) ^ h;
+		}
+	}
+}
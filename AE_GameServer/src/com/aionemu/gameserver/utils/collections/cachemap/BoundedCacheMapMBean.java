@@ -0,0 +1,75 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.utils.collections.cachemap;
+
+/**
+ * Statistics of {@link BoundedCacheMap} exposed over JMX.
+ * 
+ * @author agent
+ */
+public interface BoundedCacheMapMBean
+{
+	/**
+	 * @return name of the cache
+	 */
+	public String getCacheName();
+
+	/**
+	 * @return number of entries in the cache
+	 */
+	public int getSize();
+
+	/**
+	 * @return sum of weights of entries in the cache
+	 */
+	public long getWeight();
+
+	/**
+	 * @return maximum sum of weights of entries in the cache
+	 */
+	public long getMaximumWeight();
+
+	/**
+	 * @return number of lookups that found a value
+	 */
+	public long getHitCount();
+
+	/**
+	 * @return number of lookups that didn't find a value
+	 */
+	public long getMissCount();
+
+	/**
+	 * @return hits / lookups, 0 if there was no lookup
+	 */
+	public double getHitRatio();
+
+	/**
+	 * @return number of entries evicted because cache was full
+	 */
+	public long getEvictionCount();
+
+	/**
+	 * @return number of entries removed because they expired
+	 */
+	public long getExpirationCount();
+
+	/**
+	 * Resets all counters.
+	 */
+	public void resetStatistics();
+}
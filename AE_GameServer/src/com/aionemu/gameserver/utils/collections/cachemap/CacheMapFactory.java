@@ -16,6 +16,13 @@
  */
 package com.aionemu.gameserver.utils.collections.cachemap;
 
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.log4j.Logger;
+
 import com.aionemu.gameserver.configs.CacheConfig;
 
 /**
@@ -24,10 +31,12 @@ import com.aionemu.gameserver.configs.CacheConfig;
  */
 public class CacheMapFactory
 {
+	private static final Logger	log	= Logger.getLogger(CacheMapFactory.class);
 
 	/**
-	 * Returns new instance of either {@link WeakCacheMap} or {@link SoftCacheMap} depending on
-	 * {@link CacheConfig#SOFT_CACHE_MAP} setting.
+	 * Returns new instance of {@link BoundedCacheMap} if cache is listed in {@link CacheConfig#BOUNDED_CACHES},
+	 * otherwise of either {@link WeakCacheMap} or {@link SoftCacheMap} depending on {@link CacheConfig#SOFT_CACHE_MAP}
+	 * setting.
 	 * 
 	 * @param <K> - Type of keys
 	 * @param <V> - Type of values
@@ -38,12 +47,78 @@ public class CacheMapFactory
 	 */
 	public static <K, V> CacheMap<K, V> createCacheMap(String cacheName, String valueName)
 	{
-		if(CacheConfig.SOFT_CACHE_MAP)
+		return createCacheMap(cacheName, valueName, CacheConfig.SOFT_CACHE_MAP);
+	}
+
+	/**
+	 * Returns new instance of {@link BoundedCacheMap} if cache is listed in {@link CacheConfig#BOUNDED_CACHES},
+	 * otherwise of either {@link SoftCacheMap} or {@link WeakCacheMap}.
+	 * 
+	 * @param <K> - Type of keys
+	 * @param <V> - Type of values
+	 * 
+	 * @param cacheName - The name for this cache map
+	 * @param valueName - Mnemonic name for values stored in the cache
+	 * @param soft - Whether not bounded cache uses soft references
+	 * @return
+	 */
+	public static <K, V> CacheMap<K, V> createCacheMap(String cacheName, String valueName, boolean soft)
+	{
+		for(String cache : CacheConfig.BOUNDED_CACHES.split(","))
+		{
+			String[] settings = cache.trim().split(":");
+			if(!settings[0].equals(cacheName))
+				continue;
+
+			try
+			{
+				long maxSize = Long.parseLong(settings[1]);
+				long expireMillis = settings.length > 2 ? Long.parseLong(settings[2]) * 1000 : 0;
+				return createBoundedCacheMap(cacheName, valueName, maxSize, null, expireMillis);
+			}
+			catch(RuntimeException e)
+			{
+				log.error("Wrong settings of bounded cache: " + cache, e);
+			}
+		}
+
+		if(soft)
 			return createSoftCacheMap(cacheName, valueName);
 		else
 			return createWeakCacheMap(cacheName, valueName);
 	}
 
+	/**
+	 * Creates and returns an instance of {@link BoundedCacheMap}, its statistics are registered as MBean
+	 * GameServer:type=CacheMap,name=cacheName
+	 * 
+	 * @param <K> - Type of keys
+	 * @param <V> - Type of values
+	 * 
+	 * @param cacheName - The name for this cache map
+	 * @param valueName - Mnemonic name for values stored in the cache
+	 * @param maxWeight - Maximum sum of weights of entries
+	 * @param weigher - Weigher of entries, if null every entry weights 1
+	 * @param expireMillis - Time after put when entries expire, 0 - entries don't expire
+	 * @return
+	 */
+	public static <K, V> CacheMap<K, V> createBoundedCacheMap(String cacheName, String valueName, long maxWeight,
+		CacheWeigher<K, V> weigher, long expireMillis)
+	{
+		BoundedCacheMap<K, V> map = new BoundedCacheMap<K, V>(cacheName, valueName, maxWeight, weigher, expireMillis);
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(
+				new StandardMBean(map, BoundedCacheMapMBean.class),
+				new ObjectName("GameServer:type=CacheMap,name=" + cacheName));
+		}
+		catch(Exception e)
+		{
+			log.warn("Can't register statistics of cache " + cacheName + ": " + e);
+		}
+		return map;
+	}
+
 	/**
 	 * Creates and returns an instance of {@link SoftCacheMap}
 	 * 
@@ -0,0 +1,37 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.utils.collections.cachemap;
+
+/**
+ * Calculates weight of cache entries, sum of weights of all entries in {@link BoundedCacheMap} is bounded.
+ * 
+ * @author agent
+ * 
+ * @param <K>
+ * @param <V>
+ */
+public interface CacheWeigher<K, V>
+{
+	/**
+	 * Returns weight of given entry, it must not change while entry is in the cache.
+	 * 
+	 * @param key
+	 * @param value
+	 * @return weight, not negative
+	 */
+	public int weigh(K key, V value);
+}
@@ -16,34 +16,86 @@
  */
 package com.aionemu.gameserver.utils.idfactory;
 
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class is responsible for id generation for all Aion-Emu objects.<br>
  * This class is Thread-Safe.<br>
- * This class is designed to be very strict with id usage. Any illegal operation will throw {@link IDFactoryError}
+ * This class is designed to be very strict with id usage. Any illegal operation will throw {@link IDFactoryError}<br>
+ * <br>
+ * Every thread takes contiguous blocks of ids and hands them out without any synchronization. Released ids are kept
+ * by releasing thread and reused by it, when there are too many of them a batch is given to lock-free free-list from
+ * which other threads take ids. Lock is taken only to reserve next block of ids or to lock ids. Ids left by threads
+ * that died [ex. packet threads stopped when load drops] are given to free-list when next block is reserved.
  * 
  * @author SoulKeeper
  */
 public class IDFactory
 {
+	/**
+	 * Number of ids reserved for one thread at once
+	 */
+	private static final int					BLOCK_SIZE	= 256;
+
+	/**
+	 * Number of released ids that are given to free-list at once
+	 */
+	private static final int					BATCH_SIZE	= 64;
 
 	/**
-	 * Bitset that is used for all id's.<br>
+	 * Number of bits in one page of used ids
+	 */
+	private static final int					PAGE_BITS	= 16;
+
+	/**
+	 * Bitset of ids that are locked, handed out or reserved in blocks and free-list.<br>
 	 * We are allowing BitSet to grow over time, so in the end it can be as big as {@link Integer#MAX_VALUE}
 	 */
-	private final BitSet		idList		= new BitSet();
+	private final BitSet						idList		= new BitSet();
 
 	/**
 	 * Synchronization of bitset
 	 */
-	private final ReentrantLock	lock		= new ReentrantLock();
+	private final ReentrantLock					lock		= new ReentrantLock();
 
 	/**
-	 * Id that will be used as minimal on next id request
+	 * Start of next block of ids, it only grows - released ids are reused through free-list
 	 */
-	private int					nextMinId	= 0;
+	private int									nextBlockStart	= 0;
+
+	/**
+	 * Ids that are used right now, pages are created when they are needed
+	 */
+	private final AtomicReferenceArray<AtomicLongArray>	usedIds	= new AtomicReferenceArray<AtomicLongArray>(
+																	1 << (31 - PAGE_BITS));
+
+	/**
+	 * Top of free-list - stack of batches of released ids
+	 */
+	private final AtomicReference<FreeBatch>	freeList	= new AtomicReference<FreeBatch>();
+
+	/**
+	 * Ids owned by current thread
+	 */
+	private final ThreadLocal<LocalIds>			localIds	= new ThreadLocal<LocalIds>(){
+																@Override
+																protected LocalIds initialValue()
+																{
+																	return register();
+																}
+															};
+
+	/**
+	 * Ids of all threads that used this factory, guarded by lock. Ids of dead threads are reclaimed from here.
+	 */
+	private final List<LocalIds>				allLocalIds	= new ArrayList<LocalIds>();
 
 	/**
 	 * Returns next free id.
@@ -54,38 +106,32 @@ public class IDFactory
 	 */
 	public int nextId()
 	{
-		try
-		{
-			lock.lock();
-
-			int id;
-			if(nextMinId == Integer.MIN_VALUE)
-			{
-				// Error will be thrown few lines later, we have no more free id's.
-				// BitSet will throw IllegalArgumentException if nextMinId is negative
-				id = Integer.MIN_VALUE;
-			}
-			else
-			{
-				id = idList.nextClearBit(nextMinId);
-			}
+		LocalIds local = localIds.get();
 
-			// If BitSet reached Integer.MAX_VALUE size and returned last free id before - it will return
-			// Intger.MIN_VALUE as the next id, so we must catch such case and throw error (no free id's left)
-			if(id == Integer.MIN_VALUE)
+		int id;
+		if(local.freeCount > 0)
+		{
+			id = local.free[--local.freeCount];
+		}
+		else
+		{
+			if(local.blockNext == local.blockEnd && !takeFreeBatch(local) && !reserveBlock(local)
+				&& !takeFreeBatch(local))
 			{
 				throw new IDFactoryError("All id's are used, please clear your database");
 			}
-			idList.set(id);
 
-			// It ok to have Integer OverFlow here, on next ID request IDFactory will throw error
-			nextMinId = id + 1;
-			return id;
+			if(local.freeCount > 0)
+				id = local.free[--local.freeCount];
+			else
+				id = local.blockNext++;
 		}
-		finally
+
+		if(!setUsed(id))
 		{
-			lock.unlock();
+			throw new IDFactoryError("ID " + id + " is already taken, fatal error!!!");
 		}
+		return id;
 	}
 
 	/**
@@ -103,12 +149,7 @@ public class IDFactory
 			lock.lock();
 			for(int id : ids)
 			{
-				boolean status = idList.get(id);
-				if(status)
-				{
-					throw new IDFactoryError("ID " + id + " is already taken, fatal error!!!");
-				}
-				idList.set(id);
+				lockId(id);
 			}
 		}
 		finally
@@ -132,12 +173,7 @@ public class IDFactory
 			lock.lock();
 			for(int id : ids)
 			{
-				boolean status = idList.get(id);
-				if(status)
-				{
-					throw new IDFactoryError("ID " + id + " is already taken, fatal error!!!");
-				}
-				idList.set(id);
+				lockId(id);
 			}
 		}
 		finally
@@ -146,6 +182,22 @@ public class IDFactory
 		}
 	}
 
+	/**
+	 * Locks one id, lock must be held.<br>
+	 * Id that was handed out and released is kept in free-list, so it can't be locked.
+	 */
+	private void lockId(int id)
+	{
+		checkId(id);
+		boolean status = idList.get(id);
+		if(status)
+		{
+			throw new IDFactoryError("ID " + id + " is already taken, fatal error!!!");
+		}
+		idList.set(id);
+		setUsed(id);
+	}
+
 	/**
 	 * Releases given id
 	 * 
@@ -155,20 +207,97 @@ public class IDFactory
 	 *             if id was not taken earlier
 	 */
 	public void releaseId(int id)
+	{
+		checkId(id);
+		if(!clearUsed(id))
+		{
+			throw new IDFactoryError("ID " + id + " is not taken, can't release it.");
+		}
+
+		LocalIds local = localIds.get();
+		if(local.freeCount == local.free.length)
+		{
+			/* oldest half of released ids goes to other threads */
+			int[] batch = new int[BATCH_SIZE];
+			System.arraycopy(local.free, 0, batch, 0, BATCH_SIZE);
+			System.arraycopy(local.free, BATCH_SIZE, local.free, 0, local.freeCount - BATCH_SIZE);
+			local.freeCount -= BATCH_SIZE;
+
+			pushFreeBatch(new FreeBatch(batch));
+		}
+		local.free[local.freeCount++] = id;
+	}
+
+	/**
+	 * Returns amount of used ids
+	 * 
+	 * @return amount of used ids
+	 */
+	public int getUsedCount()
+	{
+		int count = 0;
+		for(int i = 0; i < usedIds.length(); i++)
+		{
+			AtomicLongArray page = usedIds.get(i);
+			if(page == null)
+				continue;
+			for(int j = 0; j < page.length(); j++)
+				count += Long.bitCount(page.get(j));
+		}
+		return count;
+	}
+
+	/**
+	 * Takes batch of released ids from free-list.
+	 * 
+	 * @return true if some ids were taken
+	 */
+	private boolean takeFreeBatch(LocalIds local)
+	{
+		FreeBatch free;
+		do
+		{
+			free = freeList.get();
+			if(free == null)
+				return false;
+		}
+		while(!freeList.compareAndSet(free, free.next));
+
+		System.arraycopy(free.ids, 0, local.free, 0, free.ids.length);
+		local.freeCount = free.ids.length;
+		return true;
+	}
+
+	/**
+	 * Reserves next block of ids for current thread. Block ends before first locked id. If ids of dead threads were
+	 * reclaimed, batch of them is taken instead.
+	 * 
+	 * @return true if block or batch was taken, false if there are no more ids
+	 */
+	private boolean reserveBlock(LocalIds local)
 	{
 		try
 		{
 			lock.lock();
-			boolean status = idList.get(id);
-			if(!status)
-			{
-				throw new IDFactoryError("ID " + id + " is not taken, can't release it.");
-			}
-			idList.clear(id);
-			if(id < nextMinId || nextMinId == Integer.MIN_VALUE)
-			{
-				nextMinId = id;
-			}
+
+			if(reclaimDeadThreads() && takeFreeBatch(local))
+				return true;
+
+			int start = idList.nextClearBit(nextBlockStart);
+			// If BitSet reached Integer.MAX_VALUE size it returns negative value
+			if(start < 0 || start == Integer.MAX_VALUE)
+				return false;
+
+			int end = (int) Math.min((long) start + BLOCK_SIZE, Integer.MAX_VALUE);
+			int locked = idList.nextSetBit(start);
+			if(locked >= 0 && locked < end)
+				end = locked;
+
+			idList.set(start, end);
+			nextBlockStart = end;
+			local.blockNext = start;
+			local.blockEnd = end;
+			return true;
 		}
 		finally
 		{
@@ -177,20 +306,167 @@ public class IDFactory
 	}
 
 	/**
-	 * Returns amount of used ids
+	 * Creates ids of current thread and remembers them, so they can be reclaimed when thread dies.
 	 * 
-	 * @return amount of used ids
+	 * @return ids of current thread
 	 */
-	public int getUsedCount()
+	private LocalIds register()
 	{
+		LocalIds local = new LocalIds(Thread.currentThread());
 		try
 		{
 			lock.lock();
-			return idList.cardinality();
+			allLocalIds.add(local);
 		}
 		finally
 		{
 			lock.unlock();
 		}
+		return local;
+	}
+
+	/**
+	 * Gives rest of reserved block and released ids of every dead thread to free-list, lock must be held.
+	 * 
+	 * @return true if any ids were reclaimed
+	 */
+	private boolean reclaimDeadThreads()
+	{
+		boolean reclaimed = false;
+		Iterator<LocalIds> it = allLocalIds.iterator();
+		while(it.hasNext())
+		{
+			LocalIds local = it.next();
+			/* thread termination happens-before isAlive() returns false, its ids are not changed anymore */
+			if(local.owner.isAlive())
+				continue;
+			it.remove();
+
+			int count = local.freeCount + local.blockEnd - local.blockNext;
+			if(count == 0)
+				continue;
+
+			int[] ids = new int[count];
+			System.arraycopy(local.free, 0, ids, 0, local.freeCount);
+			for(int i = local.freeCount; i < count; i++)
+				ids[i] = local.blockNext++;
+
+			for(int from = 0; from < count; from += BATCH_SIZE)
+			{
+				int[] batch = new int[Math.min(BATCH_SIZE, count - from)];
+				System.arraycopy(ids, from, batch, 0, batch.length);
+				pushFreeBatch(new FreeBatch(batch));
+			}
+			reclaimed = true;
+		}
+		return reclaimed;
+	}
+
+	/**
+	 * Gives batch of ids to free-list.
+	 * 
+	 * @param free
+	 */
+	private void pushFreeBatch(FreeBatch free)
+	{
+		do
+		{
+			free.next = freeList.get();
+		}
+		while(!freeList.compareAndSet(free.next, free));
+	}
+
+	/**
+	 * Marks id as used.
+	 * 
+	 * @return false if id was used already
+	 */
+	private boolean setUsed(int id)
+	{
+		AtomicLongArray page = usedIds.get(id >>> PAGE_BITS);
+		if(page == null)
+		{
+			usedIds.compareAndSet(id >>> PAGE_BITS, null, new AtomicLongArray(1 << (PAGE_BITS - 6)));
+			page = usedIds.get(id >>> PAGE_BITS);
+		}
+
+		int index = (id & ((1 << PAGE_BITS) - 1)) >>> 6;
+		long bit = 1L << id;
+		long value;
+		do
+		{
+			value = page.get(index);
+			if((value & bit) != 0)
+				return false;
+		}
+		while(!page.compareAndSet(index, value, value | bit));
+		return true;
+	}
+
+	/**
+	 * Marks id as not used.
+	 * 
+	 * @return false if id was not used
+	 */
+	private boolean clearUsed(int id)
+	{
+		AtomicLongArray page = usedIds.get(id >>> PAGE_BITS);
+		if(page == null)
+			return false;
+
+		int index = (id & ((1 << PAGE_BITS) - 1)) >>> 6;
+		long bit = 1L << id;
+		long value;
+		do
+		{
+			value = page.get(index);
+			if((value & bit) == 0)
+				return false;
+		}
+		while(!page.compareAndSet(index, value, value & ~bit));
+		return true;
+	}
+
+	private static void checkId(int id)
+	{
+		if(id < 0)
+		{
+			throw new IDFactoryError("ID " + id + " is negative");
+		}
+	}
+
+	/**
+	 * Ids owned by one thread, accessed only by that thread while it is alive.
+	 */
+	private static final class LocalIds
+	{
+		/** Thread owning these ids */
+		private final Thread	owner;
+		/** Next id of reserved block */
+		private int			blockNext;
+		/** End of reserved block, exclusive */
+		private int			blockEnd;
+		/** Released ids, last one is reused first */
+		private final int[]	free	= new int[BATCH_SIZE * 2];
+		private int			freeCount;
+
+		LocalIds(Thread owner)
+		{
+			this.owner = owner;
+		}
+	}
+
+	/**
+	 * Batch of released ids in free-list.
+	 */
+	private static final class FreeBatch
+	{
+		private final int[]	ids;
+		private FreeBatch	next;
+
+		FreeBatch(int[] ids)
+		{
+			this.ids = ids;
+		}
 	}
 }
@@ -16,16 +16,21 @@
  */
 package com.aionemu.gameserver.world;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.aionemu.gameserver.configs.Config;
 import com.aionemu.gameserver.model.gameobjects.AionObject;
 import com.aionemu.gameserver.model.gameobjects.VisibleObject;
 import com.aionemu.gameserver.utils.MathUtil;
 
 /**
- * KnownList.
+ * KnownList. Updates are incremental: KnownList is not updated until owner moved at least
+ * {@link Config#KNOWNLIST_UPDATE_DISTANCE} since last update and only grid cells that were not fully covered by
+ * previous scan are rescanned. Owner see/notSee notifications are collected during update and sent in one batch.
  * 
  * @author -Nemesiss-
  * 
@@ -44,6 +49,30 @@ public class KnownList implements Iterable<VisibleObject>
 	 * List of objects that this KnownList owner known
 	 */
 	private final Map<Integer, VisibleObject>	knownObjects		= new ConcurrentHashMap<Integer, VisibleObject>();
+	/**
+	 * Visitor used by findVisibleObjects - reused, so grid range query doesn't allocate.
+	 */
+	private final VisibleObjectVisitor			visibleFinder		= new VisibleFinder();
+	/**
+	 * Objects that owner started to see during current update.
+	 */
+	private final List<VisibleObject>			seen				= new ArrayList<VisibleObject>();
+	/**
+	 * Objects that owner stopped to see during current update.
+	 */
+	private final List<VisibleObject>			forgotten			= new ArrayList<VisibleObject>();
+	/**
+	 * True if KnownList was updated since owner was spawned.
+	 */
+	private boolean								scanned;
+	/**
+	 * Owner x coordinate at last update.
+	 */
+	private float								lastX;
+	/**
+	 * Owner y coordinate at last update.
+	 */
+	private float								lastY;
 
 	/**
 	 * COnstructor.
@@ -56,12 +85,33 @@ public class KnownList implements Iterable<VisibleObject>
 	}
 
 	/**
-	 * Do KnownList update.
+	 * Do KnownList update. Update is skipped if owner is not spawned or didn't move far enough since last update.
 	 */
-	public void doUpdate()
+	public synchronized void doUpdate()
 	{
+		if(!owner.isSpawned())
+			return;
+
+		float x = owner.getX();
+		float y = owner.getY();
+		float minDistance = Config.KNOWNLIST_UPDATE_DISTANCE;
+
+		if(scanned)
+		{
+			float dx = x - lastX;
+			float dy = y - lastY;
+			if(dx * dx + dy * dy < minDistance * minDistance)
+				return;
+		}
+
 		forgetObjects();
-		findVisibleObjects();
+		findVisibleObjects(x, y, minDistance);
+
+		scanned = true;
+		lastX = x;
+		lastY = y;
+
+		notifyOwner();
 	}
 
 	/**
@@ -69,6 +119,11 @@ public class KnownList implements Iterable<VisibleObject>
 	 */
 	public void clear()
 	{
+		synchronized(this)
+		{
+			scanned = false;
+		}
+
 		Iterator<VisibleObject> knownIt = iterator();
 		while(knownIt.hasNext())
 		{
@@ -141,41 +196,69 @@ public class KnownList implements Iterable<VisibleObject>
 			if(!MathUtil.isInRange(owner, obj, visibilityDistance))
 			{
 				knownIt.remove();
-				owner.getController().notSee(obj);
+				forgotten.add(obj);
 				obj.getKnownList().del(owner);
 			}
 		}
 	}
 
 	/**
-	 * Find objects that are in visibility range.
+	 * Find objects that are in visibility range. Cells that were entirely in range at previous update are skipped -
+	 * objects on them are already known [they were found by this or by their own update]. Previous range is reduced by
+	 * update distance of both sides, as objects may move that far without updating.
+	 * 
+	 * @param x
+	 * @param y
+	 * @param minDistance
 	 */
-	private void findVisibleObjects()
+	private void findVisibleObjects(float x, float y, float minDistance)
 	{
-		Iterator<MapRegion> neighboursIt = owner.getActiveRegion().getNeighboursIterator();
-		while(neighboursIt.hasNext())
+		WorldMapInstance instance = owner.getActiveRegion().getParent();
+		if(scanned)
+			instance.forEachInRange(x, y, visibilityDistance, lastX, lastY, visibilityDistance - 2 * minDistance,
+				visibleFinder);
+		else
+			instance.forEachInRange(x, y, visibilityDistance, visibleFinder);
+	}
+
+	/**
+	 * Send collected see/notSee notifications to owner controller.
+	 */
+	private void notifyOwner()
+	{
+		for(int i = 0, n = forgotten.size(); i < n; i++)
+			owner.getController().notSee(forgotten.get(i));
+		for(int i = 0, n = seen.size(); i < n; i++)
+			owner.getController().see(seen.get(i));
+
+		forgotten.clear();
+		seen.clear();
+	}
+
+	/**
+	 * Adds every visited object [except owner] to this KnownList and owner to KnownList of visited object.
+	 */
+	private class VisibleFinder implements VisibleObjectVisitor
+	{
+		@Override
+		public void visit(VisibleObject newObject)
 		{
-			MapRegion r = neighboursIt.next();
-			Iterator<VisibleObject> objectsIt = r.getObjectsIterator();
+			if(newObject == owner || !newObject.isSpawned())
+				return;
+
+			/**
+			 * Most of visited objects are already known - check it first, so we don't write to map.
+			 */
+			if(knownObjects.containsKey(newObject.getObjectId()))
+				return;
 
-			while(objectsIt.hasNext())
+			/**
+			 * New object is not known.
+			 */
+			if(knownObjects.put(newObject.getObjectId(), newObject) == null)
 			{
-				VisibleObject newObject = objectsIt.next();
-
-				if(newObject == owner)
-					continue;
-
-				if(!MathUtil.isInRange(owner, newObject, visibilityDistance))
-					continue;
-
-				/**
-				 * New object is not known.
-				 */
-				if(knownObjects.put(newObject.getObjectId(), newObject) == null)
-				{
-					newObject.getKnownList().add(owner);
-					owner.getController().see(newObject);
-				}
+				newObject.getKnownList().add(owner);
+				seen.add(newObject);
 			}
 		}
 	}
@@ -16,16 +16,14 @@
  */
 package com.aionemu.gameserver.world;
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Set;
 
 import com.aionemu.gameserver.model.gameobjects.VisibleObject;
 
 /**
- * Just some part of map.
+ * Just some part of map - one cell of WorldMapInstance grid. Objects are kept in copy-on-write array, so iterating over
+ * them is done on stable snapshot and doesn't need any synchronization.
  * 
  * @author -Nemesiss-
  * 
@@ -33,21 +31,21 @@ import com.aionemu.gameserver.model.gameobjects.VisibleObject;
 public class MapRegion
 {
 	/**
-	 * Region id of this map region [NOT WORLD ID!]
+	 * Shared empty objects array.
 	 */
-	private final int					regionId;
+	private static final VisibleObject[]	EMPTY		= new VisibleObject[0];
 	/**
-	 * WorldMapInstance witch is parent of this map region.
+	 * Region id of this map region [NOT WORLD ID!] - index of grid cell.
 	 */
-	private final WorldMapInstance		parent;
+	private final int						regionId;
 	/**
-	 * Surrounding regions + self.
+	 * WorldMapInstance witch is parent of this map region.
 	 */
-	private final List<MapRegion>		neighbours	= new ArrayList<MapRegion>(9);
+	private final WorldMapInstance			parent;
 	/**
-	 * Objects on this map region.
+	 * Objects on this map region. Array is never modified, it's replaced by new one on every change.
 	 */
-	private final Set<VisibleObject>	objects		= new HashSet<VisibleObject>();
+	private volatile VisibleObject[]		objects		= EMPTY;
 
 	/**
 	 * Constructor.
@@ -59,7 +57,6 @@ public class MapRegion
 	{
 		this.regionId = id;
 		this.parent = parent;
-		this.neighbours.add(this);
 	}
 
 	/**
@@ -98,33 +95,23 @@ public class MapRegion
 	}
 
 	/**
-	 * Returns iterator over neighbours regions
-	 * 
-	 * @return neighbours iterator
-	 */
-	public Iterator<MapRegion> getNeighboursIterator()
-	{
-		return neighbours.iterator();
-	}
-
-	/**
-	 * Returns iterator over AionObjects on this region
+	 * Returns iterator over snapshot of AionObjects on this region
 	 * 
 	 * @return objects iterator
 	 */
 	public Iterator<VisibleObject> getObjectsIterator()
 	{
-		return objects.iterator();
+		return Arrays.asList(objects).iterator();
 	}
 
 	/**
-	 * Add neighbour region to this region neighbours list.
+	 * Returns snapshot of objects on this region. Returned array must not be modified.
 	 * 
-	 * @param neighbour
+	 * @return objects
 	 */
-	void addNeighbourRegion(MapRegion neighbour)
+	VisibleObject[] getObjects()
 	{
-		neighbours.add(neighbour);
+		return objects;
 	}
 
 	/**
@@ -132,9 +119,18 @@ public class MapRegion
 	 * 
 	 * @param object
 	 */
-	void add(VisibleObject object)
+	synchronized void add(VisibleObject object)
 	{
-		objects.add(object);
+		VisibleObject[] old = objects;
+		for(VisibleObject o : old)
+		{
+			if(o == object)
+				return;
+		}
+
+		VisibleObject[] res = Arrays.copyOf(old, old.length + 1);
+		res[old.length] = object;
+		objects = res;
 	}
 
 	/**
@@ -142,8 +138,25 @@ public class MapRegion
 	 * 
 	 * @param object
 	 */
-	void remove(VisibleObject object)
+	synchronized void remove(VisibleObject object)
 	{
-		objects.remove(object);
+		VisibleObject[] old = objects;
+		for(int i = 0; i < old.length; i++)
+		{
+			if(old[i] != object)
+				continue;
+
+			if(old.length == 1)
+			{
+				objects = EMPTY;
+				return;
+			}
+
+			VisibleObject[] res = new VisibleObject[old.length - 1];
+			System.arraycopy(old, 0, res, 0, i);
+			System.arraycopy(old, i + 1, res, i, old.length - i - 1);
+			objects = res;
+			return;
+		}
 	}
 }
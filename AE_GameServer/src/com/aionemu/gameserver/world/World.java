@@ -24,12 +24,16 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.log4j.Logger;
 
 import com.aionemu.commons.callbacks.Enhancable;
+import com.aionemu.gameserver.configs.Config;
 import com.aionemu.gameserver.dataholders.WorldMapsData;
 import com.aionemu.gameserver.model.gameobjects.AionObject;
 import com.aionemu.gameserver.model.gameobjects.Npc;
 import com.aionemu.gameserver.model.gameobjects.VisibleObject;
 import com.aionemu.gameserver.model.gameobjects.player.Player;
 import com.aionemu.gameserver.model.templates.WorldMapTemplate;
+import com.aionemu.gameserver.network.aion.AionServerPacket;
+import com.aionemu.gameserver.utils.PacketSendUtility;
+import com.aionemu.gameserver.utils.ThreadPoolManager;
 import com.aionemu.gameserver.utils.idfactory.IDFactory;
 import com.aionemu.gameserver.utils.idfactory.IDFactoryAionObject;
 import com.aionemu.gameserver.world.container.PlayerContainer;
@@ -67,6 +71,11 @@ public class World
 	 * World maps supported by server.
 	 */
 	private final Map<Integer, WorldMap>	worldMaps	= new HashMap<Integer, WorldMap>();
+	/**
+	 * State packets of objects waiting for next world tick. Only the last packet queued for an object is sent.
+	 */
+	private final Map<VisibleObject, AionServerPacket>	pendingBroadcasts	=
+		new ConcurrentHashMap<VisibleObject, AionServerPacket>();
 
 	private IDFactory						aionObjectsIDFactory;
 
@@ -172,6 +181,26 @@ public class World
 		return allObjects.get(objectId);
 	}
 
+	/**
+	 * Returns iterator over all World Maps.
+	 * 
+	 * @return World Maps iterator.
+	 */
+	Iterator<WorldMap> getWorldMapsIterator()
+	{
+		return worldMaps.values().iterator();
+	}
+
+	/**
+	 * Starts world tick [if enabled], that will update KnownLists of moved objects.
+	 */
+	public void startUpdater()
+	{
+		int interval = Config.WORLD_TICK_INTERVAL;
+		if(interval > 0)
+			ThreadPoolManager.getInstance().scheduleAtFixedRate(new WorldUpdater(this), interval, interval);
+	}
+
 	/**
 	 * Return World Map by id
 	 * 
@@ -213,7 +242,53 @@ public class World
 			newRegion.add(object);
 			object.getPosition().setMapRegion(newRegion);
 		}
-		object.updateKnownlist();
+
+		/**
+		 * KnownList will be updated by WorldUpdater at next world tick.
+		 */
+		if(Config.WORLD_TICK_INTERVAL > 0)
+			newRegion.getParent().markDirty(object);
+		else
+			object.updateKnownlist();
+	}
+
+	/**
+	 * Broadcast packet describing current state of object [like movement] to players from its KnownList. If world tick
+	 * is enabled packet is sent at next tick after KnownList update and replaces state packet of this object that is
+	 * still waiting for the tick.
+	 * 
+	 * @param object
+	 * @param packet
+	 */
+	public void broadcastState(VisibleObject object, AionServerPacket packet)
+	{
+		if(Config.WORLD_TICK_INTERVAL > 0)
+		{
+			pendingBroadcasts.put(object, packet);
+			object.getActiveRegion().getParent().markDirty(object);
+		}
+		else
+			PacketSendUtility.broadcastPacket(object, packet);
+	}
+
+	/**
+	 * Updates KnownList of object and broadcasts its waiting state packet. Used by world tick. Spawned state is checked
+	 * under KnownList lock that is held also by despawn, so nothing is done for object that was despawned meanwhile.
+	 * 
+	 * @param object
+	 */
+	void updateObject(VisibleObject object)
+	{
+		synchronized(object.getKnownList())
+		{
+			AionServerPacket packet = pendingBroadcasts.remove(object);
+			if(!object.isSpawned())
+				return;
+
+			object.updateKnownlist();
+			if(packet != null)
+				PacketSendUtility.broadcastPacket(object, packet);
+		}
 	}
 
 	/**
@@ -269,7 +344,10 @@ public class World
 		if(object.isSpawned())
 			throw new AlreadySpawnedException();
 
-		object.getPosition().setIsSpawned(true);
+		synchronized(object.getKnownList())
+		{
+			object.getPosition().setIsSpawned(true);
+		}
 		object.getActiveRegion().add(object);
 		object.updateKnownlist();
 	}
@@ -285,7 +363,14 @@ public class World
 	public void despawn(VisibleObject object)
 	{
 		object.getActiveRegion().remove(object);
-		object.getPosition().setIsSpawned(false);
+		/**
+		 * World tick checks spawned state under the same lock, so it won't update KnownList or broadcast after this.
+		 */
+		synchronized(object.getKnownList())
+		{
+			object.getPosition().setIsSpawned(false);
+			pendingBroadcasts.remove(object);
+		}
 		object.clearKnownlist();
 	}
 
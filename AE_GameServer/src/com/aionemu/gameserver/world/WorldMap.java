@@ -17,6 +17,7 @@
 package com.aionemu.gameserver.world;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 import com.aionemu.gameserver.model.templates.WorldMapTemplate;
@@ -70,6 +71,26 @@ public class WorldMap
 		return worldMapTemplate.getMapId();
 	}
 
+	/**
+	 * Returns map size [length of map side]
+	 * 
+	 * @return world size
+	 */
+	public int getWorldSize()
+	{
+		return worldMapTemplate.getWorldSize();
+	}
+
+	/**
+	 * Returns size of spatial grid cell used by instances of this map
+	 * 
+	 * @return cell size
+	 */
+	public int getCellSize()
+	{
+		return worldMapTemplate.getCellSize();
+	}
+
 	/**
 	 * Return a WorldMapInstance - depends on map configuration one map may have twins instances to balance player. This
 	 * method will return WorldMapInstance by server chose.
@@ -110,6 +131,16 @@ public class WorldMap
 		return instances.get(instanceId);
 	}
 
+	/**
+	 * Returns iterator over all instances of this map.
+	 * 
+	 * @return instances iterator
+	 */
+	public Iterator<WorldMapInstance> getInstancesIterator()
+	{
+		return instances.values().iterator();
+	}
+
 	/**
 	 * Returns the World containing this WorldMap.
 	 */
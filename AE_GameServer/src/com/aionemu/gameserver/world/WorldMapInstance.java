@@ -16,15 +16,20 @@
  */
 package com.aionemu.gameserver.world;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.aionemu.gameserver.model.gameobjects.VisibleObject;
 
 /**
- * World map instance object.
+ * World map instance object. Space of instance is divided into flat grid of square cells [MapRegions], cell size is
+ * configured per map in world_maps.xml.
  *
  * @author -Nemesiss-
  *
@@ -32,21 +37,26 @@ import com.aionemu.gameserver.model.gameobjects.VisibleObject;
 public class WorldMapInstance
 {
 	/**
-	 * Size of region
+	 * WorldMap witch is parent of this instance.
 	 */
-	public static final int				regionSize		= 500;
+	private final WorldMap							parent;
 	/**
-	 * Max world size - actually it must be some value bigger than world size. Used only for id generation.
+	 * Size of one grid cell.
 	 */
-	private static final int				maxWorldSize	= 10000;
+	private final int								cellSize;
 	/**
-	 * WorldMap witch is parent of this instance.
+	 * Number of cells in one grid row/column.
+	 */
+	private final int								gridSize;
+	/**
+	 * Grid cells, indexed by [cellX * gridSize + cellY]. Cells are created lazily.
 	 */
-	private final WorldMap					parent;
+	private final AtomicReferenceArray<MapRegion>	regions;
 	/**
-	 * List of active regions.
+	 * Objects that moved since last world tick.
 	 */
-	private final Map<Integer, MapRegion>	regions			= new HashMap<Integer, MapRegion>();
+	private final Set<VisibleObject>				dirtyObjects	= Collections
+																		.newSetFromMap(new ConcurrentHashMap<VisibleObject, Boolean>());
 
 	/**
 	 * Constructor.
@@ -56,6 +66,9 @@ public class WorldMapInstance
 	WorldMapInstance(WorldMap parent)
 	{
 		this.parent = parent;
+		this.cellSize = parent.getCellSize();
+		this.gridSize = (parent.getWorldSize() + cellSize - 1) / cellSize;
+		this.regions = new AtomicReferenceArray<MapRegion>(gridSize * gridSize);
 	}
 
 	/**
@@ -91,7 +104,8 @@ public class WorldMapInstance
 	}
 
 	/**
-	 * Returns MapRegion that contains given x,y coordinates. If the region doesn't exist, it's created.
+	 * Returns MapRegion that contains given x,y coordinates. If the region doesn't exist, it's created. Coordinates
+	 * outside of the grid belong to the nearest border cell.
 	 *
 	 * @param x
 	 * @param y
@@ -99,65 +113,157 @@ public class WorldMapInstance
 	 */
 	MapRegion getRegion(float x, float y)
 	{
-		int regionId = getRegionId(x, y);
+		int regionId = toCell(x) * gridSize + toCell(y);
 		MapRegion region = regions.get(regionId);
 		if(region == null)
 		{
-			synchronized(this)
-			{
-				region = regions.get(regionId);
-				if(region == null)
-				{
-					region = createMapRegion(regionId);
-				}
-			}
+			regions.compareAndSet(regionId, null, new MapRegion(regionId, this));
+			region = regions.get(regionId);
 		}
 		return region;
 	}
 
 	/**
-	 * Calculate region id from cords.
+	 * Calls visitor for every object that is in range of given point [2D distance lower than range]. Only cells
+	 * overlapping the range are visited, iteration is done on snapshots of cell contents.
 	 *
 	 * @param x
 	 * @param y
-	 * @return region id.
+	 * @param range
+	 * @param visitor
 	 */
-	private int getRegionId(float x, float y)
+	public void forEachInRange(float x, float y, float range, VisibleObjectVisitor visitor)
 	{
-		return ((int) x) / regionSize * maxWorldSize + ((int) y) / regionSize;
+		forEachInRange(x, y, range, x, y, 0, visitor);
 	}
 
 	/**
-	 * Create new MapRegion and add link to neighbours.
+	 * Calls visitor for every object that is in range of given point, skipping cells that are entirely inside of
+	 * excluded circle. Used for incremental scans - excluded circle is the area that was already scanned.
 	 *
-	 * @param regionId
-	 * @return newly created map region
+	 * @param x
+	 * @param y
+	 * @param range
+	 * @param excludedX
+	 * @param excludedY
+	 * @param excludedRange
+	 * @param visitor
 	 */
-	private MapRegion createMapRegion(int regionId)
+	public void forEachInRange(float x, float y, float range, float excludedX, float excludedY, float excludedRange,
+		VisibleObjectVisitor visitor)
 	{
-		MapRegion r = new MapRegion(regionId, this);
-		regions.put(regionId, r);
+		int minX = toCell(x - range);
+		int maxX = toCell(x + range);
+		int minY = toCell(y - range);
+		int maxY = toCell(y + range);
+		float rangeSq = range * range;
 
-		int rx = regionId / maxWorldSize;
-		int ry = regionId % maxWorldSize;
-
-		for(int x = rx - 1; x <= rx + 1; x++)
+		for(int cx = minX; cx <= maxX; cx++)
 		{
-			for(int y = ry - 1; y <= ry + 1; y++)
+			for(int cy = minY; cy <= maxY; cy++)
 			{
-				if(x == rx && y == ry)
+				MapRegion region = regions.get(cx * gridSize + cy);
+				if(region == null || isCellInside(cx, cy, excludedX, excludedY, excludedRange))
 					continue;
-				int neighbourId = x * maxWorldSize + y;
 
-				MapRegion neighbour = regions.get(neighbourId);
-				if(neighbour != null)
+				for(VisibleObject object : region.getObjects())
 				{
-					r.addNeighbourRegion(neighbour);
-					neighbour.addNeighbourRegion(r);
+					float dx = object.getX() - x;
+					float dy = object.getY() - y;
+					if(dx * dx + dy * dy < rangeSq)
+						visitor.visit(object);
 				}
 			}
 		}
-		return r;
+	}
+
+	/**
+	 * Marks object as moved - its KnownList will be updated at next world tick.
+	 *
+	 * @param object
+	 */
+	void markDirty(VisibleObject object)
+	{
+		dirtyObjects.add(object);
+	}
+
+	/**
+	 * Removes all dirty objects from this instance and adds them to given map, grouped by region they are in. Objects
+	 * that are no longer on this instance are dropped.
+	 *
+	 * @param regionObjects
+	 * @return number of drained objects
+	 */
+	int drainDirtyObjects(Map<MapRegion, List<VisibleObject>> regionObjects)
+	{
+		int count = 0;
+		Iterator<VisibleObject> it = dirtyObjects.iterator();
+		while(it.hasNext())
+		{
+			VisibleObject object = it.next();
+			it.remove();
+
+			MapRegion region = object.getActiveRegion();
+			if(region == null || region.getParent() != this)
+				continue;
+
+			List<VisibleObject> objects = regionObjects.get(region);
+			if(objects == null)
+			{
+				objects = new ArrayList<VisibleObject>();
+				regionObjects.put(region, objects);
+			}
+			objects.add(object);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns size of one grid cell.
+	 *
+	 * @return cell size
+	 */
+	public int getCellSize()
+	{
+		return cellSize;
+	}
+
+	/**
+	 * Checks if whole cell is inside of given circle. Border cells are never inside, as they contain also objects that
+	 * are outside of the grid.
+	 *
+	 * @param cx
+	 * @param cy
+	 * @param x
+	 * @param y
+	 * @param range
+	 * @return true if cell is inside
+	 */
+	private boolean isCellInside(int cx, int cy, float x, float y, float range)
+	{
+		if(range <= 0 || cx == 0 || cy == 0 || cx == gridSize - 1 || cy == gridSize - 1)
+			return false;
+
+		float dx = Math.max(Math.abs(cx * cellSize - x), Math.abs((cx + 1) * cellSize - x));
+		float dy = Math.max(Math.abs(cy * cellSize - y), Math.abs((cy + 1) * cellSize - y));
+		return dx * dx + dy * dy < range * range;
+	}
+
+	/**
+	 * Calculate grid cell index [in one dimension] from coordinate, clamped to grid bounds.
+	 *
+	 * @param c
+	 * @return cell index
+	 */
+	private int toCell(float c)
+	{
+		int cell = (int) c / cellSize;
+		if(cell < 0)
+			return 0;
+		if(cell >= gridSize)
+			return gridSize - 1;
+		return cell;
 	}
 
 	/**
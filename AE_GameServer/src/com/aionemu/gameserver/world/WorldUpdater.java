@@ -0,0 +1,208 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.world;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.log4j.Logger;
+
+import com.aionemu.gameserver.configs.Config;
+import com.aionemu.gameserver.model.gameobjects.VisibleObject;
+import com.aionemu.gameserver.utils.ThreadPoolManager;
+
+/**
+ * World tick. Collects objects that moved since last tick from all WorldMapInstances, splits them into partitions made
+ * of whole map regions and updates their KnownLists in parallel. State packets broadcast since last tick are sent after
+ * the update, only the last one for each object. Tick thread processes one partition itself and waits until others are
+ * done, so ticks never overlap.
+ * 
+ * @author agent
+ * 
+ */
+public class WorldUpdater implements Runnable
+{
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger							log					= Logger.getLogger(WorldUpdater.class);
+	/**
+	 * Minimal number of objects in one partition - smaller batches are not worth passing to other thread.
+	 */
+	private static final int							MIN_PARTITION_SIZE	= 32;
+	/**
+	 * World which is updated.
+	 */
+	private final World									world;
+	/**
+	 * Dirty objects grouped by region. Used only by tick thread.
+	 */
+	private final Map<MapRegion, List<VisibleObject>>	regionObjects		= new HashMap<MapRegion, List<VisibleObject>>();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param world
+	 */
+	WorldUpdater(World world)
+	{
+		this.world = world;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void run()
+	{
+		try
+		{
+			int count = 0;
+			Iterator<WorldMap> maps = world.getWorldMapsIterator();
+			while(maps.hasNext())
+			{
+				Iterator<WorldMapInstance> instances = maps.next().getInstancesIterator();
+				while(instances.hasNext())
+					count += instances.next().drainDirtyObjects(regionObjects);
+			}
+
+			if(count == 0)
+				return;
+
+			List<List<VisibleObject>> partitions = createPartitions(count);
+			regionObjects.clear();
+
+			CountDownLatch done = new CountDownLatch(partitions.size() - 1);
+			for(int i = 1; i < partitions.size(); i++)
+				ThreadPoolManager.getInstance().executeWorldUpdate(new PartitionUpdate(partitions.get(i), done));
+
+			update(partitions.get(0));
+			done.await();
+		}
+		catch(InterruptedException e)
+		{
+			log.warn("World tick interrupted", e);
+		}
+		catch(RuntimeException e)
+		{
+			log.error("Error while processing world tick", e);
+		}
+		finally
+		{
+			regionObjects.clear();
+		}
+	}
+
+	/**
+	 * Splits collected objects into partitions made of whole regions, one partition per world tick thread.
+	 * 
+	 * @param count
+	 *            number of collected objects
+	 * @return partitions
+	 */
+	private List<List<VisibleObject>> createPartitions(int count)
+	{
+		int partitionSize = Math.max(MIN_PARTITION_SIZE, count / Config.WORLD_TICK_THREADS + 1);
+		List<List<VisibleObject>> partitions = new ArrayList<List<VisibleObject>>();
+
+		List<VisibleObject> partition = null;
+		for(List<VisibleObject> objects : regionObjects.values())
+		{
+			if(partition == null)
+				partition = new ArrayList<VisibleObject>(partitionSize);
+
+			partition.addAll(objects);
+			if(partition.size() >= partitionSize)
+			{
+				partitions.add(partition);
+				partition = null;
+			}
+		}
+		if(partition != null)
+			partitions.add(partition);
+
+		return partitions;
+	}
+
+	/**
+	 * Updates KnownLists of given objects and sends their state packets.
+	 * 
+	 * @param objects
+	 */
+	private void update(List<VisibleObject> objects)
+	{
+		for(int i = 0, n = objects.size(); i < n; i++)
+		{
+			VisibleObject object = objects.get(i);
+			try
+			{
+				world.updateObject(object);
+			}
+			catch(RuntimeException e)
+			{
+				log.error("Can't update KnownList of " + object, e);
+			}
+		}
+	}
+
+	/**
+	 * Part of world tick executed by world update thread pool.
+	 */
+	private class PartitionUpdate implements Runnable
+	{
+		/**
+		 * Objects to update.
+		 */
+		private final List<VisibleObject>	objects;
+		/**
+		 * Latch counted down when partition is processed.
+		 */
+		private final CountDownLatch		done;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param objects
+		 * @param done
+		 */
+		private PartitionUpdate(List<VisibleObject> objects, CountDownLatch done)
+		{
+			this.objects = objects;
+			this.done = done;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run()
+		{
+			try
+			{
+				update(objects);
+			}
+			finally
+			{
+				done.countDown();
+			}
+		}
+	}
+}
@@ -0,0 +1,292 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.network;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Checks that Crypt is byte for byte compatible with original byte at a time implementation, for every packet size,
+ * buffer type, position and byte order.
+ * 
+ * @author agent
+ */
+public class CryptTest
+{
+	/**
+	 * Number of packets in every stream, key is changing after every packet.
+	 */
+	private static final int	PACKETS	= 200;
+
+	@Test
+	public void testEncryptHeap()
+	{
+		testEncrypt(false, ByteOrder.LITTLE_ENDIAN, 0);
+		testEncrypt(false, ByteOrder.BIG_ENDIAN, 3);
+	}
+
+	@Test
+	public void testEncryptDirect()
+	{
+		testEncrypt(true, ByteOrder.LITTLE_ENDIAN, 0);
+		testEncrypt(true, ByteOrder.BIG_ENDIAN, 5);
+	}
+
+	@Test
+	public void testDecryptHeap()
+	{
+		testDecrypt(false, ByteOrder.LITTLE_ENDIAN, 0);
+		testDecrypt(false, ByteOrder.BIG_ENDIAN, 7);
+	}
+
+	@Test
+	public void testDecryptDirect()
+	{
+		testDecrypt(true, ByteOrder.LITTLE_ENDIAN, 0);
+		testDecrypt(true, ByteOrder.BIG_ENDIAN, 1);
+	}
+
+	@Test
+	public void testRoundTrip()
+	{
+		Random rnd = new Random(11);
+		int key = rnd.nextInt();
+		Crypt server = new Crypt();
+		Crypt client = new Crypt();
+		Assert.assertEquals(server.enableKey(key), client.enableKey(key));
+		server.encrypt(ByteBuffer.allocate(0));
+		enableDecrypt(client, ByteBuffer.allocate(0));
+
+		/** decrypt is inverse of encrypt when both keys are equal [validation needs at least 3 bytes] */
+		for(int size = 3; size < PACKETS; size++)
+		{
+			byte[] data = randomBytes(rnd, size);
+			ByteBuffer buf = ByteBuffer.wrap(data.clone());
+			server.encrypt(buf);
+			client.decrypt(buf);
+			Assert.assertTrue(Arrays.equals(data, buf.array()));
+		}
+	}
+
+	@Test
+	public void testValidation()
+	{
+		Random rnd = new Random(13);
+		int key = rnd.nextInt();
+		OldCrypt old = new OldCrypt(key);
+		Crypt crypt = new Crypt();
+		crypt.enableKey(key);
+		enableDecrypt(crypt, ByteBuffer.allocate(0));
+
+		/** valid client packet: ~op, static code, op */
+		for(int size = 3; size < PACKETS; size++)
+		{
+			byte[] data = randomBytes(rnd, size);
+			data[0] = (byte) ~data[2];
+			data[1] = Crypt.staticClientPacketCode;
+			old.encryptAsClient(data);
+
+			ByteBuffer buf = ByteBuffer.wrap(data);
+			Assert.assertTrue("size " + size, crypt.decrypt(buf));
+		}
+	}
+
+	@Test(expected = KeyAlreadySetException.class)
+	public void testKeyAlreadySet()
+	{
+		Crypt crypt = new Crypt();
+		crypt.enableKey();
+		crypt.enableKey();
+	}
+
+	/**
+	 * Encrypt stream of packets of growing size by both implementations and compare results.
+	 */
+	private void testEncrypt(boolean direct, ByteOrder order, int offset)
+	{
+		Random rnd = new Random(offset + (direct ? 100 : 0));
+		int key = rnd.nextInt();
+		OldCrypt old = new OldCrypt(key);
+		Crypt crypt = new Crypt();
+		Assert.assertEquals(old.falseKey, crypt.enableKey(key));
+
+		/** first packet is not encrypted */
+		crypt.encrypt(ByteBuffer.allocate(0));
+
+		for(int size = 0; size < PACKETS; size++)
+		{
+			byte[] data = randomBytes(rnd, size);
+			ByteBuffer buf = buffer(direct, order, offset, data);
+			crypt.encrypt(buf);
+			old.encrypt(data);
+			assertSame(data, buf, offset, order);
+		}
+	}
+
+	/**
+	 * Decrypt stream of packets of growing size by both implementations and compare results.
+	 */
+	private void testDecrypt(boolean direct, ByteOrder order, int offset)
+	{
+		Random rnd = new Random(offset + (direct ? 200 : 50));
+		int key = rnd.nextInt();
+		OldCrypt old = new OldCrypt(key);
+		Crypt crypt = new Crypt();
+		crypt.enableKey(key);
+		enableDecrypt(crypt, ByteBuffer.allocate(0));
+
+		/** validation needs at least 3 bytes */
+		for(int size = 3; size < PACKETS; size++)
+		{
+			byte[] data = randomBytes(rnd, size);
+			ByteBuffer buf = buffer(direct, order, offset, data);
+			crypt.decrypt(buf);
+			old.decrypt(data);
+			assertSame(data, buf, offset, order);
+		}
+	}
+
+	/**
+	 * Decrypt is enabled by first [unencrypted] server packet.
+	 */
+	private static void enableDecrypt(Crypt crypt, ByteBuffer firstPacket)
+	{
+		crypt.encrypt(firstPacket);
+	}
+
+	private static byte[] randomBytes(Random rnd, int size)
+	{
+		byte[] data = new byte[size];
+		rnd.nextBytes(data);
+		return data;
+	}
+
+	/**
+	 * Creates buffer with data at given offset and garbage around it.
+	 */
+	private static ByteBuffer buffer(boolean direct, ByteOrder order, int offset, byte[] data)
+	{
+		int capacity = offset + data.length + 8;
+		ByteBuffer buf = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+		for(int i = 0; i < capacity; i++)
+			buf.put(i, (byte) 0x5A);
+		buf.position(offset);
+		buf.put(data);
+		buf.limit(offset + data.length);
+		buf.position(offset);
+		buf.order(order);
+		return buf;
+	}
+
+	/**
+	 * Checks that buffer contains expected data, its garbage was not touched and its state was not changed.
+	 */
+	private static void assertSame(byte[] expected, ByteBuffer buf, int offset, ByteOrder order)
+	{
+		Assert.assertEquals(offset, buf.position());
+		Assert.assertEquals(offset + expected.length, buf.limit());
+		Assert.assertEquals(order, buf.order());
+		for(int i = 0; i < expected.length; i++)
+			Assert.assertEquals("size " + expected.length + " byte " + i, expected[i], buf.get(offset + i));
+		ByteBuffer all = buf.duplicate();
+		all.clear();
+		for(int i = 0; i < offset; i++)
+			Assert.assertEquals((byte) 0x5A, all.get(i));
+		for(int i = offset + expected.length; i < all.capacity(); i++)
+			Assert.assertEquals((byte) 0x5A, all.get(i));
+	}
+
+	/**
+	 * Original byte at a time implementation of Crypt.
+	 */
+	private static class OldCrypt
+	{
+		private static byte[]	staticKey	= "nKO/WctQ0AVLbpzfBkS6NevDYT8ourG5CRlmdjyJ72aswx4EPq1UgZhFMXH?3iI9"
+												.getBytes();
+
+		private final byte[]	clientPacketKey;
+		private final byte[]	serverPacketKey;
+		private final int		falseKey;
+
+		OldCrypt(int key)
+		{
+			clientPacketKey = new byte[] { (byte) (key & 0xff), (byte) ((key >> 8) & 0xff), (byte) ((key >> 16) & 0xff),
+				(byte) ((key >> 24) & 0xff), (byte) 0xa1, (byte) 0x6c, (byte) 0x54, (byte) 0x87 };
+			serverPacketKey = clientPacketKey.clone();
+			falseKey = (key ^ 0xCD92E451) + 0x3FF2CC87;
+		}
+
+		void decrypt(byte[] data)
+		{
+			int prev = data[0];
+			data[0] = (byte) (prev ^ (clientPacketKey[0] & 0xff));
+			for(int i = 1; i < data.length; i++)
+			{
+				int curr = data[i] & 0xff;
+				data[i] = (byte) (curr ^ (staticKey[i & 63] & 0xff) ^ (clientPacketKey[i & 7] & 0xff) ^ prev);
+				prev = curr;
+			}
+			changeKey(clientPacketKey, data.length);
+		}
+
+		void encrypt(byte[] data)
+		{
+			encrypt(data, serverPacketKey);
+		}
+
+		/**
+		 * Encrypt packet the way aion client does, so it may be decrypted by client key.
+		 */
+		void encryptAsClient(byte[] data)
+		{
+			encrypt(data, clientPacketKey);
+		}
+
+		private void encrypt(byte[] data, byte[] key)
+		{
+			if(data.length == 0)
+			{
+				changeKey(key, 0);
+				return;
+			}
+			int prev = data[0] ^ (key[0] & 0xff);
+			data[0] = (byte) prev;
+			for(int i = 1; i < data.length; i++)
+			{
+				prev = data[i] ^ (staticKey[i & 63] & 0xff) ^ (key[i & 7] & 0xff) ^ prev;
+				data[i] = (byte) prev;
+			}
+			changeKey(key, data.length);
+		}
+
+		private static void changeKey(byte[] key, int size)
+		{
+			long oldKey = 0;
+			for(int i = 0; i < 8; i++)
+				oldKey |= ((long) key[i] & 0xff) << (i * 8);
+			oldKey += size;
+			for(int i = 0; i < 8; i++)
+				key[i] = (byte) (oldKey >> (i * 8) & 0xff);
+		}
+	}
+}
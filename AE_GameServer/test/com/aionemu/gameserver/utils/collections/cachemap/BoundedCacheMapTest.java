@@ -0,0 +1,121 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.utils.collections.cachemap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class BoundedCacheMapTest
+{
+	@Test
+	public void testPutGetRemove()
+	{
+		BoundedCacheMap<Integer, String> map = new BoundedCacheMap<Integer, String>("test", "value", 10, null, 0);
+		map.put(1, "a");
+		assertEquals("a", map.get(1));
+		assertTrue(map.contains(1));
+		assertNull(map.get(2));
+
+		try
+		{
+			map.put(1, "b");
+			fail("Put of existing key should fail");
+		}
+		catch(IllegalArgumentException e)
+		{
+		}
+
+		map.remove(1);
+		assertFalse(map.contains(1));
+		assertEquals(0, map.getSize());
+		assertEquals(1, map.getHitCount());
+		assertEquals(1, map.getMissCount());
+	}
+
+	@Test
+	public void testBoundedBySize()
+	{
+		BoundedCacheMap<Integer, Integer> map = new BoundedCacheMap<Integer, Integer>("test", "value", 100, null, 0);
+		for(int i = 0; i < 1000; i++)
+			map.put(i, i);
+
+		assertEquals(100, map.getSize());
+		assertEquals(900, map.getEvictionCount());
+	}
+
+	@Test
+	public void testBoundedByWeight()
+	{
+		CacheWeigher<Integer, String> weigher = new CacheWeigher<Integer, String>(){
+			@Override
+			public int weigh(Integer key, String value)
+			{
+				return value.length();
+			}
+		};
+		BoundedCacheMap<Integer, String> map = new BoundedCacheMap<Integer, String>("test", "value", 100, weigher, 0);
+		for(int i = 0; i < 100; i++)
+			map.put(i, "0123456789");
+
+		assertTrue(map.getWeight() <= 100);
+		assertEquals(map.getSize() * 10, map.getWeight());
+	}
+
+	@Test
+	public void testFrequentEntriesSurviveScan()
+	{
+		BoundedCacheMap<Integer, Integer> map = new BoundedCacheMap<Integer, Integer>("test", "value", 100, null, 0);
+		for(int i = 0; i < 50; i++)
+			map.put(i, i);
+		for(int round = 0; round < 5; round++)
+		{
+			for(int i = 0; i < 50; i++)
+				map.get(i);
+		}
+
+		/* one time entries must not push out the frequently used ones */
+		for(int i = 1000; i < 2000; i++)
+			map.put(i, i);
+
+		for(int i = 0; i < 50; i++)
+			assertTrue("Frequent entry " + i + " was evicted", map.contains(i));
+	}
+
+	@Test
+	public void testExpiration() throws InterruptedException
+	{
+		BoundedCacheMap<Integer, String> map = new BoundedCacheMap<Integer, String>("test", "value", 10, null, 50);
+		map.put(1, "a");
+		assertEquals("a", map.get(1));
+
+		Thread.sleep(100);
+		assertNull(map.get(1));
+		assertEquals(1, map.getExpirationCount());
+
+		/* expired key may be put again */
+		map.put(1, "b");
+		assertEquals("b", map.get(1));
+	}
+}
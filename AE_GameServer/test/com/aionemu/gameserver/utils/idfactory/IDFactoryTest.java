@@ -0,0 +1,176 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.gameserver.utils.idfactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class IDFactoryTest
+{
+	@Test
+	public void testLockedIdsAreSkipped()
+	{
+		IDFactory factory = new IDFactory();
+		factory.lockIds(0, 1, 5);
+
+		Set<Integer> ids = new HashSet<Integer>();
+		for(int i = 0; i < 1000; i++)
+			assertTrue(ids.add(factory.nextId()));
+
+		assertTrue(!ids.contains(0) && !ids.contains(1) && !ids.contains(5));
+		assertEquals(1003, factory.getUsedCount());
+	}
+
+	@Test
+	public void testReleasedIdIsReused()
+	{
+		IDFactory factory = new IDFactory();
+		int id = factory.nextId();
+		factory.nextId();
+		factory.releaseId(id);
+		assertEquals(1, factory.getUsedCount());
+		assertEquals(id, factory.nextId());
+	}
+
+	@Test
+	public void testReleasedIdsAreSharedBetweenThreads() throws Exception
+	{
+		final IDFactory factory = new IDFactory();
+		final List<Integer> ids = new ArrayList<Integer>();
+		for(int i = 0; i < 1000; i++)
+			ids.add(factory.nextId());
+		for(int id : ids)
+			factory.releaseId(id);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		int id = executor.submit(new Callable<Integer>(){
+			@Override
+			public Integer call()
+			{
+				return factory.nextId();
+			}
+		}).get();
+		executor.shutdown();
+
+		assertTrue(ids.contains(id));
+	}
+
+	@Test
+	public void testIdsOfDeadThreadAreReclaimed() throws Exception
+	{
+		final IDFactory factory = new IDFactory();
+		final int[] taken = new int[2];
+		Thread thread = new Thread(){
+			@Override
+			public void run()
+			{
+				taken[0] = factory.nextId();
+				taken[1] = factory.nextId();
+				factory.releaseId(taken[1]);
+			}
+		};
+		thread.start();
+		thread.join();
+
+		/* whole block of dead thread is reused, except id that is still taken */
+		Set<Integer> ids = new HashSet<Integer>();
+		for(int i = 0; i < 255; i++)
+		{
+			int id = factory.nextId();
+			assertTrue("Id " + id + " was not reclaimed", id < 256);
+			assertTrue(id != taken[0] && ids.add(id));
+		}
+		assertEquals(256, factory.getUsedCount());
+	}
+
+	@Test
+	public void testUniqueIdsFromManyThreads() throws Exception
+	{
+		final IDFactory factory = new IDFactory();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<List<Integer>>> futures = new ArrayList<Future<List<Integer>>>();
+		for(int t = 0; t < 8; t++)
+		{
+			futures.add(executor.submit(new Callable<List<Integer>>(){
+				@Override
+				public List<Integer> call()
+				{
+					List<Integer> kept = new ArrayList<Integer>();
+					for(int i = 0; i < 10000; i++)
+					{
+						int id = factory.nextId();
+						if(i % 3 == 0)
+							factory.releaseId(id);
+						else
+							kept.add(id);
+					}
+					return kept;
+				}
+			}));
+		}
+
+		Set<Integer> ids = new HashSet<Integer>();
+		for(Future<List<Integer>> future : futures)
+		{
+			for(int id : future.get())
+				assertTrue("Duplicate id " + id, ids.add(id));
+		}
+		executor.shutdown();
+
+		assertEquals(ids.size(), factory.getUsedCount());
+	}
+
+	@Test
+	public void testStrictUsage()
+	{
+		IDFactory factory = new IDFactory();
+		int id = factory.nextId();
+		try
+		{
+			factory.lockIds(id);
+			fail("Lock of taken id should fail");
+		}
+		catch(IDFactoryError e)
+		{
+		}
+
+		factory.releaseId(id);
+		try
+		{
+			factory.releaseId(id);
+			fail("Second release should fail");
+		}
+		catch(IDFactoryError e)
+		{
+		}
+	}
+}
@@ -21,6 +21,7 @@ import com.aionemu.commons.database.DB;
 import com.aionemu.commons.database.IUStH;
 import com.aionemu.loginserver.dao.AccountDAO;
 import com.aionemu.loginserver.model.Account;
+import com.aionemu.loginserver.model.AccountTime;
 import org.apache.log4j.Logger;
 
 import java.sql.PreparedStatement;
@@ -79,6 +80,62 @@ public class MySQL5AccountDAO extends AccountDAO
 		return account;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Account getAccountWithTime(String name)
+	{
+		Account				account = null;
+		PreparedStatement	st      =
+			DB.prepareStatement("SELECT a.*, t.account_id AS time_account_id, t.last_active, t.expiration_time, t.session_duration, t.accumulated_online, t.accumulated_rest, t.penalty_end FROM account_data a LEFT JOIN account_time t ON t.account_id = a.id WHERE a.`name` = ?");
+
+		try
+		{
+			st.setString(1, name);
+
+			ResultSet	rs = st.executeQuery();
+
+			if(rs.next())
+			{
+				account = new Account();
+
+				account.setId(rs.getInt("id"));
+				account.setName(name);
+				account.setPasswordHash(rs.getString("password"));
+				account.setAccessLevel(rs.getByte("access_level"));
+				account.setLastServer(rs.getByte("last_server"));
+				account.setLastIp(rs.getString("last_ip"));
+				account.setIpForce(rs.getString("ip_force"));
+
+				rs.getInt("time_account_id");
+				if(!rs.wasNull())
+				{
+					AccountTime	accountTime = new AccountTime();
+
+					accountTime.setLastLoginTime(rs.getTimestamp("last_active"));
+					accountTime.setSessionDuration(rs.getLong("session_duration"));
+					accountTime.setAccumulatedOnlineTime(rs.getLong("accumulated_online"));
+					accountTime.setAccumulatedRestTime(rs.getLong("accumulated_rest"));
+					accountTime.setPenaltyEnd(rs.getTimestamp("penalty_end"));
+					accountTime.setExpirationTime(rs.getTimestamp("expiration_time"));
+
+					account.setAccountTime(accountTime);
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			log.error("Can't select account with name: " + name, e);
+		}
+		finally
+		{
+			DB.close(st);
+		}
+
+		return account;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -194,7 +251,7 @@ public class MySQL5AccountDAO extends AccountDAO
 			st.setString(5, account.getLastIp());
 			st.setString(6, account.getIpForce());
 			st.setInt(7, account.getId());
-			st.executeUpdate();
+			result = st.executeUpdate();
 		}
 		catch (SQLException e)
 		{
@@ -16,11 +16,13 @@
  */
 package com.aionemu.loginserver;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.aionemu.commons.network.IPRange;
+import com.aionemu.commons.utils.IPMask;
+import com.aionemu.loginserver.controller.AccountSessionRegistry;
 import com.aionemu.loginserver.model.Account;
 import com.aionemu.loginserver.network.gameserver.GsConnection;
 import com.aionemu.loginserver.network.gameserver.GsConnection.State;
@@ -43,6 +45,11 @@ public class GameServerInfo
 	 */
 	private final String				ip;
 
+	/**
+	 * Compiled allowed IP mask, null if allowed IP is not valid mask [GameServer won't be registered].
+	 */
+	private final IPMask				ipMask;
+
 	/**
 	 * Password
 	 */
@@ -76,7 +83,7 @@ public class GameServerInfo
 	/**
 	 * Map<AccId,Account> of accounts logged in on this GameServer.
 	 */
-	private final Map<Integer, Account>	accountsOnGameServer	= new HashMap<Integer, Account>();
+	private final Map<Integer, Account>	accountsOnGameServer	= new ConcurrentHashMap<Integer, Account>();
 
 	/**
 	 * Constructor.
@@ -89,9 +96,28 @@ public class GameServerInfo
 	{
 		this.id = id;
 		this.ip = ip;
+		this.ipMask = compileMask(ip);
 		this.password = password;
 	}
 
+	/**
+	 * Compiles allowed IP mask.
+	 * 
+	 * @param ip
+	 * @return IPMask or null if ip is not valid mask
+	 */
+	private static IPMask compileMask(String ip)
+	{
+		try
+		{
+			return new IPMask(ip);
+		}
+		catch (IllegalArgumentException e)
+		{
+			return null;
+		}
+	}
+
 	/**
 	 * Returns id of this GameServer.
 	 * 
@@ -122,6 +148,16 @@ public class GameServerInfo
 		return ip;
 	}
 
+	/**
+	 * Returns compiled allowed IP mask for this GameServer.
+	 * 
+	 * @return IPMask or null if allowed IP is not valid mask
+	 */
+	public IPMask getIpMask()
+	{
+		return ipMask;
+	}
+
 	/**
 	 * Returns port of this GameServer.
 	 * 
@@ -249,24 +285,27 @@ public class GameServerInfo
 	}
 
 	/**
-	 * Remove account from this GameServer
+	 * Remove account from this GameServer [and its session from AccountSessionRegistry]
 	 * 
 	 * @param accountId
 	 * @return removed account.
 	 */
 	public final Account removeAccountFromGameServer(int accountId)
 	{
+		AccountSessionRegistry.removeFromGameServer(accountId, id);
 		return accountsOnGameServer.remove(accountId);
 	}
 
 	/**
-	 * Add account to this GameServer
+	 * Add account to this GameServer [and set its session in AccountSessionRegistry]
 	 * 
 	 * @param acc
 	 */
 	public final void addAccountToGameServer(Account acc)
 	{
 		accountsOnGameServer.put(acc.getId(), acc);
+		if(AccountSessionRegistry.getServerId(acc.getId()) != id)
+			AccountSessionRegistry.putOnGameServer(acc, id);
 	}
 
     /**
@@ -284,6 +323,8 @@ public class GameServerInfo
 	 */
 	public void clearAccountsOnGameServer()
 	{
+		for(Integer accountId : accountsOnGameServer.keySet())
+			AccountSessionRegistry.removeFromGameServer(accountId, id);
 		accountsOnGameServer.clear();
 	}
 
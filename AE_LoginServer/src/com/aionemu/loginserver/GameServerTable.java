@@ -25,7 +25,8 @@ import org.apache.log4j.Logger;
 
 import com.aionemu.commons.database.dao.DAOManager;
 import com.aionemu.commons.network.IPRange;
-import com.aionemu.commons.utils.NetworkUtils;
+import com.aionemu.loginserver.controller.AccountSessionRegistry;
+import com.aionemu.loginserver.controller.BannedIpController;
 import com.aionemu.loginserver.dao.GameServersDAO;
 import com.aionemu.loginserver.model.Account;
 import com.aionemu.loginserver.network.gameserver.GsAuthResponse;
@@ -110,12 +111,22 @@ public class GameServerTable
 		/**
 		 * Check if password and ip are ok.
 		 */
-		if (!gsi.getPassword().equals(password) || !NetworkUtils.checkIPMatching(gsi.getIp(), gsConnection.getIP()))
+		if (!gsi.getPassword().equals(password) || gsi.getIpMask() == null
+			|| !gsi.getIpMask().matches(gsConnection.getIP()))
 		{
 			log.info(gsConnection + " wrong ip or password!");
 			return GsAuthResponse.NOT_AUTHED;
 		}
 
+		/**
+		 * Check if ip is not banned.
+		 */
+		if (BannedIpController.isBanned(gsConnection.getIP()))
+		{
+			log.info(gsConnection + " ip is banned!");
+			return GsAuthResponse.NOT_AUTHED;
+		}
+
 		gsi.setDefaultAddress(defaultAddress);
 		gsi.setIpRanges(ipRanges);
 		gsi.setPort(port);
@@ -145,14 +156,7 @@ public class GameServerTable
 	 */
 	public static boolean isAccountOnAnyGameServer(Account acc)
 	{
-		for (GameServerInfo gsi : getGameServers())
-		{
-			if (gsi.isAccountOnGameServer(acc.getId()))
-			{
-				return true;
-			}
-		}
-		return false;
+		return AccountSessionRegistry.getServerId(acc.getId()) != -1;
 	}
 
 	/**
@@ -161,13 +165,10 @@ public class GameServerTable
 	 */
 	public static void kickAccountFromGameServer(Account account)
 	{
-		for (GameServerInfo gsi : getGameServers())
+		GameServerInfo gsi = gameservers.get(AccountSessionRegistry.getServerId(account.getId()));
+		if (gsi != null && gsi.getGsConnection() != null)
 		{
-			if (gsi.isAccountOnGameServer(account.getId()))
-			{
-				gsi.getGsConnection().sendPacket(new SM_REQUEST_KICK_ACCOUNT(account.getId()));
-				break;
-			}
+			gsi.getGsConnection().sendPacket(new SM_REQUEST_KICK_ACCOUNT(account.getId()));
 		}
 	}
 
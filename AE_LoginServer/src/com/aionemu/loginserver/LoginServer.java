@@ -22,10 +22,14 @@ import java.lang.management.MemoryUsage;
 import org.apache.log4j.Logger;
 
 import com.aionemu.commons.database.DatabaseFactory;
+import com.aionemu.commons.database.DatabaseMetrics;
 import com.aionemu.commons.database.dao.DAOManager;
+import com.aionemu.commons.network.metrics.NetworkMetrics;
 import com.aionemu.commons.services.LoggingService;
 import com.aionemu.commons.utils.ExitCode;
 import com.aionemu.loginserver.configs.Config;
+import com.aionemu.loginserver.controller.AccountCache;
+import com.aionemu.loginserver.controller.AccountSessionRegistry;
 import com.aionemu.loginserver.controller.BannedIpController;
 import com.aionemu.loginserver.network.IOServer;
 import com.aionemu.loginserver.network.ncrypt.KeyGen;
@@ -74,10 +78,15 @@ public class LoginServer
 
         GameServerTable.load();
         BannedIpController.load();
+        AccountCache.init();
+        AccountSessionRegistry.init();
 
         // TODO! flood protector
         // TODO! brute force protector
 
+        NetworkMetrics.register("LoginServer");
+        DatabaseMetrics.register("LoginServer");
+        KeyGen.getRSAKeyPairPool().register("LoginServer");
         IOServer.getInstance().connect();
         Runtime.getRuntime().addShutdownHook(Shutdown.getInstance());
 
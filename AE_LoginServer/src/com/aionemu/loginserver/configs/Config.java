@@ -77,18 +77,84 @@ public class Config
 	@Property(key = "loginserver.network.nio.threads.read", defaultValue = "0")
 	public static int				NIO_READ_THREADS;
 
+	/**
+	 * Number of Threads that will accept connections (>= 1, used only if NIO_READ_THREADS > 0)
+	 */
+	@Property(key = "loginserver.network.nio.threads.accept", defaultValue = "1")
+	public static int				NIO_ACCEPT_THREADS;
+
 	/**
 	 * Number of Threads that will handle io write (>= 0)
 	 */
 	@Property(key = "loginserver.network.nio.threads.write", defaultValue = "0")
 	public static int				NIO_WRITE_THREADS;
 
+	/**
+	 * Should client packets be executed by AffinityPacketProcessor [per connection queues] instead of PacketProcessor
+	 */
+	@Property(key = "loginserver.network.packetprocessor.affinity", defaultValue = "false")
+	public static boolean			PACKET_PROCESSOR_AFFINITY;
+
+	/**
+	 * Maximum number of Threads that will execute client packets
+	 */
+	@Property(key = "loginserver.network.packetprocessor.threads", defaultValue = "8")
+	public static int				PACKET_PROCESSOR_THREADS;
+
+	/**
+	 * Number of Threads that will decrypt and check login data (0 - number of available processors)
+	 */
+	@Property(key = "loginserver.network.logincrypto.threads", defaultValue = "0")
+	public static int				LOGIN_CRYPTO_THREADS;
+
+	/**
+	 * Maximum number of logins waiting for login crypto Threads
+	 */
+	@Property(key = "loginserver.network.logincrypto.queue", defaultValue = "1024")
+	public static int				LOGIN_CRYPTO_QUEUE;
+
+	/**
+	 * Number of ready RSA key pairs
+	 */
+	@Property(key = "loginserver.network.rsa.pool.size", defaultValue = "10")
+	public static int				RSA_KEYPAIR_POOL_SIZE;
+
+	/**
+	 * Time in seconds after which the oldest RSA key pair is replaced by new one
+	 */
+	@Property(key = "loginserver.network.rsa.rotation.interval", defaultValue = "60")
+	public static int				RSA_KEYPAIR_ROTATION_INTERVAL;
+
+	/**
+	 * Number of connections after which the oldest RSA key pair is replaced by new one before rotation interval elapsed
+	 */
+	@Property(key = "loginserver.network.rsa.rotation.uses", defaultValue = "1000")
+	public static int				RSA_KEYPAIR_ROTATION_USES;
+
 	/**
 	 * Should server automaticly create accounts for users or not?
 	 */
 	@Property(key = "loginserver.accounts.autocreate", defaultValue = "true")
 	public static boolean			ACCOUNT_AUTO_CREATION;
 
+	/**
+	 * Time in seconds in which account that left GameServer may reconnect to LoginServer
+	 */
+	@Property(key = "loginserver.accounts.reconnect.timeout", defaultValue = "60")
+	public static int				RECONNECT_TIMEOUT;
+
+	/**
+	 * Time in seconds for which accounts loaded by login are cached (0 - disabled)
+	 */
+	@Property(key = "loginserver.accounts.cache.ttl", defaultValue = "0")
+	public static int				ACCOUNT_CACHE_TTL;
+
+	/**
+	 * Maximum number of cached accounts
+	 */
+	@Property(key = "loginserver.accounts.cache.size", defaultValue = "10000")
+	public static int				ACCOUNT_CACHE_SIZE;
+
 	/**
 	 * Load configs from files.
 	 */
@@ -0,0 +1,186 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.loginserver.controller;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.aionemu.loginserver.configs.Config;
+import com.aionemu.loginserver.model.Account;
+import com.aionemu.loginserver.model.AccountTime;
+import com.aionemu.loginserver.utils.ThreadPoolManager;
+
+/**
+ * Cache of accounts [with theirs AccountTime] used by login, so repeated logins of the same account don't hit DB.
+ * Cache keeps copy of account as LoginServer changed it last time and every login gets its own copy, so concurrent
+ * logins don't share one Account object.<br>
+ * Changes of accounts done directly in DB [password, ban, ip_force, access_level] are not seen until entry expires
+ * after {@link Config#ACCOUNT_CACHE_TTL} seconds, that's why cache is disabled by default.
+ * 
+ * @author agent
+ */
+public class AccountCache
+{
+	/**
+	 * Cached accounts by name.
+	 */
+	private static final Map<String, Entry>	accounts	= new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * Starts task that removes expired entries.
+	 */
+	public static void init()
+	{
+		if(Config.ACCOUNT_CACHE_TTL <= 0)
+			return;
+
+		long period = TimeUnit.SECONDS.toMillis(Config.ACCOUNT_CACHE_TTL);
+		ThreadPoolManager.getInstance().scheduleAtFixedRate(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				removeExpired();
+			}
+		}, period, period);
+	}
+
+	/**
+	 * Returns copy of cached account or null if account is not cached or its entry expired.
+	 * 
+	 * @param name
+	 *            account name
+	 * @return account or null
+	 */
+	public static Account get(String name)
+	{
+		Entry entry = accounts.get(name);
+		if(entry == null)
+			return null;
+
+		if(entry.expires < System.currentTimeMillis())
+		{
+			accounts.remove(name);
+			return null;
+		}
+		return copy(entry.account);
+	}
+
+	/**
+	 * Puts copy of account to cache, replacing older one. Called after account was loaded and after every change of
+	 * account done by LoginServer. When cache is full expired entries are removed, if there are none some other
+	 * entry is evicted.
+	 * 
+	 * @param account
+	 */
+	public static void put(Account account)
+	{
+		if(Config.ACCOUNT_CACHE_TTL <= 0)
+			return;
+
+		if(accounts.size() >= Config.ACCOUNT_CACHE_SIZE && !accounts.containsKey(account.getName()))
+		{
+			removeExpired();
+
+			Iterator<Entry> it = accounts.values().iterator();
+			while(accounts.size() >= Config.ACCOUNT_CACHE_SIZE && it.hasNext())
+			{
+				it.next();
+				it.remove();
+			}
+		}
+
+		accounts.put(account.getName(), new Entry(copy(account), System.currentTimeMillis()
+			+ TimeUnit.SECONDS.toMillis(Config.ACCOUNT_CACHE_TTL)));
+	}
+
+	/**
+	 * Removes expired entries.
+	 */
+	private static void removeExpired()
+	{
+		long now = System.currentTimeMillis();
+		Iterator<Entry> it = accounts.values().iterator();
+		while(it.hasNext())
+		{
+			if(it.next().expires < now)
+				it.remove();
+		}
+	}
+
+	/**
+	 * Returns copy of account and its AccountTime.
+	 * 
+	 * @param account
+	 * @return copy of account
+	 */
+	private static Account copy(Account account)
+	{
+		Account copy = new Account();
+		copy.setId(account.getId());
+		copy.setName(account.getName());
+		copy.setPasswordHash(account.getPasswordHash());
+		copy.setAccessLevel(account.getAccessLevel());
+		copy.setLastServer(account.getLastServer());
+		copy.setLastIp(account.getLastIp());
+		copy.setIpForce(account.getIpForce());
+
+		AccountTime accountTime = account.getAccountTime();
+		if(accountTime != null)
+		{
+			AccountTime timeCopy = new AccountTime();
+			timeCopy.setLastLoginTime(accountTime.getLastLoginTime());
+			timeCopy.setExpirationTime(accountTime.getExpirationTime());
+			timeCopy.setPenaltyEnd(accountTime.getPenaltyEnd());
+			timeCopy.setSessionDuration(accountTime.getSessionDuration());
+			timeCopy.setAccumulatedOnlineTime(accountTime.getAccumulatedOnlineTime());
+			timeCopy.setAccumulatedRestTime(accountTime.getAccumulatedRestTime());
+			copy.setAccountTime(timeCopy);
+		}
+		return copy;
+	}
+
+	/**
+	 * Cached account and its expiration time.
+	 */
+	private static final class Entry
+	{
+		/**
+		 * Cached account.
+		 */
+		private final Account	account;
+
+		/**
+		 * Time in millis when this entry expires.
+		 */
+		private final long		expires;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param account
+		 * @param expires
+		 */
+		private Entry(Account account, long expires)
+		{
+			this.account = account;
+			this.expires = expires;
+		}
+	}
+}
@@ -17,14 +17,13 @@
 
 package com.aionemu.loginserver.controller;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import com.aionemu.commons.database.dao.DAOManager;
 import com.aionemu.commons.utils.NetworkUtils;
 import com.aionemu.loginserver.GameServerInfo;
 import com.aionemu.loginserver.GameServerTable;
 import com.aionemu.loginserver.configs.Config;
+import com.aionemu.loginserver.controller.AccountSessionRegistry.Session;
+import com.aionemu.loginserver.controller.AccountSessionRegistry.SessionState;
 import com.aionemu.loginserver.dao.AccountDAO;
 import com.aionemu.loginserver.dao.AccountTimeDAO;
 import com.aionemu.loginserver.model.Account;
@@ -46,27 +45,17 @@ import com.aionemu.loginserver.utils.AccountUtils;
  */
 public class AccountController
 {
-	/**
-	 * Map with accounts that are active on LoginServer or joined GameServer and are not authenticated yet.
-	 */
-	private static final Map<Integer, AionConnection>		accountsOnLS         = new HashMap<Integer,
-																					   AionConnection>();
-
-	/**
-	 * Map with accounts that are reconnecting to LoginServer ie was joined GameServer.
-	 */
-	private static final Map<Integer, ReconnectingAccount>	reconnectingAccounts = new HashMap<Integer,
-																					   ReconnectingAccount>();
-
 	/**
 	 * Removes account from list of connections
 	 *
 	 * @param account
 	 *            account
+	 * @param connection
+	 *            connection that account was using
 	 */
-	public static synchronized void removeAccountOnLS(Account account)
+	public static void removeAccountOnLS(Account account, AionConnection connection)
 	{
-		accountsOnLS.remove(account.getId());
+		AccountSessionRegistry.removeFromLS(account.getId(), connection);
 	}
 
 	/**
@@ -75,35 +64,30 @@ public class AccountController
 	 * @param key
 	 * @param gsConnection
 	 */
-	public static synchronized void checkAuth(SessionKey key, GsConnection gsConnection)
+	public static void checkAuth(SessionKey key, GsConnection gsConnection)
 	{
-		AionConnection	con = accountsOnLS.get(key.accountId);
+		Session			session = AccountSessionRegistry.get(key.accountId);
+		GameServerInfo	gsi     = gsConnection.getGameServerInfo();
 
-		if(con != null)
+		if(session != null && session.getState() == SessionState.ON_LS &&
+		   session.getConnection().getSessionKey().checkSessionKey(key) &&
+		   AccountSessionRegistry.moveToGameServer(session, gsi.getId()))
 		{
-			if(con.getSessionKey().checkSessionKey(key))
-			{
-				/**
-				 * account is successful logged in on gs remove it from here
-				 */
-				accountsOnLS.remove(key.accountId);
-
-				GameServerInfo	gsi = gsConnection.getGameServerInfo();
-				Account			acc = con.getAccount();
-
-				/**
-				 * Add account to accounts on GameServer list and update accounts last server
-				 */
-				gsi.addAccountToGameServer(acc);
-
-				acc.setLastServer(gsi.getId());
-				getAccountDAO().updateLastServer(acc.getId(), acc.getLastServer());
-
-				/**
-				 * Send response to GameServer
-				 */
-				gsConnection.sendPacket(new SM_ACCOUNT_AUTH_RESPONSE(key.accountId, true, acc.getName()));
-			}
+			Account	acc = session.getAccount();
+
+			/**
+			 * Add account to accounts on GameServer list and update accounts last server
+			 */
+			gsi.addAccountToGameServer(acc);
+
+			acc.setLastServer(gsi.getId());
+			getAccountDAO().updateLastServer(acc.getId(), acc.getLastServer());
+			AccountCache.put(acc);
+
+			/**
+			 * Send response to GameServer
+			 */
+			gsConnection.sendPacket(new SM_ACCOUNT_AUTH_RESPONSE(key.accountId, true, acc.getName()));
 		}
 		else
 		{
@@ -116,9 +100,9 @@ public class AccountController
 	 *
 	 * @param acc
 	 */
-	public static synchronized void addReconnectingAccount(ReconnectingAccount acc)
+	public static void addReconnectingAccount(ReconnectingAccount acc)
 	{
-		reconnectingAccounts.put(acc.getAccount().getId(), acc);
+		AccountSessionRegistry.putReconnecting(acc.getAccount(), acc.getReconnectionKey());
 	}
 
 	/**
@@ -133,17 +117,14 @@ public class AccountController
 	 * @param client
 	 *            aion client
 	 */
-	public static synchronized void authReconnectingAccount(int accountId, int loginOk, int reconnectKey,
+	public static void authReconnectingAccount(int accountId, int loginOk, int reconnectKey,
 			AionConnection client)
 	{
-		ReconnectingAccount	reconnectingAccount = reconnectingAccounts.remove(accountId);
+		Account	acc = AccountSessionRegistry.reconnect(accountId, reconnectKey, client);
 
-		if(reconnectingAccount != null && reconnectingAccount.getReconnectionKey() == reconnectKey)
+		if(acc != null)
 		{
-			Account	acc = reconnectingAccount.getAccount();
-
 			client.setAccount(acc);
-			accountsOnLS.put(acc.getId(), client);
 			client.setState(State.AUTHED_LOGIN);
 			client.setSessionKey(new SessionKey(client.getAccount()));
 			client.sendPacket(new SM_UPDATE_SESSION(client.getSessionKey()));
@@ -218,49 +199,58 @@ public class AccountController
 		}
 
 		// Do not allow to login two times with same account
-		synchronized (AccountController.class)
+		Session	session = AccountSessionRegistry.get(account.getId());
+
+		if(session != null && session.getState() == SessionState.ON_GS)
 		{
-			if(GameServerTable.isAccountOnAnyGameServer(account))
-			{
-				GameServerTable.kickAccountFromGameServer(account);
-				return AionAuthResponse.ALREADY_LOGGED_IN;
-			}
+			GameServerTable.kickAccountFromGameServer(account);
+			return AionAuthResponse.ALREADY_LOGGED_IN;
+		}
 
-			// If someone is at loginserver, he should be disconnected
-			if(accountsOnLS.containsKey(account.getId()))
+		// If someone is at loginserver, he should be disconnected
+		if(session != null && session.getState() == SessionState.ON_LS)
+		{
+			if(AccountSessionRegistry.removeFromLS(account.getId(), session.getConnection()))
 			{
-				AionConnection	aionConnection = accountsOnLS.remove(account.getId());
+				session.getConnection().close(true);
+			}
 
-				aionConnection.close(true);
+			return AionAuthResponse.ALREADY_LOGGED_IN;
+		}
 
-				return AionAuthResponse.ALREADY_LOGGED_IN;
-			}
-			else
-			{
-				connection.setAccount(account);
-				accountsOnLS.put(account.getId(), connection);
-			}
+		// Login replaces reconnecting session, fails if session was changed in the meantime
+		connection.setAccount(account);
+		if(!AccountSessionRegistry.putOnLS(account, connection, session))
+		{
+			connection.setAccount(null);
+			return AionAuthResponse.ALREADY_LOGGED_IN;
 		}
 
 		AccountTimeController.updateOnLogin(account);
 
 		// if everything was OK
+		account.setLastIp(connection.getIP());
 		getAccountDAO().updateLastIp(account.getId(), connection.getIP());
+		AccountCache.put(account);
 
 		return AionAuthResponse.AUTHED;
 	}
 
 	/**
-	 * Loads account from DB and returns it, or returns null if account was not loaded
+	 * Returns cached account or loads account [with its AccountTime] from DB, or returns null if account was not loaded
 	 * @param name acccount name
 	 * @return loaded account or null
 	 */
 	public static Account loadAccount(String name) 
 	{
-		Account	account = getAccountDAO().getAccount(name);
-		if (account != null)
+		Account	account = AccountCache.get(name);
+		if (account == null)
 		{
-			account.setAccountTime(getAccountTimeDAO().getAccountTime(account.getId()));
+			account = getAccountDAO().getAccountWithTime(name);
+			if (account != null)
+			{
+				AccountCache.put(account);
+			}
 		}
 		return account;
 	}
@@ -285,6 +275,7 @@ public class AccountController
 
 		if(getAccountDAO().insertAccount(account))
 		{
+			AccountCache.put(account);
 			return account;
 		}
 		else
@@ -0,0 +1,321 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.loginserver.controller;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.aionemu.loginserver.configs.Config;
+import com.aionemu.loginserver.model.Account;
+import com.aionemu.loginserver.network.aion.AionConnection;
+import com.aionemu.loginserver.utils.ThreadPoolManager;
+
+/**
+ * Registry of account sessions: every account that is on LoginServer, on one of GameServers or reconnecting from
+ * GameServer to LoginServer has exactly one immutable {@link Session} here. Sessions are changed only by atomic
+ * compare-and-set of whole session, so login, GameServer auth and reconnect of different accounts never block each
+ * other and concurrent changes of one account can't both succeed.
+ * 
+ * @author agent
+ */
+public class AccountSessionRegistry
+{
+	/**
+	 * Possible states of account session.
+	 */
+	public static enum SessionState
+	{
+		/**
+		 * Account is logged in on LoginServer and didn't join GameServer yet.
+		 */
+		ON_LS,
+
+		/**
+		 * Account is on GameServer.
+		 */
+		ON_GS,
+
+		/**
+		 * Account left GameServer and may reconnect to LoginServer with reconnection key.
+		 */
+		RECONNECTING
+	}
+
+	/**
+	 * Immutable session of one account.
+	 */
+	public static final class Session
+	{
+		/**
+		 * State of session.
+		 */
+		private final SessionState		state;
+
+		/**
+		 * Account of session.
+		 */
+		private final Account			account;
+
+		/**
+		 * Connection of account if state is ON_LS.
+		 */
+		private final AionConnection	connection;
+
+		/**
+		 * GameServer id if state is ON_GS.
+		 */
+		private final byte				serverId;
+
+		/**
+		 * Reconnection key if state is RECONNECTING.
+		 */
+		private final int				reconnectionKey;
+
+		/**
+		 * Expiration time in millis if state is RECONNECTING.
+		 */
+		private final long				expires;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param state
+		 * @param account
+		 * @param connection
+		 * @param serverId
+		 * @param reconnectionKey
+		 * @param expires
+		 */
+		private Session(SessionState state, Account account, AionConnection connection, byte serverId,
+			int reconnectionKey, long expires)
+		{
+			this.state = state;
+			this.account = account;
+			this.connection = connection;
+			this.serverId = serverId;
+			this.reconnectionKey = reconnectionKey;
+			this.expires = expires;
+		}
+
+		/**
+		 * @return state of session
+		 */
+		public SessionState getState()
+		{
+			return state;
+		}
+
+		/**
+		 * @return account of session
+		 */
+		public Account getAccount()
+		{
+			return account;
+		}
+
+		/**
+		 * @return connection of account if state is ON_LS, null otherwise
+		 */
+		public AionConnection getConnection()
+		{
+			return connection;
+		}
+
+		/**
+		 * @return GameServer id if state is ON_GS, -1 otherwise
+		 */
+		public byte getServerId()
+		{
+			return serverId;
+		}
+
+		/**
+		 * @return true if session is RECONNECTING and its reconnection time passed
+		 */
+		private boolean isExpired(long now)
+		{
+			return state == SessionState.RECONNECTING && expires <= now;
+		}
+	}
+
+	/**
+	 * Sessions by account id.
+	 */
+	private static final ConcurrentMap<Integer, Session>	sessions	= new ConcurrentHashMap<Integer, Session>(1024,
+																			0.75f, 64);
+
+	/**
+	 * Starts task that removes expired reconnecting sessions.
+	 */
+	public static void init()
+	{
+		long period = TimeUnit.SECONDS.toMillis(Math.max(1, Config.RECONNECT_TIMEOUT));
+		ThreadPoolManager.getInstance().scheduleAtFixedRate(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				removeExpired();
+			}
+		}, period, period);
+	}
+
+	/**
+	 * Returns session of account or null if account has no session.
+	 * 
+	 * @param accountId
+	 * @return session or null
+	 */
+	public static Session get(int accountId)
+	{
+		return sessions.get(accountId);
+	}
+
+	/**
+	 * Returns id of GameServer on which account is.
+	 * 
+	 * @param accountId
+	 * @return GameServer id or -1 if account is not on any GameServer
+	 */
+	public static byte getServerId(int accountId)
+	{
+		Session session = sessions.get(accountId);
+		return session != null && session.state == SessionState.ON_GS ? session.serverId : -1;
+	}
+
+	/**
+	 * Sets ON_LS session of account if its current session is still expected one.
+	 * 
+	 * @param account
+	 * @param connection
+	 * @param expected
+	 *            current session or null if account has no session
+	 * @return true if session was set
+	 */
+	public static boolean putOnLS(Account account, AionConnection connection, Session expected)
+	{
+		Session session = new Session(SessionState.ON_LS, account, connection, (byte) -1, 0, 0);
+		if(expected == null)
+			return sessions.putIfAbsent(account.getId(), session) == null;
+		return sessions.replace(account.getId(), expected, session);
+	}
+
+	/**
+	 * Removes ON_LS session of account if it belongs to given connection.
+	 * 
+	 * @param accountId
+	 * @param connection
+	 * @return true if session was removed
+	 */
+	public static boolean removeFromLS(int accountId, AionConnection connection)
+	{
+		Session session = sessions.get(accountId);
+		return session != null && session.state == SessionState.ON_LS && session.connection == connection
+			&& sessions.remove(accountId, session);
+	}
+
+	/**
+	 * Changes ON_LS session to ON_GS session.
+	 * 
+	 * @param expected
+	 *            current ON_LS session
+	 * @param serverId
+	 * @return true if session was changed
+	 */
+	public static boolean moveToGameServer(Session expected, byte serverId)
+	{
+		Account account = expected.account;
+		return sessions.replace(account.getId(), expected, new Session(SessionState.ON_GS, account, null, serverId, 0,
+			0));
+	}
+
+	/**
+	 * Sets ON_GS session of account, replacing any other session.
+	 * 
+	 * @param account
+	 * @param serverId
+	 */
+	public static void putOnGameServer(Account account, byte serverId)
+	{
+		sessions.put(account.getId(), new Session(SessionState.ON_GS, account, null, serverId, 0, 0));
+	}
+
+	/**
+	 * Removes ON_GS session of account if account is on given GameServer.
+	 * 
+	 * @param accountId
+	 * @param serverId
+	 * @return true if session was removed
+	 */
+	public static boolean removeFromGameServer(int accountId, byte serverId)
+	{
+		Session session = sessions.get(accountId);
+		return session != null && session.state == SessionState.ON_GS && session.serverId == serverId
+			&& sessions.remove(accountId, session);
+	}
+
+	/**
+	 * Sets RECONNECTING session of account, replacing any other session. Session expires after
+	 * {@link Config#RECONNECT_TIMEOUT} seconds.
+	 * 
+	 * @param account
+	 * @param reconnectionKey
+	 */
+	public static void putReconnecting(Account account, int reconnectionKey)
+	{
+		long expires = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Config.RECONNECT_TIMEOUT);
+		sessions.put(account.getId(), new Session(SessionState.RECONNECTING, account, null, (byte) -1,
+			reconnectionKey, expires));
+	}
+
+	/**
+	 * Changes RECONNECTING session to ON_LS session if reconnection key is valid and session is not expired.
+	 * 
+	 * @param accountId
+	 * @param reconnectionKey
+	 * @param connection
+	 * @return reconnected account or null
+	 */
+	public static Account reconnect(int accountId, int reconnectionKey, AionConnection connection)
+	{
+		Session session = sessions.get(accountId);
+		if(session == null || session.state != SessionState.RECONNECTING)
+			return null;
+
+		if(session.reconnectionKey != reconnectionKey || session.isExpired(System.currentTimeMillis()))
+		{
+			sessions.remove(accountId, session);
+			return null;
+		}
+		return putOnLS(session.account, connection, session) ? session.account : null;
+	}
+
+	/**
+	 * Removes expired reconnecting sessions.
+	 */
+	private static void removeExpired()
+	{
+		long now = System.currentTimeMillis();
+		for(Map.Entry<Integer, Session> e : sessions.entrySet())
+		{
+			if(e.getValue().isExpired(now))
+				sessions.remove(e.getKey(), e.getValue());
+		}
+	}
+}
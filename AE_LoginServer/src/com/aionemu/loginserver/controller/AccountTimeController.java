@@ -96,6 +96,7 @@ public class AccountTimeController
 		accountTime.setAccumulatedOnlineTime(accountTime.getAccumulatedOnlineTime() + accountTime.getSessionDuration());
 		DAOManager.getDAO(AccountTimeDAO.class).updateAccountTime(account.getId(), accountTime);
 		account.setAccountTime(accountTime);
+		AccountCache.put(account);
 	}
 
 	/**
@@ -38,12 +38,17 @@ public class BannedIpController
 	/**
 	 * Logger for this class.
 	 */
-	private static final Logger		log	= Logger.getLogger(BannedIpController.class);
+	private static final Logger				log	= Logger.getLogger(BannedIpController.class);
 
 	/**
 	 * List of banned ip adresses
 	 */
-	private static Set<BannedIP>	banList;
+	private static Set<BannedIP>			banList;
+
+	/**
+	 * Index of active bans from banList, rebuilt when banList changes or one of indexed bans expires
+	 */
+	private static volatile BannedIpIndex	index;
 
 	/**
 	 * Loads list of banned ips
@@ -60,9 +65,18 @@ public class BannedIpController
 	{
 		// we are not going to make ip ban every minute, so it's ok to simplify a concurrent code a bit
 		banList = new CopyOnWriteArraySet<BannedIP>(getDAO().getAllBans());
+		rebuildIndex();
 		log.info("BannedIpController loaded " + banList.size() + " IP bans.");
 	}
 
+	/**
+	 * Rebuilds index of active bans
+	 */
+	private static synchronized void rebuildIndex()
+	{
+		index = new BannedIpIndex(banList, System.currentTimeMillis());
+	}
+
 	/**
 	 * Checks if ip (or mask) is banned
 	 * 
@@ -72,12 +86,25 @@ public class BannedIpController
 	 */
 	public static boolean isBanned(String ip)
 	{
-		for (BannedIP ipBan : banList)
+		long address = NetworkUtils.parseIp(ip);
+		if (address < 0)
 		{
-			if (ipBan.isActive() && NetworkUtils.checkIPMatching(ipBan.getMask(), ip))
-				return true;
+			for (BannedIP ipBan : banList)
+			{
+				if (ipBan.isActive() && NetworkUtils.checkIPMatching(ipBan.getMask(), ip))
+					return true;
+			}
+			return false;
 		}
-		return false;
+
+		BannedIpIndex idx = index;
+		/* expired bans are removed from index by rebuilding it when the first of them expires */
+		if (idx.getNextExpiry() <= System.currentTimeMillis())
+		{
+			rebuildIndex();
+			idx = index;
+		}
+		return idx.isBanned(address);
 	}
 
 	/**
@@ -109,6 +136,7 @@ public class BannedIpController
 		if (getDAO().insert(ipBan))
 		{
 			banList.add(ipBan);
+			rebuildIndex();
 			return true;
 		}
 		return false;
@@ -128,13 +156,19 @@ public class BannedIpController
 			if (getDAO().insert(ipBan))
 			{
 				banList.add(ipBan);
+				rebuildIndex();
 				return true;
 			}
 			else
 				return false;
 		}
+		else if (getDAO().update(ipBan))
+		{
+			rebuildIndex();
+			return true;
+		}
 		else
-			return getDAO().update(ipBan);
+			return false;
 	}
 
 	/**
@@ -154,7 +188,8 @@ public class BannedIpController
 			{
 				if (getDAO().remove(ipBan))
 				{
-					it.remove();
+					banList.remove(ipBan);
+					rebuildIndex();
 					return true;
 				}
 				else
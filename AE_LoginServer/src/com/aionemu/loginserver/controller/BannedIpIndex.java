@@ -0,0 +1,173 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.loginserver.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.aionemu.commons.utils.IPMask;
+import com.aionemu.loginserver.model.BannedIP;
+
+/**
+ * Immutable index of active ip bans. Masks that are continuous ranges of addresses are merged into sorted, disjoint
+ * ranges that are binary searched, other masks [like 10.*.5.*] are matched one by one. Index must be rebuilt when bans
+ * change or when {@link #getNextExpiry()} passes.
+ * 
+ * @author agent
+ */
+final class BannedIpIndex
+{
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger	log	= Logger.getLogger(BannedIpIndex.class);
+
+	/**
+	 * First addresses of banned ranges, sorted.
+	 */
+	private final long[]		starts;
+
+	/**
+	 * Last addresses of banned ranges.
+	 */
+	private final long[]		ends;
+
+	/**
+	 * Masks that are not continuous ranges.
+	 */
+	private final IPMask[]		masks;
+
+	/**
+	 * Time when the first of indexed bans expires, Long.MAX_VALUE if none of them expires.
+	 */
+	private final long			nextExpiry;
+
+	/**
+	 * Builds index of bans that are active at given time.
+	 * 
+	 * @param bans
+	 * @param now
+	 */
+	BannedIpIndex(Collection<BannedIP> bans, long now)
+	{
+		List<long[]> ranges = new ArrayList<long[]>(bans.size());
+		List<IPMask> other = new ArrayList<IPMask>();
+		long expiry = Long.MAX_VALUE;
+
+		for(BannedIP ban : bans)
+		{
+			if(ban.getTimeEnd() != null)
+			{
+				long timeEnd = ban.getTimeEnd().getTime();
+				if(timeEnd <= now)
+					continue;
+				expiry = Math.min(expiry, timeEnd);
+			}
+
+			IPMask mask;
+			try
+			{
+				mask = new IPMask(ban.getMask());
+			}
+			catch(IllegalArgumentException e)
+			{
+				log.warn("Ignoring ip ban with invalid mask: " + ban.getMask());
+				continue;
+			}
+
+			if(mask.isContinuous())
+				ranges.add(new long[] { mask.getLow(), mask.getHigh() });
+			else
+				other.add(mask);
+		}
+
+		long[][] sorted = ranges.toArray(new long[ranges.size()][]);
+		Arrays.sort(sorted, new Comparator<long[]>()
+		{
+			@Override
+			public int compare(long[] o1, long[] o2)
+			{
+				return o1[0] < o2[0] ? -1 : o1[0] == o2[0] ? 0 : 1;
+			}
+		});
+
+		/* merge overlapping and adjacent ranges */
+		long[] s = new long[sorted.length];
+		long[] e = new long[sorted.length];
+		int n = 0;
+		for(long[] range : sorted)
+		{
+			if(n > 0 && range[0] <= e[n - 1] + 1)
+				e[n - 1] = Math.max(e[n - 1], range[1]);
+			else
+			{
+				s[n] = range[0];
+				e[n] = range[1];
+				n++;
+			}
+		}
+
+		this.starts = Arrays.copyOf(s, n);
+		this.ends = Arrays.copyOf(e, n);
+		this.masks = other.toArray(new IPMask[other.size()]);
+		this.nextExpiry = expiry;
+	}
+
+	/**
+	 * Checks if address is banned.
+	 * 
+	 * @param address
+	 *            address as returned by {@link com.aionemu.commons.utils.NetworkUtils#parseIp(String)}
+	 * @return true if address is banned
+	 */
+	boolean isBanned(long address)
+	{
+		int i = Arrays.binarySearch(starts, address);
+		if(i < 0)
+			i = -i - 2;
+		if(i >= 0 && address <= ends[i])
+			return true;
+
+		for(IPMask mask : masks)
+		{
+			if(mask.matches(address))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return time when the first of indexed bans expires, Long.MAX_VALUE if none of them expires.
+	 */
+	long getNextExpiry()
+	{
+		return nextExpiry;
+	}
+
+	/**
+	 * @return number of indexed ranges and masks.
+	 */
+	int size()
+	{
+		return starts.length + masks.length;
+	}
+}
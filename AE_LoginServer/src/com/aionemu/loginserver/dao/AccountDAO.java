@@ -36,6 +36,15 @@ public abstract class AccountDAO implements DAO
 	 */
 	public abstract Account getAccount(String name);
 
+	/**
+	 * Returns account by name with its AccountTime [loaded by the same query] or null
+	 *
+	 * @param name
+	 *            account name
+	 * @return account object or null
+	 */
+	public abstract Account getAccountWithTime(String name);
+
 	/**
 	 * Retuns account id or -1 in case of error
 	 *
@@ -43,7 +43,8 @@ public class IOServer
 		ServerCfg gs = new ServerCfg(Config.GAME_BIND_ADDRESS, Config.GAME_PORT, "Gs Connections",
 			new GsConnectionFactoryImpl());
 
-		instance = new NioServer(Config.NIO_READ_THREADS, ThreadPoolManager.getInstance(), gs, aion);
+		instance = new NioServer(Config.NIO_READ_THREADS, Config.NIO_ACCEPT_THREADS, ThreadPoolManager.getInstance(),
+			gs, aion);
 	}
 
 	/**
@@ -18,8 +18,12 @@
 package com.aionemu.loginserver.network.aion;
 
 import com.aionemu.commons.network.AConnection;
+import com.aionemu.commons.network.AffinityPacketProcessor;
 import com.aionemu.commons.network.Dispatcher;
+import com.aionemu.commons.network.PacketExecutor;
 import com.aionemu.commons.network.PacketProcessor;
+import com.aionemu.commons.network.metrics.NetworkMetrics;
+import com.aionemu.loginserver.configs.Config;
 import com.aionemu.loginserver.controller.AccountController;
 import com.aionemu.loginserver.controller.AccountTimeController;
 import com.aionemu.loginserver.model.Account;
@@ -36,6 +40,7 @@ import java.nio.channels.SocketChannel;
 import java.security.interfaces.RSAPrivateKey;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Object representing connection between LoginServer and Aion Client.
@@ -51,7 +56,11 @@ public class AionConnection extends AConnection
 	/**
 	 * PacketProcessor for executing packets.
 	 */
-	private final static PacketProcessor<AionConnection>	processor		= new PacketProcessor<AionConnection>(1, 8);
+	private final static PacketExecutor<AionConnection>	processor		= Config.PACKET_PROCESSOR_AFFINITY
+																				? new AffinityPacketProcessor<AionConnection>(
+																					Config.PACKET_PROCESSOR_THREADS)
+																				: new PacketProcessor<AionConnection>(1,
+																					Config.PACKET_PROCESSOR_THREADS);
 	/**
 	 * Server Packet "to send" Queue
 	 */
@@ -66,7 +75,7 @@ public class AionConnection extends AConnection
 	 * Account object for this connection. if state = AUTHED_LOGIN account cant be null.
 	 * 
 	 */
-	private Account											account;
+	private volatile Account								account;
 
 	/**
 	 * Crypt to encrypt/decrypt packets
@@ -86,12 +95,17 @@ public class AionConnection extends AConnection
 	/**
 	 * Session Key for this connection.
 	 */
-	private SessionKey										sessionKey;
+	private volatile SessionKey								sessionKey;
 
 	/**
 	 * Current state of this connection
 	 */
-	private State											state;
+	private volatile State									state;
+
+	/**
+	 * True while login data of this connection is decrypted and checked by login crypto pool.
+	 */
+	private final AtomicBoolean								loginPending	= new AtomicBoolean();
 
 	/**
 	 * Possible states of AionConnection
@@ -115,7 +129,7 @@ public class AionConnection extends AConnection
 	}
 
 	/**
-	 * Constructor
+	 * Constructor.
 	 * 
 	 * @param sc
 	 * @param d
@@ -157,6 +171,7 @@ public class AionConnection extends AConnection
 			return false;
 		}
 
+		int size = data.remaining();
 		AionClientPacket pck = AionPacketHandler.handle(data, this);
 
 		log.info("recived packet: " + pck);
@@ -164,8 +179,15 @@ public class AionConnection extends AConnection
 		/**
 		 * Execute packet only if packet exist (!= null) and read was ok.
 		 */
-		if ((pck != null) && pck.read())
-			processor.executePacket(pck);
+		if (pck != null)
+		{
+			long start = System.nanoTime();
+			if (pck.read())
+			{
+				NetworkMetrics.recordDecode(pck.getOpcode(), size, System.nanoTime() - start);
+				processor.executePacket(pck);
+			}
+		}
 
 		return true;
 	}
@@ -216,7 +238,7 @@ public class AionConnection extends AConnection
 		 */
 		if ((account != null) && !joinedGs)
 		{
-			AccountController.removeAccountOnLS(account);
+			AccountController.removeAccountOnLS(account, this);
 			AccountTimeController.updateOnLogout(account);
 		}
 	}
@@ -240,8 +262,7 @@ public class AionConnection extends AConnection
 	private boolean decrypt(ByteBuffer buf)
 	{
 		int size = buf.remaining();
-		final int offset = buf.arrayOffset() + buf.position();
-		boolean ret = cryptEngine.decrypt(buf.array(), offset, size);
+		boolean ret = cryptEngine.decrypt(buf, buf.position(), size);
 
 		if (!ret)
 		{
@@ -260,9 +281,10 @@ public class AionConnection extends AConnection
 	public final int encrypt(ByteBuffer buf)
 	{
 		int size = buf.limit() - 2;
-		final int offset = buf.arrayOffset() + buf.position();
 
-		size = cryptEngine.encrypt(buf.array(), offset, size);
+		/** encrypted packet is longer [checksum and padding] */
+		buf.limit(buf.capacity());
+		size = cryptEngine.encrypt(buf, buf.position(), size);
 
 		return size;
 	}
@@ -331,6 +353,16 @@ public class AionConnection extends AConnection
 		return encryptedRSAKeyPair.getEncryptedModulus();
 	}
 
+	/**
+	 * Return RSA key pair used by this connection
+	 * 
+	 * @return rsa key pair
+	 */
+	public final EncryptedRSAKeyPair getEncryptedRSAKeyPair()
+	{
+		return encryptedRSAKeyPair;
+	}
+
 	/**
 	 * Return RSA private key
 	 * 
@@ -341,6 +373,24 @@ public class AionConnection extends AConnection
 		return (RSAPrivateKey) encryptedRSAKeyPair.getRSAKeyPair().getPrivate();
 	}
 
+	/**
+	 * Mark that login of this connection is being processed.
+	 * 
+	 * @return false if login of this connection is already being processed
+	 */
+	public final boolean beginLogin()
+	{
+		return loginPending.compareAndSet(false, true);
+	}
+
+	/**
+	 * Mark that login of this connection was processed.
+	 */
+	public final void endLogin()
+	{
+		loginPending.set(false);
+	}
+
 	/**
 	 * Returns unique sessionId of this connection.
 	 * 
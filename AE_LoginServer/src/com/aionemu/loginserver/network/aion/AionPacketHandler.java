@@ -24,6 +24,9 @@ import com.aionemu.loginserver.network.aion.clientpackets.CM_SERVER_LIST;
 import com.aionemu.loginserver.network.aion.clientpackets.CM_UPDATE_SESSION;
 import org.apache.log4j.Logger;
 
+import com.aionemu.commons.network.packet.ClientPacketFactory;
+import com.aionemu.commons.network.packet.ClientPacketTable;
+
 import java.nio.ByteBuffer;
 
 /**
@@ -34,7 +37,53 @@ public class AionPacketHandler
 	/**
 	 * logger for this class
 	 */
-	private static final Logger	log	= Logger.getLogger(AionPacketHandler.class);
+	private static final Logger												log		= Logger
+																						.getLogger(AionPacketHandler.class);
+
+	/**
+	 * Client packet factories indexed by state and opcode.
+	 */
+	private static final ClientPacketTable<State, AionConnection, AionClientPacket>	packets	= new ClientPacketTable<State, AionConnection, AionClientPacket>(
+																						State.class);
+
+	static
+	{
+		packets.addFactory(0x07, new ClientPacketFactory<AionConnection, AionClientPacket>(){
+			@Override
+			public AionClientPacket newPacket(ByteBuffer buf, AionConnection con)
+			{
+				return new CM_AUTH_GG(buf, con);
+			}
+		}, State.CONNECTED);
+		packets.addFactory(0x08, new ClientPacketFactory<AionConnection, AionClientPacket>(){
+			@Override
+			public AionClientPacket newPacket(ByteBuffer buf, AionConnection con)
+			{
+				return new CM_UPDATE_SESSION(buf, con);
+			}
+		}, State.CONNECTED);
+		packets.addFactory(0x0B, new ClientPacketFactory<AionConnection, AionClientPacket>(){
+			@Override
+			public AionClientPacket newPacket(ByteBuffer buf, AionConnection con)
+			{
+				return new CM_LOGIN(buf, con);
+			}
+		}, State.AUTHED_GG);
+		packets.addFactory(0x05, new ClientPacketFactory<AionConnection, AionClientPacket>(){
+			@Override
+			public AionClientPacket newPacket(ByteBuffer buf, AionConnection con)
+			{
+				return new CM_SERVER_LIST(buf, con);
+			}
+		}, State.AUTHED_LOGIN);
+		packets.addFactory(0x02, new ClientPacketFactory<AionConnection, AionClientPacket>(){
+			@Override
+			public AionClientPacket newPacket(ByteBuffer buf, AionConnection con)
+			{
+				return new CM_PLAY(buf, con);
+			}
+		}, State.AUTHED_LOGIN);
+	}
 
 	/**
 	 * Reads one packet from given ByteBuffer
@@ -45,55 +94,13 @@ public class AionPacketHandler
 	 */
 	public static AionClientPacket handle(ByteBuffer data, AionConnection client)
 	{
-		AionClientPacket msg = null;
 		State state = client.getState();
 		int id = data.get() & 0xff;
 
-		switch (state)
-		{
-			case CONNECTED:
-			{
-				switch (id)
-				{
-					case 0x07:
-						msg = new CM_AUTH_GG(data, client);
-						break;
-					case 0x08:
-						msg = new CM_UPDATE_SESSION(data, client);
-						break;
-					default:
-						unknownPacket(state, id);
-				}
-				break;
-			}
-			case AUTHED_GG:
-			{
-				switch (id)
-				{
-					case 0x0B:
-						msg = new CM_LOGIN(data, client);
-						break;
-					default:
-						unknownPacket(state, id);
-				}
-				break;
-			}
-			case AUTHED_LOGIN:
-			{
-				switch (id)
-				{
-					case 0x05:
-						msg = new CM_SERVER_LIST(data, client);
-						break;
-					case 0x02:
-						msg = new CM_PLAY(data, client);
-						break;
-					default:
-						unknownPacket(state, id);
-				}
-				break;
-			}
-		}
+		AionClientPacket msg = packets.getPacket(state, id, data, client);
+		if (msg == null)
+			unknownPacket(state, id);
+
 		return msg;
 	}
 
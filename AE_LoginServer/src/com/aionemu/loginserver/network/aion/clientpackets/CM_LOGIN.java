@@ -24,9 +24,9 @@ import com.aionemu.loginserver.network.aion.AionConnection.State;
 import com.aionemu.loginserver.network.aion.SessionKey;
 import com.aionemu.loginserver.network.aion.serverpackets.SM_LOGIN_FAIL;
 import com.aionemu.loginserver.network.aion.serverpackets.SM_LOGIN_OK;
+import com.aionemu.loginserver.utils.ThreadPoolManager;
 import org.apache.log4j.Logger;
 
-import javax.crypto.Cipher;
 import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 
@@ -77,42 +77,106 @@ public class CM_LOGIN extends AionClientPacket
 		if (data == null)
 			return;
 
-		byte[] decrypted;
-		try
+		AionConnection client = getConnection();
+		/* client sent login again before previous one was processed */
+		if (!client.beginLogin())
+			return;
+
+		/* RSA decryption and account check are done by login crypto pool, so they don't block packet processor */
+		if (!ThreadPoolManager.getInstance().executeLoginCrypto(new LoginTask(client, data)))
 		{
-			Cipher rsaCipher = Cipher.getInstance("RSA/ECB/nopadding");
-			rsaCipher.init(Cipher.DECRYPT_MODE, getConnection().getRSAPrivateKey());
-			decrypted = rsaCipher.doFinal(data, 0, 128);
+			client.endLogin();
+			log.warn("Login crypto pool is overloaded, refusing login from " + client.getIP());
+			client.close(new SM_LOGIN_FAIL(AionAuthResponse.SYSTEM_ERROR), true);
 		}
-		catch (GeneralSecurityException e)
+	}
+
+	/**
+	 * Decrypts login data with RSA key pair of connection, checks account and sends result back to connection.
+	 */
+	private static class LoginTask implements Runnable
+	{
+		/**
+		 * Connection that is logging in.
+		 */
+		private final AionConnection	client;
+
+		/**
+		 * Encrypted login and password.
+		 */
+		private final byte[]			data;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param client
+		 * @param data
+		 */
+		private LoginTask(AionConnection client, byte[] data)
 		{
-			log.warn("Error while decripting data on user auth." + e, e);
-			sendPacket(new SM_LOGIN_FAIL(AionAuthResponse.SYSTEM_ERROR));
-			return;
+			this.client = client;
+			this.data = data;
 		}
-		String user = new String(decrypted, 64, 32).trim().toLowerCase();
-		String password = new String(decrypted, 96, 32).trim().toLowerCase();
-
-		int ncotp = decrypted[0x7c];
-		ncotp |= decrypted[0x7d] << 8;
-		ncotp |= decrypted[0x7e] << 16;
-		ncotp |= decrypted[0x7f] << 24;
 
-		log.debug("AuthLogin: " + user + " pass: " + password + " ncotp: " + ncotp);
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run()
+		{
+			try
+			{
+				login();
+			}
+			catch (Throwable e)
+			{
+				log.error("error handling login of client (" + client.getIP() + ")", e);
+			}
+			finally
+			{
+				client.endLogin();
+			}
+		}
 
-		AionConnection client = getConnection();
-		AionAuthResponse response = AccountController.login(user, password, client);
-		switch (response)
+		/**
+		 * Decrypt login data and authenticate client.
+		 */
+		private void login()
 		{
-			case AUTHED:
-				client.setState(State.AUTHED_LOGIN);
-				client.setSessionKey(new SessionKey(client.getAccount()));
-				client.sendPacket(new SM_LOGIN_OK(client.getSessionKey()));
-				break;
-
-			default:
-				client.close(new SM_LOGIN_FAIL(response), true);
-				break;
+			byte[] decrypted;
+			try
+			{
+				decrypted = client.getEncryptedRSAKeyPair().decrypt(data, 0, 128);
+			}
+			catch (GeneralSecurityException e)
+			{
+				log.warn("Error while decripting data on user auth." + e, e);
+				client.sendPacket(new SM_LOGIN_FAIL(AionAuthResponse.SYSTEM_ERROR));
+				return;
+			}
+			String user = new String(decrypted, 64, 32).trim().toLowerCase();
+			String password = new String(decrypted, 96, 32).trim().toLowerCase();
+
+			int ncotp = decrypted[0x7c];
+			ncotp |= decrypted[0x7d] << 8;
+			ncotp |= decrypted[0x7e] << 16;
+			ncotp |= decrypted[0x7f] << 24;
+
+			log.debug("AuthLogin: " + user + " pass: " + password + " ncotp: " + ncotp);
+
+			AionAuthResponse response = AccountController.login(user, password, client);
+			switch (response)
+			{
+				case AUTHED:
+					client.setState(State.AUTHED_LOGIN);
+					client.setSessionKey(new SessionKey(client.getAccount()));
+					client.sendPacket(new SM_LOGIN_OK(client.getSessionKey()));
+					break;
+
+				default:
+					client.close(new SM_LOGIN_FAIL(response), true);
+					break;
+			}
 		}
 	}
-}
\ No newline at end of file
+}
@@ -20,6 +20,8 @@ import java.nio.ByteBuffer;
 
 import org.apache.log4j.Logger;
 
+import com.aionemu.commons.network.packet.ClientPacketFactory;
+import com.aionemu.commons.network.packet.ClientPacketTable;
 import com.aionemu.loginserver.network.gameserver.GsConnection.State;
 import com.aionemu.loginserver.network.gameserver.clientpackets.CM_ACCOUNT_AUTH;
 import com.aionemu.loginserver.network.gameserver.clientpackets.CM_ACCOUNT_DISCONNECTED;
@@ -35,7 +37,52 @@ public class GsPacketHandler
 	/**
 	 * logger for this class
 	 */
-	private static final Logger	log	= Logger.getLogger(GsPacketHandler.class);
+	private static final Logger											log		= Logger.getLogger(GsPacketHandler.class);
+
+	/**
+	 * Client packet factories indexed by state and opcode.
+	 */
+	private static final ClientPacketTable<State, GsConnection, GsClientPacket>	packets	= new ClientPacketTable<State, GsConnection, GsClientPacket>(
+																					State.class);
+
+	static
+	{
+		packets.addFactory(0x00, new ClientPacketFactory<GsConnection, GsClientPacket>(){
+			@Override
+			public GsClientPacket newPacket(ByteBuffer buf, GsConnection con)
+			{
+				return new CM_GS_AUTH(buf, con);
+			}
+		}, State.CONNECTED);
+		packets.addFactory(0x01, new ClientPacketFactory<GsConnection, GsClientPacket>(){
+			@Override
+			public GsClientPacket newPacket(ByteBuffer buf, GsConnection con)
+			{
+				return new CM_ACCOUNT_AUTH(buf, con);
+			}
+		}, State.AUTHED);
+		packets.addFactory(0x02, new ClientPacketFactory<GsConnection, GsClientPacket>(){
+			@Override
+			public GsClientPacket newPacket(ByteBuffer buf, GsConnection con)
+			{
+				return new CM_ACCOUNT_RECONNECT_KEY(buf, con);
+			}
+		}, State.AUTHED);
+		packets.addFactory(0x03, new ClientPacketFactory<GsConnection, GsClientPacket>(){
+			@Override
+			public GsClientPacket newPacket(ByteBuffer buf, GsConnection con)
+			{
+				return new CM_ACCOUNT_DISCONNECTED(buf, con);
+			}
+		}, State.AUTHED);
+		packets.addFactory(0x04, new ClientPacketFactory<GsConnection, GsClientPacket>(){
+			@Override
+			public GsClientPacket newPacket(ByteBuffer buf, GsConnection con)
+			{
+				return new CM_ACCOUNT_LIST(buf, con);
+			}
+		}, State.AUTHED);
+	}
 
 	/**
 	 * Reads one packet from given ByteBuffer
@@ -46,46 +93,13 @@ public class GsPacketHandler
 	 */
 	public static GsClientPacket handle(ByteBuffer data, GsConnection client)
 	{
-		GsClientPacket msg = null;
 		State state = client.getState();
 		int id = data.get() & 0xff;
 
-		switch (state)
-		{
-			case CONNECTED:
-			{
-				switch (id)
-				{
-					case 0x00:
-						msg = new CM_GS_AUTH(data, client);
-						break;
-					default:
-						unknownPacket(state, id);
-				}
-				break;
-			}
-			case AUTHED:
-			{
-				switch (id)
-				{
-					case 0x01:
-						msg = new CM_ACCOUNT_AUTH(data, client);
-						break;
-					case 0x02:
-						msg = new CM_ACCOUNT_RECONNECT_KEY(data, client);
-						break;
-					case 0x03:
-						msg = new CM_ACCOUNT_DISCONNECTED(data, client);
-						break;
-					case 0x04:
-						msg = new CM_ACCOUNT_LIST(data, client);
-						break;
-					default:
-						unknownPacket(state, id);
-				}
-				break;
-			}
-		}
+		GsClientPacket msg = packets.getPacket(state, id, data, client);
+		if (msg == null)
+			unknownPacket(state, id);
+
 		return msg;
 	}
 
@@ -17,9 +17,15 @@
  */
 package com.aionemu.loginserver.network.ncrypt;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * Blowfish Cipher - symmetric 16-round cipher, uses 64-bit blocks,
- * 32-448 key size and key-dependend 32-bit four S-boxes
+ * 32-448 key size and key-dependend 32-bit four S-boxes.<br>
+ * Rounds are unrolled and packets are processed in place, from byte arrays
+ * or directly from ByteBuffers [heap or direct]. Ciphering doesn't change
+ * state of cipher, so one instance may be shared by many threads.
  *
  * @author EvilSpirit
  */
@@ -168,9 +174,12 @@ public class BlowfishCipher
     };
 
     // Blowfish cipher secret key
-    private byte[]  blowfishKey;
-    private int[]   pArray;
-    private int[][] sBoxes;
+    private byte[]      blowfishKey;
+    private final int[] pArray = new int[18];
+    private final int[] sBox0  = new int[256];
+    private final int[] sBox1  = new int[256];
+    private final int[] sBox2  = new int[256];
+    private final int[] sBox3  = new int[256];
 
     /**
      * Default constructor. Initializes the Blowfish Cipher with blowfishKey
@@ -178,8 +187,6 @@ public class BlowfishCipher
      */
     public BlowfishCipher(byte[] blowfishKey)
     {
-        pArray = new int[18];
-        sBoxes = new int[4][256];
         updateKey(blowfishKey);
     }
 
@@ -190,10 +197,10 @@ public class BlowfishCipher
     public void updateKey(byte[] blowfishKey)
     {
         this.blowfishKey = blowfishKey;
-        System.arraycopy(SBOX_INIT_0, 0, sBoxes[0], 0, 256);
-        System.arraycopy(SBOX_INIT_1, 0, sBoxes[1], 0, 256);
-        System.arraycopy(SBOX_INIT_2, 0, sBoxes[2], 0, 256);
-        System.arraycopy(SBOX_INIT_3, 0, sBoxes[3], 0, 256);
+        System.arraycopy(SBOX_INIT_0, 0, sBox0, 0, 256);
+        System.arraycopy(SBOX_INIT_1, 0, sBox1, 0, 256);
+        System.arraycopy(SBOX_INIT_2, 0, sBox2, 0, 256);
+        System.arraycopy(SBOX_INIT_3, 0, sBox3, 0, 256);
         initArrays();
     }
 
@@ -221,29 +228,33 @@ public class BlowfishCipher
             pArray[i] = PARRAY_INIT[i] ^ data;
         }
 
-        byte[] b = new byte[8];
-
-        for (int i = 0; i < 18; i += 2)
-        {
-            cipher(b);
-            pArray[i]     = byteArrayToInteger(b, 0);
-            pArray[i + 1] = byteArrayToInteger(b, 4);
-        }
+        // every table is filled by ciphering of previous block, starting with zeros
+        long block = 0;
 
-        for (int i = 0; i < 4; i++)
-        {
-            initSBox(b, sBoxes[i]);
-        }
+        block = initTable(block, pArray, 18);
+        block = initTable(block, sBox0, 256);
+        block = initTable(block, sBox1, 256);
+        block = initTable(block, sBox2, 256);
+        initTable(block, sBox3, 256);
     }
 
-    private void initSBox(byte[] b, int[] sBox)
+    /**
+     * Fill table with ciphered blocks
+     * @param block previous block
+     * @param table table to fill
+     * @param size table size
+     * @return last ciphered block
+     */
+    private long initTable(long block, int[] table, int size)
     {
-        for (int j = 0; j < 256; j += 2)
+        for (int j = 0; j < size; j += 2)
         {
-            cipher(b);
-            sBox[j]     = byteArrayToInteger(b, 0);
-            sBox[j + 1] = byteArrayToInteger(b, 4);
+            block = encryptBlock((int) block, (int) (block >>> 32));
+            table[j]     = (int) block;
+            table[j + 1] = (int) (block >>> 32);
         }
+
+        return block;
     }
 
     /**
@@ -263,34 +274,37 @@ public class BlowfishCipher
      */
     public void cipher(byte[] data, int offset, int length)
     {
-        int blockNumber = length >> 3;
-        int p;
+        int end = offset + (length & ~7);
 
-        for (int k = 0; k < blockNumber; k++)
+        for (int p = offset; p < end; p += 8)
         {
-            p = offset + (k << 3);
+            long block = encryptBlock(byteArrayToInteger(data, p), byteArrayToInteger(data, p + 4));
+            integerToByteArray((int) block, data, p);
+            integerToByteArray((int) (block >>> 32), data, p + 4);
+        }
+    }
 
-            int xl = byteArrayToInteger(data, p);
-            int xr = byteArrayToInteger(data, p + 4);
-            int tmp;
+    /**
+     * Cipher the given ByteBuffer with Blowfish cipher. Buffer position, limit and order are not changed.
+     * @param buf buffer to be ciphered
+     * @param offset absolute buffer index
+     * @param length data length
+     */
+    public void cipher(ByteBuffer buf, int offset, int length)
+    {
+        ByteOrder order = buf.order();
+        buf.order(ByteOrder.LITTLE_ENDIAN);
 
-            for (int i = 0; i < 16; i++)
-            {
-                xl  = xl ^ pArray[i];
-                xr  = F(xl) ^ xr;
-                tmp = xl;
-                xl  = xr;
-                xr  = tmp;
-            }
+        int end = offset + (length & ~7);
 
-            tmp = xl;
-            xl  = xr;
-            xr  = tmp;
-            xr  ^= pArray[16];
-            xl  ^= pArray[17];
-            integerToByteArray(xl, data, p);
-            integerToByteArray(xr, data, p + 4);
+        for (int p = offset; p < end; p += 8)
+        {
+            long block = encryptBlock(buf.getInt(p), buf.getInt(p + 4));
+            buf.putInt(p, (int) block);
+            buf.putInt(p + 4, (int) (block >>> 32));
         }
+
+        buf.order(order);
     }
 
     /**
@@ -310,34 +324,103 @@ public class BlowfishCipher
      */
     public void decipher(byte[] data, int offset, int length)
     {
-        int blocks = length >> 3;
-        int p;
+        int end = offset + (length & ~7);
 
-        for (int k = 0; k < blocks; k++)
+        for (int p = offset; p < end; p += 8)
         {
-            p = offset + (k << 3);
+            long block = decryptBlock(byteArrayToInteger(data, p), byteArrayToInteger(data, p + 4));
+            integerToByteArray((int) block, data, p);
+            integerToByteArray((int) (block >>> 32), data, p + 4);
+        }
+    }
 
-            int lb = byteArrayToInteger(data, p);
-            int rb = byteArrayToInteger(data, p + 4);
-            int tmp;
+    /**
+     * Decipher the given ByteBuffer with Blowfish cipher. Buffer position, limit and order are not changed.
+     * @param buf buffer to be deciphered
+     * @param offset absolute buffer index
+     * @param length data length
+     */
+    public void decipher(ByteBuffer buf, int offset, int length)
+    {
+        ByteOrder order = buf.order();
+        buf.order(ByteOrder.LITTLE_ENDIAN);
 
-            for (int i = 17; i > 1; i--)
-            {
-                lb  = lb ^ pArray[i];
-                rb  = F(lb) ^ rb;
-                tmp = lb;
-                lb  = rb;
-                rb  = tmp;
-            }
+        int end = offset + (length & ~7);
 
-            tmp = lb;
-            lb  = rb;
-            rb  = tmp;
-            rb  ^= pArray[1];
-            lb  ^= pArray[0];
-            integerToByteArray(lb, data, p);
-            integerToByteArray(rb, data, p + 4);
+        for (int p = offset; p < end; p += 8)
+        {
+            long block = decryptBlock(buf.getInt(p), buf.getInt(p + 4));
+            buf.putInt(p, (int) block);
+            buf.putInt(p + 4, (int) (block >>> 32));
         }
+
+        buf.order(order);
+    }
+
+    /**
+     * Cipher one block - 16 unrolled rounds
+     * @param xl left half
+     * @param xr right half
+     * @return ciphered block: left half in low 32 bits, right half in high 32 bits
+     */
+    private long encryptBlock(int xl, int xr)
+    {
+        final int[] p = pArray;
+
+        xl ^= p[0];
+        xr ^= F(xl) ^ p[1];
+        xl ^= F(xr) ^ p[2];
+        xr ^= F(xl) ^ p[3];
+        xl ^= F(xr) ^ p[4];
+        xr ^= F(xl) ^ p[5];
+        xl ^= F(xr) ^ p[6];
+        xr ^= F(xl) ^ p[7];
+        xl ^= F(xr) ^ p[8];
+        xr ^= F(xl) ^ p[9];
+        xl ^= F(xr) ^ p[10];
+        xr ^= F(xl) ^ p[11];
+        xl ^= F(xr) ^ p[12];
+        xr ^= F(xl) ^ p[13];
+        xl ^= F(xr) ^ p[14];
+        xr ^= F(xl) ^ p[15];
+        xl ^= F(xr) ^ p[16];
+        xr ^= p[17];
+
+        // halves are swapped after last round
+        return ((long) xl << 32) | (xr & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Decipher one block - 16 unrolled rounds
+     * @param xl left half
+     * @param xr right half
+     * @return deciphered block: left half in low 32 bits, right half in high 32 bits
+     */
+    private long decryptBlock(int xl, int xr)
+    {
+        final int[] p = pArray;
+
+        xl ^= p[17];
+        xr ^= F(xl) ^ p[16];
+        xl ^= F(xr) ^ p[15];
+        xr ^= F(xl) ^ p[14];
+        xl ^= F(xr) ^ p[13];
+        xr ^= F(xl) ^ p[12];
+        xl ^= F(xr) ^ p[11];
+        xr ^= F(xl) ^ p[10];
+        xl ^= F(xr) ^ p[9];
+        xr ^= F(xl) ^ p[8];
+        xl ^= F(xr) ^ p[7];
+        xr ^= F(xl) ^ p[6];
+        xl ^= F(xr) ^ p[5];
+        xr ^= F(xl) ^ p[4];
+        xl ^= F(xr) ^ p[3];
+        xr ^= F(xl) ^ p[2];
+        xl ^= F(xr) ^ p[1];
+        xr ^= p[0];
+
+        // halves are swapped after last round
+        return ((long) xl << 32) | (xr & 0xFFFFFFFFL);
     }
 
     /**
@@ -347,22 +430,7 @@ public class BlowfishCipher
      */
     private int F(int x)
     {
-        int a, b, c, d;
-
-        d = x & 0xFF;
-        x >>= 8;
-        c = x & 0xFF;
-        x >>= 8;
-        b = x & 0xFF;
-        x >>= 8;
-        a = x & 0xFF;
-
-        int y = sBoxes[0][a] + sBoxes[1][b];
-
-        y ^= sBoxes[2][c];
-        y += sBoxes[3][d];
-
-        return y;
+        return ((sBox0[x >>> 24] + sBox1[x >>> 16 & 0xFF]) ^ sBox2[x >>> 8 & 0xFF]) + sBox3[x & 0xFF];
     }
 
     /**
@@ -17,23 +17,36 @@
  */
 package com.aionemu.loginserver.network.ncrypt;
 
+//~--- JDK imports ------------------------------------------------------------
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 //~--- non-JDK imports --------------------------------------------------------
 
 import com.aionemu.commons.utils.Rnd;
 
 /**
  * Crypto engine for ecnrypting/decrypting packets, error handling
- * and verifying checksum
+ * and verifying checksum. Packets are processed in place, directly in ByteBuffer.
  *
  * @author EvilSpirit
  */
 public class CryptEngine
 {
-    private byte[] key =
+    private static final byte[] INITIAL_KEY =
     {
         (byte) 0x6b, (byte) 0x60, (byte) 0xcb, (byte) 0x5b, (byte) 0x82, (byte) 0xce, (byte) 0x90, (byte) 0xb1,
         (byte) 0xcc, (byte) 0x2b, (byte) 0x6c, (byte) 0x55, (byte) 0x6c, (byte) 0x6c, (byte) 0x6c, (byte) 0x6c
     };
+
+    /**
+     * Key schedule of initial key is the same for every connection, so it's computed only once.
+     * Ciphering doesn't change cipher state, so it may be shared.
+     */
+    private static final BlowfishCipher INITIAL_CIPHER = new BlowfishCipher(INITIAL_KEY);
+
+    private byte[]         key;
     private boolean        updatedKey = false;
     private BlowfishCipher cipher;
 
@@ -43,7 +56,7 @@ public class CryptEngine
      */
     public CryptEngine()
     {
-        cipher = new BlowfishCipher(key);
+        cipher = INITIAL_CIPHER;
     }
 
     /**
@@ -57,27 +70,35 @@ public class CryptEngine
 
     /**
      * Decrypt given data
-     * @param data byte array to be decrypted
-     * @param offset byte array offset
-     * @param length byte array length
+     * @param buf buffer to be decrypted
+     * @param offset absolute buffer index
+     * @param length data length
      * @return true, if decrypted packet has valid checksum, false overwise
      */
-    public boolean decrypt(byte[] data, int offset, int length)
+    public boolean decrypt(ByteBuffer buf, int offset, int length)
     {
-        cipher.decipher(data, offset, length);
+        cipher.decipher(buf, offset, length);
 
-        return verifyChecksum(data, offset, length);
+        ByteOrder order = buf.order();
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        boolean valid = verifyChecksum(buf, offset, length);
+        buf.order(order);
+
+        return valid;
     }
 
     /**
-     * Encrypt given data
-     * @param data byte array to be encrypted
-     * @param offset byte array offset
-     * @param length byte array length
-     * @return length of encrypted byte array
+     * Encrypt given data. Encrypted packet is longer than given data, buffer limit must allow it.
+     * @param buf buffer to be encrypted
+     * @param offset absolute buffer index
+     * @param length data length
+     * @return length of encrypted data
      */
-    public int encrypt(byte[] data, int offset, int length)
+    public int encrypt(ByteBuffer buf, int offset, int length)
     {
+        ByteOrder order = buf.order();
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+
         length += 4;
 
         // the key is not updated, so the first packet should be encrypted with initial key
@@ -85,124 +106,91 @@ public class CryptEngine
         {
             length += 4;
             length += 8 - length % 8;
-            encXORPass(data, offset, length, Rnd.nextInt());
-            cipher.cipher(data, offset, length);
-            cipher.updateKey(key);
+            encXORPass(buf, offset, length, Rnd.nextInt());
+            cipher.cipher(buf, offset, length);
+            cipher = new BlowfishCipher(key);
             updatedKey = true;
         }
         else
         {
             length += 8 - length % 8;
-            appendChecksum(data, offset, length);
-            cipher.cipher(data, offset, length);
+            appendChecksum(buf, offset, length);
+            cipher.cipher(buf, offset, length);
         }
 
+        buf.order(order);
+
         return length;
     }
 
     /**
      * Verify checksum in a packet
-     * @param data byte array - encrypted packet
-     * @param offset byte array offset
-     * @param length byte array size
+     * @param buf buffer with decrypted packet [little endian]
+     * @param offset absolute buffer index
+     * @param length data length
      * @return true, if checksum is ok, false overwise
      */
-    private boolean verifyChecksum(byte[] data, int offset, int length)
+    private boolean verifyChecksum(ByteBuffer buf, int offset, int length)
     {
         if ((length & 3) != 0 || (length <= 4))
         {
             return false;
         }
 
-        long chksum = 0;
-        int  count  = length - 4;
-        long check;
-        int  i;
+        int chksum = 0;
+        int count  = offset + length - 4;
 
-        for (i = offset; i < count; i += 4)
+        for (int i = offset; i < count; i += 4)
         {
-            check  = data[i] & 0xff;
-            check  |= data[i + 1] << 8 & 0xff00;
-            check  |= data[i + 2] << 0x10 & 0xff0000;
-            check  |= data[i + 3] << 0x18 & 0xff000000;
-            chksum ^= check;
+            chksum ^= buf.getInt(i);
         }
 
-        check = data[i] & 0xff;
-        check |= data[i + 1] << 8 & 0xff00;
-        check |= data[i + 2] << 0x10 & 0xff0000;
-        check |= data[i + 3] << 0x18 & 0xff000000;
-        check = data[i] & 0xff;
-        check |= data[i + 1] << 8 & 0xff00;
-        check |= data[i + 2] << 0x10 & 0xff0000;
-        check |= data[i + 3] << 0x18 & 0xff000000;
-
         return 0 == chksum;
     }
 
     /**
      * add checksum to the end of the packet
-     * @param raw byte array - encrypted packet
-     * @param offset byte array offset
-     * @param length byte array size
+     * @param buf buffer with packet [little endian]
+     * @param offset absolute buffer index
+     * @param length data length
      */
-    private void appendChecksum(byte[] raw, int offset, int length)
+    private void appendChecksum(ByteBuffer buf, int offset, int length)
     {
-        long chksum = 0;
-        int  count  = length - 4;
-        long ecx;
-        int  i;
+        int chksum = 0;
+        int count  = offset + length - 4;
+        int i;
 
         for (i = offset; i < count; i += 4)
         {
-            ecx    = raw[i] & 0xff;
-            ecx    |= raw[i + 1] << 8 & 0xff00;
-            ecx    |= raw[i + 2] << 0x10 & 0xff0000;
-            ecx    |= raw[i + 3] << 0x18 & 0xff000000;
-            chksum ^= ecx;
+            chksum ^= buf.getInt(i);
         }
 
-        ecx        = raw[i] & 0xff;
-        ecx        |= raw[i + 1] << 8 & 0xff00;
-        ecx        |= raw[i + 2] << 0x10 & 0xff0000;
-        ecx        |= raw[i + 3] << 0x18 & 0xff000000;
-        raw[i]     = (byte) (chksum & 0xff);
-        raw[i + 1] = (byte) (chksum >> 0x08 & 0xff);
-        raw[i + 2] = (byte) (chksum >> 0x10 & 0xff);
-        raw[i + 3] = (byte) (chksum >> 0x18 & 0xff);
+        buf.putInt(i, chksum);
     }
 
     /**
      * First packet encryption with XOR key (integer - 4 bytes)
-     * @param data byte array to be encrypted
-     * @param offset byte array offset
-     * @param length byte array length
+     * @param buf buffer with packet [little endian]
+     * @param offset absolute buffer index
+     * @param length data length
      * @param key integer value as key
      */
-    private void encXORPass(byte[] data, int offset, int length, int key)
+    private void encXORPass(ByteBuffer buf, int offset, int length, int key)
     {
-        int stop = length - 8;
+        int stop = offset + length - 8;
         int pos  = 4 + offset;
         int edx;
         int ecx = key;
 
         while (pos < stop)
         {
-            edx         = (data[pos] & 0xFF);
-            edx         |= (data[pos + 1] & 0xFF) << 8;
-            edx         |= (data[pos + 2] & 0xFF) << 16;
-            edx         |= (data[pos + 3] & 0xFF) << 24;
-            ecx         += edx;
-            edx         ^= ecx;
-            data[pos++] = (byte) (edx & 0xFF);
-            data[pos++] = (byte) (edx >> 8 & 0xFF);
-            data[pos++] = (byte) (edx >> 16 & 0xFF);
-            data[pos++] = (byte) (edx >> 24 & 0xFF);
+            edx = buf.getInt(pos);
+            ecx += edx;
+            edx ^= ecx;
+            buf.putInt(pos, edx);
+            pos += 4;
         }
 
-        data[pos++] = (byte) (ecx & 0xFF);
-        data[pos++] = (byte) (ecx >> 8 & 0xFF);
-        data[pos++] = (byte) (ecx >> 16 & 0xFF);
-        data[pos]   = (byte) (ecx >> 24 & 0xFF);
+        buf.putInt(pos, ecx);
     }
 }
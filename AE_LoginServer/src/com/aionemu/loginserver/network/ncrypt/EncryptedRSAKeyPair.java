@@ -18,9 +18,12 @@
 package com.aionemu.loginserver.network.ncrypt;
 
 import java.math.BigInteger;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.interfaces.RSAPublicKey;
 
+import javax.crypto.Cipher;
+
 /**
  * This class is for storing standard RSA Public/Static keyPairs
  * The main difference that N (Modulus) is encrypted to be transfered
@@ -36,6 +39,12 @@ public class EncryptedRSAKeyPair
 	private KeyPair RSAKeyPair;
 	private byte[]	encryptedModulus;
 
+	/**
+	 * RSA cipher initialized with private key of this pair - one per thread, as Cipher is not thread safe and
+	 * getInstance() + init() is much more expensive than decryption itself.
+	 */
+	private final ThreadLocal<Cipher>	rsaCipher	= new ThreadLocal<Cipher>();
+
     /**
      * Default constructor. Stores RSA key pair and encrypts rsa modulus N 
      * @param RSAKeyPair standard RSA KeyPair generated
@@ -91,6 +100,26 @@ public class EncryptedRSAKeyPair
 		return encryptedModulus;
 	}
 
+    /**
+     * Decrypt data with private key of this pair, using cipher cached for current thread.
+     * @param data encrypted data
+     * @param offset offset of encrypted block in data
+     * @param length length of encrypted block
+     * @return decrypted block
+     * @throws GeneralSecurityException
+     */
+	public byte[] decrypt(byte[] data, int offset, int length) throws GeneralSecurityException
+	{
+		Cipher cipher = rsaCipher.get();
+		if(cipher == null)
+		{
+			cipher = Cipher.getInstance("RSA/ECB/nopadding");
+			cipher.init(Cipher.DECRYPT_MODE, RSAKeyPair.getPrivate());
+			rsaCipher.set(cipher);
+		}
+		return cipher.doFinal(data, offset, length);
+	}
+
     /**
      * Get default RSA key pair
      * @return
@@ -17,15 +17,13 @@
 
 package com.aionemu.loginserver.network.ncrypt;
 
-import com.aionemu.commons.utils.Rnd;
+import com.aionemu.loginserver.configs.Config;
 import org.apache.log4j.Logger;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import java.security.GeneralSecurityException;
-import java.security.KeyPairGenerator;
-import java.security.spec.RSAKeyGenParameterSpec;
 
 /**
  * Key generator. It generates keys or keyPairs for Blowfish and RSA
@@ -46,9 +44,9 @@ public class KeyGen
 	private static KeyGenerator		blowfishKeyGen;
 
 	/**
-	 *  Public/Static RSA KeyPairs with encrypted modulus N
+	 *  Pool of Public/Static RSA KeyPairs with encrypted modulus N
 	 */
-	private static EncryptedRSAKeyPair[] encryptedRSAKeyPairs;
+	private static RSAKeyPairPool		rsaKeyPairPool;
 
     /**
 	 * Initialize Key Generator (Blowfish keygen and RSA keygen)
@@ -61,23 +59,15 @@ public class KeyGen
 
 		blowfishKeyGen = KeyGenerator.getInstance("Blowfish");
 
-		KeyPairGenerator		rsaKeyPairGenerator = KeyPairGenerator.getInstance("RSA");
-
-		RSAKeyGenParameterSpec	spec                = new RSAKeyGenParameterSpec(1024, RSAKeyGenParameterSpec.F4);
-
-		rsaKeyPairGenerator.initialize(spec);
-
-		encryptedRSAKeyPairs = new EncryptedRSAKeyPair[10];
-
-		for(int i = 0; i < 10; i++)
-		{
-			encryptedRSAKeyPairs[i] = new EncryptedRSAKeyPair(rsaKeyPairGenerator.generateKeyPair());
-		}
+		// Only one pair is generated here, rest of the pool is filled by background thread
+		rsaKeyPairPool = new RSAKeyPairPool(Config.RSA_KEYPAIR_POOL_SIZE, Config.RSA_KEYPAIR_ROTATION_INTERVAL,
+			Config.RSA_KEYPAIR_ROTATION_USES);
+		rsaKeyPairPool.start();
 
 		// Pre-init RSA cipher.. saving about 300ms
 		Cipher	rsaCipher = Cipher.getInstance("RSA/ECB/nopadding");
 
-		rsaCipher.init(Cipher.DECRYPT_MODE, encryptedRSAKeyPairs[0].getRSAKeyPair().getPrivate());
+		rsaCipher.init(Cipher.DECRYPT_MODE, rsaKeyPairPool.get().getRSAKeyPair().getPrivate());
 	}
 
 	/**
@@ -96,6 +86,15 @@ public class KeyGen
 	 */
 	public static EncryptedRSAKeyPair getEncryptedRSAKeyPair()
 	{
-		return encryptedRSAKeyPairs[Rnd.nextInt(10)];
+		return rsaKeyPairPool.get();
+	}
+
+	/**
+	 * Get pool of RSA Public/Static Key Pairs
+	 * @return
+	 */
+	public static RSAKeyPairPool getRSAKeyPairPool()
+	{
+		return rsaKeyPairPool;
 	}
 }
@@ -0,0 +1,322 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.loginserver.network.ncrypt;
+
+import java.lang.management.ManagementFactory;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.spec.RSAKeyGenParameterSpec;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+import com.aionemu.commons.utils.Rnd;
+
+/**
+ * Ring of ready RSA key pairs. Pool is created with one pair, remaining slots are filled by low priority background
+ * thread and after that the oldest pair is replaced by fresh one every rotation interval or as soon as pool handed out
+ * given number of pairs since last rotation - so key pair generation is never done on the accept path and one pair is
+ * not used forever.
+ * 
+ * @author agent
+ */
+public final class RSAKeyPairPool implements RSAKeyPairPoolMBean
+{
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger								log						= Logger.getLogger(RSAKeyPairPool.class);
+
+	/**
+	 * Key pair generator - used only by generator thread after pool was created.
+	 */
+	private final KeyPairGenerator							rsaKeyPairGenerator;
+
+	/**
+	 * Ready key pairs.
+	 */
+	private final AtomicReferenceArray<EncryptedRSAKeyPair>	ring;
+
+	/**
+	 * Number of filled slots of ring [they are filled from 0].
+	 */
+	private volatile int									depth;
+
+	/**
+	 * Slot that will be replaced by next generated pair [the oldest one when ring is full]. Generator thread only.
+	 */
+	private int												next;
+
+	/**
+	 * Time between rotations in nanoseconds.
+	 */
+	private final long										rotationInterval;
+
+	/**
+	 * Number of handed out pairs after which rotation is done before rotation interval elapsed.
+	 */
+	private final int										rotationUses;
+
+	/**
+	 * Pairs handed out since last rotation.
+	 */
+	private final AtomicInteger								usesSinceRotation		= new AtomicInteger();
+
+	/**
+	 * Number of generated pairs.
+	 */
+	private final AtomicLong								generated				= new AtomicLong();
+
+	/**
+	 * Total time of pairs generation in nanoseconds.
+	 */
+	private final AtomicLong								generationTime			= new AtomicLong();
+
+	/**
+	 * Number of pairs replaced by fresh ones.
+	 */
+	private final AtomicLong								rotated					= new AtomicLong();
+
+	/**
+	 * Number of handed out pairs.
+	 */
+	private final AtomicLong								issued					= new AtomicLong();
+
+	/**
+	 * Creation time of this pool.
+	 */
+	private final long										startTime				= System.nanoTime();
+
+	/**
+	 * Generator thread.
+	 */
+	private volatile Thread									generatorThread;
+
+	/**
+	 * Creates pool and generates its first key pair. Generator thread is not started until {@link #start()} is called.
+	 * 
+	 * @param size
+	 *            number of ready pairs
+	 * @param rotationInterval
+	 *            seconds between rotations of the oldest pair
+	 * @param rotationUses
+	 *            number of handed out pairs after which the oldest pair is rotated before rotation interval elapsed
+	 * @throws GeneralSecurityException
+	 */
+	public RSAKeyPairPool(int size, int rotationInterval, int rotationUses) throws GeneralSecurityException
+	{
+		rsaKeyPairGenerator = KeyPairGenerator.getInstance("RSA");
+		rsaKeyPairGenerator.initialize(new RSAKeyGenParameterSpec(1024, RSAKeyGenParameterSpec.F4));
+
+		this.ring = new AtomicReferenceArray<EncryptedRSAKeyPair>(Math.max(1, size));
+		this.rotationInterval = TimeUnit.SECONDS.toNanos(Math.max(1, rotationInterval));
+		this.rotationUses = rotationUses > 0 ? rotationUses : Integer.MAX_VALUE;
+
+		ring.set(0, generate());
+		next = 1 % ring.length();
+		depth = 1;
+	}
+
+	/**
+	 * Start generator thread.
+	 */
+	public void start()
+	{
+		Thread t = new Thread(new Generator(), "RSAKeyPairPool");
+		t.setDaemon(true);
+		t.setPriority(Thread.MIN_PRIORITY);
+		generatorThread = t;
+		t.start();
+	}
+
+	/**
+	 * Registers RSAKeyPairPool MBean in platform MBeanServer.
+	 * 
+	 * @param domain
+	 *            JMX domain [ie application name]
+	 */
+	public void register(String domain)
+	{
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+				new ObjectName(domain + ":type=RSAKeyPairPool"));
+		}
+		catch(Exception e)
+		{
+			log.warn("Can't register RSAKeyPairPool MBean", e);
+		}
+	}
+
+	/**
+	 * Returns random ready key pair.
+	 * 
+	 * @return key pair
+	 */
+	public EncryptedRSAKeyPair get()
+	{
+		EncryptedRSAKeyPair pair = ring.get(Rnd.nextInt(depth));
+		issued.incrementAndGet();
+		if(usesSinceRotation.incrementAndGet() == rotationUses)
+		{
+			Thread t = generatorThread;
+			if(t != null)
+				LockSupport.unpark(t);
+		}
+		return pair;
+	}
+
+	/**
+	 * Generates new key pair.
+	 * 
+	 * @return key pair
+	 */
+	private EncryptedRSAKeyPair generate()
+	{
+		long start = System.nanoTime();
+		EncryptedRSAKeyPair pair = new EncryptedRSAKeyPair(rsaKeyPairGenerator.generateKeyPair());
+		generationTime.addAndGet(System.nanoTime() - start);
+		generated.incrementAndGet();
+		return pair;
+	}
+
+	/**
+	 * Waits until rotation interval elapsed or pool handed out enough pairs.
+	 */
+	private void awaitRotation()
+	{
+		long deadline = System.nanoTime() + rotationInterval;
+		for(;;)
+		{
+			long remaining = deadline - System.nanoTime();
+			if(remaining <= 0 || usesSinceRotation.get() >= rotationUses)
+				break;
+			LockSupport.parkNanos(this, remaining);
+		}
+		usesSinceRotation.set(0);
+	}
+
+	/**
+	 * Fills ring and then rotates its pairs.
+	 */
+	private final class Generator implements Runnable
+	{
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run()
+		{
+			for(;;)
+			{
+				try
+				{
+					boolean full = depth == ring.length();
+					if(full)
+						awaitRotation();
+
+					ring.set(next, generate());
+					next = (next + 1) % ring.length();
+
+					if(full)
+						rotated.incrementAndGet();
+					else if(++depth == ring.length())
+					{
+						usesSinceRotation.set(0);
+						log.info("RSA key pair pool filled with " + depth + " key pairs.");
+					}
+				}
+				catch(Throwable e)
+				{
+					log.error("Error while generating RSA key pair", e);
+					LockSupport.parkNanos(rotationInterval);
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPoolSize()
+	{
+		return ring.length();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPoolDepth()
+	{
+		return depth;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getGeneratedPairs()
+	{
+		return generated.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getRotatedPairs()
+	{
+		return rotated.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getIssuedPairs()
+	{
+		return issued.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getGenerationMeanMillis()
+	{
+		long count = generated.get();
+		return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(generationTime.get() / count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getGenerationRatePerMinute()
+	{
+		double minutes = (System.nanoTime() - startTime) / (double) TimeUnit.MINUTES.toNanos(1);
+		return minutes <= 0 ? 0 : generated.get() / minutes;
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.loginserver.network.ncrypt;
+
+/**
+ * JMX view of {@link RSAKeyPairPool}.
+ * 
+ * @author agent
+ */
+public interface RSAKeyPairPoolMBean
+{
+	/**
+	 * @return number of slots of the pool.
+	 */
+	public int getPoolSize();
+
+	/**
+	 * @return number of ready key pairs.
+	 */
+	public int getPoolDepth();
+
+	/**
+	 * @return number of generated key pairs.
+	 */
+	public long getGeneratedPairs();
+
+	/**
+	 * @return number of key pairs replaced by fresh ones.
+	 */
+	public long getRotatedPairs();
+
+	/**
+	 * @return number of key pairs handed out to connections.
+	 */
+	public long getIssuedPairs();
+
+	/**
+	 * @return mean time of key pair generation.
+	 */
+	public long getGenerationMeanMillis();
+
+	/**
+	 * @return number of key pairs generated per minute since pool was created.
+	 */
+	public double getGenerationRatePerMinute();
+}
@@ -34,7 +34,27 @@ public class AccountUtils
 	/**
 	 * Logger :)
 	 */
-	private static final Logger	log	= Logger.getLogger(AccountUtils.class);
+	private static final Logger						log			= Logger.getLogger(AccountUtils.class);
+
+	/**
+	 * SHA-1 MessageDigest of current thread - creating new one for every password is much more expensive than hashing.
+	 */
+	private static final ThreadLocal<MessageDigest>	sha1Digest	= new ThreadLocal<MessageDigest>()
+	{
+		@Override
+		protected MessageDigest initialValue()
+		{
+			try
+			{
+				return MessageDigest.getInstance("SHA-1");
+			}
+			catch (NoSuchAlgorithmException e)
+			{
+				log.error("Exception while encoding password");
+				throw new Error(e);
+			}
+		}
+	};
 
 	/**
 	 * Encodes password. SHA-1 is used to encode password bytes, Base64 wraps SHA1-hash to string.
@@ -47,14 +67,8 @@ public class AccountUtils
 	{
 		try
 		{
-			MessageDigest messageDiegest = MessageDigest.getInstance("SHA-1");
-			messageDiegest.update(password.getBytes("UTF-8"));
-			return Base64.encodeToString(messageDiegest.digest(), false);
-		}
-		catch (NoSuchAlgorithmException e)
-		{
-			log.error("Exception while encoding password");
-			throw new Error(e);
+			/* digest() resets MessageDigest, so it can be reused */
+			return Base64.encodeToString(sha1Digest.get().digest(password.getBytes("UTF-8")), false);
 		}
 		catch (UnsupportedEncodingException e)
 		{
@@ -16,6 +16,7 @@
  */
 package com.aionemu.loginserver.utils;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
@@ -29,6 +30,7 @@ import org.apache.log4j.Logger;
 import com.aionemu.commons.network.DisconnectionTask;
 import com.aionemu.commons.network.DisconnectionThreadPool;
 import com.aionemu.commons.utils.ScheduledThreadPoolExecutorAE;
+import com.aionemu.loginserver.configs.Config;
 
 /**
  * @author -Nemesiss-
@@ -57,6 +59,10 @@ public class ThreadPoolManager implements DisconnectionThreadPool
 	 * TPE for execution of gameserver client packets
 	 */
 	private ThreadPoolExecutor				gameServerPacketsThreadPool;
+	/**
+	 * TPE for RSA decryption and checking of client login data
+	 */
+	private ThreadPoolExecutor				loginCryptoThreadPool;
 
 	/**
 	 * @return ThreadPoolManager instance.
@@ -83,6 +89,11 @@ public class ThreadPoolManager implements DisconnectionThreadPool
 			new LinkedBlockingQueue<Runnable>(), new PriorityThreadFactory("Game Server Packet Pool",
 				Thread.NORM_PRIORITY + 3));
 
+		int loginCryptoThreads = Config.LOGIN_CRYPTO_THREADS > 0 ? Config.LOGIN_CRYPTO_THREADS : Runtime.getRuntime()
+			.availableProcessors();
+		loginCryptoThreadPool = new ThreadPoolExecutor(loginCryptoThreads, loginCryptoThreads, 0L,
+			TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(Math.max(1, Config.LOGIN_CRYPTO_QUEUE)),
+			new PriorityThreadFactory("Login Crypto Pool", Thread.NORM_PRIORITY));
 	}
 
 	/**
@@ -145,6 +156,25 @@ public class ThreadPoolManager implements DisconnectionThreadPool
 		gameServerPacketsThreadPool.execute(pkt);
 	}
 
+	/**
+	 * Executes Runnable - decryption and check of client login data.
+	 * 
+	 * @param task
+	 * @return false if task was rejected because login crypto pool is overloaded or stopped.
+	 */
+	public boolean executeLoginCrypto(Runnable task)
+	{
+		try
+		{
+			loginCryptoThreadPool.execute(task);
+			return true;
+		}
+		catch (RejectedExecutionException e)
+		{
+			return false;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -231,8 +261,10 @@ public class ThreadPoolManager implements DisconnectionThreadPool
 		{
 			scheduledThreadPool.shutdown();
 			gameServerPacketsThreadPool.shutdown();
+			loginCryptoThreadPool.shutdown();
 			scheduledThreadPool.awaitTermination(2, TimeUnit.SECONDS);
 			gameServerPacketsThreadPool.awaitTermination(2, TimeUnit.SECONDS);
+			loginCryptoThreadPool.awaitTermination(2, TimeUnit.SECONDS);
 			log.info("All ThreadPools are now stopped");
 		}
 		catch (InterruptedException e)
@@ -0,0 +1,112 @@
+/*
+ * This file is part of aion-emu <aion-emu.com>.
+ *
+ *  aion-emu is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  aion-emu is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with aion-emu.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aionemu.loginserver.controller;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.aionemu.commons.utils.NetworkUtils;
+import com.aionemu.loginserver.model.BannedIP;
+
+public class BannedIpIndexTest
+{
+	private static BannedIP ban(String mask, Timestamp timeEnd)
+	{
+		BannedIP ban = new BannedIP();
+		ban.setMask(mask);
+		ban.setTimeEnd(timeEnd);
+		return ban;
+	}
+
+	private static boolean isBanned(BannedIpIndex index, String ip)
+	{
+		return index.isBanned(NetworkUtils.parseIp(ip));
+	}
+
+	@Test
+	public void testMatchesLikeCheckIPMatching()
+	{
+		String[] masks = { "10.2.88.12", "10.2.88.13-125", "192.168.*.*", "172.16", "10.*.5.*", "200.1-3.*.7" };
+		String[] ips = { "10.2.88.12", "10.2.88.13", "10.2.88.126", "192.168.200.1", "172.16.0.1", "172.17.0.1",
+			"10.99.5.1", "10.99.6.1", "200.2.9.7", "200.2.9.8", "200.4.9.7", "1.2.3.4" };
+
+		List<BannedIP> bans = new ArrayList<BannedIP>();
+		for(String mask : masks)
+			bans.add(ban(mask, null));
+		BannedIpIndex index = new BannedIpIndex(bans, System.currentTimeMillis());
+
+		for(String ip : ips)
+		{
+			boolean expected = false;
+			for(String mask : masks)
+				expected |= NetworkUtils.checkIPMatching(mask, ip);
+			Assert.assertEquals(ip, expected, isBanned(index, ip));
+		}
+	}
+
+	@Test
+	public void testMergedRanges()
+	{
+		List<BannedIP> bans = new ArrayList<BannedIP>();
+		bans.add(ban("10.0.0.0-100", null));
+		bans.add(ban("10.0.0.50-200", null));
+		bans.add(ban("10.0.0.201", null));
+		bans.add(ban("10.0.1.*", null));
+		BannedIpIndex index = new BannedIpIndex(bans, System.currentTimeMillis());
+
+		Assert.assertTrue(isBanned(index, "10.0.0.0"));
+		Assert.assertTrue(isBanned(index, "10.0.0.201"));
+		Assert.assertFalse(isBanned(index, "10.0.0.202"));
+		Assert.assertTrue(isBanned(index, "10.0.1.255"));
+		Assert.assertFalse(isBanned(index, "10.0.2.0"));
+		Assert.assertFalse(isBanned(index, "9.255.255.255"));
+	}
+
+	@Test
+	public void testExpiredBans()
+	{
+		long now = System.currentTimeMillis();
+		List<BannedIP> bans = new ArrayList<BannedIP>();
+		bans.add(ban("1.1.1.1", new Timestamp(now - 1000)));
+		bans.add(ban("2.2.2.2", new Timestamp(now + 1000)));
+		bans.add(ban("3.3.3.3", new Timestamp(now + 5000)));
+		BannedIpIndex index = new BannedIpIndex(bans, now);
+
+		Assert.assertFalse(isBanned(index, "1.1.1.1"));
+		Assert.assertTrue(isBanned(index, "2.2.2.2"));
+		Assert.assertEquals(now + 1000, index.getNextExpiry());
+
+		index = new BannedIpIndex(bans, now + 1000);
+		Assert.assertFalse(isBanned(index, "2.2.2.2"));
+		Assert.assertTrue(isBanned(index, "3.3.3.3"));
+		Assert.assertEquals(now + 5000, index.getNextExpiry());
+	}
+
+	@Test
+	public void testInvalidAddress()
+	{
+		Assert.assertEquals(-1, NetworkUtils.parseIp("1.2.3"));
+		Assert.assertEquals(-1, NetworkUtils.parseIp("1.2.3.256"));
+		Assert.assertEquals(-1, NetworkUtils.parseIp("1..3.4"));
+		Assert.assertEquals(-1, NetworkUtils.parseIp("1.2.3.4.5"));
+		Assert.assertEquals(0xffffffffL, NetworkUtils.parseIp("255.255.255.255"));
+	}
+}
@@ -17,11 +17,15 @@
 
 package com.aionemu.loginserver.network.ncrypt;
 
+import junit.framework.Assert;
 import junit.framework.TestCase;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.security.NoSuchAlgorithmException;
 import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Simple test to check blowfish cipher encryption and decryption results.
@@ -60,6 +64,40 @@ public class BlowfishCipherTest
         }
     }
 
+    @Test
+    public void testByteBufferCipher()
+    {
+        Random			rnd    = new Random(1);
+        BlowfishCipher	cipher = new BlowfishCipher(INITIAL_KEY);
+        byte[]			data   = new byte[200];
+
+        rnd.nextBytes(data);
+
+        byte[]		expected = data.clone();
+        ByteBuffer	heap     = ByteBuffer.wrap(data.clone());
+        ByteBuffer	direct   = ByteBuffer.allocateDirect(data.length);
+
+        direct.put(data).clear();
+
+        cipher.cipher(expected, 3, 192);
+        cipher.cipher(heap, 3, 192);
+        cipher.cipher(direct, 3, 192);
+
+        byte[] result = new byte[data.length];
+
+        direct.get(result);
+        Assert.assertTrue(Arrays.equals(expected, heap.array()));
+        Assert.assertTrue(Arrays.equals(expected, result));
+        Assert.assertEquals(0, heap.position());
+
+        cipher.decipher(heap, 3, 192);
+        direct.clear();
+        cipher.decipher(direct, 3, 192);
+        direct.get(result);
+        Assert.assertTrue(Arrays.equals(data, heap.array()));
+        Assert.assertTrue(Arrays.equals(data, result));
+    }
+
     @Test
     public void testBlowfishKeygenPerformance()
     {